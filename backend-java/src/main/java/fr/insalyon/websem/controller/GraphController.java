@@ -0,0 +1,60 @@
+package fr.insalyon.websem.controller;
+
+import fr.insalyon.websem.dto.GraphNode;
+import fr.insalyon.websem.service.MovieGraphService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/graph")
+public class GraphController {
+
+    @Autowired
+    private MovieGraphService movieGraphService;
+
+    /**
+     * Voisinage à k sauts d'un film, d'un acteur ou d'un réalisateur.
+     */
+    @GetMapping("/neighbourhood")
+    public ResponseEntity<List<GraphNode>> getNeighbourhood(@RequestParam String uri,
+                                                            @RequestParam(defaultValue = "2") int hops,
+                                                            @RequestParam(defaultValue = "200") int limit) {
+        if (!movieGraphService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return orNotFound(movieGraphService.neighbourhood(uri, hops, limit));
+    }
+
+    /**
+     * Degrés de séparation : plus court chemin entre deux personnes (ou films).
+     */
+    @GetMapping("/path")
+    public ResponseEntity<List<GraphNode>> getShortestPath(@RequestParam String from,
+                                                           @RequestParam String to,
+                                                           @RequestParam(defaultValue = "12") int maxHops) {
+        if (!movieGraphService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return orNotFound(movieGraphService.shortestPath(from, to, maxHops));
+    }
+
+    /**
+     * Acteurs ayant le plus de films en commun avec une personne.
+     */
+    @GetMapping("/co-stars")
+    public ResponseEntity<List<GraphNode>> getTopCoStars(@RequestParam String uri,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        if (!movieGraphService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return orNotFound(movieGraphService.topCoStars(uri, limit));
+    }
+
+    private static ResponseEntity<List<GraphNode>> orNotFound(List<GraphNode> nodes) {
+        return nodes == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(nodes);
+    }
+}
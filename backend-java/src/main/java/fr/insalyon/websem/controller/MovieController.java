@@ -1,20 +1,38 @@
 package fr.insalyon.websem.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.insalyon.websem.dto.MovieDetailsResponse;
 import fr.insalyon.websem.dto.MovieFilterRequest;
-import fr.insalyon.websem.dto.MovieFilterRequest;
+import fr.insalyon.websem.dto.MoviePage;
+import fr.insalyon.websem.dto.SimilarMoviesRequest;
+import fr.insalyon.websem.index.SubjectIndex;
 import fr.insalyon.websem.model.Actor;
-import fr.insalyon.websem.model.Genre;
 import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.MicroBatcher;
+import fr.insalyon.websem.service.MovieCatalogService;
+import fr.insalyon.websem.service.MovieDetailsService;
 import fr.insalyon.websem.service.MovieExplorationSPARQLService;
+import fr.insalyon.websem.service.ResponseCacheService;
 import fr.insalyon.websem.service.SparqlCacheService;
 import fr.insalyon.websem.service.MovieSimilarityService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/movies")
@@ -29,26 +47,247 @@ public class MovieController {
     @Autowired
     private MovieSimilarityService MovieSimilarityService;
 
+    @Autowired
+    private MovieCatalogService movieCatalogService;
+
+    @Autowired
+    private MovieDetailsService movieDetailsService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ResponseCacheService responseCache;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /** Nombre maximal de films transmis par un flux de recherche */
+    private static final int MAX_STREAM_RESULTS = 1000;
+
+    /** Nombre maximal de films de référence d'une recommandation multi-films */
+    private static final int MAX_SIMILAR_SEEDS = 50;
+
    
 
+    /**
+     * Recherche de films.
+     * mode=title : correspondance sur le titre via SPARQL (par défaut)
+     * mode=text : recherche plein texte BM25 sur résumé, description et subjects (catalogue en mémoire)
+     */
     @GetMapping("/search")
-    public ResponseEntity<List<Movie>> searchMovies(@RequestParam String query) {
+    public ResponseEntity<byte[]> searchMovies(@RequestParam String query,
+                                               @RequestParam(defaultValue = "title") String mode,
+                                               @RequestParam(defaultValue = "20") int limit,
+                                               WebRequest request) {
 
-         System.out.println(">>> searchMovies called with query = " + query);
+         System.out.println(">>> searchMovies called with query = " + query + ", mode = " + mode);
 
         if (query == null || query.trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
-        
-        List<Movie> movies = MovieExplorationSPARQLService.searchMovies(query);
 
-        System.out.println(" Found " + movies.size() + " movies");
-        
-        return ResponseEntity.ok(movies);
+        if ("text".equalsIgnoreCase(mode)) {
+            if (!movieCatalogService.isReady()) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            // La date de chargement du catalogue fait partie de la clé : un rechargement invalide les réponses
+            long loadedAt = movieCatalogService.getCatalog().getLoadedAt();
+            int size = clampPageSize(limit);
+            return cachedJson(responseKey("search", "text", loadedAt, size, query), request,
+                    () -> movieCatalogService.searchByText(query, size));
+        }
+        return cachedJson(responseKey("search", "title", query), request,
+                () -> MovieExplorationSPARQLService.searchMovies(query));
+    }
+
+    /**
+     * Réponse JSON servie depuis le cache des réponses sérialisées, avec un ETag fort.
+     * Si le client a déjà cette version (If-None-Match), la réponse est un 304 sans corps.
+     */
+    private ResponseEntity<byte[]> cachedJson(String key, WebRequest request, Supplier<?> producer) {
+        ResponseCacheService.CachedResponse cached = responseCache.get(key, producer);
+        if (request.checkNotModified(cached.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.getEtag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(cached.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cached.getBody());
+    }
+
+    private static String responseKey(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            key.append(part).append('\u001F');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Recherche par titre paginée par curseur (ordre stable par URI).
+     * Passer le nextCursor de la réponse pour obtenir la page suivante.
+     */
+    @GetMapping("/search/page")
+    public ResponseEntity<MoviePage> searchMoviesPage(@RequestParam String query,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int size) {
+        if (query == null || query.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(MovieExplorationSPARQLService.searchMoviesPage(query, cursor, clampPageSize(size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Recherche par titre en flux NDJSON : un film JSON par ligne, envoyé dès qu'il est lu,
+     * pour que le client affiche les premières lignes pendant que les suivantes arrivent.
+     */
+    @GetMapping(value = "/search/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSearchMovies(@RequestParam String query,
+                                                                    @RequestParam(defaultValue = "200") int max,
+                                                                    @RequestParam(defaultValue = "50") int size) {
+        if (query == null || query.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = (OutputStream out) -> {
+            try {
+                MovieExplorationSPARQLService.streamSearchMovies(query, clampPageSize(size),
+                        Math.max(1, Math.min(max, MAX_STREAM_RESULTS)), ndjsonWriter(out));
+            } catch (UncheckedIOException e) {
+                // Client déconnecté : on arrête simplement le flux
+                System.err.println("Flux de recherche interrompu : " + e.getMessage());
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Recherche avancée SPARQL paginée par curseur (ordre stable par URI).
+     */
+    @PostMapping("/search-advanced/page")
+    public ResponseEntity<MoviePage> searchMoviesAdvancedPage(@RequestBody MovieFilterRequest filters,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(MovieExplorationSPARQLService.searchMoviesWithFiltersPage(
+                filters.getTitle(),
+                filters.getLanguage(),
+                filters.getCountry(),
+                filters.getDirector(),
+                filters.getProducer(),
+                filters.getYearFrom(),
+                filters.getYearTo(),
+                filters.getDistributor(),
+                cursor,
+                clampPageSize(size)
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Films d'une décennie paginés par curseur (année décroissante, puis URI).
+     */
+    @GetMapping("/by-decade")
+    public ResponseEntity<MoviePage> getMoviesByDecade(@RequestParam int startYear,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(MovieExplorationSPARQLService.getMoviesByDecadePage(
+                    startYear, startYear + 10, cursor, clampPageSize(size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Extraction complète d'une décennie en flux NDJSON, sans plafond de résultats.
+     * Les années sont moissonnées en parallèle et chaque film n'est envoyé qu'une fois.
+     */
+    @GetMapping(value = "/by-decade/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMoviesByDecade(@RequestParam int startYear) {
+        StreamingResponseBody body = (OutputStream out) -> {
+            try {
+                MovieExplorationSPARQLService.harvestMoviesByDecade(startYear, startYear + 10, ndjsonWriter(out));
+            } catch (UncheckedIOException e) {
+                System.err.println("Flux de la décennie interrompu : " + e.getMessage());
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
+    /**
+     * Écrit chaque film sur une ligne JSON et vide le tampon aussitôt.
+     */
+    private Consumer<Movie> ndjsonWriter(OutputStream out) {
+        return movie -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(movie));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Recherche avancée.
+     * Avec facets=true, la réponse contient aussi le total et le nombre de films
+     * par langue, pays, réalisateur, producteur, distributeur et décennie.
+     */
     @PostMapping("/search-advanced")
-    public ResponseEntity<List<Movie>> searchMoviesAdvanced(@RequestBody MovieFilterRequest filters) {
+    public ResponseEntity<?> searchMoviesAdvanced(@RequestBody MovieFilterRequest filters,
+                                                  @RequestParam(defaultValue = "false") boolean facets,
+                                                  @RequestParam(defaultValue = "10") int facetLimit) {
+        // Moteur de facettes en mémoire dès que le catalogue est chargé, SPARQL sinon
+        if (facets) {
+            if (!movieCatalogService.isReady()) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            return ResponseEntity.ok(movieCatalogService.searchWithFacets(
+                filters.getTitle(),
+                filters.getLanguage(),
+                filters.getCountry(),
+                filters.getDirector(),
+                filters.getProducer(),
+                filters.getYearFrom(),
+                filters.getYearTo(),
+                filters.getDistributor(),
+                20,
+                facetLimit
+            ));
+        }
+
+        if (movieCatalogService.isReady()) {
+            return ResponseEntity.ok(movieCatalogService.searchWithFilters(
+                filters.getTitle(),
+                filters.getLanguage(),
+                filters.getCountry(),
+                filters.getDirector(),
+                filters.getProducer(),
+                filters.getYearFrom(),
+                filters.getYearTo(),
+                filters.getDistributor(),
+                20
+            ));
+        }
+
         List<Movie> movies = MovieExplorationSPARQLService.searchMoviesWithFilters(
             filters.getTitle(),
             filters.getLanguage(),
@@ -66,47 +305,106 @@ public class MovieController {
     public ResponseEntity<Map<String, Object>> getCacheInfo() {
         Map<String, Object> info = new HashMap<>();
         info.put("cacheSize", cacheService.getCacheSizeInMB());
+        info.put("compression", cacheService.getCompressionStats());
         info.put("message", "Taille du cache SPARQL");
         return ResponseEntity.ok(info);
     }
     
+    /**
+     * Mesures détaillées du cache, sans parcours du disque : par tier et par famille de requêtes
+     * (succès, échecs, latence de chargement, tailles d'entrées), évictions par cause, clés chaudes.
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(cacheService.getStats());
+        stats.put("responses", responseCache.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
     @DeleteMapping("/cache/clear")
     public ResponseEntity<Map<String, String>> clearCache() {
         cacheService.clearCache();
+        responseCache.invalidateAll();
         Map<String, String> response = new HashMap<>();
         response.put("message", "Cache nettoyé avec succès");
         response.put("status", "success");
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Invalide les seules entrées de cache (requêtes SPARQL, réponses) qui contiennent
+     * un film ou une personne, par exemple après une correction de ses données.
+     */
+    @DeleteMapping("/cache/resource")
+    public ResponseEntity<Map<String, Object>> invalidateResource(@RequestParam String uri) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("sparqlEntries", cacheService.invalidateResource(uri));
+        response.put("responses", responseCache.invalidateResource(uri));
+        response.put("status", "success");
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/catalog/info")
+    public ResponseEntity<Map<String, Object>> getCatalogInfo() {
+        Map<String, Object> info = new HashMap<>();
+        info.put("films", movieCatalogService.getCatalog().size());
+        info.put("terms", movieCatalogService.getCatalog().getTextIndex().getTermCount());
+        info.put("loadedAt", movieCatalogService.getCatalog().getLoadedAt());
+        info.put("loading", movieCatalogService.isLoading());
+        return ResponseEntity.ok(info);
+    }
+
+    /**
+     * Métriques du regroupement des recherches par URI (taille des lots, attente).
+     */
+    @GetMapping("/batch/info")
+    public ResponseEntity<MicroBatcher.BatchStats> getBatchInfo() {
+        return ResponseEntity.ok(MovieExplorationSPARQLService.getMovieLoader().getStats());
+    }
+
+    @PostMapping("/catalog/refresh")
+    public ResponseEntity<Map<String, String>> refreshCatalog() {
+        Map<String, String> response = new HashMap<>();
+        if (movieCatalogService.refresh()) {
+            response.put("message", "Catalogue rechargé avec succès");
+            response.put("status", "success");
+            return ResponseEntity.ok(response);
+        }
+        response.put("message", "Échec ou chargement déjà en cours");
+        response.put("status", "error");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
     @GetMapping("/recent-by-director")
     public List<Movie> getRecentMoviesByDirector(
             @RequestParam String directorUri,
-            @RequestParam(defaultValue = "10") int limit
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) Integer fromYear,
+            @RequestParam(required = false) Integer toYear
     ) {
-        return MovieExplorationSPARQLService.getRecentMoviesByDirector(directorUri)
-                           .stream()
-                           .limit(limit)
-                           .toList();
+        return movieCatalogService.getRecentMoviesByDirector(directorUri, limit, fromYear, toYear);
     }
 
     @GetMapping("/top-actors-by-movie")
     public List<Actor> getTopActorsByMovie(@RequestParam String movieUri) {
-        return MovieExplorationSPARQLService.getTopActorsByMovie(movieUri);
+        return movieCatalogService.getTopActorsByMovie(movieUri);
     }
 
     @GetMapping("/distribution-by-year")
-    public List<Genre> getGenreDistributionByYear(@RequestParam String year) {
-        return MovieExplorationSPARQLService.getAllNormalizedGenresByYear(year);
+    public ResponseEntity<byte[]> getGenreDistributionByYear(@RequestParam String year, WebRequest request) {
+        return cachedJson(responseKey("distribution-by-year", year), request,
+                () -> MovieExplorationSPARQLService.getAllNormalizedGenresByYear(year));
     }
 
     @GetMapping("/top-budget-by-year")
-    public List<Movie> getTopBudgetByYear(@RequestParam String year) {
-        return MovieExplorationSPARQLService.getTopBudgetMoviesByYear(year);
+    public ResponseEntity<byte[]> getTopBudgetByYear(@RequestParam String year, WebRequest request) {
+        return cachedJson(responseKey("top-budget-by-year", year), request,
+                () -> MovieExplorationSPARQLService.getTopBudgetMoviesByYear(year));
     }
 
     @GetMapping("/similar")
-    public ResponseEntity<List<Movie>> getSimilarMovies(@RequestParam String uri, @RequestParam(defaultValue = "20") int limit
+    public ResponseEntity<List<Movie>> getSimilarMovies(@RequestParam String uri, @RequestParam(defaultValue = "20") int limit,
+                                                        @RequestParam(required = false) Integer yearWindow
     ) {
         if (uri == null || uri.trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
@@ -125,10 +423,69 @@ public class MovieController {
         System.out.println(" Found target movie: " + targetMovie.getTitle() + " - Release Date: " + targetMovie.getReleaseDate());
 
         // Appel du service de similarité
-        List<Movie> similarMovies = MovieSimilarityService.getSimilarMovies(targetMovie, limit);
+        List<Movie> similarMovies = MovieSimilarityService.getSimilarMovies(targetMovie, clampPageSize(limit), yearWindow);
 
         System.out.println(" Found " + similarMovies.size() + " similar movies");
         return ResponseEntity.ok(similarMovies);
     }
 
+    /**
+     * Recommandations "dans la lignée de ces films" à partir d'une liste de films,
+     * calculées en une seule passe sur l'union des candidats.
+     */
+    @PostMapping("/similar/multi")
+    public ResponseEntity<List<Movie>> getSimilarToMovies(@RequestBody SimilarMoviesRequest request) {
+        if (request.getUris() == null || request.getUris().isEmpty()
+                || request.getUris().size() > MAX_SIMILAR_SEEDS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Un film par URI, à la même position que son poids (null si introuvable)
+        List<Movie> seeds = MovieSimilarityService.resolveMovies(request.getUris());
+        if (seeds.stream().allMatch(Objects::isNull)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        int limit = request.getLimit() == null ? 20 : clampPageSize(request.getLimit());
+        return ResponseEntity.ok(MovieSimilarityService.getSimilarMovies(seeds, limit,
+                SubjectIndex.Aggregation.parse(request.getAggregation()), request.getWeights()));
+    }
+
+    /**
+     * Fiche complète d'un film en un seul appel : film, acteurs principaux, derniers films
+     * du réalisateur et films similaires, calculés en parallèle.
+     * Les parties trop lentes sont listées dans missingParts et renvoyées vides.
+     *
+     * @param uri nom de la ressource DBpedia (ex: Inception) ou URI complète encodée
+     */
+    @GetMapping("/{uri}/details")
+    public ResponseEntity<MovieDetailsResponse> getMovieDetails(@PathVariable String uri,
+                                                                @RequestParam(defaultValue = "10") int directorLimit,
+                                                                @RequestParam(defaultValue = "20") int similarLimit) {
+        String movieUri = uri.startsWith("http") ? uri : "http://dbpedia.org/resource/" + uri.replace(' ', '_');
+        return movieDetails(movieUri, directorLimit, similarLimit);
+    }
+
+    /**
+     * Variante de /{uri}/details avec l'URI en paramètre, pour les URI contenant des « / ».
+     */
+    @GetMapping("/details")
+    public ResponseEntity<MovieDetailsResponse> getMovieDetailsByUri(@RequestParam String uri,
+                                                                     @RequestParam(defaultValue = "10") int directorLimit,
+                                                                     @RequestParam(defaultValue = "20") int similarLimit) {
+        return movieDetails(uri, directorLimit, similarLimit);
+    }
+
+    private ResponseEntity<MovieDetailsResponse> movieDetails(String uri, int directorLimit, int similarLimit) {
+        if (uri == null || uri.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        MovieDetailsResponse details = movieDetailsService.getDetails(uri, directorLimit, clampPageSize(similarLimit));
+        if (details == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(details);
+    }
+
 }
@@ -0,0 +1,20 @@
+package fr.insalyon.websem.dto;
+
+import fr.insalyon.websem.model.Movie;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdvancedSearchResponse {
+    private List<Movie> movies;
+    // Nombre total de films correspondant aux filtres
+    private int total;
+    // Facette (language, country, director, producer, distributor, decade) → valeur → nombre de films
+    private Map<String, Map<String, Integer>> facets;
+}
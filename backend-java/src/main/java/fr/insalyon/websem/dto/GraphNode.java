@@ -0,0 +1,21 @@
+package fr.insalyon.websem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GraphNode {
+    private String uri;
+    private String name;
+    // film, actor, director ou actor-director
+    private String type;
+    // Distance au nœud de départ (position dans le chemin pour /path)
+    private int depth;
+    // Nœud par lequel celui-ci a été atteint (null pour le départ)
+    private String via;
+    // Nombre de films en commun (pour /co-stars)
+    private int weight;
+}
@@ -0,0 +1,24 @@
+package fr.insalyon.websem.dto;
+
+import fr.insalyon.websem.model.Actor;
+import fr.insalyon.websem.model.Movie;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieDetailsResponse {
+    private Movie movie;
+    private List<Actor> topActors;
+    private List<Movie> directorMovies;
+    private List<Movie> similarMovies;
+    // Parties (actors, director, similar) non obtenues dans le délai imparti ou en échec
+    private List<String> missingParts;
+    // Durée de chaque partie en millisecondes
+    private Map<String, Long> timings;
+}
@@ -0,0 +1,17 @@
+package fr.insalyon.websem.dto;
+
+import fr.insalyon.websem.model.Movie;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoviePage {
+    private List<Movie> movies;
+    // Curseur opaque de la page suivante, null si c'est la dernière page
+    private String nextCursor;
+}
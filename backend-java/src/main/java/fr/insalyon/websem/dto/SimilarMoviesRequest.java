@@ -0,0 +1,19 @@
+package fr.insalyon.websem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarMoviesRequest {
+    private List<String> uris;
+    // Poids de chaque film (agrégation "weighted"), dans l'ordre des URI
+    private List<Double> weights;
+    // min | mean | weighted
+    private String aggregation;
+    private Integer limit;
+}
@@ -0,0 +1,215 @@
+package fr.insalyon.websem.index;
+
+import java.util.*;
+
+/**
+ * Index des carrières d'acteurs, précalculé au chargement du catalogue.
+ *
+ * Chaque acteur reçoit un ordinal dense. Les distributions (film → acteurs) et
+ * les carrières (acteur → films) sont stockées en tableaux compacts
+ * (offsets + valeurs), et le film le plus rentable de chaque acteur est
+ * calculé une fois pour toutes : le top des acteurs d'un film se réduit à une
+ * lecture de la distribution puis de deux tableaux, sans requête SPARQL.
+ */
+public final class ActorCareerIndex {
+
+    private static final ActorCareerIndex EMPTY = builder().build(0);
+
+    private final String[] actorUris;
+    private final String[] actorNames;
+    private final Map<String, Integer> ordinalsByUri;
+
+    // film → acteurs
+    private final int[] castOffsets;
+    private final int[] castActors;
+
+    // acteur → films
+    private final int[] careerOffsets;
+    private final int[] careerFilms;
+
+    // recettes par film (NaN si inconnues), film le plus rentable par acteur (-1 si aucun)
+    private final double[] filmGross;
+    private final int[] topFilms;
+    private final double[] topGross;
+
+    private ActorCareerIndex(String[] actorUris, String[] actorNames, Map<String, Integer> ordinalsByUri,
+                             int[] castOffsets, int[] castActors, int[] careerOffsets, int[] careerFilms,
+                             double[] filmGross, int[] topFilms, double[] topGross) {
+        this.actorUris = actorUris;
+        this.actorNames = actorNames;
+        this.ordinalsByUri = ordinalsByUri;
+        this.castOffsets = castOffsets;
+        this.castActors = castActors;
+        this.careerOffsets = careerOffsets;
+        this.careerFilms = careerFilms;
+        this.filmGross = filmGross;
+        this.topFilms = topFilms;
+        this.topGross = topGross;
+    }
+
+    public static ActorCareerIndex empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int actorCount() {
+        return actorUris.length;
+    }
+
+    /**
+     * @return ordinal de l'acteur, ou -1 s'il est inconnu
+     */
+    public int actorOrdinal(String uri) {
+        Integer ordinal = uri == null ? null : ordinalsByUri.get(uri);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public String actorUri(int actor) {
+        return actorUris[actor];
+    }
+
+    public String actorName(int actor) {
+        return actorNames[actor];
+    }
+
+    public int castSize(int film) {
+        return film + 1 < castOffsets.length ? castOffsets[film + 1] - castOffsets[film] : 0;
+    }
+
+    public int castActor(int film, int i) {
+        return castActors[castOffsets[film] + i];
+    }
+
+    public int careerSize(int actor) {
+        return careerOffsets[actor + 1] - careerOffsets[actor];
+    }
+
+    public int careerFilm(int actor, int i) {
+        return careerFilms[careerOffsets[actor] + i];
+    }
+
+    /**
+     * @return recettes du film en dollars, NaN si inconnues
+     */
+    public double filmGross(int film) {
+        return film < filmGross.length ? filmGross[film] : Double.NaN;
+    }
+
+    /**
+     * @return ordinal du film le plus rentable de l'acteur, -1 si aucun film n'a de recettes connues
+     */
+    public int topFilm(int actor) {
+        return topFilms[actor];
+    }
+
+    /**
+     * @return recettes du film le plus rentable de l'acteur, NaN si aucune
+     */
+    public double topGross(int actor) {
+        return topGross[actor];
+    }
+
+    public int getCastingCount() {
+        return castActors.length;
+    }
+
+    /**
+     * Construction à partir des couples (film, acteur) et des recettes des films.
+     */
+    public static final class Builder {
+        private final List<String> actorUris = new ArrayList<>();
+        private final List<String> actorNames = new ArrayList<>();
+        private final Map<String, Integer> ordinalsByUri = new HashMap<>();
+        private final Set<Long> pairs = new HashSet<>();
+        private int[] pairFilms = new int[1024];
+        private int[] pairActors = new int[1024];
+        private int pairCount;
+        private double[] gross = new double[0];
+
+        private Builder() {
+        }
+
+        /**
+         * Ajoute un acteur à la distribution d'un film (les doublons sont ignorés).
+         */
+        public void addStarring(int film, String actorUri, String actorName) {
+            if (film < 0 || actorUri == null) return;
+
+            Integer actor = ordinalsByUri.get(actorUri);
+            if (actor == null) {
+                actor = actorUris.size();
+                actorUris.add(actorUri);
+                actorNames.add(actorName);
+                ordinalsByUri.put(actorUri, actor);
+            }
+            if (!pairs.add(((long) film << 32) | actor)) return;
+
+            if (pairCount == pairFilms.length) {
+                pairFilms = Arrays.copyOf(pairFilms, pairCount * 2);
+                pairActors = Arrays.copyOf(pairActors, pairCount * 2);
+            }
+            pairFilms[pairCount] = film;
+            pairActors[pairCount] = actor;
+            pairCount++;
+        }
+
+        public void setGross(int film, double value) {
+            if (film < 0) return;
+            if (film >= gross.length) {
+                int oldLength = gross.length;
+                gross = Arrays.copyOf(gross, Math.max(film + 1, oldLength * 2));
+                Arrays.fill(gross, oldLength, gross.length, Double.NaN);
+            }
+            gross[film] = value;
+        }
+
+        public ActorCareerIndex build(int catalogSize) {
+            int actorCount = actorUris.size();
+            double[] filmGross = new double[catalogSize];
+            Arrays.fill(filmGross, Double.NaN);
+            System.arraycopy(gross, 0, filmGross, 0, Math.min(gross.length, catalogSize));
+
+            int[] castOffsets = new int[catalogSize + 1];
+            int[] careerOffsets = new int[actorCount + 1];
+            for (int i = 0; i < pairCount; i++) {
+                castOffsets[pairFilms[i] + 1]++;
+                careerOffsets[pairActors[i] + 1]++;
+            }
+            for (int i = 0; i < catalogSize; i++) castOffsets[i + 1] += castOffsets[i];
+            for (int i = 0; i < actorCount; i++) careerOffsets[i + 1] += careerOffsets[i];
+
+            // Tri par comptage : chaque carrière garde l'ordre d'insertion (celui des films au chargement)
+            int[] castActors = new int[pairCount];
+            int[] careerFilms = new int[pairCount];
+            int[] castFill = Arrays.copyOf(castOffsets, catalogSize);
+            int[] careerFill = Arrays.copyOf(careerOffsets, actorCount);
+            for (int i = 0; i < pairCount; i++) {
+                castActors[castFill[pairFilms[i]]++] = pairActors[i];
+                careerFilms[careerFill[pairActors[i]]++] = pairFilms[i];
+            }
+
+            int[] topFilms = new int[actorCount];
+            double[] topGross = new double[actorCount];
+            for (int actor = 0; actor < actorCount; actor++) {
+                int best = -1;
+                double bestGross = Double.NaN;
+                for (int i = careerOffsets[actor]; i < careerOffsets[actor + 1]; i++) {
+                    double g = filmGross[careerFilms[i]];
+                    if (!Double.isNaN(g) && (best < 0 || g > bestGross)) {
+                        best = careerFilms[i];
+                        bestGross = g;
+                    }
+                }
+                topFilms[actor] = best;
+                topGross[actor] = bestGross;
+            }
+
+            return new ActorCareerIndex(actorUris.toArray(new String[0]), actorNames.toArray(new String[0]),
+                    new HashMap<>(ordinalsByUri), castOffsets, castActors, careerOffsets, careerFilms,
+                    filmGross, topFilms, topGross);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package fr.insalyon.websem.index;
+
+import fr.insalyon.websem.model.Movie;
+
+import java.util.*;
+
+/**
+ * Stockage compact des films du catalogue, en colonnes indexées par ordinal.
+ *
+ * Les valeurs qui se répètent d'un film à l'autre (pays, langues, réalisateurs,
+ * distributeurs, studios, subjects...) sont codées par un entier dans une table
+ * de chaînes partagée : chaque valeur distincte n'existe qu'une fois en mémoire.
+ * Les subjects d'un film sont un segment d'un tableau d'entiers (offsets + ids),
+ * l'année, la durée, le budget et les recettes des primitives.
+ *
+ * Les objets {@link Movie} ne sont créés qu'à la lecture, au moment de les
+ * renvoyer : chaque appel à {@link #movie(int)} renvoie une nouvelle instance.
+ */
+public final class CompactMovieStore {
+
+    private static final CompactMovieStore EMPTY = builder().build();
+
+    private static final int NONE = -1;
+
+    // Champs dont la valeur d'origine ne suit pas le format attendu (conservée telle quelle)
+    private static final int FIELD_YEAR = 0;
+    private static final int FIELD_RUNTIME = 1;
+    private static final int FIELD_GROSS = 2;
+    private static final int FIELD_BUDGET = 3;
+
+    private enum Column {
+        DIRECTOR, DIRECTOR_URI, COUNTRY, LANGUAGE, PRODUCER, EDITOR, STUDIO, MUSIC_COMPOSER, DISTRIBUTOR
+    }
+
+    private static final int COLUMN_COUNT = Column.values().length;
+
+    private final String[] uris;
+    private final String[] titles;
+    private final String[] descriptions;
+    private final String[] thumbnails;
+    private final String[] strings;
+    private final int[] columns;
+    private final short[] years;
+    private final int[] runtimes;
+    private final long[] grosses;
+    private final long[] budgets;
+    private final int[] subjectOffsets;
+    private final int[] subjectIds;
+    private final BitSet withoutSubjects;
+    private final Map<Long, String> irregular;
+
+    private CompactMovieStore(String[] uris, String[] titles, String[] descriptions, String[] thumbnails,
+                              String[] strings, int[] columns, short[] years, int[] runtimes, long[] grosses,
+                              long[] budgets, int[] subjectOffsets, int[] subjectIds, BitSet withoutSubjects,
+                              Map<Long, String> irregular) {
+        this.uris = uris;
+        this.titles = titles;
+        this.descriptions = descriptions;
+        this.thumbnails = thumbnails;
+        this.strings = strings;
+        this.columns = columns;
+        this.years = years;
+        this.runtimes = runtimes;
+        this.grosses = grosses;
+        this.budgets = budgets;
+        this.subjectOffsets = subjectOffsets;
+        this.subjectIds = subjectIds;
+        this.withoutSubjects = withoutSubjects;
+        this.irregular = irregular;
+    }
+
+    public static CompactMovieStore empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return uris.length;
+    }
+
+    public String uri(int ordinal) {
+        return uris[ordinal];
+    }
+
+    public String title(int ordinal) {
+        return titles[ordinal];
+    }
+
+    /**
+     * Nombre de valeurs distinctes de la table de chaînes partagée.
+     */
+    public int dictionarySize() {
+        return strings.length;
+    }
+
+    /**
+     * Reconstruit le film d'ordinal donné (nouvelle instance à chaque appel).
+     */
+    public Movie movie(int ordinal) {
+        Movie movie = new Movie();
+        movie.setUri(uris[ordinal]);
+        movie.setTitle(titles[ordinal]);
+        movie.setDescription(descriptions[ordinal]);
+        movie.setThumbnail(thumbnails[ordinal]);
+        movie.setDirector(column(ordinal, Column.DIRECTOR));
+        movie.setDirectorUri(column(ordinal, Column.DIRECTOR_URI));
+        movie.setCountry(column(ordinal, Column.COUNTRY));
+        movie.setLanguage(column(ordinal, Column.LANGUAGE));
+        movie.setProducer(column(ordinal, Column.PRODUCER));
+        movie.setEditor(column(ordinal, Column.EDITOR));
+        movie.setStudio(column(ordinal, Column.STUDIO));
+        movie.setMusicComposer(column(ordinal, Column.MUSIC_COMPOSER));
+        movie.setDistributor(column(ordinal, Column.DISTRIBUTOR));
+
+        movie.setReleaseDate(years[ordinal] > 0 ? String.valueOf(years[ordinal]) : irregular(ordinal, FIELD_YEAR));
+        movie.setRuntime(runtimes[ordinal] != NONE ? formatRuntime(runtimes[ordinal]) : irregular(ordinal, FIELD_RUNTIME));
+        movie.setGross(grosses[ordinal] != Long.MIN_VALUE ? formatCurrency(grosses[ordinal]) : irregular(ordinal, FIELD_GROSS));
+        movie.setBudget(budgets[ordinal] != Long.MIN_VALUE ? formatCurrency(budgets[ordinal]) : irregular(ordinal, FIELD_BUDGET));
+
+        if (!withoutSubjects.get(ordinal)) {
+            String[] subjects = new String[subjectOffsets[ordinal + 1] - subjectOffsets[ordinal]];
+            for (int i = 0; i < subjects.length; i++) {
+                subjects[i] = strings[subjectIds[subjectOffsets[ordinal] + i]];
+            }
+            movie.setSubjects(Arrays.asList(subjects));
+        }
+        return movie;
+    }
+
+    private String column(int ordinal, Column column) {
+        int id = columns[ordinal * COLUMN_COUNT + column.ordinal()];
+        return id == NONE ? null : strings[id];
+    }
+
+    private String irregular(int ordinal, int field) {
+        return irregular.isEmpty() ? null : irregular.get(irregularKey(ordinal, field));
+    }
+
+    private static long irregularKey(int ordinal, int field) {
+        return ((long) ordinal << 2) | field;
+    }
+
+    // Mêmes formats que ceux produits par MovieExplorationSPARQLService
+    private static String formatRuntime(int minutes) {
+        return minutes + " min";
+    }
+
+    private static String formatCurrency(long value) {
+        return String.format("$%,d", value);
+    }
+
+    /**
+     * Construction film par film ; les chaînes répétées sont dédupliquées au fil de l'eau.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final List<Movie> movies = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Ajoute un film ; son ordinal est son rang d'ajout.
+         */
+        public void add(Movie movie) {
+            movies.add(movie);
+        }
+
+        public CompactMovieStore build() {
+            int size = movies.size();
+            String[] uris = new String[size];
+            String[] titles = new String[size];
+            String[] descriptions = new String[size];
+            String[] thumbnails = new String[size];
+            int[] columns = new int[size * COLUMN_COUNT];
+            short[] years = new short[size];
+            int[] runtimes = new int[size];
+            long[] grosses = new long[size];
+            long[] budgets = new long[size];
+            int[] subjectOffsets = new int[size + 1];
+            BitSet withoutSubjects = new BitSet(size);
+            Map<Long, String> irregular = new HashMap<>();
+
+            int subjectCount = 0;
+            for (Movie movie : movies) {
+                if (movie.getSubjects() != null) subjectCount += movie.getSubjects().size();
+            }
+            int[] subjectIds = new int[subjectCount];
+
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                Movie movie = movies.get(ordinal);
+                uris[ordinal] = movie.getUri();
+                titles[ordinal] = movie.getTitle();
+                descriptions[ordinal] = movie.getDescription();
+                thumbnails[ordinal] = movie.getThumbnail();
+
+                int base = ordinal * COLUMN_COUNT;
+                // Les listes GROUP_CONCAT sont restituées au format d'affichage
+                columns[base + Column.DIRECTOR.ordinal()] = id(FacetIndex.display(movie.getDirector()));
+                columns[base + Column.DIRECTOR_URI.ordinal()] = id(FacetIndex.display(movie.getDirectorUri()));
+                columns[base + Column.COUNTRY.ordinal()] = id(FacetIndex.display(movie.getCountry()));
+                columns[base + Column.LANGUAGE.ordinal()] = id(FacetIndex.display(movie.getLanguage()));
+                columns[base + Column.PRODUCER.ordinal()] = id(FacetIndex.display(movie.getProducer()));
+                columns[base + Column.EDITOR.ordinal()] = id(FacetIndex.display(movie.getEditor()));
+                columns[base + Column.STUDIO.ordinal()] = id(FacetIndex.display(movie.getStudio()));
+                columns[base + Column.MUSIC_COMPOSER.ordinal()] = id(FacetIndex.display(movie.getMusicComposer()));
+                columns[base + Column.DISTRIBUTOR.ordinal()] = id(FacetIndex.display(movie.getDistributor()));
+
+                years[ordinal] = (short) encodeYear(movie.getReleaseDate());
+                if (years[ordinal] == 0) keepIrregular(irregular, ordinal, FIELD_YEAR, movie.getReleaseDate());
+                runtimes[ordinal] = encodeRuntime(movie.getRuntime());
+                if (runtimes[ordinal] == NONE) keepIrregular(irregular, ordinal, FIELD_RUNTIME, movie.getRuntime());
+                grosses[ordinal] = encodeCurrency(movie.getGross());
+                if (grosses[ordinal] == Long.MIN_VALUE) keepIrregular(irregular, ordinal, FIELD_GROSS, movie.getGross());
+                budgets[ordinal] = encodeCurrency(movie.getBudget());
+                if (budgets[ordinal] == Long.MIN_VALUE) keepIrregular(irregular, ordinal, FIELD_BUDGET, movie.getBudget());
+
+                int offset = subjectOffsets[ordinal];
+                if (movie.getSubjects() == null) {
+                    withoutSubjects.set(ordinal);
+                } else {
+                    for (String subject : movie.getSubjects()) {
+                        subjectIds[offset++] = id(subject);
+                    }
+                }
+                subjectOffsets[ordinal + 1] = offset;
+            }
+
+            return new CompactMovieStore(uris, titles, descriptions, thumbnails, strings.toArray(new String[0]),
+                    columns, years, runtimes, grosses, budgets, subjectOffsets,
+                    Arrays.copyOf(subjectIds, subjectOffsets[size]), withoutSubjects,
+                    irregular.isEmpty() ? Map.of() : irregular);
+        }
+
+        private int id(String value) {
+            if (value == null) return NONE;
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = strings.size();
+                ids.put(value, id);
+                strings.add(value);
+            }
+            return id;
+        }
+
+        private static void keepIrregular(Map<Long, String> irregular, int ordinal, int field, String value) {
+            if (value != null) irregular.put(irregularKey(ordinal, field), value);
+        }
+
+        // Chaque valeur n'est codée que si sa reconstruction redonne exactement la chaîne d'origine
+        private static int encodeYear(String releaseDate) {
+            if (releaseDate == null || releaseDate.length() != 4) return 0;
+            try {
+                int year = Integer.parseInt(releaseDate);
+                return year > 0 && String.valueOf(year).equals(releaseDate) ? year : 0;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        private static int encodeRuntime(String runtime) {
+            if (runtime == null || !runtime.endsWith(" min")) return NONE;
+            try {
+                int minutes = Integer.parseInt(runtime.substring(0, runtime.length() - 4));
+                return minutes >= 0 && formatRuntime(minutes).equals(runtime) ? minutes : NONE;
+            } catch (NumberFormatException e) {
+                return NONE;
+            }
+        }
+
+        private static long encodeCurrency(String currency) {
+            if (currency == null || !currency.startsWith("$")) return Long.MIN_VALUE;
+            try {
+                long value = Long.parseLong(currency.substring(1).replace(",", ""));
+                return value != Long.MIN_VALUE && formatCurrency(value).equals(currency) ? value : Long.MIN_VALUE;
+            } catch (NumberFormatException e) {
+                return Long.MIN_VALUE;
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package fr.insalyon.websem.index;
+
+import java.util.*;
+
+/**
+ * Filmographies des réalisateurs, triées par année décroissante.
+ *
+ * Chaque réalisateur reçoit un ordinal dense ; ses films (ordinaux du
+ * catalogue) sont rangés dans un tableau compact (offsets + films) avec
+ * l'année de chaque film dans un tableau parallèle. Une fenêtre d'années
+ * se résout par recherche dichotomique dans le segment du réalisateur.
+ * Seuls les films dont l'année est connue sont indexés.
+ */
+public final class DirectorFilmographyIndex {
+
+    private static final DirectorFilmographyIndex EMPTY = builder().build();
+
+    private final Map<String, Integer> directorsByUri;
+    private final int[] offsets;
+    private final int[] films;
+    private final short[] years;
+
+    private DirectorFilmographyIndex(Map<String, Integer> directorsByUri, int[] offsets, int[] films, short[] years) {
+        this.directorsByUri = directorsByUri;
+        this.offsets = offsets;
+        this.films = films;
+        this.years = years;
+    }
+
+    public static DirectorFilmographyIndex empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int directorCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return ordinal du réalisateur, ou -1 s'il est inconnu
+     */
+    public int directorOrdinal(String uri) {
+        Integer ordinal = uri == null ? null : directorsByUri.get(uri);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public int filmCount(int director) {
+        return offsets[director + 1] - offsets[director];
+    }
+
+    /**
+     * Films d'un réalisateur sortis entre deux années, du plus récent au plus ancien.
+     *
+     * @param director ordinal du réalisateur
+     * @param limit nombre maximal de films
+     * @param fromYear première année incluse
+     * @param toYear dernière année incluse
+     * @return ordinaux des films dans le catalogue
+     */
+    public int[] recent(int director, int limit, int fromYear, int toYear) {
+        int start = offsets[director];
+        int end = offsets[director + 1];
+
+        // premier film d'année <= toYear (les années sont décroissantes dans le segment)
+        int lo = start;
+        int hi = end;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (years[mid] > toYear) lo = mid + 1;
+            else hi = mid;
+        }
+
+        int count = 0;
+        while (lo + count < end && count < limit && years[lo + count] >= fromYear) {
+            count++;
+        }
+        return Arrays.copyOfRange(films, lo, lo + count);
+    }
+
+    public int year(int director, int i) {
+        return years[offsets[director] + i];
+    }
+
+    /**
+     * Construction à partir des couples (film, réalisateur, année).
+     */
+    public static final class Builder {
+        private final Map<String, Integer> directorsByUri = new HashMap<>();
+        private final Set<Long> pairs = new HashSet<>();
+        private int[] pairFilms = new int[1024];
+        private int[] pairDirectors = new int[1024];
+        private short[] pairYears = new short[1024];
+        private int pairCount;
+
+        private Builder() {
+        }
+
+        /**
+         * Ajoute un film à la filmographie d'un réalisateur ; ignoré si l'année est inconnue.
+         */
+        public void add(int film, String directorUri, int year) {
+            if (film < 0 || directorUri == null || directorUri.isEmpty() || year <= 0) return;
+
+            Integer director = directorsByUri.get(directorUri);
+            if (director == null) {
+                director = directorsByUri.size();
+                directorsByUri.put(directorUri, director);
+            }
+            if (!pairs.add(((long) film << 32) | director)) return;
+
+            if (pairCount == pairFilms.length) {
+                pairFilms = Arrays.copyOf(pairFilms, pairCount * 2);
+                pairDirectors = Arrays.copyOf(pairDirectors, pairCount * 2);
+                pairYears = Arrays.copyOf(pairYears, pairCount * 2);
+            }
+            pairFilms[pairCount] = film;
+            pairDirectors[pairCount] = director;
+            pairYears[pairCount] = (short) year;
+            pairCount++;
+        }
+
+        public DirectorFilmographyIndex build() {
+            int directorCount = directorsByUri.size();
+            int[] offsets = new int[directorCount + 1];
+            for (int i = 0; i < pairCount; i++) offsets[pairDirectors[i] + 1]++;
+            for (int i = 0; i < directorCount; i++) offsets[i + 1] += offsets[i];
+
+            // clé de tri : année décroissante puis ordinal croissant
+            long[] keys = new long[pairCount];
+            int[] fill = Arrays.copyOf(offsets, directorCount);
+            for (int i = 0; i < pairCount; i++) {
+                keys[fill[pairDirectors[i]]++] = ((long) (Short.MAX_VALUE - pairYears[i]) << 32) | pairFilms[i];
+            }
+
+            int[] films = new int[pairCount];
+            short[] years = new short[pairCount];
+            for (int d = 0; d < directorCount; d++) {
+                Arrays.sort(keys, offsets[d], offsets[d + 1]);
+                for (int i = offsets[d]; i < offsets[d + 1]; i++) {
+                    films[i] = (int) keys[i];
+                    years[i] = (short) (Short.MAX_VALUE - (int) (keys[i] >>> 32));
+                }
+            }
+            return new DirectorFilmographyIndex(new HashMap<>(directorsByUri), offsets, films, years);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package fr.insalyon.websem.index;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.*;
+
+/**
+ * Moteur de facettes en mémoire pour la recherche avancée.
+ *
+ * Pour chaque facette (langue, pays, réalisateur, producteur, distributeur),
+ * un dictionnaire associe chaque valeur distincte à un bitmap compressé
+ * (RoaringBitmap) des ordinaux de films. Les années sont stockées dans une
+ * colonne triée, ce qui transforme un intervalle d'années en recherche
+ * dichotomique. Une recherche avancée devient une intersection de bitmaps.
+ */
+public final class FacetIndex {
+
+    public enum Facet {
+        LANGUAGE, COUNTRY, DIRECTOR, PRODUCER, DISTRIBUTOR
+    }
+
+    /**
+     * Séparateur des listes de valeurs (GROUP_CONCAT) : contrairement à la virgule,
+     * il n'apparaît pas dans les libellés DBpedia (« Washington, D.C. », noms de studios...).
+     */
+    public static final String SEPARATOR = "|";
+
+    /**
+     * Découpe une liste de valeurs au format GROUP_CONCAT, sans les valeurs vides.
+     */
+    public static List<String> split(String values) {
+        if (values == null || values.isEmpty()) return List.of();
+
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        while (start <= values.length()) {
+            int end = values.indexOf(SEPARATOR, start);
+            if (end < 0) end = values.length();
+            String value = values.substring(start, end).trim();
+            if (!value.isEmpty()) result.add(value);
+            start = end + SEPARATOR.length();
+        }
+        return result;
+    }
+
+    /**
+     * Liste de valeurs au format d'affichage, séparées par des virgules (null si vide).
+     */
+    public static String display(String values) {
+        List<String> parts = split(values);
+        return parts.isEmpty() ? null : String.join(", ", parts);
+    }
+
+    private final EnumMap<Facet, Dictionary> dictionaries;
+    private final short[] years;
+    private final int[] ordinalsByYear;
+    private final short[] sortedYears;
+    private final RoaringBitmap all;
+    private final TreeMap<Integer, RoaringBitmap> decades = new TreeMap<>();
+
+    private FacetIndex(EnumMap<Facet, Dictionary> dictionaries, short[] years, int size) {
+        this.dictionaries = dictionaries;
+        this.years = years;
+
+        // Colonne des années triée : (année, ordinal) pour les films datés uniquement
+        long[] packed = new long[size];
+        int dated = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (years[ordinal] > 0) {
+                packed[dated++] = ((long) years[ordinal] << 32) | ordinal;
+            }
+        }
+        Arrays.sort(packed, 0, dated);
+        this.ordinalsByYear = new int[dated];
+        this.sortedYears = new short[dated];
+        for (int i = 0; i < dated; i++) {
+            ordinalsByYear[i] = (int) packed[i];
+            sortedYears[i] = (short) (packed[i] >>> 32);
+        }
+
+        this.all = new RoaringBitmap();
+        if (size > 0) all.add(0L, (long) size);
+
+        // Un bitmap par décennie, pour les comptages de facettes
+        for (int i = 0; i < dated; ) {
+            int decade = sortedYears[i] / 10 * 10;
+            int end = lowerBound(decade + 10);
+            decades.put(decade, yearRange(decade, decade + 9));
+            i = end;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Films correspondant à tous les critères (intersection des bitmaps).
+     *
+     * @param criteria valeur recherchée par facette (sous-chaîne, insensible à la casse)
+     * @param yearFrom année minimale incluse, ou null
+     * @param yearTo année maximale incluse, ou null
+     * @return bitmap des ordinaux de films (nouvelle instance, modifiable)
+     */
+    public RoaringBitmap filter(Map<Facet, String> criteria, Integer yearFrom, Integer yearTo) {
+        RoaringBitmap result = null;
+
+        for (Map.Entry<Facet, String> criterion : criteria.entrySet()) {
+            RoaringBitmap matches = match(criterion.getKey(), criterion.getValue());
+            result = result == null ? matches : RoaringBitmap.and(result, matches);
+            if (result.isEmpty()) return result;
+        }
+
+        if (yearFrom != null || yearTo != null) {
+            RoaringBitmap range = yearRange(yearFrom, yearTo);
+            result = result == null ? range : RoaringBitmap.and(result, range);
+        }
+
+        return result == null ? all.clone() : result;
+    }
+
+    /**
+     * Union des bitmaps des valeurs de la facette qui contiennent la chaîne recherchée,
+     * même sémantique que l'ancien FILTER(REGEX(..., "i")) sur l'endpoint.
+     */
+    public RoaringBitmap match(Facet facet, String needle) {
+        Dictionary dictionary = dictionaries.get(facet);
+        String normalized = normalize(needle);
+
+        List<RoaringBitmap> matches = new ArrayList<>();
+        for (int id = 0; id < dictionary.normalized.length; id++) {
+            if (dictionary.normalized[id].contains(normalized)) {
+                matches.add(dictionary.bitmaps[id]);
+            }
+        }
+        return RoaringBitmap.or(matches.iterator());
+    }
+
+    /**
+     * Films dont l'année est dans l'intervalle [from, to], via la colonne triée.
+     */
+    public RoaringBitmap yearRange(Integer from, Integer to) {
+        int lo = from == null ? 0 : lowerBound(from);
+        int hi = to == null ? sortedYears.length : lowerBound(to + 1);
+        RoaringBitmap range = new RoaringBitmap();
+        if (lo < hi) {
+            range.addN(sortedOrdinals(lo, hi), 0, hi - lo);
+        }
+        return range;
+    }
+
+    /**
+     * @return année du film, ou 0 si inconnue
+     */
+    public int year(int ordinal) {
+        return years[ordinal];
+    }
+
+    public int size() {
+        return years.length;
+    }
+
+    public int valueCount(Facet facet) {
+        return dictionaries.get(facet).labels.length;
+    }
+
+    /**
+     * Nombre de films par valeur de facette dans le résultat courant.
+     *
+     * Le coût est borné par min(|résultat|, nombre de valeurs) : si le résultat est
+     * petit, on le parcourt une fois via l'index direct film → valeurs ; sinon on
+     * calcule la cardinalité de l'intersection avec le bitmap de chaque valeur.
+     *
+     * @param result bitmap du résultat de la recherche
+     * @param topN nombre maximal de valeurs retournées
+     * @return valeur → nombre de films, par nombre décroissant
+     */
+    public Map<String, Integer> counts(Facet facet, RoaringBitmap result, int topN) {
+        Dictionary dictionary = dictionaries.get(facet);
+        int[] counts = new int[dictionary.labels.length];
+
+        if (result.getLongCardinality() <= counts.length) {
+            IntIterator it = result.getIntIterator();
+            while (it.hasNext()) {
+                int ordinal = it.next();
+                for (int i = dictionary.offsets[ordinal]; i < dictionary.offsets[ordinal + 1]; i++) {
+                    counts[dictionary.valueIds[i]]++;
+                }
+            }
+        } else {
+            for (int id = 0; id < counts.length; id++) {
+                counts[id] = RoaringBitmap.andCardinality(dictionary.bitmaps[id], result);
+            }
+        }
+
+        return top(dictionary.labels, counts, topN);
+    }
+
+    /**
+     * Nombre de films par décennie dans le résultat courant (ex: "1990s" → 42).
+     */
+    public Map<String, Integer> decadeCounts(RoaringBitmap result) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<Integer, RoaringBitmap> decade : decades.entrySet()) {
+            int count = RoaringBitmap.andCardinality(decade.getValue(), result);
+            if (count > 0) counts.put(decade.getKey() + "s", count);
+        }
+        return counts;
+    }
+
+    private static Map<String, Integer> top(String[] labels, int[] counts, int topN) {
+        // Tas min des topN meilleurs identifiants de valeur
+        PriorityQueue<Integer> heap = new PriorityQueue<>(
+                (a, b) -> counts[a] != counts[b] ? Integer.compare(counts[a], counts[b]) : Integer.compare(b, a));
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] == 0) continue;
+            heap.offer(id);
+            if (heap.size() > topN) heap.poll();
+        }
+
+        Integer[] best = heap.toArray(new Integer[0]);
+        Arrays.sort(best, heap.comparator().reversed());
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int id : best) {
+            result.put(labels[id], counts[id]);
+        }
+        return result;
+    }
+
+    private int[] sortedOrdinals(int lo, int hi) {
+        int[] slice = Arrays.copyOfRange(ordinalsByYear, lo, hi);
+        Arrays.sort(slice);
+        return slice;
+    }
+
+    private int lowerBound(int year) {
+        int lo = 0;
+        int hi = sortedYears.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedYears[mid] < year) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Dictionnaire d'une facette : identifiant de valeur → libellé et bitmap des films,
+     * plus l'index direct film → identifiants de valeur (offsets / valueIds).
+     */
+    private static final class Dictionary {
+        final Map<String, Integer> ids;
+        final String[] labels;
+        final String[] normalized;
+        final RoaringBitmap[] bitmaps;
+        final int[] offsets;
+        final int[] valueIds;
+
+        Dictionary(Map<String, Integer> ids, String[] labels, String[] normalized, RoaringBitmap[] bitmaps,
+                   int catalogSize) {
+            this.ids = ids;
+            this.labels = labels;
+            this.normalized = normalized;
+            this.bitmaps = bitmaps;
+
+            this.offsets = new int[catalogSize + 1];
+            for (RoaringBitmap bitmap : bitmaps) {
+                IntIterator it = bitmap.getIntIterator();
+                while (it.hasNext()) offsets[it.next() + 1]++;
+            }
+            for (int i = 0; i < catalogSize; i++) offsets[i + 1] += offsets[i];
+
+            this.valueIds = new int[offsets[catalogSize]];
+            int[] next = Arrays.copyOf(offsets, catalogSize);
+            for (int id = 0; id < bitmaps.length; id++) {
+                IntIterator it = bitmaps[id].getIntIterator();
+                while (it.hasNext()) valueIds[next[it.next()]++] = id;
+            }
+        }
+    }
+
+    /**
+     * Construction de l'index à partir des films du catalogue.
+     */
+    public static final class Builder {
+        private final EnumMap<Facet, Map<String, Integer>> ids = new EnumMap<>(Facet.class);
+        private final EnumMap<Facet, List<String>> labels = new EnumMap<>(Facet.class);
+        private final EnumMap<Facet, List<RoaringBitmap>> bitmaps = new EnumMap<>(Facet.class);
+        private short[] years = new short[1024];
+
+        private Builder() {
+            for (Facet facet : Facet.values()) {
+                ids.put(facet, new HashMap<>());
+                labels.put(facet, new ArrayList<>());
+                bitmaps.put(facet, new ArrayList<>());
+            }
+        }
+
+        /**
+         * Associe au film les valeurs d'une facette.
+         *
+         * @param values valeurs séparées par {@link #SEPARATOR} (format GROUP_CONCAT), null ignoré
+         */
+        public void add(int ordinal, Facet facet, String values) {
+            grow(ordinal);
+
+            for (String label : split(values)) {
+                String key = normalize(label);
+                Integer id = ids.get(facet).get(key);
+                if (id == null) {
+                    id = labels.get(facet).size();
+                    ids.get(facet).put(key, id);
+                    labels.get(facet).add(label);
+                    bitmaps.get(facet).add(new RoaringBitmap());
+                }
+                bitmaps.get(facet).get(id).add(ordinal);
+            }
+        }
+
+        public void setYear(int ordinal, int year) {
+            grow(ordinal);
+            if (year > 0 && year <= Short.MAX_VALUE) {
+                years[ordinal] = (short) year;
+            }
+        }
+
+        private void grow(int ordinal) {
+            if (ordinal < 0) return;
+            if (ordinal >= years.length) {
+                years = Arrays.copyOf(years, Math.max(ordinal + 1, years.length * 2));
+            }
+        }
+
+        /**
+         * @param catalogSize nombre de films du catalogue (les films sans facette restent vides)
+         */
+        public FacetIndex build(int catalogSize) {
+            grow(catalogSize - 1);
+            EnumMap<Facet, Dictionary> dictionaries = new EnumMap<>(Facet.class);
+            for (Facet facet : Facet.values()) {
+                List<String> facetLabels = labels.get(facet);
+                String[] normalized = new String[facetLabels.size()];
+                RoaringBitmap[] facetBitmaps = bitmaps.get(facet).toArray(new RoaringBitmap[0]);
+                for (int id = 0; id < normalized.length; id++) {
+                    normalized[id] = normalize(facetLabels.get(id));
+                    facetBitmaps[id].runOptimize();
+                }
+                dictionaries.put(facet, new Dictionary(new HashMap<>(ids.get(facet)),
+                        facetLabels.toArray(new String[0]), normalized, facetBitmaps, catalogSize));
+            }
+            return new FacetIndex(dictionaries, Arrays.copyOf(years, catalogSize), catalogSize);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package fr.insalyon.websem.index;
+
+import fr.insalyon.websem.model.Movie;
+
+import java.util.*;
+
+/**
+ * Instantané immuable du catalogue de films chargé en mémoire.
+ *
+ * Chaque film reçoit un ordinal dense (0..size-1) qui sert de clé
+ * à tous les index en mémoire construits à partir du catalogue.
+ */
+public final class MovieCatalog {
+
+    private static final MovieCatalog EMPTY = new MovieCatalog(CompactMovieStore.empty(), Map.of(), MovieTextIndex.empty(),
+            FacetIndex.builder().build(0), ActorCareerIndex.empty(), MovieGraph.empty(),
+            DirectorFilmographyIndex.empty(), SubjectIndex.empty(), SubjectEmbeddings.empty(), 0L);
+
+    private final CompactMovieStore movies;
+    private final Map<String, Integer> ordinalsByUri;
+    private final MovieTextIndex textIndex;
+    private final FacetIndex facetIndex;
+    private final ActorCareerIndex actorIndex;
+    private final MovieGraph graph;
+    private final DirectorFilmographyIndex directorIndex;
+    private final SubjectIndex subjectIndex;
+    private final SubjectEmbeddings embeddings;
+    private final long loadedAt;
+
+    private MovieCatalog(CompactMovieStore movies, Map<String, Integer> ordinalsByUri,
+                         MovieTextIndex textIndex, FacetIndex facetIndex, ActorCareerIndex actorIndex,
+                         MovieGraph graph, DirectorFilmographyIndex directorIndex, SubjectIndex subjectIndex,
+                         SubjectEmbeddings embeddings, long loadedAt) {
+        this.movies = movies;
+        this.ordinalsByUri = ordinalsByUri;
+        this.textIndex = textIndex;
+        this.facetIndex = facetIndex;
+        this.actorIndex = actorIndex;
+        this.graph = graph;
+        this.directorIndex = directorIndex;
+        this.subjectIndex = subjectIndex;
+        this.embeddings = embeddings;
+        this.loadedAt = loadedAt;
+    }
+
+    public static MovieCatalog empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean isEmpty() {
+        return movies.size() == 0;
+    }
+
+    public int size() {
+        return movies.size();
+    }
+
+    /**
+     * Film d'ordinal donné, reconstruit depuis le stockage compact (nouvelle instance à chaque appel).
+     */
+    public Movie get(int ordinal) {
+        return movies.movie(ordinal);
+    }
+
+    public String uri(int ordinal) {
+        return movies.uri(ordinal);
+    }
+
+    public String title(int ordinal) {
+        return movies.title(ordinal);
+    }
+
+    public CompactMovieStore getMovies() {
+        return movies;
+    }
+
+    /**
+     * @return ordinal du film, ou -1 s'il n'est pas dans le catalogue
+     */
+    public int ordinalOf(String uri) {
+        Integer ordinal = uri == null ? null : ordinalsByUri.get(uri);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public MovieTextIndex getTextIndex() {
+        return textIndex;
+    }
+
+    public FacetIndex getFacetIndex() {
+        return facetIndex;
+    }
+
+    public ActorCareerIndex getActorIndex() {
+        return actorIndex;
+    }
+
+    public MovieGraph getGraph() {
+        return graph;
+    }
+
+    public DirectorFilmographyIndex getDirectorIndex() {
+        return directorIndex;
+    }
+
+    public SubjectIndex getSubjectIndex() {
+        return subjectIndex;
+    }
+
+    public SubjectEmbeddings getEmbeddings() {
+        return embeddings;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Construction du catalogue, film par film, avec son index plein texte.
+     */
+    public static final class Builder {
+        private final List<Movie> movies = new ArrayList<>();
+        private final Map<String, Integer> ordinalsByUri = new HashMap<>();
+        private final MovieTextIndex.Builder textIndex = MovieTextIndex.builder();
+        private ActorCareerIndex.Builder actors = ActorCareerIndex.builder();
+        private int embeddingDimensions;
+
+        private Builder() {
+        }
+
+        /**
+         * Ajoute un film au catalogue et indexe ses textes.
+         *
+         * @param movie film (l'URI doit être renseignée)
+         * @param texts textes indexés en plus du titre, de la description et des subjects
+         * @return ordinal attribué, ou -1 si le film est déjà présent
+         */
+        public int add(Movie movie, String... texts) {
+            if (movie.getUri() == null || ordinalsByUri.containsKey(movie.getUri())) {
+                return -1;
+            }
+            int ordinal = movies.size();
+            movies.add(movie);
+            ordinalsByUri.put(movie.getUri(), ordinal);
+
+            String[] all = Arrays.copyOf(texts, texts.length + 3);
+            all[texts.length] = movie.getTitle();
+            all[texts.length + 1] = movie.getDescription();
+            all[texts.length + 2] = movie.getSubjects() == null ? null : String.join(" ", movie.getSubjects());
+            textIndex.add(ordinal, all);
+            return ordinal;
+        }
+
+        public int size() {
+            return movies.size();
+        }
+
+        /**
+         * Ajoute un acteur à la distribution d'un film déjà présent (ignoré sinon).
+         */
+        public void addStarring(String movieUri, String actorUri, String actorName) {
+            Integer ordinal = ordinalsByUri.get(movieUri);
+            if (ordinal != null) {
+                actors.addStarring(ordinal, actorUri, actorName);
+            }
+        }
+
+        /**
+         * Renseigne les recettes (en dollars) d'un film déjà présent (ignoré sinon).
+         */
+        public void setGross(String movieUri, double gross) {
+            Integer ordinal = ordinalsByUri.get(movieUri);
+            if (ordinal != null) {
+                actors.setGross(ordinal, gross);
+            }
+        }
+
+        /**
+         * Abandonne les distributions et recettes déjà ajoutées (chargement incomplet).
+         */
+        public void discardActors() {
+            actors = ActorCareerIndex.builder();
+        }
+
+        /**
+         * Calcule aussi les plongements denses des subjects, de la taille donnée (0 : aucun).
+         */
+        public void setEmbeddingDimensions(int dimensions) {
+            this.embeddingDimensions = dimensions;
+        }
+
+        public MovieCatalog build() {
+            FacetIndex.Builder facets = FacetIndex.builder();
+            SubjectIndex.Builder subjects = SubjectIndex.builder();
+            CompactMovieStore.Builder store = CompactMovieStore.builder();
+            for (int ordinal = 0; ordinal < movies.size(); ordinal++) {
+                Movie movie = movies.get(ordinal);
+                store.add(movie);
+                subjects.add(ordinal, movie.getSubjects());
+                facets.add(ordinal, FacetIndex.Facet.LANGUAGE, movie.getLanguage());
+                facets.add(ordinal, FacetIndex.Facet.COUNTRY, movie.getCountry());
+                facets.add(ordinal, FacetIndex.Facet.DIRECTOR, movie.getDirector());
+                facets.add(ordinal, FacetIndex.Facet.PRODUCER, movie.getProducer());
+                facets.add(ordinal, FacetIndex.Facet.DISTRIBUTOR, movie.getDistributor());
+                facets.setYear(ordinal, parseYear(movie.getReleaseDate()));
+            }
+
+            FacetIndex facetIndex = facets.build(movies.size());
+            ActorCareerIndex careers = actors.build(movies.size());
+            SubjectIndex subjectIndex = subjects.build(movies.size());
+            return new MovieCatalog(store.build(),
+                    new HashMap<>(ordinalsByUri), textIndex.build(), facetIndex,
+                    careers, buildGraph(careers), buildDirectorIndex(facetIndex), subjectIndex,
+                    SubjectEmbeddings.build(subjectIndex, embeddingDimensions), System.currentTimeMillis());
+        }
+
+        private DirectorFilmographyIndex buildDirectorIndex(FacetIndex facetIndex) {
+            DirectorFilmographyIndex.Builder directors = DirectorFilmographyIndex.builder();
+            for (int ordinal = 0; ordinal < movies.size(); ordinal++) {
+                for (String[] director : directors(movies.get(ordinal))) {
+                    directors.add(ordinal, director[0], facetIndex.year(ordinal));
+                }
+            }
+            return directors.build();
+        }
+
+        /**
+         * Graphe films / personnes : distributions de l'index des carrières et réalisateurs des films.
+         */
+        private MovieGraph buildGraph(ActorCareerIndex careers) {
+            MovieGraph.Builder graph = MovieGraph.builder();
+            for (int ordinal = 0; ordinal < movies.size(); ordinal++) {
+                for (String[] director : directors(movies.get(ordinal))) {
+                    graph.addEdge(ordinal, director[0], director[1], MovieGraph.ROLE_DIRECTOR);
+                }
+                for (int i = 0; i < careers.castSize(ordinal); i++) {
+                    int actor = careers.castActor(ordinal, i);
+                    graph.addEdge(ordinal, careers.actorUri(actor), careers.actorName(actor), MovieGraph.ROLE_ACTOR);
+                }
+            }
+            return graph.build(movies.size());
+        }
+
+        /**
+         * Réalisateurs d'un film sous forme de couples {URI, nom}. Les URI et les noms sont
+         * des listes GROUP_CONCAT ; le nom est déduit de l'URI si elles ne concordent pas.
+         */
+        private static List<String[]> directors(Movie movie) {
+            if (movie.getDirectorUri() == null || movie.getDirectorUri().isBlank()) {
+                return List.of();
+            }
+
+            List<String> uris = FacetIndex.split(movie.getDirectorUri());
+            List<String> names = FacetIndex.split(movie.getDirector());
+            List<String[]> directors = new ArrayList<>(uris.size());
+            for (int i = 0; i < uris.size(); i++) {
+                String uri = uris.get(i);
+                directors.add(new String[]{uri, names.size() == uris.size() ? names.get(i) : localName(uri)});
+            }
+            return directors;
+        }
+
+        private static String localName(String uri) {
+            return uri.substring(uri.lastIndexOf('/') + 1).replace('_', ' ');
+        }
+
+        private static int parseYear(String releaseDate) {
+            if (releaseDate == null || releaseDate.length() < 4) return 0;
+            try {
+                return Integer.parseInt(releaseDate.substring(0, 4));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package fr.insalyon.websem.index;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Graphe films / personnes (acteurs, réalisateurs) en mémoire, au format CSR.
+ *
+ * Les nœuds 0..filmCount-1 sont les films (mêmes ordinaux que le catalogue),
+ * les suivants les personnes. Chaque arête film–personne est stockée dans les
+ * deux sens dans un tableau de cibles indexé par un tableau d'offsets, avec le
+ * rôle de la personne dans le film. Les parcours (voisinage, plus court chemin,
+ * partenaires fréquents) n'utilisent que des tableaux d'entiers réutilisés
+ * d'une requête à l'autre, sans objet alloué par arête.
+ */
+public final class MovieGraph {
+
+    public static final byte ROLE_ACTOR = 1;
+    public static final byte ROLE_DIRECTOR = 2;
+
+    private static final MovieGraph EMPTY = builder().build(0);
+    private static final int MAX_POOLED = 4;
+
+    private final int filmCount;
+    private final String[] personUris;
+    private final String[] personNames;
+    private final byte[] personRoles;
+    private final Map<String, Integer> personsByUri;
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final byte[] roles;
+
+    // Tableaux de travail réutilisés entre requêtes (au plus MAX_POOLED conservés)
+    private final ConcurrentLinkedQueue<Workspace> workspaces = new ConcurrentLinkedQueue<>();
+
+    private MovieGraph(int filmCount, String[] personUris, String[] personNames, byte[] personRoles,
+                       Map<String, Integer> personsByUri, int[] offsets, int[] targets, byte[] roles) {
+        this.filmCount = filmCount;
+        this.personUris = personUris;
+        this.personNames = personNames;
+        this.personRoles = personRoles;
+        this.personsByUri = personsByUri;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.roles = roles;
+    }
+
+    public static MovieGraph empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int nodeCount() {
+        return offsets.length - 1;
+    }
+
+    public int edgeCount() {
+        return targets.length / 2;
+    }
+
+    public boolean isFilm(int node) {
+        return node < filmCount;
+    }
+
+    /**
+     * @return nœud de la personne, ou -1 si elle est inconnue
+     */
+    public int personNode(String uri) {
+        Integer person = uri == null ? null : personsByUri.get(uri);
+        return person == null ? -1 : filmCount + person;
+    }
+
+    public String personUri(int node) {
+        return personUris[node - filmCount];
+    }
+
+    public String personName(int node) {
+        return personNames[node - filmCount];
+    }
+
+    /**
+     * @return rôles de la personne sur l'ensemble des films (combinaison de ROLE_ACTOR et ROLE_DIRECTOR)
+     */
+    public byte personRoles(int node) {
+        return personRoles[node - filmCount];
+    }
+
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * Voisinage à k sauts, en largeur d'abord.
+     *
+     * @param source nœud de départ
+     * @param maxHops profondeur maximale
+     * @param maxNodes nombre maximal de nœuds renvoyés (source comprise)
+     */
+    public Traversal neighbourhood(int source, int maxHops, int maxNodes) {
+        Workspace ws = borrow();
+        try {
+            return neighbourhood(ws, source, maxHops, maxNodes);
+        } finally {
+            release(ws);
+        }
+    }
+
+    private Traversal neighbourhood(Workspace ws, int source, int maxHops, int maxNodes) {
+        int stamp = ws.nextStamp();
+        int[] queue = ws.queueA;
+        int[] depth = ws.depthA;
+        int[] parent = ws.parentA;
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        ws.seenA[source] = stamp;
+        depth[source] = 0;
+        parent[source] = -1;
+
+        while (head < tail && tail < maxNodes) {
+            int node = queue[head++];
+            if (depth[node] >= maxHops) break;
+            for (int e = offsets[node]; e < offsets[node + 1] && tail < maxNodes; e++) {
+                int next = targets[e];
+                if (ws.seenA[next] == stamp) continue;
+                ws.seenA[next] = stamp;
+                depth[next] = depth[node] + 1;
+                parent[next] = node;
+                queue[tail++] = next;
+            }
+        }
+
+        int[] nodes = Arrays.copyOf(queue, tail);
+        int[] depths = new int[tail];
+        int[] parents = new int[tail];
+        for (int i = 0; i < tail; i++) {
+            depths[i] = depth[nodes[i]];
+            parents[i] = parent[nodes[i]];
+        }
+        return new Traversal(nodes, depths, parents);
+    }
+
+    /**
+     * Plus court chemin entre deux nœuds, par parcours en largeur bidirectionnel
+     * (on étend toujours le front le plus petit).
+     *
+     * @param maxHops longueur maximale du chemin, en arêtes
+     * @return nœuds du chemin de from à to inclus, ou null si aucun chemin assez court
+     */
+    public int[] shortestPath(int from, int to, int maxHops) {
+        if (from == to) return new int[]{from};
+
+        Workspace ws = borrow();
+        try {
+            return shortestPath(ws, from, to, maxHops);
+        } finally {
+            release(ws);
+        }
+    }
+
+    private int[] shortestPath(Workspace ws, int from, int to, int maxHops) {
+        int stamp = ws.nextStamp();
+        ws.seenA[from] = stamp;
+        ws.parentA[from] = -1;
+        ws.seenB[to] = stamp;
+        ws.parentB[to] = -1;
+
+        // fronts courants : [startA, endA) et [startB, endB) dans les files
+        ws.queueA[0] = from;
+        ws.queueB[0] = to;
+        int startA = 0, endA = 1, startB = 0, endB = 1;
+
+        for (int hops = 0; hops < maxHops && startA < endA && startB < endB; hops++) {
+            boolean forward = (endA - startA) <= (endB - startB);
+            int[] queue = forward ? ws.queueA : ws.queueB;
+            int[] seen = forward ? ws.seenA : ws.seenB;
+            int[] parent = forward ? ws.parentA : ws.parentB;
+            int[] otherSeen = forward ? ws.seenB : ws.seenA;
+            int start = forward ? startA : startB;
+            int end = forward ? endA : endB;
+            int tail = end;
+
+            for (int i = start; i < end; i++) {
+                int node = queue[i];
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    int next = targets[e];
+                    if (seen[next] == stamp) continue;
+                    seen[next] = stamp;
+                    parent[next] = node;
+                    if (otherSeen[next] == stamp) {
+                        return joinPath(ws, next);
+                    }
+                    queue[tail++] = next;
+                }
+            }
+
+            if (forward) {
+                startA = end;
+                endA = tail;
+            } else {
+                startB = end;
+                endB = tail;
+            }
+        }
+        return null;
+    }
+
+    private int[] joinPath(Workspace ws, int meeting) {
+        int lengthA = 0;
+        for (int n = meeting; n != -1; n = ws.parentA[n]) lengthA++;
+        int lengthB = 0;
+        for (int n = ws.parentB[meeting]; n != -1; n = ws.parentB[n]) lengthB++;
+
+        int[] path = new int[lengthA + lengthB];
+        int i = lengthA - 1;
+        for (int n = meeting; n != -1; n = ws.parentA[n]) path[i--] = n;
+        i = lengthA;
+        for (int n = ws.parentB[meeting]; n != -1; n = ws.parentB[n]) path[i++] = n;
+        return path;
+    }
+
+    /**
+     * Personnes ayant le plus de films en commun avec une personne donnée.
+     *
+     * @param person nœud de la personne
+     * @param role rôle des partenaires comptés (ROLE_ACTOR pour les partenaires de jeu)
+     * @param limit nombre maximal de partenaires
+     * @return partenaires triés par nombre de films communs décroissant
+     */
+    public Ranking coStars(int person, byte role, int limit) {
+        Workspace ws = borrow();
+        try {
+            return coStars(ws, person, role, limit);
+        } finally {
+            release(ws);
+        }
+    }
+
+    private Ranking coStars(Workspace ws, int person, byte role, int limit) {
+        int stamp = ws.nextStamp();
+        int[] counts = ws.depthA;
+        int[] touched = ws.queueA;
+        int touchedCount = 0;
+
+        for (int e = offsets[person]; e < offsets[person + 1]; e++) {
+            int film = targets[e];
+            for (int f = offsets[film]; f < offsets[film + 1]; f++) {
+                int other = targets[f];
+                if (other == person || (roles[f] & role) == 0) continue;
+                if (ws.seenA[other] != stamp) {
+                    ws.seenA[other] = stamp;
+                    counts[other] = 0;
+                    touched[touchedCount++] = other;
+                }
+                counts[other]++;
+            }
+        }
+
+        // tri par (nombre décroissant, nœud croissant) sur des clés primitives
+        long[] keys = new long[touchedCount];
+        for (int i = 0; i < touchedCount; i++) {
+            keys[i] = ((long) (Integer.MAX_VALUE - counts[touched[i]]) << 32) | touched[i];
+        }
+        Arrays.sort(keys);
+
+        int size = Math.min(limit, touchedCount);
+        int[] nodes = new int[size];
+        int[] weights = new int[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = (int) keys[i];
+            weights[i] = Integer.MAX_VALUE - (int) (keys[i] >>> 32);
+        }
+        return new Ranking(nodes, weights);
+    }
+
+    private Workspace borrow() {
+        Workspace ws = workspaces.poll();
+        return ws != null ? ws : new Workspace(nodeCount());
+    }
+
+    private void release(Workspace ws) {
+        if (workspaces.size() < MAX_POOLED) {
+            workspaces.offer(ws);
+        }
+    }
+
+    /**
+     * Résultat d'un parcours : nœuds dans l'ordre de visite, profondeur et parent de chacun.
+     */
+    public static final class Traversal {
+        private final int[] nodes;
+        private final int[] depths;
+        private final int[] parents;
+
+        private Traversal(int[] nodes, int[] depths, int[] parents) {
+            this.nodes = nodes;
+            this.depths = depths;
+            this.parents = parents;
+        }
+
+        public int size() {
+            return nodes.length;
+        }
+
+        public int node(int i) {
+            return nodes[i];
+        }
+
+        public int depth(int i) {
+            return depths[i];
+        }
+
+        /**
+         * @return nœud par lequel le i-ème nœud a été atteint, -1 pour la source
+         */
+        public int parent(int i) {
+            return parents[i];
+        }
+    }
+
+    /**
+     * Nœuds classés avec leur poids (nombre de films communs).
+     */
+    public static final class Ranking {
+        private final int[] nodes;
+        private final int[] weights;
+
+        private Ranking(int[] nodes, int[] weights) {
+            this.nodes = nodes;
+            this.weights = weights;
+        }
+
+        public int size() {
+            return nodes.length;
+        }
+
+        public int node(int i) {
+            return nodes[i];
+        }
+
+        public int weight(int i) {
+            return weights[i];
+        }
+    }
+
+    /**
+     * Tableaux de travail d'une requête. Les marques de visite sont datées par un
+     * tampon incrémenté à chaque requête, ce qui évite de les remettre à zéro.
+     */
+    private static final class Workspace {
+        final int[] seenA;
+        final int[] seenB;
+        final int[] parentA;
+        final int[] parentB;
+        final int[] depthA;
+        final int[] queueA;
+        final int[] queueB;
+        int stamp;
+
+        Workspace(int nodeCount) {
+            seenA = new int[nodeCount];
+            seenB = new int[nodeCount];
+            parentA = new int[nodeCount];
+            parentB = new int[nodeCount];
+            depthA = new int[nodeCount];
+            queueA = new int[nodeCount];
+            queueB = new int[nodeCount];
+        }
+
+        int nextStamp() {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(seenA, 0);
+                Arrays.fill(seenB, 0);
+                stamp = 1;
+            }
+            return stamp;
+        }
+    }
+
+    /**
+     * Construction à partir des couples (film, personne, rôle).
+     */
+    public static final class Builder {
+        private final List<String> personUris = new ArrayList<>();
+        private final List<String> personNames = new ArrayList<>();
+        private final Map<String, Integer> personsByUri = new HashMap<>();
+        private byte[] personRoles = new byte[256];
+        // (film << 32 | personne) → position du couple, pour fusionner les rôles d'une même personne
+        private final Map<Long, Integer> pairs = new HashMap<>();
+        private int[] pairFilms = new int[1024];
+        private int[] pairPersons = new int[1024];
+        private byte[] pairRoles = new byte[1024];
+        private int pairCount;
+
+        private Builder() {
+        }
+
+        public void addEdge(int film, String personUri, String personName, byte role) {
+            if (film < 0 || personUri == null || personUri.isEmpty()) return;
+
+            Integer person = personsByUri.get(personUri);
+            if (person == null) {
+                person = personUris.size();
+                personUris.add(personUri);
+                personNames.add(personName);
+                personsByUri.put(personUri, person);
+                if (person == personRoles.length) {
+                    personRoles = Arrays.copyOf(personRoles, person * 2);
+                }
+            }
+            personRoles[person] |= role;
+
+            Integer existing = pairs.putIfAbsent(((long) film << 32) | person, pairCount);
+            if (existing != null) {
+                pairRoles[existing] |= role;
+                return;
+            }
+
+            if (pairCount == pairFilms.length) {
+                pairFilms = Arrays.copyOf(pairFilms, pairCount * 2);
+                pairPersons = Arrays.copyOf(pairPersons, pairCount * 2);
+                pairRoles = Arrays.copyOf(pairRoles, pairCount * 2);
+            }
+            pairFilms[pairCount] = film;
+            pairPersons[pairCount] = person;
+            pairRoles[pairCount] = role;
+            pairCount++;
+        }
+
+        public MovieGraph build(int filmCount) {
+            int personCount = personUris.size();
+            int nodeCount = filmCount + personCount;
+
+            int[] offsets = new int[nodeCount + 1];
+            for (int i = 0; i < pairCount; i++) {
+                offsets[pairFilms[i] + 1]++;
+                offsets[filmCount + pairPersons[i] + 1]++;
+            }
+            for (int i = 0; i < nodeCount; i++) offsets[i + 1] += offsets[i];
+
+            int[] targets = new int[pairCount * 2];
+            byte[] roles = new byte[pairCount * 2];
+            int[] fill = Arrays.copyOf(offsets, nodeCount);
+            for (int i = 0; i < pairCount; i++) {
+                int film = pairFilms[i];
+                int person = filmCount + pairPersons[i];
+                targets[fill[film]] = person;
+                roles[fill[film]++] = pairRoles[i];
+                targets[fill[person]] = film;
+                roles[fill[person]++] = pairRoles[i];
+            }
+
+            return new MovieGraph(filmCount, personUris.toArray(new String[0]), personNames.toArray(new String[0]),
+                    Arrays.copyOf(personRoles, personCount), new HashMap<>(personsByUri), offsets, targets, roles);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package fr.insalyon.websem.index;
+
+import java.util.*;
+
+/**
+ * Index inversé plein texte sur les films (résumé, description, subjects).
+ *
+ * Les postings de chaque terme sont triés par ordinal de film, encodés en
+ * deltas puis compactés en octets de longueur variable, avec une table de saut
+ * tous les {@value #BLOCK_SIZE} postings. Le classement utilise BM25 et la
+ * récupération du top-K s'arrête au plus tôt grâce à l'algorithme WAND
+ * (borne supérieure de score par terme).
+ */
+public final class MovieTextIndex {
+
+    static final int BLOCK_SIZE = 128;
+    static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "he", "her",
+            "his", "in", "into", "is", "it", "its", "of", "on", "or", "she", "that", "the", "their",
+            "they", "this", "to", "was", "were", "which", "who", "with", "film", "films", "movie");
+
+    private final Map<String, Integer> termIds;
+    private final byte[][] postings;
+    private final int[][] skipDocs;
+    private final int[][] skipOffsets;
+    private final int[] docFreqs;
+    private final float[] idfs;
+    private final float[] maxScores;
+    private final float[] lengthNorms;
+    private final int docCount;
+
+    private MovieTextIndex(Map<String, Integer> termIds, byte[][] postings, int[][] skipDocs,
+                           int[][] skipOffsets, int[] docFreqs, float[] lengthNorms, int docCount) {
+        this.termIds = termIds;
+        this.postings = postings;
+        this.skipDocs = skipDocs;
+        this.skipOffsets = skipOffsets;
+        this.docFreqs = docFreqs;
+        this.lengthNorms = lengthNorms;
+        this.docCount = docCount;
+
+        int termCount = postings.length;
+        this.idfs = new float[termCount];
+        this.maxScores = new float[termCount];
+        for (int t = 0; t < termCount; t++) {
+            int df = docFreqs[t];
+            idfs[t] = (float) Math.log(1.0 + (docCount - df + 0.5) / (df + 0.5));
+
+            // Borne supérieure du score du terme, nécessaire à WAND
+            float max = 0f;
+            PostingsCursor cursor = cursor(t);
+            while (cursor.next() != NO_MORE_DOCS) {
+                float s = score(t, cursor.doc, cursor.freq);
+                if (s > max) max = s;
+            }
+            maxScores[t] = max;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static MovieTextIndex empty() {
+        return new Builder().build();
+    }
+
+    public int getDocCount() {
+        return docCount;
+    }
+
+    public int getTermCount() {
+        return postings.length;
+    }
+
+    /**
+     * Taille totale des postings compressés, en octets.
+     */
+    public long getPostingsBytes() {
+        long total = 0;
+        for (byte[] p : postings) total += p.length;
+        return total;
+    }
+
+    /**
+     * Recherche les k films les plus pertinents pour la requête (BM25 + WAND).
+     *
+     * @param query texte libre saisi par l'utilisateur
+     * @param k nombre maximal de résultats
+     * @return résultats triés par score décroissant
+     */
+    public Hits search(String query, int k) {
+        if (k <= 0) return Hits.EMPTY;
+
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        List<PostingsCursor> found = new ArrayList<>();
+        for (String term : terms) {
+            Integer id = termIds.get(term);
+            if (id != null) found.add(cursor(id));
+        }
+        if (found.isEmpty()) return Hits.EMPTY;
+
+        PostingsCursor[] cursors = found.toArray(new PostingsCursor[0]);
+        for (PostingsCursor c : cursors) c.next();
+
+        // Jamais plus de résultats que de films : le tas est dimensionné sur k
+        TopK top = new TopK(Math.min(k, docCount));
+        int n = cursors.length;
+
+        while (true) {
+            sortByDoc(cursors);
+
+            // Recherche du pivot : premier curseur où la somme des bornes dépasse le seuil
+            float threshold = top.threshold();
+            float upperBound = 0f;
+            int pivot = -1;
+            for (int i = 0; i < n; i++) {
+                if (cursors[i].doc == NO_MORE_DOCS) break;
+                upperBound += maxScores[cursors[i].term];
+                if (upperBound > threshold) {
+                    pivot = i;
+                    break;
+                }
+            }
+            if (pivot < 0) break; // plus aucun document ne peut entrer dans le top-K
+
+            int pivotDoc = cursors[pivot].doc;
+            if (cursors[0].doc == pivotDoc) {
+                float score = 0f;
+                for (int i = 0; i < n && cursors[i].doc == pivotDoc; i++) {
+                    score += score(cursors[i].term, pivotDoc, cursors[i].freq);
+                    cursors[i].next();
+                }
+                top.offer(pivotDoc, score);
+            } else {
+                for (int i = 0; i < pivot; i++) {
+                    if (cursors[i].doc < pivotDoc) cursors[i].advance(pivotDoc);
+                }
+            }
+        }
+
+        return top.toHits();
+    }
+
+    /**
+     * Découpe un texte en termes normalisés (minuscules, sans mots vides, pluriels simples retirés).
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) return tokens;
+
+        for (String raw : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (raw.length() < 2 || STOP_WORDS.contains(raw)) continue;
+            tokens.add(stem(raw));
+        }
+        return tokens;
+    }
+
+    private static String stem(String word) {
+        int len = word.length();
+        if (len > 4 && word.endsWith("ies")) return word.substring(0, len - 3) + "y";
+        if (len > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            return word.substring(0, len - 1);
+        }
+        return word;
+    }
+
+    private float score(int term, int doc, int freq) {
+        return idfs[term] * freq * (K1 + 1) / (freq + lengthNorms[doc]);
+    }
+
+    private PostingsCursor cursor(int term) {
+        return new PostingsCursor(term, postings[term], docFreqs[term], skipDocs[term], skipOffsets[term]);
+    }
+
+    private static void sortByDoc(PostingsCursor[] cursors) {
+        for (int i = 1; i < cursors.length; i++) {
+            PostingsCursor c = cursors[i];
+            int j = i - 1;
+            while (j >= 0 && cursors[j].doc > c.doc) {
+                cursors[j + 1] = cursors[j];
+                j--;
+            }
+            cursors[j + 1] = c;
+        }
+    }
+
+    /**
+     * Résultats d'une recherche : ordinaux de films et scores BM25, par score décroissant.
+     */
+    public static final class Hits {
+        static final Hits EMPTY = new Hits(new int[0], new float[0]);
+
+        private final int[] docs;
+        private final float[] scores;
+
+        Hits(int[] docs, float[] scores) {
+            this.docs = docs;
+            this.scores = scores;
+        }
+
+        public int size() {
+            return docs.length;
+        }
+
+        public int doc(int i) {
+            return docs[i];
+        }
+
+        public float score(int i) {
+            return scores[i];
+        }
+    }
+
+    /**
+     * Curseur sur les postings d'un terme, avec décodage incrémental et sauts par bloc.
+     */
+    private static final class PostingsCursor {
+        final int term;
+        private final byte[] data;
+        private final int count;
+        private final int[] skipDocs;
+        private final int[] skipOffsets;
+        private int pos;
+        private int index = -1;
+        int doc = -1;
+        int freq;
+
+        PostingsCursor(int term, byte[] data, int count, int[] skipDocs, int[] skipOffsets) {
+            this.term = term;
+            this.data = data;
+            this.count = count;
+            this.skipDocs = skipDocs;
+            this.skipOffsets = skipOffsets;
+        }
+
+        int next() {
+            if (++index >= count) {
+                doc = NO_MORE_DOCS;
+                return doc;
+            }
+            doc = (doc < 0 ? 0 : doc) + readVInt();
+            freq = readVInt();
+            return doc;
+        }
+
+        void advance(int target) {
+            // Sauter directement au dernier bloc dont le dernier document précède la cible
+            int block = Math.max(index, 0) / BLOCK_SIZE;
+            int last = -1;
+            while (block < skipDocs.length && skipDocs[block] < target) {
+                last = block++;
+            }
+            if (last >= 0 && (last + 1) * BLOCK_SIZE - 1 > index) {
+                pos = skipOffsets[last];
+                doc = skipDocs[last];
+                index = (last + 1) * BLOCK_SIZE - 1;
+            }
+            while (doc < target) {
+                next();
+            }
+        }
+
+        private int readVInt() {
+            int b = data[pos++];
+            int value = b & 0x7F;
+            for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+                b = data[pos++];
+                value |= (b & 0x7F) << shift;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Tas min de taille bornée sur des tableaux primitifs.
+     */
+    private static final class TopK {
+        private final int[] docs;
+        private final float[] scores;
+        private int size;
+
+        TopK(int k) {
+            docs = new int[k];
+            scores = new float[k];
+        }
+
+        float threshold() {
+            return size < docs.length ? -1f : scores[0];
+        }
+
+        void offer(int doc, float score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        Hits toHits() {
+            int n = size;
+            int[] outDocs = new int[n];
+            float[] outScores = new float[n];
+            for (int i = n - 1; i >= 0; i--) {
+                outDocs[i] = docs[0];
+                outScores[i] = scores[0];
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return new Hits(outDocs, outScores);
+        }
+
+        private boolean less(int i, int j) {
+            return scores[i] < scores[j] || (scores[i] == scores[j] && docs[i] > docs[j]);
+        }
+
+        private void swap(int i, int j) {
+            int d = docs[i]; docs[i] = docs[j]; docs[j] = d;
+            float s = scores[i]; scores[i] = scores[j]; scores[j] = s;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(i, parent)) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) break;
+                int smallest = left;
+                if (left + 1 < size && less(left + 1, left)) smallest = left + 1;
+                if (!less(smallest, i)) break;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+    }
+
+    /**
+     * Construction incrémentale de l'index ; les films doivent être ajoutés par ordinal croissant.
+     */
+    public static final class Builder {
+        private final Map<String, PostingsWriter> writers = new HashMap<>();
+        private int[] docLengths = new int[1024];
+        private int docCount;
+
+        private Builder() {
+        }
+
+        /**
+         * Indexe les textes d'un film.
+         *
+         * @param doc ordinal du film (strictement croissant)
+         * @param texts champs textuels du film (null ignorés)
+         */
+        public void add(int doc, String... texts) {
+            if (doc < docCount) {
+                throw new IllegalArgumentException("Ordinal non croissant : " + doc);
+            }
+
+            Map<String, int[]> freqs = new HashMap<>();
+            int length = 0;
+            for (String text : texts) {
+                for (String token : tokenize(text)) {
+                    freqs.computeIfAbsent(token, t -> new int[1])[0]++;
+                    length++;
+                }
+            }
+
+            if (doc >= docLengths.length) {
+                docLengths = Arrays.copyOf(docLengths, Math.max(doc + 1, docLengths.length * 2));
+            }
+            docLengths[doc] = length;
+            docCount = doc + 1;
+
+            for (Map.Entry<String, int[]> e : freqs.entrySet()) {
+                writers.computeIfAbsent(e.getKey(), t -> new PostingsWriter()).add(doc, e.getValue()[0]);
+            }
+        }
+
+        public MovieTextIndex build() {
+            List<String> terms = new ArrayList<>(writers.keySet());
+            Collections.sort(terms);
+
+            Map<String, Integer> termIds = new HashMap<>(terms.size() * 2);
+            byte[][] postings = new byte[terms.size()][];
+            int[][] skipDocs = new int[terms.size()][];
+            int[][] skipOffsets = new int[terms.size()][];
+            int[] docFreqs = new int[terms.size()];
+
+            for (int t = 0; t < terms.size(); t++) {
+                PostingsWriter w = writers.get(terms.get(t));
+                termIds.put(terms.get(t), t);
+                postings[t] = Arrays.copyOf(w.bytes, w.length);
+                skipDocs[t] = Arrays.copyOf(w.skipDocs, w.skipCount);
+                skipOffsets[t] = Arrays.copyOf(w.skipOffsets, w.skipCount);
+                docFreqs[t] = w.count;
+            }
+
+            long totalLength = 0;
+            for (int d = 0; d < docCount; d++) totalLength += docLengths[d];
+            float avgLength = docCount == 0 ? 1f : Math.max(1f, (float) totalLength / docCount);
+
+            float[] lengthNorms = new float[docCount];
+            for (int d = 0; d < docCount; d++) {
+                lengthNorms[d] = K1 * (1 - B + B * docLengths[d] / avgLength);
+            }
+
+            return new MovieTextIndex(termIds, postings, skipDocs, skipOffsets, docFreqs, lengthNorms, docCount);
+        }
+    }
+
+    /**
+     * Écriture des postings d'un terme : (delta, fréquence) en octets de longueur variable.
+     */
+    private static final class PostingsWriter {
+        byte[] bytes = new byte[8];
+        int length;
+        int count;
+        int lastDoc = -1;
+        int[] skipDocs = new int[0];
+        int[] skipOffsets = new int[0];
+        int skipCount;
+
+        void add(int doc, int freq) {
+            if (count > 0 && count % BLOCK_SIZE == 0) {
+                if (skipCount == skipDocs.length) {
+                    skipDocs = Arrays.copyOf(skipDocs, Math.max(4, skipCount * 2));
+                    skipOffsets = Arrays.copyOf(skipOffsets, Math.max(4, skipCount * 2));
+                }
+                skipDocs[skipCount] = lastDoc;
+                skipOffsets[skipCount] = length;
+                skipCount++;
+            }
+            writeVInt(lastDoc < 0 ? doc : doc - lastDoc);
+            writeVInt(freq);
+            lastDoc = doc;
+            count++;
+        }
+
+        private void writeVInt(int value) {
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package fr.insalyon.websem.index;
+
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Plongements denses des films, obtenus par projection aléatoire de leurs subjects.
+ *
+ * Chaque subject est associé à un vecteur creux aléatoire (composantes +1, 0, -1
+ * avec les probabilités 1/6, 2/3, 1/6) ; le vecteur d'un film est la somme de ceux
+ * de ses subjects, pondérés par leur IDF, puis normalisé. Le produit scalaire de
+ * deux vecteurs approche alors le cosinus de leurs ensembles de subjects pondérés.
+ *
+ * Tous les vecteurs sont rangés dans un seul tableau contigu (film après film) :
+ * la mémoire occupée est fixe (films x dimensions x 4 octets) et la recherche des
+ * plus proches voisins est un simple parcours séquentiel. La matrice de projection
+ * n'est jamais matérialisée : la ligne d'un subject est régénérée depuis sa graine.
+ */
+public final class SubjectEmbeddings {
+
+    private static final SubjectEmbeddings EMPTY = new SubjectEmbeddings(0, new float[0]);
+    private static final long SEED = 0x5EB1EC75L;
+
+    private final int dimensions;
+    private final float[] vectors;
+
+    private SubjectEmbeddings(int dimensions, float[] vectors) {
+        this.dimensions = dimensions;
+        this.vectors = vectors;
+    }
+
+    public static SubjectEmbeddings empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Calcule les plongements de tous les films de l'index.
+     *
+     * @param dimensions taille des vecteurs (0 : pas de plongements)
+     */
+    public static SubjectEmbeddings build(SubjectIndex subjects, int dimensions) {
+        if (dimensions <= 0 || subjects.filmCount() == 0) {
+            return EMPTY;
+        }
+
+        int filmCount = subjects.filmCount();
+        // Lève ArithmeticException plutôt que d'allouer un tableau de taille négative ou tronquée
+        float[] vectors = new float[Math.multiplyExact(filmCount, dimensions)];
+
+        // Subject par subject : sa ligne aléatoire est tirée une fois puis ajoutée à tous ses films
+        byte[] row = new byte[dimensions];
+        for (int s = 0; s < subjects.subjectCount(); s++) {
+            SplittableRandom random = random(s);
+            for (int d = 0; d < dimensions; d++) row[d] = component(random);
+            float idf = subjects.idf(s);
+            for (int film : subjects.films(s)) {
+                int offset = film * dimensions;
+                for (int d = 0; d < dimensions; d++) {
+                    vectors[offset + d] += idf * row[d];
+                }
+            }
+        }
+        for (int film = 0; film < filmCount; film++) {
+            normalize(vectors, film * dimensions, dimensions);
+        }
+        return new SubjectEmbeddings(dimensions, vectors);
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public boolean isEmpty() {
+        return dimensions == 0;
+    }
+
+    /**
+     * Mémoire occupée par les vecteurs, en octets.
+     */
+    public long memoryBytes() {
+        return 4L * vectors.length;
+    }
+
+    /**
+     * Copie du vecteur d'un film.
+     */
+    public float[] vector(int film) {
+        float[] vector = new float[dimensions];
+        System.arraycopy(vectors, film * dimensions, vector, 0, dimensions);
+        return vector;
+    }
+
+    /**
+     * Vecteur d'une liste de subjects (film hors catalogue), dans le même espace que les films.
+     */
+    public float[] project(SubjectIndex subjects, int[] subjectIds) {
+        float[] vector = new float[dimensions];
+        if (isEmpty()) return vector;
+
+        // Les vecteurs aléatoires sont recalculés pour ces seuls subjects
+        for (int s : subjectIds) {
+            SplittableRandom random = random(s);
+            float idf = subjects.idf(s);
+            for (int d = 0; d < dimensions; d++) {
+                vector[d] += idf * component(random);
+            }
+        }
+        normalize(vector, 0, dimensions);
+        return vector;
+    }
+
+    /**
+     * Films dont le vecteur est le plus proche (cosinus) du vecteur donné, par parcours complet.
+     *
+     * @param accept filtre sur les films (exclusion de la référence...), ou null
+     */
+    public MovieTextIndex.Hits nearest(float[] query, int limit, IntPredicate accept) {
+        SubjectIndex.TopK topK = new SubjectIndex.TopK(Math.max(0, limit));
+        if (isEmpty() || limit <= 0) return topK.toHits();
+
+        int filmCount = vectors.length / dimensions;
+        for (int film = 0, offset = 0; film < filmCount; film++, offset += dimensions) {
+            if (accept != null && !accept.test(film)) continue;
+            topK.offer(film, dot(query, vectors, offset, dimensions));
+        }
+        return topK.toHits();
+    }
+
+    /**
+     * Produit scalaire de a[0..length) et b[offset..offset+length).
+     * Quatre accumulateurs indépendants : les multiplications de la boucle déroulée
+     * ne dépendent pas les unes des autres et s'enchaînent sans attendre l'addition précédente.
+     */
+    static float dot(float[] a, float[] b, int offset, int length) {
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int i = 0;
+        int bound = length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += a[i] * b[offset + i];
+            s1 += a[i + 1] * b[offset + i + 1];
+            s2 += a[i + 2] * b[offset + i + 2];
+            s3 += a[i + 3] * b[offset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[i] * b[offset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    // Générateur propre à chaque subject : la projection ne dépend pas de l'ordre de construction
+    private static SplittableRandom random(int subject) {
+        return new SplittableRandom(SEED ^ (subject * 0x9E3779B97F4A7C15L));
+    }
+
+    private static byte component(SplittableRandom random) {
+        int r = random.nextInt(6);
+        return r == 0 ? (byte) 1 : r == 1 ? (byte) -1 : (byte) 0;
+    }
+
+    private static void normalize(float[] vectors, int offset, int dimensions) {
+        float norm = 0f;
+        for (int d = 0; d < dimensions; d++) norm += vectors[offset + d] * vectors[offset + d];
+        if (norm == 0f) return;
+        float inverse = (float) (1.0 / Math.sqrt(norm));
+        for (int d = 0; d < dimensions; d++) vectors[offset + d] *= inverse;
+    }
+}
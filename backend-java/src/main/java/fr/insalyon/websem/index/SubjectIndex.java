@@ -0,0 +1,420 @@
+package fr.insalyon.websem.index;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Index inversé des subjects (dct:subject) du catalogue.
+ *
+ * Chaque subject reçoit un identifiant dense ; ses films sont rangés dans un
+ * tableau compact (offsets + films triés). Les subjects de chaque film sont
+ * conservés dans l'autre sens (triés par identifiant) pour le calcul exact
+ * des scores. Le poids d'un subject est son IDF : partager un subject rare
+ * compte plus que partager "English-language films".
+ */
+public final class SubjectIndex {
+
+    private static final SubjectIndex EMPTY = builder().build(0);
+    private static final int MAX_POOLED = 4;
+
+    // Subjects trop fréquents pour générer des candidats (ils restent comptés dans les scores)
+    private static final double MAX_CANDIDATE_DF_RATIO = 0.05;
+    private static final int MIN_CANDIDATE_DF = 1000;
+
+    private final Map<String, Integer> subjectsByLabel;
+    private final int[] postingOffsets;
+    private final int[] postings;
+    private final int[] filmOffsets;
+    private final int[] filmSubjects;
+    private final float[] idf;
+    private final float[] filmWeights;
+    private final int maxCandidateDf;
+    private final ConcurrentLinkedQueue<int[]> workspaces = new ConcurrentLinkedQueue<>();
+
+    private SubjectIndex(Map<String, Integer> subjectsByLabel, int[] postingOffsets, int[] postings,
+                         int[] filmOffsets, int[] filmSubjects) {
+        this.subjectsByLabel = subjectsByLabel;
+        this.postingOffsets = postingOffsets;
+        this.postings = postings;
+        this.filmOffsets = filmOffsets;
+        this.filmSubjects = filmSubjects;
+
+        int filmCount = filmCount();
+        this.idf = new float[subjectCount()];
+        for (int s = 0; s < idf.length; s++) {
+            int df = postingOffsets[s + 1] - postingOffsets[s];
+            idf[s] = (float) Math.log(1.0 + (double) filmCount / df);
+        }
+        this.filmWeights = new float[filmCount];
+        for (int film = 0; film < filmCount; film++) {
+            filmWeights[film] = weight(filmSubjects, filmOffsets[film], filmOffsets[film + 1]);
+        }
+        this.maxCandidateDf = Math.max(MIN_CANDIDATE_DF, (int) (filmCount * MAX_CANDIDATE_DF_RATIO));
+    }
+
+    public static SubjectIndex empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Forme canonique d'un label de subject.
+     */
+    public static String normalize(String label) {
+        return label == null ? "" : label.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public int subjectCount() {
+        return postingOffsets.length - 1;
+    }
+
+    public int filmCount() {
+        return filmOffsets.length - 1;
+    }
+
+    /**
+     * @return identifiant du subject, ou -1 s'il est inconnu
+     */
+    public int subjectId(String label) {
+        Integer id = subjectsByLabel.get(normalize(label));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Identifiants triés et distincts des subjects connus parmi des labels.
+     */
+    public int[] subjectIds(Collection<String> labels) {
+        if (labels == null) return new int[0];
+        return labels.stream().mapToInt(this::subjectId).filter(id -> id >= 0).sorted().distinct().toArray();
+    }
+
+    /**
+     * Identifiants triés des subjects d'un film du catalogue.
+     */
+    public int[] subjects(int film) {
+        return Arrays.copyOfRange(filmSubjects, filmOffsets[film], filmOffsets[film + 1]);
+    }
+
+    /**
+     * Films (ordinaux triés) qui portent un subject.
+     */
+    public int[] films(int subject) {
+        return Arrays.copyOfRange(postings, postingOffsets[subject], postingOffsets[subject + 1]);
+    }
+
+    public int documentFrequency(int subject) {
+        return postingOffsets[subject + 1] - postingOffsets[subject];
+    }
+
+    public float idf(int subject) {
+        return idf[subject];
+    }
+
+    /**
+     * Somme des IDF d'une liste de subjects triée.
+     */
+    public float weight(int[] subjects) {
+        return weight(subjects, 0, subjects.length);
+    }
+
+    private float weight(int[] subjects, int from, int to) {
+        float sum = 0f;
+        for (int i = from; i < to; i++) sum += idf[subjects[i]];
+        return sum;
+    }
+
+    /**
+     * Similarité de Jaccard pondérée par l'IDF entre un film et une liste de subjects :
+     * poids des subjects communs / poids de leur union. Fusion de deux listes triées, sans allocation.
+     *
+     * @param subjects subjects triés de la référence
+     * @param subjectsWeight poids de la référence ({@link #weight(int[])})
+     */
+    public float similarity(int film, int[] subjects, float subjectsWeight) {
+        int i = filmOffsets[film];
+        int end = filmOffsets[film + 1];
+        int j = 0;
+        float shared = 0f;
+        while (i < end && j < subjects.length) {
+            int a = filmSubjects[i];
+            int b = subjects[j];
+            if (a == b) {
+                shared += idf[a];
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        float union = filmWeights[film] + subjectsWeight - shared;
+        return union <= 0f ? 0f : shared / union;
+    }
+
+    /**
+     * Agrégation des similarités d'un candidat avec plusieurs films de référence.
+     */
+    public enum Aggregation {
+        /** Distance minimale : la meilleure similarité avec l'une des références. */
+        MIN_DISTANCE,
+        /** Moyenne des similarités avec toutes les références. */
+        MEAN,
+        /** Moyenne pondérée par le poids de chaque référence. */
+        WEIGHTED;
+
+        /**
+         * @param value min | mean | weighted (insensible à la casse), MIN_DISTANCE par défaut
+         */
+        public static Aggregation parse(String value) {
+            if (value == null) return MIN_DISTANCE;
+            switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "mean":
+                    return MEAN;
+                case "weighted":
+                    return WEIGHTED;
+                default:
+                    return MIN_DISTANCE;
+            }
+        }
+    }
+
+    /**
+     * Films partageant au moins un subject avec la référence, classés par similarité pondérée.
+     * Les candidats sont générés par les listes des subjects assez rares ; si tous sont
+     * fréquents, toutes les listes sont utilisées.
+     *
+     * @param subjects subjects triés de la référence
+     * @param exclude film exclu (la référence elle-même), ou -1
+     * @param limit nombre maximal de films
+     * @param accept filtre supplémentaire sur les candidats (fenêtre d'années...), ou null
+     */
+    public MovieTextIndex.Hits similar(int[] subjects, int exclude, int limit, IntPredicate accept) {
+        IntPredicate filter = accept == null ? film -> film != exclude : film -> film != exclude && accept.test(film);
+        return similar(new int[][]{subjects}, null, Aggregation.MIN_DISTANCE, limit, filter);
+    }
+
+    /**
+     * Films proches d'un ensemble de références (liste de films à voir...), en une seule passe :
+     * l'union des candidats des références est parcourue une fois et chaque candidat est comparé
+     * à toutes les références dans une boucle sans allocation.
+     *
+     * @param references subjects triés de chaque référence
+     * @param referenceWeights poids de chaque référence (WEIGHTED uniquement, null : poids égaux)
+     * @param aggregation agrégation des similarités d'un candidat
+     * @param limit nombre maximal de films
+     * @param accept filtre sur les candidats (exclusion des références...), ou null
+     */
+    public MovieTextIndex.Hits similar(int[][] references, float[] referenceWeights, Aggregation aggregation,
+                                       int limit, IntPredicate accept) {
+        if (limit <= 0 || references.length == 0) return new TopK(0).toHits();
+
+        boolean rareOnly = false;
+        float[] subjectsWeights = new float[references.length];
+        float[] coefficients = new float[references.length];
+        float coefficientSum = 0f;
+        for (int r = 0; r < references.length; r++) {
+            subjectsWeights[r] = weight(references[r]);
+            coefficients[r] = aggregation == Aggregation.WEIGHTED && referenceWeights != null
+                    ? Math.max(0f, referenceWeights[r]) : 1f;
+            coefficientSum += coefficients[r];
+            for (int s : references[r]) {
+                if (documentFrequency(s) <= maxCandidateDf) rareOnly = true;
+            }
+        }
+        if (coefficientSum <= 0f) return new TopK(0).toHits();
+
+        int[] seen = borrow();
+        int stamp = nextStamp(seen);
+        try {
+            TopK topK = new TopK(Math.min(limit, filmCount()));
+            for (int[] subjects : references) {
+                for (int s : subjects) {
+                    if (rareOnly && documentFrequency(s) > maxCandidateDf) continue;
+                    for (int p = postingOffsets[s]; p < postingOffsets[s + 1]; p++) {
+                        int film = postings[p];
+                        if (seen[film] == stamp) continue;
+                        seen[film] = stamp;
+                        if (accept != null && !accept.test(film)) continue;
+
+                        float score = 0f;
+                        for (int r = 0; r < references.length; r++) {
+                            float similarity = similarity(film, references[r], subjectsWeights[r]);
+                            if (aggregation == Aggregation.MIN_DISTANCE) {
+                                score = Math.max(score, similarity);
+                            } else {
+                                score += coefficients[r] * similarity;
+                            }
+                        }
+                        topK.offer(film, aggregation == Aggregation.MIN_DISTANCE ? score : score / coefficientSum);
+                    }
+                }
+            }
+            return topK.toHits();
+        } finally {
+            release(seen);
+        }
+    }
+
+    // Le tampon "seen" porte en dernière case le marqueur courant
+    private int[] borrow() {
+        int[] seen = workspaces.poll();
+        return seen != null ? seen : new int[filmCount() + 1];
+    }
+
+    private static int nextStamp(int[] seen) {
+        int last = seen.length - 1;
+        if (++seen[last] == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            seen[last] = 1;
+        }
+        return seen[last];
+    }
+
+    private void release(int[] seen) {
+        if (workspaces.size() < MAX_POOLED) {
+            workspaces.offer(seen);
+        }
+    }
+
+    /**
+     * Tas min de taille bornée : conserve les meilleurs scores.
+     */
+    static final class TopK {
+        private final int[] docs;
+        private final float[] scores;
+        private int size;
+
+        TopK(int k) {
+            docs = new int[k];
+            scores = new float[k];
+        }
+
+        void offer(int doc, float score) {
+            if (score <= 0f) return;
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (better(score, doc, scores[0], docs[0])) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        MovieTextIndex.Hits toHits() {
+            int n = size;
+            int[] outDocs = new int[n];
+            float[] outScores = new float[n];
+            for (int i = n - 1; i >= 0; i--) {
+                outDocs[i] = docs[0];
+                outScores[i] = scores[0];
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return new MovieTextIndex.Hits(outDocs, outScores);
+        }
+
+        private static boolean better(float score, int doc, float otherScore, int otherDoc) {
+            return score > otherScore || (score == otherScore && doc < otherDoc);
+        }
+
+        private boolean less(int i, int j) {
+            return better(scores[j], docs[j], scores[i], docs[i]);
+        }
+
+        private void swap(int i, int j) {
+            int d = docs[i]; docs[i] = docs[j]; docs[j] = d;
+            float s = scores[i]; scores[i] = scores[j]; scores[j] = s;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(i, parent)) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) break;
+                int smallest = left + 1 < size && less(left + 1, left) ? left + 1 : left;
+                if (!less(smallest, i)) break;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+    }
+
+    /**
+     * Construction à partir des subjects de chaque film.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> subjectsByLabel = new HashMap<>();
+        private final Set<Long> pairs = new HashSet<>();
+        private int[] pairFilms = new int[1024];
+        private int[] pairSubjects = new int[1024];
+        private int pairCount;
+
+        private Builder() {
+        }
+
+        public void add(int film, Collection<String> labels) {
+            if (film < 0 || labels == null) return;
+            for (String label : labels) {
+                String key = normalize(label);
+                if (key.isEmpty()) continue;
+
+                Integer subject = subjectsByLabel.get(key);
+                if (subject == null) {
+                    subject = subjectsByLabel.size();
+                    subjectsByLabel.put(key, subject);
+                }
+                if (!pairs.add(((long) film << 32) | subject)) continue;
+
+                if (pairCount == pairFilms.length) {
+                    pairFilms = Arrays.copyOf(pairFilms, pairCount * 2);
+                    pairSubjects = Arrays.copyOf(pairSubjects, pairCount * 2);
+                }
+                pairFilms[pairCount] = film;
+                pairSubjects[pairCount] = subject;
+                pairCount++;
+            }
+        }
+
+        public SubjectIndex build(int filmCount) {
+            int subjectCount = subjectsByLabel.size();
+            int[] postingOffsets = new int[subjectCount + 1];
+            int[] filmOffsets = new int[filmCount + 1];
+            for (int i = 0; i < pairCount; i++) {
+                postingOffsets[pairSubjects[i] + 1]++;
+                filmOffsets[pairFilms[i] + 1]++;
+            }
+            for (int s = 0; s < subjectCount; s++) postingOffsets[s + 1] += postingOffsets[s];
+            for (int f = 0; f < filmCount; f++) filmOffsets[f + 1] += filmOffsets[f];
+
+            int[] postings = new int[pairCount];
+            int[] filmSubjects = new int[pairCount];
+            int[] postingFill = Arrays.copyOf(postingOffsets, subjectCount);
+            int[] filmFill = Arrays.copyOf(filmOffsets, filmCount);
+            for (int i = 0; i < pairCount; i++) {
+                postings[postingFill[pairSubjects[i]]++] = pairFilms[i];
+                filmSubjects[filmFill[pairFilms[i]]++] = pairSubjects[i];
+            }
+            for (int s = 0; s < subjectCount; s++) Arrays.sort(postings, postingOffsets[s], postingOffsets[s + 1]);
+            for (int f = 0; f < filmCount; f++) Arrays.sort(filmSubjects, filmOffsets[f], filmOffsets[f + 1]);
+
+            return new SubjectIndex(new HashMap<>(subjectsByLabel), postingOffsets, postings, filmOffsets, filmSubjects);
+        }
+    }
+}
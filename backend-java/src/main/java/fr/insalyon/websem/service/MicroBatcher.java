@@ -0,0 +1,176 @@
+package fr.insalyon.websem.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Regroupe les recherches par clé émises en rafale (à la manière d'un DataLoader).
+ *
+ * La première clé d'un lot ouvre une fenêtre de quelques millisecondes ; toutes
+ * les clés demandées pendant cette fenêtre sont résolues par un seul appel au
+ * chargeur (ex: une requête SPARQL avec VALUES), puis chaque appelant reçoit sa
+ * valeur. Une même clé demandée plusieurs fois dans un lot n'est chargée qu'une fois.
+ *
+ * @param <K> type des clés (URI)
+ * @param <V> type des valeurs chargées
+ */
+public class MicroBatcher<K, V> {
+
+    /**
+     * Charge un lot de clés ; les clés absentes du résultat sont résolues à null.
+     */
+    @FunctionalInterface
+    public interface BatchLoader<K, V> {
+        Map<K, V> load(Set<K> keys);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class BatchStats {
+        private final long batches;
+        private final long keys;
+        private final double averageBatchSize;
+        private final long maxBatchSize;
+        private final double averageWaitMs;
+        private final double maxWaitMs;
+    }
+
+    private final BatchLoader<K, V> loader;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    /** Threads de chargement simultanés, et lots en attente au-delà desquels l'appelant charge lui-même */
+    private static final int MAX_WORKERS = 4;
+    private static final int MAX_QUEUED_BATCHES = 64;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private long pendingSince;
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder keyCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxSize = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param name préfixe des noms de threads
+     * @param loader chargeur d'un lot
+     * @param windowMs durée de la fenêtre de regroupement (0 : pas d'attente)
+     * @param maxBatchSize taille à partir de laquelle le lot part sans attendre la fin de la fenêtre
+     */
+    public MicroBatcher(String name, BatchLoader<K, V> loader, double windowMs, int maxBatchSize) {
+        this.loader = loader;
+        this.windowMicros = Math.max(0, Math.round(windowMs * 1000));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, name + "-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(factory);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_WORKERS, MAX_WORKERS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_BATCHES), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        this.workers = pool;
+    }
+
+    /**
+     * Demande une valeur ; elle sera chargée avec les autres clés de la fenêtre courante.
+     */
+    public CompletableFuture<V> load(K key) {
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+
+        synchronized (this) {
+            future = pending.get(key);
+            if (future != null) {
+                return future;
+            }
+
+            future = new CompletableFuture<>();
+            if (pending.isEmpty()) {
+                pendingSince = System.nanoTime();
+                Map<K, CompletableFuture<V>> batch = pending;
+                scheduler.schedule(() -> dispatch(batch), windowMicros, TimeUnit.MICROSECONDS);
+            }
+            pending.put(key, future);
+
+            if (pending.size() >= maxBatchSize) {
+                full = detach(pending);
+            }
+        }
+
+        if (full != null) {
+            Map<K, CompletableFuture<V>> batch = full;
+            workers.execute(() -> run(batch));
+        }
+        return future;
+    }
+
+    /**
+     * Fin de fenêtre : envoie le lot s'il n'est pas déjà parti parce qu'il était plein.
+     */
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        synchronized (this) {
+            if (batch != pending || pending.isEmpty()) return;
+            detach(batch);
+        }
+        workers.execute(() -> run(batch));
+    }
+
+    /**
+     * Retire le lot courant (appelé sous verrou) et enregistre ses métriques.
+     */
+    private Map<K, CompletableFuture<V>> detach(Map<K, CompletableFuture<V>> batch) {
+        long waitNanos = System.nanoTime() - pendingSince;
+        pending = new LinkedHashMap<>();
+
+        batchCount.increment();
+        keyCount.add(batch.size());
+        totalWaitNanos.add(waitNanos);
+        maxSize.accumulate(batch.size());
+        maxWaitNanos.accumulate(waitNanos);
+        return batch;
+    }
+
+    private void run(Map<K, CompletableFuture<V>> batch) {
+        try {
+            Map<K, V> values = loader.load(Collections.unmodifiableSet(batch.keySet()));
+            for (Map.Entry<K, CompletableFuture<V>> entry : batch.entrySet()) {
+                entry.getValue().complete(values != null ? values.get(entry.getKey()) : null);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Échec du chargement groupé de " + batch.size() + " clés : " + e.getMessage());
+            for (CompletableFuture<V> future : batch.values()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    public BatchStats getStats() {
+        long batches = batchCount.sum();
+        long keys = keyCount.sum();
+        return new BatchStats(
+                batches,
+                keys,
+                batches == 0 ? 0 : (double) keys / batches,
+                maxSize.get(),
+                batches == 0 ? 0 : totalWaitNanos.sum() / 1e6 / batches,
+                maxWaitNanos.get() / 1e6);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,454 @@
+package fr.insalyon.websem.service;
+
+import fr.insalyon.websem.dto.AdvancedSearchResponse;
+import fr.insalyon.websem.index.ActorCareerIndex;
+import fr.insalyon.websem.index.DirectorFilmographyIndex;
+import fr.insalyon.websem.index.FacetIndex;
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.index.MovieTextIndex;
+import fr.insalyon.websem.model.Actor;
+import fr.insalyon.websem.model.Movie;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Catalogue des films chargé en mémoire depuis l'endpoint SPARQL.
+ *
+ * Le catalogue est récupéré page par page, puis remplacé d'un bloc
+ * (instantané immuable) pour que les lectures ne soient jamais bloquées.
+ * Il alimente les recherches en mémoire, sans aller-retour SPARQL.
+ */
+@Service
+public class MovieCatalogService {
+
+    // Plafond de lignes de distribution moissonnées, par film du catalogue
+    private static final int MAX_CAST_PER_FILM = 10;
+
+    @Autowired
+    protected MovieExplorationSPARQLService sparqlService;
+
+    @Autowired
+    private SparqlHarvester harvester;
+
+    @Autowired
+    private ReleaseYearStore releaseYearStore;
+
+    @Autowired
+    private SparqlCacheService cacheService;
+
+    @Autowired
+    private ResponseCacheService responseCache;
+
+    @Value("${websem.catalog.load-on-startup:true}")
+    private boolean loadOnStartup = true;
+
+    @Value("${websem.catalog.page-size:2000}")
+    private int pageSize = 2000;
+
+    @Value("${websem.catalog.max-films:200000}")
+    private int maxFilms = 200000;
+
+    // Taille des plongements denses des subjects pour la similarité (0 : désactivés)
+    @Value("${websem.similarity.embedding-dimensions:0}")
+    private int embeddingDimensions = 0;
+
+    private volatile MovieCatalog catalog = MovieCatalog.empty();
+    private final AtomicBoolean loading = new AtomicBoolean(false);
+
+    /**
+     * Lance le chargement du catalogue en arrière-plan au démarrage de l'application.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!loadOnStartup) return;
+
+        Thread loader = new Thread(this::refresh, "movie-catalog-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Recharge le catalogue complet et reconstruit les index en mémoire.
+     * En cas d'échec, l'instantané précédent est conservé.
+     *
+     * @return true si un nouveau catalogue a été installé
+     */
+    public boolean refresh() {
+        if (!loading.compareAndSet(false, true)) {
+            System.out.println("Chargement du catalogue déjà en cours");
+            return false;
+        }
+
+        try {
+            long startTime = System.currentTimeMillis();
+            MovieCatalog.Builder builder = MovieCatalog.builder();
+            builder.setEmbeddingDimensions(embeddingDimensions);
+
+            // Parcours par clé des intervalles d'URI, en parallèle : pas d'OFFSET profond,
+            // que Virtuoso refuse au-delà de son plafond de lignes
+            List<SparqlHarvester.KeyRange> partitions = sparqlService.resourcePartitions();
+            // Rechargement : les pages en cache sont relues sur l'endpoint, sinon le diff
+            // avec le catalogue précédent ne verrait aucune modification
+            MovieCatalog previous = catalog;
+            boolean live = previous.size() > 0;
+            Map<String, Map<String, Object>> facetsByUri = new HashMap<>();
+            SparqlHarvester.HarvestStats facetStats = harvester.harvestByKeyset(
+                    (range, after, limit) -> sparqlService.fetchCatalogFacetsPage(range, after, limit, live),
+                    partitions, pageSize, maxFilms,
+                    MovieExplorationSPARQLService::movieKey, this::movieUri,
+                    facetRow -> facetsByUri.put(movieUri(facetRow), facetRow));
+            if (!facetStats.isComplete()) {
+                System.err.println("Chargement des facettes interrompu après " + facetStats.getRows() + " lignes");
+                return false;
+            }
+
+            SparqlHarvester.HarvestStats stats = harvester.harvestByKeyset(
+                    sparqlService::fetchCatalogPage, partitions, pageSize, maxFilms,
+                    MovieExplorationSPARQLService::movieKey, this::movieUri,
+                    row -> addRow(builder, row, facetsByUri.get(movieUri(row))));
+            if (!stats.isComplete()) {
+                System.err.println("Chargement du catalogue interrompu après " + stats.getRows() + " lignes");
+                return false;
+            }
+
+            loadActorCareers(builder, partitions, live);
+
+            install(builder.build());
+            System.out.println("Catalogue chargé : " + catalog.size() + " films en "
+                    + (System.currentTimeMillis() - startTime) + " ms, "
+                    + catalog.getMovies().dictionarySize() + " valeurs distinctes partagées");
+
+            int changed = invalidateChangedFilms(previous, catalog);
+            if (changed > 0) {
+                System.out.println("Films ajoutés, modifiés ou retirés depuis le chargement précédent : " + changed
+                        + " (entrées de cache dépendantes invalidées)");
+            }
+
+            // Les années sont calculées une fois ici, les requêtes n'ont plus à les extraire
+            int years = releaseYearStore.materialize(catalog);
+            System.out.println("Années de sortie matérialisées : " + years + " films");
+            return true;
+        } finally {
+            loading.set(false);
+        }
+    }
+
+    /**
+     * Invalide les entrées de cache des films ajoutés, modifiés ou retirés entre deux
+     * catalogues, plutôt que de vider tout le cache. Un film ajouté peut avoir été
+     * mis en cache comme absent (movies|uri) : son entrée négative est retirée aussi.
+     *
+     * @return nombre de films ajoutés, modifiés ou retirés (0 au premier chargement)
+     */
+    int invalidateChangedFilms(MovieCatalog previous, MovieCatalog current) {
+        // Premier chargement : rien à comparer, et tout invalider viderait le cache au démarrage
+        if (previous.size() == 0) {
+            return 0;
+        }
+        int changed = 0;
+        for (int i = 0; i < previous.size(); i++) {
+            String uri = previous.uri(i);
+            int ordinal = current.ordinalOf(uri);
+            if (ordinal >= 0 && previous.get(i).equals(current.get(ordinal))) continue;
+            changed++;
+            invalidateFilm(uri);
+        }
+        for (int i = 0; i < current.size(); i++) {
+            String uri = current.uri(i);
+            if (previous.ordinalOf(uri) >= 0) continue;
+            changed++;
+            invalidateFilm(uri);
+        }
+        return changed;
+    }
+
+    private void invalidateFilm(String uri) {
+        cacheService.invalidateResource(uri);
+        responseCache.invalidateResource(uri);
+    }
+
+    /**
+     * Charge les recettes et les distributions des films pour l'index des carrières d'acteurs.
+     * En cas d'échec, le catalogue est installé sans cet index et le top des acteurs
+     * repasse par SPARQL.
+     */
+    private void loadActorCareers(MovieCatalog.Builder builder, List<SparqlHarvester.KeyRange> partitions,
+                                  boolean live) {
+        SparqlHarvester.HarvestStats grossStats = harvester.harvestByKeyset(
+                (range, after, limit) -> sparqlService.fetchGrossPage(range, after, limit, live),
+                partitions, pageSize, maxFilms,
+                MovieExplorationSPARQLService::movieKey, this::movieUri,
+                row -> {
+                    String gross = sparqlService.getRowValue(row, "gross");
+                    if (gross == null) return;
+                    try {
+                        builder.setGross(movieUri(row), Double.parseDouble(gross));
+                    } catch (NumberFormatException e) {
+                        // recette illisible : le film est simplement ignoré
+                    }
+                });
+
+        SparqlHarvester.HarvestStats starringStats = !grossStats.isComplete() ? grossStats : harvester.harvestByKeyset(
+                (range, after, limit) -> sparqlService.fetchStarringPage(range, after, limit, live),
+                partitions, pageSize, maxFilms * MAX_CAST_PER_FILM,
+                MovieExplorationSPARQLService::starringKey,
+                row -> movieUri(row) + "|" + sparqlService.getRowValue(row, "actor"),
+                row -> builder.addStarring(movieUri(row), sparqlService.getRowValue(row, "actor"),
+                        sparqlService.getRowValue(row, "actorName")));
+
+        if (!starringStats.isComplete()) {
+            System.err.println("Index des carrières d'acteurs non chargé");
+            builder.discardActors();
+        }
+    }
+
+    /**
+     * Top des acteurs d'un film, chacun avec son film le plus rentable.
+     * Lu dans l'index des carrières quand il est chargé, sinon calculé par SPARQL.
+     *
+     * @param movieUri URI DBpedia du film
+     * @return acteurs triés par recettes décroissantes de leur meilleur film
+     */
+    public List<Actor> getTopActorsByMovie(String movieUri) {
+        MovieCatalog current = catalog;
+        ActorCareerIndex careers = current.getActorIndex();
+        int film = current.ordinalOf(movieUri);
+        if (film < 0 || careers.actorCount() == 0) {
+            return sparqlService.getTopActorsByMovie(movieUri);
+        }
+
+        List<Actor> actors = new ArrayList<>();
+        for (int i = 0; i < careers.castSize(film); i++) {
+            int actor = careers.castActor(film, i);
+            int topFilm = careers.topFilm(actor);
+            if (topFilm < 0) continue;
+
+            actors.add(new Actor(careers.actorUri(actor), careers.actorName(actor),
+                    current.uri(topFilm), current.title(topFilm), careers.topGross(actor)));
+        }
+        actors.sort(Comparator.comparing(Actor::getMaxGross).reversed());
+        return actors;
+    }
+
+    /**
+     * Derniers films d'un réalisateur, lus dans l'index des filmographies quand le
+     * réalisateur y figure, sinon calculés par SPARQL.
+     *
+     * @param directorUri URI DBpedia du réalisateur
+     * @param limit nombre maximal de films
+     * @param fromYear première année incluse (null : pas de borne)
+     * @param toYear dernière année incluse (null : pas de borne)
+     * @return films du plus récent au plus ancien
+     */
+    public List<Movie> getRecentMoviesByDirector(String directorUri, int limit, Integer fromYear, Integer toYear) {
+        // Borné une seule fois pour les deux chemins : un LIMIT négatif rendrait la requête invalide
+        int size = Math.max(0, limit);
+        if (size == 0) {
+            return new ArrayList<>();
+        }
+
+        MovieCatalog current = catalog;
+        DirectorFilmographyIndex directors = current.getDirectorIndex();
+        int director = directors.directorOrdinal(directorUri);
+        if (director < 0) {
+            return sparqlService.getRecentMoviesByDirector(directorUri, size, fromYear, toYear);
+        }
+
+        int[] films = directors.recent(director, size,
+                fromYear != null ? fromYear : Integer.MIN_VALUE,
+                toYear != null ? toYear : Integer.MAX_VALUE);
+        List<Movie> movies = new ArrayList<>(films.length);
+        for (int film : films) {
+            movies.add(current.get(film));
+        }
+        return movies;
+    }
+
+    /**
+     * Installe un nouvel instantané du catalogue.
+     */
+    public void install(MovieCatalog newCatalog) {
+        this.catalog = newCatalog;
+    }
+
+    public MovieCatalog getCatalog() {
+        return catalog;
+    }
+
+    public boolean isReady() {
+        return !catalog.isEmpty();
+    }
+
+    public boolean isLoading() {
+        return loading.get();
+    }
+
+    /**
+     * Recherche plein texte (intrigue, thème) sur le catalogue en mémoire, classée par BM25.
+     *
+     * @param query texte libre, ex: "heist in space"
+     * @param limit nombre maximal de films
+     * @return films triés par pertinence décroissante
+     */
+    public List<Movie> searchByText(String query, int limit) {
+        MovieCatalog current = catalog;
+        MovieTextIndex.Hits hits = current.getTextIndex().search(query, limit);
+
+        List<Movie> movies = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            movies.add(current.get(hits.doc(i)));
+        }
+        return movies;
+    }
+
+    /**
+     * Recherche avancée sur le catalogue en mémoire : intersection des bitmaps de facettes,
+     * puis hydratation SPARQL (une seule requête VALUES) de la première page uniquement.
+     * Mêmes critères et même sémantique que {@link MovieExplorationSPARQLService#searchMoviesWithFilters}.
+     *
+     * @param limit taille de la page de résultats
+     * @return films correspondant aux filtres, par ordre d'URI
+     */
+    public List<Movie> searchWithFilters(String title, String language, String country,
+                                         String director, String producer, String yearFrom,
+                                         String yearTo, String distributor, int limit) {
+        MovieCatalog current = catalog;
+        RoaringBitmap hits = filter(current, language, country, director, producer, yearFrom, yearTo, distributor);
+        return hydrate(firstPage(current, hits, title, limit));
+    }
+
+    /**
+     * Recherche avancée avec le nombre de films par valeur de facette
+     * (langue, pays, réalisateur, producteur, distributeur, décennie) dans le résultat.
+     *
+     * @param limit taille de la page de résultats
+     * @param topN nombre maximal de valeurs retournées par facette
+     */
+    public AdvancedSearchResponse searchWithFacets(String title, String language, String country,
+                                                   String director, String producer, String yearFrom,
+                                                   String yearTo, String distributor, int limit, int topN) {
+        MovieCatalog current = catalog;
+        RoaringBitmap hits = filter(current, language, country, director, producer, yearFrom, yearTo, distributor);
+        if (!isBlank(title)) {
+            hits = filterByTitle(current, hits, title);
+        }
+
+        FacetIndex facetIndex = current.getFacetIndex();
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        for (FacetIndex.Facet facet : FacetIndex.Facet.values()) {
+            facets.put(facet.name().toLowerCase(Locale.ROOT), facetIndex.counts(facet, hits, topN));
+        }
+        facets.put("decade", facetIndex.decadeCounts(hits));
+
+        List<Movie> movies = hydrate(firstPage(current, hits, null, limit));
+        return new AdvancedSearchResponse(movies, hits.getCardinality(), facets);
+    }
+
+    /**
+     * Premiers films du résultat, en appliquant le filtre de titre au fil de l'eau.
+     */
+    private List<Movie> firstPage(MovieCatalog current, RoaringBitmap hits, String title, int limit) {
+        String titleNeedle = isBlank(title) ? null : title.trim().toLowerCase(Locale.ROOT);
+        List<Movie> page = new ArrayList<>();
+        IntIterator it = hits.getIntIterator();
+        while (it.hasNext() && page.size() < limit) {
+            int ordinal = it.next();
+            if (titleNeedle == null || titleMatches(current.title(ordinal), titleNeedle)) {
+                page.add(current.get(ordinal));
+            }
+        }
+        return page;
+    }
+
+    private RoaringBitmap filterByTitle(MovieCatalog current, RoaringBitmap hits, String title) {
+        String titleNeedle = title.trim().toLowerCase(Locale.ROOT);
+        RoaringBitmap matching = new RoaringBitmap();
+        IntIterator it = hits.getIntIterator();
+        while (it.hasNext()) {
+            int ordinal = it.next();
+            if (titleMatches(current.title(ordinal), titleNeedle)) matching.add(ordinal);
+        }
+        return matching;
+    }
+
+    private static boolean titleMatches(String title, String titleNeedle) {
+        return title != null && title.toLowerCase(Locale.ROOT).contains(titleNeedle);
+    }
+
+    /**
+     * Intersection des bitmaps de facettes pour les critères renseignés.
+     */
+    RoaringBitmap filter(MovieCatalog current, String language, String country, String director,
+                         String producer, String yearFrom, String yearTo, String distributor) {
+        Map<FacetIndex.Facet, String> criteria = new EnumMap<>(FacetIndex.Facet.class);
+        if (!isBlank(language)) criteria.put(FacetIndex.Facet.LANGUAGE, language);
+        if (!isBlank(country)) criteria.put(FacetIndex.Facet.COUNTRY, country);
+        if (!isBlank(director)) criteria.put(FacetIndex.Facet.DIRECTOR, director);
+        if (!isBlank(producer)) criteria.put(FacetIndex.Facet.PRODUCER, producer);
+        if (!isBlank(distributor)) criteria.put(FacetIndex.Facet.DISTRIBUTOR, distributor);
+
+        return current.getFacetIndex().filter(criteria, parseYear(yearFrom), parseYear(yearTo));
+    }
+
+    /**
+     * Remplace les films du catalogue (champs partiels) par leur détail complet,
+     * en conservant l'ordre. Les films non trouvés gardent leur version du catalogue.
+     */
+    private List<Movie> hydrate(List<Movie> page) {
+        if (page.isEmpty()) return page;
+
+        List<String> uris = new ArrayList<>(page.size());
+        for (Movie movie : page) uris.add(movie.getUri());
+
+        Map<String, Movie> detailed = new HashMap<>();
+        for (Movie movie : sparqlService.getMoviesByUris(uris)) {
+            detailed.put(movie.getUri(), movie);
+        }
+
+        List<Movie> result = new ArrayList<>(page.size());
+        for (Movie movie : page) {
+            result.add(detailed.getOrDefault(movie.getUri(), movie));
+        }
+        return result;
+    }
+
+    private static Integer parseYear(String year) {
+        if (isBlank(year)) return null;
+        try {
+            return Integer.parseInt(year.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private String movieUri(Map<String, Object> row) {
+        return sparqlService.getRowValue(row, "movie");
+    }
+
+    private void addRow(MovieCatalog.Builder builder, Map<String, Object> row, Map<String, Object> facetRow) {
+        Movie movie = sparqlService.mapRowToMovie(row);
+
+        if (facetRow != null) {
+            movie.setDirector(sparqlService.getRowValue(facetRow, "directors"));
+            movie.setDirectorUri(sparqlService.getRowValue(facetRow, "directorUris"));
+            movie.setProducer(sparqlService.getRowValue(facetRow, "producers"));
+            movie.setDistributor(sparqlService.getRowValue(facetRow, "distributors"));
+            movie.setCountry(sparqlService.getRowValue(facetRow, "countries"));
+            movie.setLanguage(sparqlService.getRowValue(facetRow, "languages"));
+        }
+
+        builder.add(movie, sparqlService.getRowValue(row, "abstract"));
+    }
+}
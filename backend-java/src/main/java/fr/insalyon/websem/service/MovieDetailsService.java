@@ -0,0 +1,172 @@
+package fr.insalyon.websem.service;
+
+import fr.insalyon.websem.dto.MovieDetailsResponse;
+import fr.insalyon.websem.model.Actor;
+import fr.insalyon.websem.model.Movie;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fiche complète d'un film pour la fenêtre de détail.
+ *
+ * Le film est récupéré une seule fois, puis les acteurs, la filmographie du
+ * réalisateur et les films similaires sont calculés en parallèle. Chaque partie
+ * dispose du même budget de temps à partir du lancement : une partie trop lente
+ * est abandonnée et la réponse est renvoyée sans elle, de sorte que la latence
+ * est celle de la partie la plus lente (bornée) et non leur somme.
+ */
+@Service
+public class MovieDetailsService {
+
+    public static final String PART_ACTORS = "actors";
+    public static final String PART_DIRECTOR = "director";
+    public static final String PART_SIMILAR = "similar";
+
+    @Autowired
+    protected MovieExplorationSPARQLService sparqlService;
+
+    @Autowired
+    protected MovieSimilarityService similarityService;
+
+    @Autowired
+    protected MovieCatalogService catalogService;
+
+    @Value("${websem.details.part-timeout-ms:4000}")
+    protected long partTimeoutMs = 4000;
+
+    /** Threads de calcul des parties, et parties en attente au-delà desquelles elles sont refusées */
+    private static final int MAX_THREADS = 24;
+    private static final int MAX_QUEUED_PARTS = 96;
+
+    private final ExecutorService executor;
+
+    public MovieDetailsService() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_PARTS), r -> {
+            Thread t = new Thread(r, "movie-details-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param uri URI DBpedia du film
+     * @param directorLimit nombre maximal de films du réalisateur
+     * @param similarLimit nombre maximal de films similaires
+     * @return fiche du film, ou null si le film est introuvable
+     */
+    public MovieDetailsResponse getDetails(String uri, int directorLimit, int similarLimit) {
+        Movie movie = sparqlService.getMovieByUri(uri);
+        if (movie == null) {
+            return null;
+        }
+
+        long startTime = System.nanoTime();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        String directorUri = firstDirectorUri(movie);
+
+        CompletableFuture<List<Actor>> actors = submit(PART_ACTORS, timings, startTime,
+                () -> catalogService.getTopActorsByMovie(movie.getUri()));
+        CompletableFuture<List<Movie>> directorMovies = submit(PART_DIRECTOR, timings, startTime,
+                () -> directorUri == null ? new ArrayList<>()
+                        : catalogService.getRecentMoviesByDirector(directorUri, directorLimit, null, null));
+        CompletableFuture<List<Movie>> similar = submit(PART_SIMILAR, timings, startTime,
+                () -> similarityService.getSimilarMovies(movie, similarLimit));
+
+        // Même échéance pour toutes les parties, lancées ensemble
+        List<String> missing = new ArrayList<>();
+
+        MovieDetailsResponse response = new MovieDetailsResponse();
+        response.setMovie(movie);
+        response.setTopActors(await(PART_ACTORS, actors, missing));
+        response.setDirectorMovies(await(PART_DIRECTOR, directorMovies, missing));
+        response.setSimilarMovies(await(PART_SIMILAR, similar, missing));
+        response.setMissingParts(missing);
+        response.setTimings(new TreeMap<>(timings));
+
+        System.out.println("Détail du film " + movie.getTitle() + " en "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms"
+                + (missing.isEmpty() ? "" : " (incomplet : " + missing + ")"));
+        return response;
+    }
+
+    /**
+     * Lance une partie ; elle échoue en TimeoutException après {@code partTimeoutMs}, et son
+     * thread est alors interrompu pour être rendu au pool au lieu de finir un calcul inutile.
+     */
+    private <T> CompletableFuture<T> submit(String part, Map<String, Long> timings, long startTime, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running;
+        try {
+            running = executor.submit(() -> {
+                try {
+                    result.complete(task.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    timings.put(part, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        result.orTimeout(partTimeoutMs, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) running.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * Attend une partie (bornée par son délai) ; en cas de dépassement ou d'erreur, la partie
+     * est notée manquante et remplacée par une liste vide.
+     */
+    private <T> List<T> await(String part, CompletableFuture<List<T>> future, List<String> missing) {
+        try {
+            List<T> result = future.get();
+            return result != null ? result : new ArrayList<>();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                System.err.println("Partie '" + part + "' abandonnée après " + partTimeoutMs + " ms");
+            } else {
+                System.err.println("Erreur sur la partie '" + part + "' : " + e.getCause().getMessage());
+            }
+        }
+        missing.add(part);
+        return new ArrayList<>();
+    }
+
+    /**
+     * Premier réalisateur du film, au format URI (le champ peut contenir plusieurs URI ou un nom).
+     */
+    private static String firstDirectorUri(Movie movie) {
+        String directorUri = movie.getDirectorUri();
+        if (directorUri == null || directorUri.isBlank()) {
+            return null;
+        }
+
+        directorUri = directorUri.split(", ")[0].trim();
+        if (!directorUri.startsWith("http")) {
+            directorUri = "http://dbpedia.org/resource/" + directorUri.replace(' ', '_');
+        }
+        return directorUri;
+    }
+}
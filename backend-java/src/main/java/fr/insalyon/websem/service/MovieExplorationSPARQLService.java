@@ -1,22 +1,80 @@
 package fr.insalyon.websem.service;
 
+import fr.insalyon.websem.dto.MoviePage;
+import fr.insalyon.websem.index.FacetIndex;
 import fr.insalyon.websem.model.Movie;
 import fr.insalyon.websem.model.Actor;
 import fr.insalyon.websem.model.Genre;
+import fr.insalyon.websem.service.fulltext.TitleMatchStrategy;
+import fr.insalyon.websem.service.year.ReleaseYearStrategy;
+import jakarta.annotation.PreDestroy;
 import org.apache.jena.query.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class MovieExplorationSPARQLService {
 
     private static final String DBPEDIA_ENDPOINT = "https://dbpedia.org/sparql";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int HARVEST_PAGE_SIZE = 1000;
+    private static final int HARVEST_MAX_ROWS = 100000;
+
+    // Familles de requêtes du cache (mode de compression réglable par famille)
+    private static final String CACHE_SEARCH = "search";
+    private static final String CACHE_ADVANCED = "advanced";
+    private static final String CACHE_DECADE = "decade";
+    private static final String CACHE_DIRECTOR = "director";
+    private static final String CACHE_BUDGET = "budget";
+    private static final String CACHE_ACTORS = "actors";
+    private static final String CACHE_GENRES = "genres";
+    private static final String CACHE_MOVIES = "movies";
+    private static final String CACHE_HARVEST = "harvest";
+    private static final String RESOURCE_PREFIX = "http://dbpedia.org/resource/";
+    private static final String STARRING_KEY_SEPARATOR = "\u001F";
     
     @Autowired
     private SparqlCacheService cacheService;
 
+    @Autowired
+    private SparqlHarvester harvester;
+
+    @Value("${websem.sparql.endpoint:" + DBPEDIA_ENDPOINT + "}")
+    private String sparqlEndpoint = DBPEDIA_ENDPOINT;
+
+    // auto | regex | virtuoso | jena-text
+    @Value("${websem.sparql.fulltext:" + TitleMatchStrategy.MODE_AUTO + "}")
+    private String fullTextMode = TitleMatchStrategy.MODE_AUTO;
+
+    private volatile TitleMatchStrategy titleMatchStrategy;
+
+    // regex | materialized (années websem:releaseYear publiées dans un store local)
+    @Value("${websem.sparql.year-mode:" + ReleaseYearStrategy.MODE_REGEX + "}")
+    private String yearMode = ReleaseYearStrategy.MODE_REGEX;
+
+    private volatile ReleaseYearStrategy releaseYearStrategy;
+
+    // Fenêtre de regroupement des recherches par URI (ms) et taille maximale d'un lot
+    @Value("${websem.batch.window-ms:5}")
+    private double batchWindowMs = 5;
+
+    @Value("${websem.batch.max-size:50}")
+    private int batchMaxSize = 50;
+
+    // Attente maximale d'un film demandé au regroupeur (ms)
+    @Value("${websem.batch.timeout-ms:10000}")
+    private long batchTimeoutMs = 10000;
+
+    private volatile MicroBatcher<String, Movie> movieLoader;
+
 
     /**
      * Recherche des films dans DBpedia à partir d’un mot-clé sur le titre.
@@ -26,100 +84,173 @@ public class MovieExplorationSPARQLService {
      * @return liste de films correspondant au mot-clé
      */
     public List<Movie> searchMovies(String movieName) {
-        String sparqlQuery = buildSearchMovieQuery(movieName);
-        
-        List<Map<String, Object>> cachedResults = cacheService.getCachedResults(sparqlQuery);
-        if (cachedResults != null) {
-            return convertMapResultsToMovies(cachedResults);
-        }
-        
-        long startTime = System.currentTimeMillis();
-        
-        ResultSet results = executeSparqlQuery(sparqlQuery);
-        
-        List<Movie> movies = new ArrayList<>();
-        List<Map<String, Object>> resultsToCache = new ArrayList<>();
-        
-        if (results != null) {
-            while (results.hasNext()) {
-                QuerySolution solution = results.nextSolution();
-                movies.add(mapSolutionToMovie(solution));
-                
-                // Stocker pour le cache
-                Map<String, Object> row = new HashMap<>();
-                for (String var : results.getResultVars()) {
-                    if (solution.contains(var)) {
-                        row.put(var, solution.get(var).toString());
-                    }
-                }
-                resultsToCache.add(row);
-            }
-            
-            long duration = System.currentTimeMillis() - startTime;
-            
-            // Mettre en cache
-            cacheService.cacheResults(sparqlQuery, resultsToCache);
-        }
-        
-        return movies;
+        String sparqlQuery = buildSearchMovieQuery(movieName, null, DEFAULT_PAGE_SIZE);
+        return cachedList(CACHE_SEARCH, sparqlQuery, Movie.class, this::mapSolutionToMovie);
     }
 
     public List<Movie> searchMoviesWithFilters(String title, String language, String country, 
                                                String director, String producer, String yearFrom, 
                                                String yearTo, String distributor) {
         String sparqlQuery = buildAdvancedSearchQuery(title, language, country, director, producer, 
-                                                      yearFrom, yearTo, distributor);
-        
-        // Vérifier le cache d'abord
-        List<Map<String, Object>> cachedResults = cacheService.getCachedResults(sparqlQuery);
+                                                      yearFrom, yearTo, distributor, null, DEFAULT_PAGE_SIZE);
+        return cachedList(CACHE_ADVANCED, sparqlQuery, Movie.class, this::mapSolutionToMovie);
+    }
+
+    /**
+     * Exécute une requête en passant par le tier typé du cache : en cas de succès,
+     * la liste déjà convertie est renvoyée telle quelle (partagée, non modifiable).
+     * Une requête en erreur n'est pas mise en cache.
+     */
+    private <T> List<T> cachedList(String family, String sparqlQuery, Class<T> type, Function<QuerySolution, T> mapper) {
+        List<T> cachedResults = cacheService.getCachedTyped(family, sparqlQuery, type);
         if (cachedResults != null) {
-            return convertMapResultsToMovies(cachedResults);
+            return cachedResults;
         }
-        
-        // Exécuter la requête si pas en cache
-        long startTime = System.currentTimeMillis();
-        
+
         ResultSet results = executeSparqlQuery(sparqlQuery);
-        
+        if (results == null) {
+            return new ArrayList<>();
+        }
+
+        List<T> values = new ArrayList<>();
+        while (results.hasNext()) {
+            values.add(mapper.apply(results.nextSolution()));
+        }
+        cacheService.cacheTyped(family, sparqlQuery, type, values);
+        return values;
+    }
+
+
+    /**
+     * Recherche par titre, paginée par clé (URI du film).
+     * Chaque page est une requête distincte, donc mise en cache séparément.
+     *
+     * @param cursor curseur renvoyé par la page précédente, null pour la première page
+     * @param pageSize nombre de films par page
+     * @return page de films et curseur de la page suivante
+     */
+    public MoviePage searchMoviesPage(String movieName, String cursor, int pageSize) {
+        String sparqlQuery = buildSearchMovieQuery(movieName, PageCursor.decode(cursor), pageSize);
         List<Movie> movies = new ArrayList<>();
-        List<Map<String, Object>> resultsToCache = new ArrayList<>();
-        
-        if (results != null) {
-            while (results.hasNext()) {
-                QuerySolution solution = results.nextSolution();
-                movies.add(mapSolutionToMovie(solution));
-                
-                // Stocker pour le cache
-                Map<String, Object> row = new HashMap<>();
-                for (String var : results.getResultVars()) {
-                    if (solution.contains(var)) {
-                        row.put(var, solution.get(var).toString());
-                    }
-                }
-                resultsToCache.add(row);
+        forEachMovie(CACHE_SEARCH, sparqlQuery, movies::add);
+        return toPage(movies, pageSize, false);
+    }
+
+    /**
+     * Recherche avancée paginée par clé (URI du film).
+     */
+    public MoviePage searchMoviesWithFiltersPage(String title, String language, String country,
+                                                 String director, String producer, String yearFrom,
+                                                 String yearTo, String distributor, String cursor, int pageSize) {
+        String sparqlQuery = buildAdvancedSearchQuery(title, language, country, director, producer,
+                                                      yearFrom, yearTo, distributor, PageCursor.decode(cursor), pageSize);
+        List<Movie> movies = new ArrayList<>();
+        forEachMovie(CACHE_ADVANCED, sparqlQuery, movies::add);
+        return toPage(movies, pageSize, false);
+    }
+
+    /**
+     * Films d'une décennie paginés par clé (année décroissante, puis URI).
+     */
+    public MoviePage getMoviesByDecadePage(int startYear, int endYear, String cursor, int pageSize) {
+        String sparqlQuery = buildMoviesByDecadeQuery(startYear, endYear, PageCursor.decode(cursor), 0, pageSize);
+        List<Movie> movies = new ArrayList<>();
+        forEachMovie(CACHE_DECADE, sparqlQuery, movies::add);
+        return toPage(movies, pageSize, true);
+    }
+
+    /**
+     * Recherche par titre en flux : les films sont transmis au consommateur
+     * au fur et à mesure de la lecture des résultats, page après page.
+     *
+     * @param pageSize nombre de films par requête SPARQL
+     * @param maxResults nombre maximal de films transmis
+     * @param consumer reçoit chaque film dès qu'il est lu
+     * @return nombre de films transmis
+     */
+    public int streamSearchMovies(String movieName, int pageSize, int maxResults, Consumer<Movie> consumer) {
+        int sent = 0;
+        PageCursor after = null;
+        while (sent < maxResults) {
+            int limit = Math.min(pageSize, maxResults - sent);
+            List<Movie> page = new ArrayList<>();
+            forEachMovie(CACHE_SEARCH, buildSearchMovieQuery(movieName, after, limit), movie -> {
+                page.add(movie);
+                consumer.accept(movie);
+            });
+            sent += page.size();
+            if (page.size() < limit) break;
+            after = new PageCursor(null, page.get(page.size() - 1).getUri());
+        }
+        return sent;
+    }
+
+    /**
+     * Exécute une requête de films en passant par le cache, et transmet chaque film
+     * au consommateur dès sa lecture (sans attendre la fin du ResultSet).
+     */
+    private void forEachMovie(String family, String sparqlQuery, Consumer<Movie> consumer) {
+        List<Movie> cachedResults = cacheService.getCachedTyped(family, sparqlQuery, Movie.class);
+        if (cachedResults != null) {
+            cachedResults.forEach(consumer);
+            return;
+        }
+
+        ResultSet results = executeSparqlQuery(sparqlQuery);
+        if (results == null) {
+            return;
+        }
+
+        List<Movie> resultsToCache = new ArrayList<>();
+        while (results.hasNext()) {
+            Movie movie = mapSolutionToMovie(results.nextSolution());
+            consumer.accept(movie);
+            resultsToCache.add(movie);
+        }
+        cacheService.cacheTyped(family, sparqlQuery, Movie.class, resultsToCache);
+    }
+
+    private MoviePage toPage(List<Movie> movies, int pageSize, boolean byYear) {
+        if (movies.size() < pageSize || movies.isEmpty()) {
+            return new MoviePage(movies, null);
+        }
+        Movie last = movies.get(movies.size() - 1);
+        Integer year = null;
+        if (byYear && last.getReleaseDate() != null) {
+            try {
+                year = Integer.parseInt(last.getReleaseDate());
+            } catch (NumberFormatException e) {
+                return new MoviePage(movies, null);
             }
-            
-            long duration = System.currentTimeMillis() - startTime;
-            
-            // Mettre en cache
-            cacheService.cacheResults(sparqlQuery, resultsToCache);
         }
-        
-        return movies;
+        return new MoviePage(movies, new PageCursor(year, last.getUri()).encode());
     }
 
+    /**
+     * Filtre de reprise après le dernier film de la page précédente (ordre par URI).
+     */
+    private String keysetFilter(PageCursor after) {
+        if (after == null) return "";
+        return String.format("FILTER(STR(?movie) > \"%s\")", escapeString(after.getUri()));
+    }
 
     /**
      * Construit la requête SPARQL de recherche de films.
      * La requête récupère les principales informations du film :
      * titre, description, année, réalisateurs, producteurs, budget, gross, etc.
      *
+     * Les résultats sont triés par URI : la page suivante reprend après le curseur.
+     *
      * @param movieName mot-clé à rechercher dans le titre
+     * @param after position du dernier film de la page précédente, null pour la première page
+     * @param limit taille de la page
      * @return requête SPARQL complète
      */
-    private String buildSearchMovieQuery(String movieName) {
+    String buildSearchMovieQuery(String movieName, PageCursor after, int limit) {
+        TitleMatchStrategy titleMatch = getTitleMatchStrategy();
+        ReleaseYearStrategy releaseYear = getReleaseYearStrategy();
         return String.format("""
-            PREFIX dbo: <http://dbpedia.org/ontology/>
+            %s%sPREFIX dbo: <http://dbpedia.org/ontology/>
             PREFIX dbp: <http://dbpedia.org/property/>
             PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
             PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>
@@ -133,29 +264,28 @@ public class MovieExplorationSPARQLService {
                 (SAMPLE(?grossLabel) AS ?gross)
                 (SAMPLE(?budgetLabel) AS ?budget)
                 (MAX(?extracted_year) AS ?year)
-                (GROUP_CONCAT(DISTINCT STR(?directorRes); separator=", ") AS ?directorUris)
-                (GROUP_CONCAT(DISTINCT ?director; separator=", ") AS ?directors)
-                (GROUP_CONCAT(DISTINCT ?producer; separator=", ") AS ?producers)
-                (GROUP_CONCAT(DISTINCT ?editor; separator=", ") AS ?editors)
-                (GROUP_CONCAT(DISTINCT ?studio; separator=", ") AS ?studios)
-                (GROUP_CONCAT(DISTINCT ?musicComposer; separator=", ") AS ?musicComposers)
-                (GROUP_CONCAT(DISTINCT ?distributor; separator=", ") AS ?distributors)
-                (GROUP_CONCAT(DISTINCT ?country; separator=", ") AS ?countries)
-                (GROUP_CONCAT(DISTINCT ?language; separator=", ") AS ?languages)
-                (GROUP_CONCAT(DISTINCT ?subjectLabel; separator=",") AS ?subjects)
+                (GROUP_CONCAT(DISTINCT STR(?directorRes); separator="|") AS ?directorUris)
+                (GROUP_CONCAT(DISTINCT ?director; separator="|") AS ?directors)
+                (GROUP_CONCAT(DISTINCT ?producer; separator="|") AS ?producers)
+                (GROUP_CONCAT(DISTINCT ?editor; separator="|") AS ?editors)
+                (GROUP_CONCAT(DISTINCT ?studio; separator="|") AS ?studios)
+                (GROUP_CONCAT(DISTINCT ?musicComposer; separator="|") AS ?musicComposers)
+                (GROUP_CONCAT(DISTINCT ?distributor; separator="|") AS ?distributors)
+                (GROUP_CONCAT(DISTINCT ?country; separator="|") AS ?countries)
+                (GROUP_CONCAT(DISTINCT ?language; separator="|") AS ?languages)
+                (GROUP_CONCAT(DISTINCT ?subjectLabel; separator="|") AS ?subjects)
 
             WHERE {
-            # Filtrer les films d'abord (le plus tôt possible)
+            # Filtrer les films d'abord (le plus tôt possible, via l'index texte si disponible)
+            %s
             ?movie a dbo:Film .
             ?movie rdfs:label ?titleLabel .
             FILTER(LANG(?titleLabel) = "en")
-            FILTER(REGEX(?titleLabel, "%s", "i"))
+            %s
             
-            # Extraction de l'année directement (sans sous-requête)
-            OPTIONAL { 
-                ?movie dbo:description ?desc_with_year .
-                FILTER(REGEX(?desc_with_year, "^[0-9]{4}"))
-                BIND(xsd:integer(REPLACE(STR(?desc_with_year), "^([0-9]{4}).*", "$1")) AS ?extracted_year)
+            # Année de sortie (sans sous-requête)
+            OPTIONAL {
+                %s
             }
             
             OPTIONAL { ?movie dbo:description ?descriptionLabel . FILTER(LANG(?descriptionLabel) = "en") }
@@ -178,18 +308,25 @@ public class MovieExplorationSPARQLService {
                 }
             }
             GROUP BY ?movie 
-            LIMIT 20
-        """, escapeString(movieName));
+            ORDER BY ?movie
+            LIMIT %d
+        """, titleMatch.prefixes(), releaseYear.prefixes(), titleMatch.titlePattern(movieName), keysetFilter(after),
+                releaseYear.bindYear("extracted_year"), limit);
         }
 
         private String buildAdvancedSearchQuery(String title, String language, String country, 
                                             String director, String producer, String yearFrom, 
-                                            String yearTo, String distributor) {
+                                            String yearTo, String distributor, PageCursor after, int limit) {
+        TitleMatchStrategy titleMatch = getTitleMatchStrategy();
+        ReleaseYearStrategy releaseYear = getReleaseYearStrategy();
         StringBuilder filters = new StringBuilder();
+
+        // Reprise après le dernier film de la page précédente
+        filters.append(keysetFilter(after)).append("\n");
         
         // Filtre sur le titre
         if (title != null && !title.trim().isEmpty()) {
-            filters.append(String.format("FILTER(REGEX(?titleLabel, \"%s\", \"i\"))\n", escapeString(title)));
+            filters.append(titleMatch.titlePattern(title)).append("\n");
         }
         
         // Filtre sur la langue
@@ -232,7 +369,7 @@ public class MovieExplorationSPARQLService {
         }
         
         return String.format("""
-            PREFIX dbo: <http://dbpedia.org/ontology/>
+            %s%sPREFIX dbo: <http://dbpedia.org/ontology/>
             PREFIX dbp: <http://dbpedia.org/property/>
             PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
             PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>
@@ -245,15 +382,15 @@ public class MovieExplorationSPARQLService {
                    (SAMPLE(?grossLabel) AS ?gross)
                    (SAMPLE(?budgetLabel) AS ?budget)
                    (MAX(?extracted_year) AS ?year)
-                   (GROUP_CONCAT(DISTINCT STR(?directorRes); separator=", ") AS ?directorUris)
-                   (GROUP_CONCAT(DISTINCT ?director; separator=", ") AS ?directors)
-                   (GROUP_CONCAT(DISTINCT ?producer; separator=", ") AS ?producers)
-                   (GROUP_CONCAT(DISTINCT ?editor; separator=", ") AS ?editors)
-                   (GROUP_CONCAT(DISTINCT ?studio; separator=", ") AS ?studios)
-                   (GROUP_CONCAT(DISTINCT ?musicComposer; separator=", ") AS ?musicComposers)
-                   (GROUP_CONCAT(DISTINCT ?distributor; separator=", ") AS ?distributors)
-                   (GROUP_CONCAT(DISTINCT ?country; separator=", ") AS ?countries)
-                   (GROUP_CONCAT(DISTINCT ?language; separator=", ") AS ?languages)
+                   (GROUP_CONCAT(DISTINCT STR(?directorRes); separator="|") AS ?directorUris)
+                   (GROUP_CONCAT(DISTINCT ?director; separator="|") AS ?directors)
+                   (GROUP_CONCAT(DISTINCT ?producer; separator="|") AS ?producers)
+                   (GROUP_CONCAT(DISTINCT ?editor; separator="|") AS ?editors)
+                   (GROUP_CONCAT(DISTINCT ?studio; separator="|") AS ?studios)
+                   (GROUP_CONCAT(DISTINCT ?musicComposer; separator="|") AS ?musicComposers)
+                   (GROUP_CONCAT(DISTINCT ?distributor; separator="|") AS ?distributors)
+                   (GROUP_CONCAT(DISTINCT ?country; separator="|") AS ?countries)
+                   (GROUP_CONCAT(DISTINCT ?language; separator="|") AS ?languages)
             WHERE {
               ?movie a dbo:Film .
               ?movie rdfs:label ?titleLabel .
@@ -262,10 +399,9 @@ public class MovieExplorationSPARQLService {
               OPTIONAL { ?movie dbo:description ?descriptionLabel . FILTER(LANG(?descriptionLabel) = "en") }
                
               OPTIONAL { 
-                  SELECT ?movie (MAX(xsd:integer(REPLACE(STR(?desc), "^([0-9]{4}).*", "$1"))) AS ?extracted_year)
+                  SELECT ?movie (MAX(?release_year) AS ?extracted_year)
                   WHERE {
-                  ?movie dbo:description ?desc .
-                  FILTER(REGEX(?desc, "^[0-9]{4}"))
+                  %s
                   }
                   GROUP BY ?movie
               }
@@ -285,8 +421,9 @@ public class MovieExplorationSPARQLService {
               %s
             }
             GROUP BY ?movie 
-            LIMIT 20
-        """, filters.toString());
+            ORDER BY ?movie
+            LIMIT %d
+        """, titleMatch.prefixes(), releaseYear.prefixes(), releaseYear.bindYear("release_year"), filters.toString(), limit);
     }
 
 
@@ -300,16 +437,7 @@ public class MovieExplorationSPARQLService {
      */
     public List<Actor> getTopActorsByMovie(String movieUri) {
         String sparqlQuery = buildTopActorsByMovieQuery(movieUri);
-        ResultSet results = executeSparqlQuery(sparqlQuery);
-
-        List<Actor> actors = new ArrayList<>();
-
-        if (results != null) {
-            while (results.hasNext()) {
-                actors.add(mapSolutionToActor(results.nextSolution()));
-            }
-        }
-        return actors;
+        return cachedList(CACHE_ACTORS, sparqlQuery, Actor.class, this::mapSolutionToActor);
     }
 
 
@@ -364,16 +492,24 @@ public class MovieExplorationSPARQLService {
      * @return liste des 5 films les plus récents
      */
     public List<Movie> getRecentMoviesByDirector(String directorUri) {
-        String sparqlQuery = buildRecentMoviesByDirectorQuery(directorUri);
-        ResultSet results = executeSparqlQuery(sparqlQuery);
+        return getRecentMoviesByDirector(directorUri, 5, null, null);
+    }
 
-        List<Movie> movies = new ArrayList<>();
-        if (results != null) {
-            while (results.hasNext()) {
-                movies.add(mapSolutionToMovie(results.nextSolution()));
-            }
+    /**
+     * Récupère les films les plus récents d’un réalisateur, éventuellement dans une fenêtre d’années.
+     *
+     * @param directorUri URI DBpedia du réalisateur
+     * @param limit nombre maximal de films
+     * @param fromYear première année incluse (null : pas de borne)
+     * @param toYear dernière année incluse (null : pas de borne)
+     * @return films du plus récent au plus ancien
+     */
+    public List<Movie> getRecentMoviesByDirector(String directorUri, int limit, Integer fromYear, Integer toYear) {
+        if (!isSafeIri(directorUri)) {
+            return new ArrayList<>();
         }
-        return movies;
+        String sparqlQuery = buildRecentMoviesByDirectorQuery(directorUri, limit, fromYear, toYear);
+        return cachedList(CACHE_DIRECTOR, sparqlQuery, Movie.class, this::mapSolutionToMovie);
     }
 
 
@@ -385,9 +521,18 @@ public class MovieExplorationSPARQLService {
     * @param directorUri URI DBpedia du réalisateur
     * @return requête SPARQL complète
     */
-    private String buildRecentMoviesByDirectorQuery(String directorUri) {
+    private String buildRecentMoviesByDirectorQuery(String directorUri, int limit, Integer fromYear, Integer toYear) {
+        ReleaseYearStrategy releaseYear = getReleaseYearStrategy();
+        StringBuilder yearFilter = new StringBuilder();
+        if (fromYear != null) {
+            yearFilter.append(String.format("FILTER(?yearLabel >= %d)\n", fromYear));
+        }
+        if (toYear != null) {
+            yearFilter.append(String.format("FILTER(?yearLabel <= %d)\n", toYear));
+        }
+
         return String.format("""
-            PREFIX dbo: <http://dbpedia.org/ontology/>
+            %sPREFIX dbo: <http://dbpedia.org/ontology/>
             PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
             PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>
 
@@ -398,14 +543,13 @@ public class MovieExplorationSPARQLService {
             ?movie rdfs:label ?titleLabel .
             ?movie dbo:description ?descriptionLabel .
             
-            FILTER(REGEX(?descriptionLabel, "^[0-9]{4}"))
-            
-            BIND(xsd:integer(REPLACE(STR(?descriptionLabel), "^([0-9]{4}).*", "$1")) AS ?yearLabel)
+            %s
+            %s
             }
             GROUP BY ?movie
             ORDER BY DESC(?year)
-            LIMIT 5
-        """, directorUri);
+            LIMIT %d
+        """, releaseYear.prefixes(), directorUri, releaseYear.bindYear("yearLabel"), yearFilter, limit);
     }
 
 
@@ -421,11 +565,24 @@ public class MovieExplorationSPARQLService {
      * @return liste de genres utilisés cette année avec leur nombre de films
      */
     public List<Genre> getAllNormalizedGenresByYear(String year) {
+        int releaseYear = parseYear(year);
+        if (releaseYear < 0) return new ArrayList<>();
 
-        Map<String, Genre> normalizedGenres = fetchNormalizedGenres();
-        ResultSet dbpResults = executeSparqlQuery(buildGenreDistributionQuery(year));
+        // La distribution finale est mise en cache sous la clé de la requête de distribution
+        String sparqlQuery = buildGenreDistributionQuery(releaseYear);
+        List<Genre> cachedResults = cacheService.getCachedTyped(CACHE_GENRES, sparqlQuery, Genre.class);
+        if (cachedResults != null) {
+            return cachedResults;
+        }
+
+        Map<String, Genre> normalizedGenres = new HashMap<>();
+        boolean complete = harvestNormalizedGenres(normalizedGenres).isComplete();
+        ResultSet dbpResults = executeSparqlQuery(sparqlQuery);
+        if (dbpResults == null) {
+            return new ArrayList<>();
+        }
 
-        while (dbpResults != null && dbpResults.hasNext()) {
+        while (dbpResults.hasNext()) {
             QuerySolution sol = dbpResults.nextSolution();
 
             String firstWord = sol.get("cleanGenre").asLiteral().getString();
@@ -439,10 +596,15 @@ public class MovieExplorationSPARQLService {
             }
         }
 
-         return normalizedGenres.values().stream()
+        List<Genre> genres = normalizedGenres.values().stream()
             .filter(g -> g.getCount() > 0)
             .sorted(Comparator.comparingInt(Genre::getCount).reversed())
             .toList();
+        // Une liste de genres tronquée ne doit pas être servie pendant toute la durée du cache
+        if (complete) {
+            cacheService.cacheTyped(CACHE_GENRES, sparqlQuery, Genre.class, genres);
+        }
+        return genres;
     }
 
 
@@ -453,14 +615,59 @@ public class MovieExplorationSPARQLService {
      * @return map <genre normalisé, objet Genre>
      */
     public Map<String, Genre> fetchNormalizedGenres() {
-        String dboQuery = """
+        Map<String, Genre> normalizedGenres = new HashMap<>();
+        harvestNormalizedGenres(normalizedGenres);
+        return normalizedGenres;
+    }
+
+    /**
+     * Moissonne les genres normalisés dans la map donnée.
+     *
+     * @return statistiques de la moisson ; complete=false si la liste est partielle
+     */
+    private SparqlHarvester.HarvestStats harvestNormalizedGenres(Map<String, Genre> normalizedGenres) {
+        // Moisson complète par clé sur l'URI du genre : une seule requête serait tronquée par l'endpoint
+        SparqlHarvester.HarvestStats stats = harvester.harvestByKeyset(
+            (range, after, limit) -> fetchRows(buildNormalizedGenresQuery(range, after, limit)),
+            resourcePartitions(),
+            HARVEST_PAGE_SIZE,
+            HARVEST_MAX_ROWS,
+            row -> getStringFromMap(row, "genre"),
+            row -> getStringFromMap(row, "genre") + "|" + getStringFromMap(row, "genreLabel"),
+            row -> {
+                String firstWord = getStringFromMap(row, "firstWord");
+                if (firstWord == null) return;
+                String rawGenre = row.containsKey("genreLabel") ? getStringFromMap(row, "genreLabel") : getStringFromMap(row, "genre");
+                normalizedGenres.put(firstWord, new Genre(firstWord, 0, new ArrayList<>(List.of(rawGenre))));
+            });
+
+        if (!stats.isComplete()) {
+            System.err.println("Liste des genres incomplète (" + stats.getRows() + " lignes)");
+        }
+        return stats;
+    }
+
+    /**
+     * Page de genres d'un intervalle d'URI, strictement après le curseur : la limite porte
+     * sur les genres distincts, si bien que tous les libellés d'un genre tiennent dans la même page.
+     */
+    String buildNormalizedGenresQuery(SparqlHarvester.KeyRange range, String after, int limit) {
+        return String.format("""
             PREFIX dbo: <http://dbpedia.org/ontology/>
             PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
 
             SELECT DISTINCT ?genre ?genreLabel ?firstWord
             WHERE {
-                ?movie a dbo:Film .
-                ?movie dbo:genre ?genre .
+                {
+                    SELECT DISTINCT ?genre
+                    WHERE {
+                        ?movie a dbo:Film .
+                        ?movie dbo:genre ?genre .
+                        %s
+                    }
+                    ORDER BY STR(?genre)
+                    LIMIT %d
+                }
 
                 OPTIONAL { ?genre rdfs:label ?genreLabel . FILTER(LANG(?genreLabel) = "en") }
 
@@ -470,19 +677,8 @@ public class MovieExplorationSPARQLService {
 
                 BIND(REPLACE(?rawGenre, "^([^ ]+).*", "$1") AS ?firstWord)
             }
-        """;
-
-        ResultSet results = executeSparqlQuery(dboQuery);
-        Map<String, Genre> normalizedGenres = new HashMap<>();
-
-        while (results != null && results.hasNext()) {
-            QuerySolution sol = results.nextSolution();
-            String firstWord = sol.get("firstWord").asLiteral().getString();
-            String rawGenre = sol.contains("genreLabel") ? sol.get("genreLabel").asLiteral().getString() : sol.get("genre").toString();
-            normalizedGenres.put(firstWord, new Genre(firstWord, 0, new ArrayList<>(List.of(rawGenre))));
-        }
-
-        return normalizedGenres;
+            ORDER BY STR(?genre) ?genreLabel
+        """, rangeFilter("genre", range, after), limit);
     }
 
 
@@ -494,19 +690,19 @@ public class MovieExplorationSPARQLService {
      * @param year année recherchée
      * @return requête SPARQL complète
      */
-    private String buildGenreDistributionQuery(String year) {
+    private String buildGenreDistributionQuery(int year) {
+        ReleaseYearStrategy releaseYear = getReleaseYearStrategy();
         return String.format("""
-            PREFIX dbo: <http://dbpedia.org/ontology/>
+            %sPREFIX dbo: <http://dbpedia.org/ontology/>
             PREFIX dbp: <http://dbpedia.org/property/>
             PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
             
             SELECT ?genre ?cleanGenre (COUNT(DISTINCT ?movie) AS ?count)
             WHERE {
             ?movie a dbo:Film .
-            ?movie dbo:description ?desc .
             ?movie dbp:genre ?genre .
             
-            FILTER(REGEX(?desc, "^%s"))
+            %s
             
             OPTIONAL { 
                 ?genre rdfs:label ?genreLabel . 
@@ -526,7 +722,7 @@ public class MovieExplorationSPARQLService {
             }
             GROUP BY ?genre ?cleanGenre
             ORDER BY DESC(?count)
-            """, year);
+            """, releaseYear.prefixes(), releaseYear.yearEquals(year));
     }
     
 
@@ -538,15 +734,18 @@ public class MovieExplorationSPARQLService {
      * @return nombre total de films
      */
     public int countMoviesByYear(String year) {
+        int releaseYear = parseYear(year);
+        if (releaseYear < 0) return 0;
+
+        ReleaseYearStrategy strategy = getReleaseYearStrategy();
         String query = String.format("""
-            PREFIX dbo: <http://dbpedia.org/ontology/>
+            %sPREFIX dbo: <http://dbpedia.org/ontology/>
             SELECT (COUNT(DISTINCT ?movie) AS ?total)
             WHERE {
                 ?movie a dbo:Film .
-                ?movie dbo:description ?desc .
-                FILTER(REGEX(?desc, "^%s"))
+                %s
             }
-        """, year);
+        """, strategy.prefixes(), strategy.yearEquals(releaseYear));
 
         ResultSet results = executeSparqlQuery(query);
         if(results != null && results.hasNext()) {
@@ -563,36 +762,56 @@ public class MovieExplorationSPARQLService {
      * @return liste de Movie triés par budget décroissant
      */
     public List<Movie> getTopBudgetMoviesByYear(String year) {
-        String sparqlQuery = buildTopBudgetMoviesQuery(year);
-        ResultSet results = executeSparqlQuery(sparqlQuery);
+        int releaseYear = parseYear(year);
+        if (releaseYear < 0) return new ArrayList<>();
 
-        List<Movie> movies = new ArrayList<>();
-        if (results != null) {
-            while (results.hasNext()) {
-                movies.add(mapSolutionToTopBudgetMovie(results.nextSolution()));
-            }
+        String sparqlQuery = buildTopBudgetMoviesQuery(releaseYear);
+        return cachedList(CACHE_BUDGET, sparqlQuery, Movie.class, this::mapSolutionToTopBudgetMovie);
+    }
+
+    /**
+     * Extraction complète des films d'une période, sans la limite de 100 de {@link #getMoviesByDecade}.
+     * La période est découpée en une partition par année, chacune parcourue par fenêtres,
+     * et les partitions sont moissonnées en parallèle.
+     *
+     * @param startYear première année incluse
+     * @param endYear dernière année exclue
+     * @param consumer reçoit chaque film (une seule fois par URI)
+     * @return statistiques de la moisson
+     */
+    public SparqlHarvester.HarvestStats harvestMoviesByDecade(int startYear, int endYear, Consumer<Movie> consumer) {
+        List<SparqlHarvester.PageFetcher> partitions = new ArrayList<>();
+        for (int year = startYear; year < endYear; year++) {
+            int y = year;
+            partitions.add((offset, limit) -> fetchRows(buildMoviesByDecadeQuery(y, y + 1, null, offset, limit)));
         }
-        return movies;
+
+        return harvester.harvest(partitions, HARVEST_PAGE_SIZE, HARVEST_MAX_ROWS,
+                row -> getStringFromMap(row, "movie"),
+                row -> consumer.accept(mapRowToMovie(row)));
     }
 
     // liste film pour recherche de similarité
     // Films sortis dans une décennie
     public List<Movie> getMoviesByDecade(int startYear, int endYear) {
-        String sparqlQuery = buildMoviesByDecadeQuery(startYear, endYear);
-        ResultSet results = executeSparqlQuery(sparqlQuery);
+        String sparqlQuery = buildMoviesByDecadeQuery(startYear, endYear, null, 0, 100);
+        return cachedList(CACHE_DECADE, sparqlQuery, Movie.class, this::mapSolutionToMovie);
+    }
 
-        List<Movie> movies = new ArrayList<>();
-        if (results != null) {
-            while (results.hasNext()) {
-                movies.add(mapSolutionToMovie(results.nextSolution()));
-            }
+    /**
+     * Films d'une décennie, triés par année décroissante puis par URI.
+     * La page suivante reprend après le couple (année, URI) du curseur.
+     */
+    private String buildMoviesByDecadeQuery(int startYear, int endYear, PageCursor after, int offset, int limit) {
+        ReleaseYearStrategy releaseYear = getReleaseYearStrategy();
+        String having = "";
+        if (after != null && after.getYear() != null) {
+            having = String.format("HAVING (MAX(?extracted_year) < %d || (MAX(?extracted_year) = %d && STR(?movie) > \"%s\"))",
+                    after.getYear(), after.getYear(), escapeString(after.getUri()));
         }
-        return movies;
-    }
 
-    private String buildMoviesByDecadeQuery(int startYear, int endYear) {
         return String.format("""
-            PREFIX dbo: <http://dbpedia.org/ontology/>
+            %sPREFIX dbo: <http://dbpedia.org/ontology/>
             PREFIX dct: <http://purl.org/dc/terms/>
             PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
             PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>
@@ -603,7 +822,7 @@ public class MovieExplorationSPARQLService {
                 (SAMPLE(?descriptionLabel) AS ?description)
                 (SAMPLE(?thumbnailLabel) AS ?thumbnail)
                 (MAX(?extracted_year) AS ?year)
-                (GROUP_CONCAT(DISTINCT ?subjectLabel; separator=",") AS ?subjects)
+                (GROUP_CONCAT(DISTINCT ?subjectLabel; separator="|") AS ?subjects)
             WHERE {
             ?movie a dbo:Film .
             ?movie rdfs:label ?titleLabel .
@@ -613,13 +832,10 @@ public class MovieExplorationSPARQLService {
             
             OPTIONAL { ?movie dbo:description ?descriptionLabel . FILTER(LANG(?descriptionLabel)="en") }
             
-            OPTIONAL { 
-                SELECT ?movie (MAX(xsd:integer(REPLACE(STR(?desc), "^([0-9]{4}).*", "$1"))) AS ?extracted_year)
+            {
+                SELECT ?movie (MAX(?release_year) AS ?extracted_year)
                 WHERE {
-                    ?movie dbo:description ?desc .
-                    FILTER(REGEX(?desc, "^[0-9]{4}"))
-                    FILTER(xsd:integer(REPLACE(STR(?desc), "^([0-9]{4}).*", "$1")) >= %d &&
-                           xsd:integer(REPLACE(STR(?desc), "^([0-9]{4}).*", "$1")) < %d)
+                    %s
                 }
                 GROUP BY ?movie
             }
@@ -632,68 +848,427 @@ public class MovieExplorationSPARQLService {
             }
             }
             GROUP BY ?movie
-            ORDER BY DESC(?year)
-            LIMIT 100
-        """, startYear, endYear);
+            %s
+            ORDER BY DESC(?year) ?movie
+            LIMIT %d
+            OFFSET %d
+        """, releaseYear.prefixes(), releaseYear.yearRange("release_year", startYear, endYear), having, limit, offset);
         }
 
-    // Récupérer un film par son URI
-    public Movie getMovieByUri(String uri) {
-        System.out.println(" getMovieByUri called with URI: " + uri);
-        String sparqlQuery = buildMovieByUriQuery(uri);
-        System.out.println("SPARQL Query: " + sparqlQuery);
-        ResultSet results = executeSparqlQuery(sparqlQuery);
+    /**
+     * Récupère une page du catalogue complet des films (titre, description,
+     * résumé, année, vignette, subjects), triée par URI pour une pagination stable.
+     * Les lignes brutes sont renvoyées car le résumé n'est utilisé que pour
+     * l'indexation plein texte et n'est pas conservé : ces pages ne passent donc
+     * pas par le cache SPARQL, qui garderait tous les résumés sur disque.
+     *
+     * @param range intervalle d'URI de films (voir {@link #resourcePartitions})
+     * @param after URI du dernier film de la page précédente, null pour la première page
+     * @param limit nombre de films par page
+     * @return lignes de résultats, ou null si l'endpoint est injoignable
+     */
+    public List<Map<String, Object>> fetchCatalogPage(SparqlHarvester.KeyRange range, String after, int limit) {
+        return readRows(executeSparqlQuery(buildCatalogPageQuery(range, after, limit)));
+    }
+
+    /**
+     * Récupère les valeurs de facettes (réalisateurs, producteurs, distributeurs,
+     * pays, langues) pour la même fenêtre de films que {@link #fetchCatalogPage}.
+     * Requête séparée pour éviter l'explosion combinatoire des OPTIONAL.
+     *
+     * @param live true : page relue sur l'endpoint même si elle est en cache (rechargement)
+     * @return lignes de résultats, ou null si l'endpoint est injoignable
+     */
+    public List<Map<String, Object>> fetchCatalogFacetsPage(SparqlHarvester.KeyRange range, String after, int limit,
+                                                            boolean live) {
+        return fetchRows(buildCatalogFacetsPageQuery(range, after, limit), live);
+    }
 
-        if (results != null && results.hasNext()) {
-            System.out.println(" Film trouvé!");
-            return mapSolutionToMovie(results.nextSolution());
+    /**
+     * Récupère une page de distributions (film, acteur, nom de l'acteur), triée par film
+     * puis par acteur, pour l'index des carrières d'acteurs.
+     *
+     * @param after clé {@link #starringKey} de la dernière ligne de la page précédente, ou null
+     * @param live true : page relue sur l'endpoint même si elle est en cache (rechargement)
+     * @return lignes de résultats, ou null si l'endpoint a échoué
+     */
+    public List<Map<String, Object>> fetchStarringPage(SparqlHarvester.KeyRange range, String after, int limit,
+                                                       boolean live) {
+        String resume = "";
+        if (after != null) {
+            int separator = after.indexOf(STARRING_KEY_SEPARATOR);
+            String movie = escapeString(separator < 0 ? after : after.substring(0, separator));
+            String actor = separator < 0 ? "" : escapeString(after.substring(separator + 1));
+            resume = String.format("FILTER(STR(?movie) > \"%s\" || (STR(?movie) = \"%s\" && STR(?actor) > \"%s\"))",
+                    movie, movie, actor);
         }
-        System.out.println(" Film non trouvé");
-        return null;
+
+        return fetchRows(String.format("""
+            PREFIX dbo: <http://dbpedia.org/ontology/>
+            PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
+
+            SELECT ?movie ?actor ?actorName
+            WHERE {
+              ?movie a dbo:Film ;
+                     dbo:starring ?actor .
+              ?actor rdfs:label ?actorName .
+              FILTER(LANG(?actorName) = "en")
+              %s
+              %s
+            }
+            ORDER BY STR(?movie) STR(?actor)
+            LIMIT %d
+        """, rangeFilter(range, null), resume, limit), live);
     }
 
-    private String buildMovieByUriQuery(String uri) {
-        return String.format("""
+    /**
+     * Clé de tri d'une ligne de distribution (film puis acteur), curseur de {@link #fetchStarringPage}.
+     */
+    public static String starringKey(Map<String, Object> row) {
+        return row.get("movie") + STARRING_KEY_SEPARATOR + row.get("actor");
+    }
+
+    /**
+     * Clé de tri d'une ligne par film, curseur des autres moissons du catalogue.
+     */
+    public static String movieKey(Map<String, Object> row) {
+        Object movie = row.get("movie");
+        return movie == null ? null : movie.toString();
+    }
+
+    /**
+     * Partitions des moissons du catalogue : intervalles d'URI de ressources DBpedia
+     * par initiale (avant « B », « B », ..., « Z » et au-delà).
+     * Chaque intervalle est parcouru par clé, sans OFFSET.
+     */
+    public List<SparqlHarvester.KeyRange> resourcePartitions() {
+        List<String> bounds = new ArrayList<>();
+        for (char initial = 'B'; initial <= 'Z'; initial++) {
+            bounds.add(RESOURCE_PREFIX + initial);
+        }
+        return SparqlHarvester.KeyRange.split(bounds);
+    }
+
+    /**
+     * Filtre restreignant ?movie à un intervalle d'URI, strictement après le curseur s'il est donné.
+     */
+    private String rangeFilter(SparqlHarvester.KeyRange range, String after) {
+        return rangeFilter("movie", range, after);
+    }
+
+    /**
+     * Filtre restreignant la variable donnée à un intervalle d'URI, strictement après le curseur s'il est donné.
+     */
+    private String rangeFilter(String variable, SparqlHarvester.KeyRange range, String after) {
+        List<String> conditions = new ArrayList<>();
+        if (range != null && range.getFrom() != null) {
+            conditions.add(String.format("STR(?%s) >= \"%s\"", variable, escapeString(range.getFrom())));
+        }
+        if (range != null && range.getTo() != null) {
+            conditions.add(String.format("STR(?%s) < \"%s\"", variable, escapeString(range.getTo())));
+        }
+        if (after != null) {
+            conditions.add(String.format("STR(?%s) > \"%s\"", variable, escapeString(after)));
+        }
+        return conditions.isEmpty() ? "" : "FILTER(" + String.join(" && ", conditions) + ")";
+    }
+
+    /**
+     * Récupère une page de recettes (en dollars) par film, pour l'index des carrières d'acteurs.
+     *
+     * @param live true : page relue sur l'endpoint même si elle est en cache (rechargement)
+     * @return lignes de résultats (?movie, ?gross), ou null si l'endpoint a échoué
+     */
+    public List<Map<String, Object>> fetchGrossPage(SparqlHarvester.KeyRange range, String after, int limit,
+                                                    boolean live) {
+        return fetchRows(String.format("""
             PREFIX dbo: <http://dbpedia.org/ontology/>
+            PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>
+
+            SELECT ?movie (MAX(xsd:decimal(?grossValue)) AS ?gross)
+            WHERE {
+              ?movie a dbo:Film ;
+                     dbo:gross ?grossValue .
+              FILTER(DATATYPE(?grossValue) = <http://dbpedia.org/datatype/usDollar>)
+              %s
+            }
+            GROUP BY ?movie
+            ORDER BY STR(?movie)
+            LIMIT %d
+        """, rangeFilter(range, after), limit), live);
+    }
+
+    /**
+     * Récupère le détail complet d'un ensemble de films en une seule requête (VALUES).
+     * Sert à hydrater la première page de résultats des recherches en mémoire.
+     *
+     * @param uris URIs DBpedia des films
+     * @return films trouvés (ordre non garanti)
+     */
+    public List<Movie> getMoviesByUris(Collection<String> uris) {
+        // Cache par film : un lot regroupé dans une fenêtre de temps ne se répète presque jamais à l'identique
+        List<Movie> movies = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String uri : uris) {
+            // Les URIs déjà connues comme inconnues de DBpedia ne sont pas redemandées
+            if (!isSafeIri(uri) || cacheService.isKnownAbsent(CACHE_MOVIES, uri)) continue;
+            List<Movie> cached = cacheService.getCachedTyped(CACHE_MOVIES, movieCacheKey(uri), Movie.class);
+            if (cached != null && !cached.isEmpty()) {
+                movies.add(cached.get(0));
+            } else {
+                missing.add(uri);
+            }
+        }
+        if (missing.isEmpty()) {
+            return movies;
+        }
+
+        List<Map<String, Object>> rows = readRows(executeSparqlQuery(buildMoviesByUrisQuery(missing)));
+        if (rows == null) {
+            return movies;
+        }
+
+        Set<String> found = new HashSet<>();
+        for (Movie movie : convertMapResultsToMovies(rows)) {
+            cacheService.cacheTyped(CACHE_MOVIES, movieCacheKey(movie.getUri()), Movie.class, List.of(movie));
+            found.add(movie.getUri());
+            movies.add(movie);
+        }
+        for (String uri : missing) {
+            if (!found.contains(uri)) cacheService.markAbsent(CACHE_MOVIES, uri);
+        }
+        return movies;
+    }
+
+    /**
+     * Clé de cache du détail d'un film, indépendante du lot qui l'a chargé.
+     */
+    static String movieCacheKey(String uri) {
+        return "movie <" + uri + ">";
+    }
+
+    String buildMoviesByUrisQuery(List<String> uris) {
+        StringBuilder values = new StringBuilder();
+        for (String uri : uris) {
+            values.append('<').append(uri).append("> ");
+        }
+
+        ReleaseYearStrategy releaseYear = getReleaseYearStrategy();
+        return String.format("""
+            %sPREFIX dbo: <http://dbpedia.org/ontology/>
+            PREFIX dbp: <http://dbpedia.org/property/>
             PREFIX dct: <http://purl.org/dc/terms/>
             PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
-            PREFIX dbp: <http://dbpedia.org/property/>
             PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>
 
-            SELECT ?movie
+            SELECT ?movie 
                    (SAMPLE(?titleLabel) AS ?title)
                    (SAMPLE(?descriptionLabel) AS ?description)
                    (SAMPLE(?thumbnailLabel) AS ?thumbnail)
                    (SAMPLE(?runtimeLabel) AS ?runtime)
                    (SAMPLE(?grossLabel) AS ?gross)
                    (SAMPLE(?budgetLabel) AS ?budget)
-                   (GROUP_CONCAT(DISTINCT ?director; separator=", ") AS ?directors)
-                   (GROUP_CONCAT(DISTINCT ?subjectLabel; separator=",") AS ?subjects)
+                   (SAMPLE(?subjectList) AS ?subjects)
                    (MAX(?extracted_year) AS ?year)
+                   (GROUP_CONCAT(DISTINCT STR(?directorRes); separator="|") AS ?directorUris)
+                   (GROUP_CONCAT(DISTINCT ?director; separator="|") AS ?directors)
+                   (GROUP_CONCAT(DISTINCT ?producer; separator="|") AS ?producers)
+                   (GROUP_CONCAT(DISTINCT ?editor; separator="|") AS ?editors)
+                   (GROUP_CONCAT(DISTINCT ?studio; separator="|") AS ?studios)
+                   (GROUP_CONCAT(DISTINCT ?musicComposer; separator="|") AS ?musicComposers)
+                   (GROUP_CONCAT(DISTINCT ?distributor; separator="|") AS ?distributors)
+                   (GROUP_CONCAT(DISTINCT ?country; separator="|") AS ?countries)
+                   (GROUP_CONCAT(DISTINCT ?language; separator="|") AS ?languages)
+            WHERE {
+              VALUES ?movie { %s}
+              ?movie a dbo:Film .
+              ?movie rdfs:label ?titleLabel .
+              FILTER(LANG(?titleLabel) = "en")
+
+              OPTIONAL { ?movie dbo:description ?descriptionLabel . FILTER(LANG(?descriptionLabel) = "en") }
+              OPTIONAL {
+                  %s
+              }
+              OPTIONAL { ?movie dbo:director ?directorRes . ?directorRes rdfs:label ?director . FILTER(LANG(?director) = "en") }
+              OPTIONAL { ?movie dbo:producer ?producerRes . ?producerRes rdfs:label ?producer . FILTER(LANG(?producer) = "en") }
+              OPTIONAL { ?movie dbo:editing ?editorRes . ?editorRes rdfs:label ?editor . FILTER(LANG(?editor) = "en") }
+              OPTIONAL { ?movie dbo:studio ?studio . }
+              OPTIONAL { ?movie dbo:musicComposer ?musicComposerRes . ?musicComposerRes rdfs:label ?musicComposer . FILTER(LANG(?musicComposer) = "en") }
+              OPTIONAL { ?movie dbo:distributor ?distributorRes . ?distributorRes rdfs:label ?distributor . FILTER(LANG(?distributor) = "en") }
+              OPTIONAL { ?movie dbp:country ?country . }
+              OPTIONAL { ?movie dbp:language ?language . }
+              OPTIONAL { ?movie dbo:runtime ?runtimeLabel . }
+              OPTIONAL { ?movie dbo:gross ?grossLabel . FILTER(DATATYPE(?grossLabel) = <http://dbpedia.org/datatype/usDollar>) }
+              OPTIONAL { ?movie dbo:budget ?budgetLabel . FILTER(DATATYPE(?budgetLabel) = <http://dbpedia.org/datatype/usDollar>) }
+              OPTIONAL { ?movie dbo:thumbnail ?thumbnailLabel }
+
+              # Sujets agrégés à part pour ne pas multiplier les lignes des autres OPTIONAL
+              OPTIONAL {
+                  SELECT ?movie (GROUP_CONCAT(DISTINCT ?subjectLabel; separator="|") AS ?subjectList)
+                  WHERE {
+                      VALUES ?movie { %s}
+                      ?movie dct:subject ?subject .
+                      ?subject rdfs:label ?subjectLabel .
+                      FILTER(LANG(?subjectLabel) = "en")
+                  }
+                  GROUP BY ?movie
+              }
+            }
+            GROUP BY ?movie
+        """, releaseYear.prefixes(), values, releaseYear.bindYear("extracted_year"), values);
+    }
+
+    private String buildCatalogPageQuery(SparqlHarvester.KeyRange range, String after, int limit) {
+        return String.format("""
+            PREFIX dbo: <http://dbpedia.org/ontology/>
+            PREFIX dct: <http://purl.org/dc/terms/>
+            PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
+            PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>
 
+            SELECT ?movie
+                (SAMPLE(?titleLabel) AS ?title)
+                (SAMPLE(?descriptionLabel) AS ?description)
+                (SAMPLE(?abstractLabel) AS ?abstract)
+                (SAMPLE(?thumbnailLabel) AS ?thumbnail)
+                (MAX(?extracted_year) AS ?year)
+                (GROUP_CONCAT(DISTINCT ?subjectLabel; separator="|") AS ?subjects)
             WHERE {
-                BIND(<%s> AS ?movie)
-                ?movie a dbo:Film .
-                ?movie rdfs:label ?titleLabel . FILTER(LANG(?titleLabel) = "en")
+            %s
+            ?movie rdfs:label ?titleLabel .
+            FILTER(LANG(?titleLabel) = "en")
 
-                 OPTIONAL { 
-                    SELECT ?movie (MAX(xsd:integer(REPLACE(STR(?desc), "^([0-9]{4}).*", "$1"))) AS ?extracted_year)
-                    WHERE {
-                    ?movie dbo:description ?desc .
-                    FILTER(REGEX(?desc, "^[0-9]{4}"))
-                    }
-                    GROUP BY ?movie
-                }
-                OPTIONAL { ?movie dbo:description ?descriptionLabel . FILTER(LANG(?descriptionLabel)="en") }
-                OPTIONAL { ?movie dbo:director ?directorRes . ?directorRes rdfs:label ?director . FILTER(LANG(?director) = "en") }
-                OPTIONAL { ?movie dbo:thumbnail ?thumbnailLabel }
-                OPTIONAL { ?movie dbo:runtime ?runtimeLabel . }
-                OPTIONAL { ?movie dbo:gross ?grossLabel . }
-                OPTIONAL { ?movie dbo:budget ?budgetLabel . }
-                OPTIONAL { ?movie dct:subject ?subject . ?subject rdfs:label ?subjectLabel . FILTER(LANG(?subjectLabel)="en") }
+            # Extraction depuis la description : source de la colonne d'années matérialisée
+            OPTIONAL {
+                ?movie dbo:description ?desc_with_year .
+                FILTER(REGEX(?desc_with_year, "^[0-9]{4}"))
+                BIND(xsd:integer(REPLACE(STR(?desc_with_year), "^([0-9]{4}).*", "$1")) AS ?extracted_year)
+            }
+            OPTIONAL { ?movie dbo:description ?descriptionLabel . FILTER(LANG(?descriptionLabel) = "en") }
+            OPTIONAL { ?movie dbo:abstract ?abstractLabel . FILTER(LANG(?abstractLabel) = "en") }
+            OPTIONAL { ?movie dbo:thumbnail ?thumbnailLabel }
+            OPTIONAL {
+                ?movie dct:subject ?subjectUri .
+                ?subjectUri rdfs:label ?subjectLabel .
+                FILTER(LANG(?subjectLabel) = "en")
+            }
+            }
+            GROUP BY ?movie
+        """, catalogWindow(range, after, limit));
+    }
+
+    private String buildCatalogFacetsPageQuery(SparqlHarvester.KeyRange range, String after, int limit) {
+        return String.format("""
+            PREFIX dbo: <http://dbpedia.org/ontology/>
+            PREFIX dbp: <http://dbpedia.org/property/>
+            PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
+
+            SELECT ?movie
+                (GROUP_CONCAT(DISTINCT STR(?directorRes); separator="|") AS ?directorUris)
+                (GROUP_CONCAT(DISTINCT ?director; separator="|") AS ?directors)
+                (GROUP_CONCAT(DISTINCT ?producer; separator="|") AS ?producers)
+                (GROUP_CONCAT(DISTINCT ?distributor; separator="|") AS ?distributors)
+                (GROUP_CONCAT(DISTINCT ?country; separator="|") AS ?countries)
+                (GROUP_CONCAT(DISTINCT ?language; separator="|") AS ?languages)
+            WHERE {
+            %s
+            OPTIONAL { ?movie dbo:director ?directorRes . ?directorRes rdfs:label ?director . FILTER(LANG(?director) = "en") }
+            OPTIONAL { ?movie dbo:producer ?producerRes . ?producerRes rdfs:label ?producer . FILTER(LANG(?producer) = "en") }
+            OPTIONAL { ?movie dbo:distributor ?distributorRes . ?distributorRes rdfs:label ?distributor . FILTER(LANG(?distributor) = "en") }
+            OPTIONAL {
+                ?movie dbp:country ?countryRaw .
+                OPTIONAL { ?countryRaw rdfs:label ?countryLabel . FILTER(LANG(?countryLabel) = "en") }
+                BIND(STR(COALESCE(?countryLabel, ?countryRaw)) AS ?country)
+            }
+            OPTIONAL {
+                ?movie dbp:language ?languageRaw .
+                OPTIONAL { ?languageRaw rdfs:label ?languageLabel . FILTER(LANG(?languageLabel) = "en") }
+                BIND(STR(COALESCE(?languageLabel, ?languageRaw)) AS ?language)
+            }
             }
             GROUP BY ?movie
-        """, uri);
+        """, catalogWindow(range, after, limit));
+    }
+
+    /**
+     * Sous-requête de fenêtre stable sur les films ayant un titre anglais, triés par URI.
+     * Chaque film y apparaît une seule fois ; la fenêtre reprend après le curseur,
+     * sans OFFSET, ce qui rend la pagination exacte quelle que soit la profondeur.
+     */
+    private String catalogWindow(SparqlHarvester.KeyRange range, String after, int limit) {
+        return String.format("""
+            {
+                SELECT DISTINCT ?movie
+                WHERE {
+                    ?movie a dbo:Film .
+                    ?movie rdfs:label ?anyLabel .
+                    FILTER(LANG(?anyLabel) = "en")
+                    %s
+                }
+                ORDER BY STR(?movie)
+                LIMIT %d
+            }""", rangeFilter(range, after), limit);
+    }
+
+    // Récupérer un film par son URI
+    public Movie getMovieByUri(String uri) {
+        System.out.println(" getMovieByUri called with URI: " + uri);
+        if (!isSafeIri(uri)) {
+            System.out.println(" URI invalide");
+            return null;
+        }
+        if (cacheService.isKnownAbsent(CACHE_MOVIES, uri)) {
+            System.out.println(" Film non trouvé (cache négatif)");
+            return null;
+        }
+
+        // Les appels concurrents sont regroupés en une seule requête VALUES
+        try {
+            Movie movie = getMovieLoader().load(uri).get(batchTimeoutMs, TimeUnit.MILLISECONDS);
+            System.out.println(movie != null ? " Film trouvé!" : " Film non trouvé");
+            return movie;
+        } catch (TimeoutException e) {
+            System.err.println("Film " + uri + " non reçu après " + batchTimeoutMs + " ms");
+            return null;
+        } catch (ExecutionException e) {
+            System.err.println("Erreur lors de la récupération du film " + uri + " : " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Regroupeur des recherches par URI, créé à la première utilisation
+     * (après l'injection de la configuration).
+     */
+    public MicroBatcher<String, Movie> getMovieLoader() {
+        MicroBatcher<String, Movie> loader = movieLoader;
+        if (loader == null) {
+            synchronized (this) {
+                loader = movieLoader;
+                if (loader == null) {
+                    loader = new MicroBatcher<>("movie-batch", this::loadMoviesByUris, batchWindowMs, batchMaxSize);
+                    movieLoader = loader;
+                }
+            }
+        }
+        return loader;
+    }
+
+    private Map<String, Movie> loadMoviesByUris(Set<String> uris) {
+        Map<String, Movie> moviesByUri = new HashMap<>();
+        for (Movie movie : getMoviesByUris(uris)) {
+            moviesByUri.put(movie.getUri(), movie);
+        }
+        return moviesByUri;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (movieLoader != null) {
+            movieLoader.shutdown();
+        }
     }
 
 
@@ -703,9 +1278,10 @@ public class MovieExplorationSPARQLService {
      * @param year année des films
      * @return requête SPARQL complète
      */
-    private String buildTopBudgetMoviesQuery(String year) {
+    private String buildTopBudgetMoviesQuery(int year) {
+        ReleaseYearStrategy releaseYear = getReleaseYearStrategy();
         return String.format("""
-            PREFIX dbo: <http://dbpedia.org/ontology/>
+            %sPREFIX dbo: <http://dbpedia.org/ontology/>
             PREFIX dbp: <http://dbpedia.org/property/>
             PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
             PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>
@@ -714,10 +1290,9 @@ public class MovieExplorationSPARQLService {
             WHERE {
             ?movie a dbo:Film .
             ?movie rdfs:label ?title .
-            ?movie dbo:description ?desc .
+            %s
 
             FILTER(LANG(?title) = "en")
-            FILTER(REGEX(?desc, "^%s"))
 
             {
                 ?movie dbo:budget ?budget .
@@ -731,13 +1306,52 @@ public class MovieExplorationSPARQLService {
             }
             ORDER BY DESC(xsd:decimal(?budget))
             LIMIT 10
-        """, year);
+        """, releaseYear.prefixes(), releaseYear.yearEquals(year));
     }
 
 
 
     // Méthodes utilitaires
 
+    /**
+     * Stratégie de correspondance des titres, choisie selon le backend configuré
+     * (bif:contains pour Virtuoso/DBpedia, jena-text pour un store Jena local, REGEX sinon).
+     */
+    public TitleMatchStrategy getTitleMatchStrategy() {
+        TitleMatchStrategy strategy = titleMatchStrategy;
+        if (strategy == null) {
+            strategy = TitleMatchStrategy.forBackend(fullTextMode, sparqlEndpoint);
+            titleMatchStrategy = strategy;
+        }
+        return strategy;
+    }
+
+    /**
+     * Stratégie d'accès à l'année de sortie : extraction par REGEX sur la description,
+     * ou triplets websem:releaseYear matérialisés dans un store local.
+     */
+    public ReleaseYearStrategy getReleaseYearStrategy() {
+        ReleaseYearStrategy strategy = releaseYearStrategy;
+        if (strategy == null) {
+            strategy = ReleaseYearStrategy.forMode(yearMode);
+            releaseYearStrategy = strategy;
+        }
+        return strategy;
+    }
+
+    /**
+     * Analyse une année saisie (ex: "1999").
+     *
+     * @return l'année, ou -1 si la saisie n'est pas une année sur 4 chiffres au plus
+     */
+    private static int parseYear(String year) {
+        if (year == null || !year.trim().matches("[0-9]{1,4}")) {
+            System.err.println("Année invalide : " + year);
+            return -1;
+        }
+        return Integer.parseInt(year.trim());
+    }
+
     /**
      * Exécute une requête SPARQL sur l’endpoint DBpedia.
      *
@@ -746,7 +1360,7 @@ public class MovieExplorationSPARQLService {
      */
     private ResultSet executeSparqlQuery(String sparqlQuery) {
         try {
-            QueryExecution qexec = QueryExecutionFactory.sparqlService(DBPEDIA_ENDPOINT, sparqlQuery);
+            QueryExecution qexec = QueryExecutionFactory.sparqlService(sparqlEndpoint, sparqlQuery);
             return qexec.execSelect();
         } catch (Exception e) {
             System.err.println("Erreur lors de la requête SPARQL : " + e.getMessage());
@@ -761,28 +1375,44 @@ public class MovieExplorationSPARQLService {
     private List<Movie> convertMapResultsToMovies(List<Map<String, Object>> results) {
         List<Movie> movies = new ArrayList<>();
         for (Map<String, Object> row : results) {
-            Movie movie = new Movie();
-            movie.setUri(getStringFromMap(row, "movie"));
-            movie.setTitle(getStringFromMap(row, "title"));
-            movie.setDescription(truncateText(getStringFromMap(row, "description"), 300));
-            movie.setReleaseDate(getStringFromMap(row, "year"));
-            movie.setDirector(getStringFromMap(row, "directors"));
-            movie.setDirectorUri(getStringFromMap(row, "directorUris"));
-            movie.setProducer(getStringFromMap(row, "producers"));
-            movie.setEditor(getStringFromMap(row, "editors"));
-            movie.setStudio(getStringFromMap(row, "studios"));
-            movie.setMusicComposer(getStringFromMap(row, "musicComposers"));
-            movie.setRuntime(formatRuntime(getStringFromMap(row, "runtime")));
-            movie.setDistributor(getStringFromMap(row, "distributors"));
-            movie.setCountry(getStringFromMap(row, "countries"));
-            movie.setLanguage(getStringFromMap(row, "languages"));
-            movie.setGross(formatCurrency(getStringFromMap(row, "gross")));
-            movie.setBudget(formatCurrency(getStringFromMap(row, "budget")));
-            movie.setThumbnail(getStringFromMap(row, "thumbnail"));
-            movies.add(movie);
+            movies.add(mapRowToMovie(row));
         }
         return movies;
     }
+
+    /**
+     * Convertit une ligne de résultats (format du cache) en Movie.
+     */
+    public Movie mapRowToMovie(Map<String, Object> row) {
+        Movie movie = new Movie();
+        movie.setUri(getStringFromMap(row, "movie"));
+        movie.setTitle(getStringFromMap(row, "title"));
+        movie.setDescription(truncateText(getStringFromMap(row, "description"), 300));
+        movie.setReleaseDate(getStringFromMap(row, "year"));
+        movie.setDirector(FacetIndex.display(getStringFromMap(row, "directors")));
+        movie.setDirectorUri(FacetIndex.display(getStringFromMap(row, "directorUris")));
+        movie.setProducer(FacetIndex.display(getStringFromMap(row, "producers")));
+        movie.setEditor(FacetIndex.display(getStringFromMap(row, "editors")));
+        movie.setStudio(FacetIndex.display(getStringFromMap(row, "studios")));
+        movie.setMusicComposer(FacetIndex.display(getStringFromMap(row, "musicComposers")));
+        movie.setRuntime(formatRuntime(getStringFromMap(row, "runtime")));
+        movie.setDistributor(FacetIndex.display(getStringFromMap(row, "distributors")));
+        movie.setCountry(FacetIndex.display(getStringFromMap(row, "countries")));
+        movie.setLanguage(FacetIndex.display(getStringFromMap(row, "languages")));
+        movie.setGross(formatCurrency(getStringFromMap(row, "gross")));
+        movie.setBudget(formatCurrency(getStringFromMap(row, "budget")));
+        movie.setThumbnail(getStringFromMap(row, "thumbnail"));
+
+        movie.setSubjects(new ArrayList<>(FacetIndex.split(getStringFromMap(row, "subjects"))));
+        return movie;
+    }
+
+    /**
+     * Récupère une valeur textuelle nettoyée d'une ligne de résultats (format du cache).
+     */
+    public String getRowValue(Map<String, Object> row, String key) {
+        return getStringFromMap(row, key);
+    }
     
     /**
      * Récupère une valeur String d'une Map
@@ -822,6 +1452,75 @@ public class MovieExplorationSPARQLService {
     }
 
 
+    /**
+     * Exécute une requête en passant par le cache et renvoie les lignes brutes.
+     *
+     * @return lignes de résultats, ou null si l'endpoint a échoué
+     */
+    private List<Map<String, Object>> fetchRows(String sparqlQuery) {
+        return fetchRows(sparqlQuery, false);
+    }
+
+    /**
+     * @param live true : l'endpoint est interrogé même si la requête est en cache, et l'entrée
+     *             est remplacée ; un rechargement voit ainsi les modifications de DBpedia
+     */
+    private List<Map<String, Object>> fetchRows(String sparqlQuery, boolean live) {
+        if (!live) {
+            List<Map<String, Object>> cachedResults = cacheService.getCachedResults(CACHE_HARVEST, sparqlQuery);
+            if (cachedResults != null) {
+                return cachedResults;
+            }
+        }
+
+        List<Map<String, Object>> rows = readRows(executeSparqlQuery(sparqlQuery));
+        if (rows != null) {
+            cacheService.cacheResults(CACHE_HARVEST, sparqlQuery, rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Lit toutes les lignes d'un ResultSet au format du cache.
+     *
+     * @return lignes lues, ou null si la requête a échoué
+     */
+    private List<Map<String, Object>> readRows(ResultSet results) {
+        if (results == null) {
+            return null;
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try {
+            while (results.hasNext()) {
+                QuerySolution solution = results.nextSolution();
+                Map<String, Object> row = new HashMap<>();
+                for (String var : results.getResultVars()) {
+                    if (solution.contains(var)) {
+                        row.put(var, solution.get(var).toString());
+                    }
+                }
+                rows.add(row);
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la lecture des résultats SPARQL : " + e.getMessage());
+            return null;
+        }
+        return rows;
+    }
+
+    /**
+     * Vérifie qu'une URI peut être insérée telle quelle entre chevrons dans une requête.
+     */
+    private boolean isSafeIri(String uri) {
+        if (uri == null || uri.isEmpty()) return false;
+        for (int i = 0; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c <= ' ' || "<>\"{}|^`\\".indexOf(c) >= 0) return false;
+        }
+        return true;
+    }
+
     /**
      * Protège une chaîne contre les caractères spéciaux pour SPARQL.
      */
@@ -887,17 +1586,17 @@ public class MovieExplorationSPARQLService {
     }
 
     /**
-     * Nettoie une liste de valeurs séparées par des virgules, en supprimant les URIs.
+     * Nettoie une liste de valeurs GROUP_CONCAT, en supprimant les URIs.
      */
     private String cleanValues(String value) {
         if (value == null) return null;
         
-        // Diviser par virgule et nettoyer chaque part
-        String[] parts = value.split(",");
+        // Découper sur le séparateur et nettoyer chaque part
+        List<String> parts = FacetIndex.split(value);
         StringBuilder result = new StringBuilder();
         
-        for (int i = 0; i < parts.length; i++) {
-            String part = parts[i].trim();
+        for (int i = 0; i < parts.size(); i++) {
+            String part = parts.get(i);
             String cleaned = cleanUri(part);
             if (result.length() > 0) {
                 result.append(", ");
@@ -917,26 +1616,21 @@ public class MovieExplorationSPARQLService {
         movie.setTitle(getStringValue(solution, "title"));
         movie.setDescription(truncateText(getStringValue(solution, "description"), 300));
         movie.setReleaseDate(getStringValue(solution, "year")); // année extraite
-        movie.setDirector(getStringValue(solution, "directors"));
-        movie.setDirectorUri(getStringValue(solution, "directorUris"));
-        movie.setProducer(getStringValue(solution, "producers"));
-        movie.setEditor(getStringValue(solution, "editors"));
-        movie.setStudio(getStringValue(solution, "studios"));
-        movie.setMusicComposer(getStringValue(solution, "musicComposers"));
+        movie.setDirector(FacetIndex.display(getStringValue(solution, "directors")));
+        movie.setDirectorUri(FacetIndex.display(getStringValue(solution, "directorUris")));
+        movie.setProducer(FacetIndex.display(getStringValue(solution, "producers")));
+        movie.setEditor(FacetIndex.display(getStringValue(solution, "editors")));
+        movie.setStudio(FacetIndex.display(getStringValue(solution, "studios")));
+        movie.setMusicComposer(FacetIndex.display(getStringValue(solution, "musicComposers")));
         movie.setRuntime(getStringValue(solution, "runtime"));
-        movie.setDistributor(getStringValue(solution, "distributors"));
+        movie.setDistributor(FacetIndex.display(getStringValue(solution, "distributors")));
         movie.setCountry(cleanValues(getStringValue(solution, "countries")));
         movie.setLanguage(cleanValues(getStringValue(solution, "languages")));
         movie.setGross(getStringValue(solution, "gross"));
         movie.setBudget(getStringValue(solution, "budget"));
         movie.setThumbnail(getStringValue(solution, "thumbnail"));
 
-         String subjectsStr = getStringValue(solution, "subjects");
-        if (subjectsStr != null && !subjectsStr.isEmpty()) {
-            movie.setSubjects(Arrays.asList(subjectsStr.split(",")));
-        } else {
-            movie.setSubjects(new ArrayList<>());
-        }
+        movie.setSubjects(new ArrayList<>(FacetIndex.split(getStringValue(solution, "subjects"))));
             return movie;
         }
 
@@ -0,0 +1,124 @@
+package fr.insalyon.websem.service;
+
+import fr.insalyon.websem.dto.GraphNode;
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.index.MovieGraph;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exploration du graphe films / acteurs / réalisateurs du catalogue en mémoire :
+ * voisinage, degrés de séparation et partenaires fréquents, sans requête SPARQL.
+ */
+@Service
+public class MovieGraphService {
+
+    public static final int MAX_HOPS = 6;
+    public static final int MAX_NODES = 2000;
+
+    @Autowired
+    protected MovieCatalogService catalogService;
+
+    public boolean isReady() {
+        return catalogService.getCatalog().getGraph().edgeCount() > 0;
+    }
+
+    /**
+     * Nœuds à au plus {@code hops} sauts d'un film ou d'une personne.
+     *
+     * @return nœuds dans l'ordre de parcours, ou null si l'URI est inconnue
+     */
+    public List<GraphNode> neighbourhood(String uri, int hops, int limit) {
+        MovieCatalog catalog = catalogService.getCatalog();
+        int source = node(catalog, uri);
+        if (source < 0) return null;
+
+        MovieGraph.Traversal traversal = catalog.getGraph().neighbourhood(source,
+                Math.max(0, Math.min(hops, MAX_HOPS)), Math.max(1, Math.min(limit, MAX_NODES)));
+
+        List<GraphNode> nodes = new ArrayList<>(traversal.size());
+        for (int i = 0; i < traversal.size(); i++) {
+            GraphNode node = toNode(catalog, traversal.node(i));
+            node.setDepth(traversal.depth(i));
+            node.setVia(traversal.parent(i) < 0 ? null : uriOf(catalog, traversal.parent(i)));
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    /**
+     * Plus court chemin (degrés de séparation) entre deux films ou personnes.
+     *
+     * @return chemin alternant personnes et films, vide s'il n'existe pas
+     *         en moins de {@code maxHops} sauts, ou null si une URI est inconnue
+     */
+    public List<GraphNode> shortestPath(String fromUri, String toUri, int maxHops) {
+        MovieCatalog catalog = catalogService.getCatalog();
+        int from = node(catalog, fromUri);
+        int to = node(catalog, toUri);
+        if (from < 0 || to < 0) return null;
+
+        int[] path = catalog.getGraph().shortestPath(from, to, Math.max(1, Math.min(maxHops, 2 * MAX_HOPS)));
+        List<GraphNode> nodes = new ArrayList<>();
+        if (path == null) return nodes;
+
+        for (int i = 0; i < path.length; i++) {
+            GraphNode node = toNode(catalog, path[i]);
+            node.setDepth(i);
+            node.setVia(i == 0 ? null : uriOf(catalog, path[i - 1]));
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    /**
+     * Acteurs ayant joué le plus souvent avec une personne.
+     *
+     * @return partenaires triés par nombre de films communs, ou null si la personne est inconnue
+     */
+    public List<GraphNode> topCoStars(String personUri, int limit) {
+        MovieCatalog catalog = catalogService.getCatalog();
+        MovieGraph graph = catalog.getGraph();
+        int person = graph.personNode(personUri);
+        if (person < 0) return null;
+
+        MovieGraph.Ranking ranking = graph.coStars(person, MovieGraph.ROLE_ACTOR, Math.max(1, Math.min(limit, MAX_NODES)));
+        List<GraphNode> nodes = new ArrayList<>(ranking.size());
+        for (int i = 0; i < ranking.size(); i++) {
+            GraphNode node = toNode(catalog, ranking.node(i));
+            node.setDepth(2);
+            node.setVia(personUri);
+            node.setWeight(ranking.weight(i));
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private static int node(MovieCatalog catalog, String uri) {
+        int film = catalog.ordinalOf(uri);
+        return film >= 0 ? film : catalog.getGraph().personNode(uri);
+    }
+
+    private static String uriOf(MovieCatalog catalog, int node) {
+        MovieGraph graph = catalog.getGraph();
+        return graph.isFilm(node) ? catalog.uri(node) : graph.personUri(node);
+    }
+
+    private static GraphNode toNode(MovieCatalog catalog, int node) {
+        MovieGraph graph = catalog.getGraph();
+        if (graph.isFilm(node)) {
+            return new GraphNode(catalog.uri(node), catalog.title(node), "film", 0, null, 0);
+        }
+        return new GraphNode(graph.personUri(node), graph.personName(node), personType(graph.personRoles(node)), 0, null, 0);
+    }
+
+    private static String personType(byte roles) {
+        boolean actor = (roles & MovieGraph.ROLE_ACTOR) != 0;
+        boolean director = (roles & MovieGraph.ROLE_DIRECTOR) != 0;
+        if (actor && director) return "actor-director";
+        return director ? "director" : "actor";
+    }
+}
@@ -1,10 +1,21 @@
 package fr.insalyon.websem.service;
 
+import fr.insalyon.websem.index.FacetIndex;
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.index.MovieTextIndex;
+import fr.insalyon.websem.index.SubjectEmbeddings;
+import fr.insalyon.websem.index.SubjectIndex;
 import fr.insalyon.websem.model.Movie;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntPredicate;
 
 @Service
 public class MovieSimilarityService {
@@ -12,12 +23,35 @@ public class MovieSimilarityService {
     @Autowired
     protected MovieExplorationSPARQLService sparqlService;
 
+    @Autowired
+    protected MovieCatalogService catalogService;
+
+    // Attente maximale des films demandés au regroupeur de requêtes (ms)
+    @Value("${websem.batch.timeout-ms:10000}")
+    protected long batchTimeoutMs = 10000;
+
     /**
      * Point d'entrée principal
      */
     public List<Movie> getSimilarMovies(Movie targetMovie, int limit) {
+        return getSimilarMovies(targetMovie, limit, null);
+    }
+
+    /**
+     * Films similaires, éventuellement restreints à une fenêtre d'années autour du film cible.
+     * L'index des subjects du catalogue est utilisé s'il est chargé ; sinon les candidats
+     * sont les films de la décennie du film cible.
+     *
+     * @param yearWindow écart maximal en années avec le film cible (null : toutes les années)
+     */
+    public List<Movie> getSimilarMovies(Movie targetMovie, int limit, Integer yearWindow) {
         System.out.println("getSimilarMovies called for: " + targetMovie.getTitle());
 
+        List<Movie> indexed = getSimilarMoviesFromIndex(targetMovie, limit, yearWindow);
+        if (indexed != null) {
+            return indexed;
+        }
+
         // Vérifier la date
         String dateStr = targetMovie.getReleaseDate();
         if (dateStr == null || dateStr.isEmpty() || targetMovie.getSubjects() == null) {
@@ -69,6 +103,226 @@ public class MovieSimilarityService {
         return result;
     }
 
+    /**
+     * Recommandations à partir de plusieurs films (liste de films à voir) en une seule passe :
+     * les candidats des films de référence sont réunis une fois, puis chaque candidat est comparé
+     * à toutes les références et ses similarités sont agrégées.
+     *
+     * @param seeds films de référence ; une entrée null (film introuvable) est ignorée
+     * @param limit nombre maximal de films
+     * @param aggregation distance minimale, moyenne ou moyenne pondérée
+     * @param weights poids de chaque film de référence (WEIGHTED), à la même position que
+     *                son film dans {@code seeds} ; null : poids égaux
+     */
+    public List<Movie> getSimilarMovies(List<Movie> seeds, int limit, SubjectIndex.Aggregation aggregation,
+                                        List<Double> weights) {
+        if (seeds == null || seeds.stream().allMatch(Objects::isNull)) {
+            return List.of();
+        }
+
+        List<Movie> indexed = getSimilarMoviesFromIndex(seeds, limit, aggregation, weights);
+        if (indexed != null) {
+            return indexed;
+        }
+
+        // Sans catalogue : une seule requête par décennie distincte des films de référence
+        Set<Integer> decades = new TreeSet<>();
+        Set<String> seedKeys = new HashSet<>();
+        List<List<String>> seedSubjects = new ArrayList<>();
+        List<Double> seedWeights = new ArrayList<>();
+        for (int i = 0; i < seeds.size(); i++) {
+            Movie seed = seeds.get(i);
+            if (seed == null) continue;
+            seedKeys.add(movieKey(seed));
+            int year = parseYear(seed.getReleaseDate());
+            if (year <= 0 || seed.getSubjects() == null || seed.getSubjects().isEmpty()) continue;
+
+            decades.add(year / 10 * 10);
+            List<String> normalized = new ArrayList<>();
+            for (String s : seed.getSubjects()) {
+                normalized.add(normalize(s));
+            }
+            seedSubjects.add(normalized);
+            seedWeights.add(weights != null && i < weights.size() && weights.get(i) != null ? weights.get(i) : 1.0);
+        }
+
+        Map<String, Movie> candidates = new LinkedHashMap<>();
+        for (int decade : decades) {
+            for (Movie candidate : sparqlService.getMoviesByDecade(decade, decade + 10)) {
+                if (!seedKeys.contains(movieKey(candidate))) {
+                    candidates.putIfAbsent(movieKey(candidate), candidate);
+                }
+            }
+        }
+
+        List<Map.Entry<Movie, Double>> scoredMovies = new ArrayList<>();
+        for (Movie candidate : candidates.values()) {
+            double aggregated = aggregation == SubjectIndex.Aggregation.MIN_DISTANCE ? Double.MAX_VALUE : 0.0;
+            double weightSum = 0.0;
+            for (int s = 0; s < seedSubjects.size(); s++) {
+                double distance = computeDistance(seedSubjects.get(s), candidate.getSubjects());
+                double weight = aggregation == SubjectIndex.Aggregation.WEIGHTED ? seedWeights.get(s) : 1.0;
+                if (aggregation == SubjectIndex.Aggregation.MIN_DISTANCE) {
+                    aggregated = Math.min(aggregated, distance);
+                } else {
+                    aggregated += weight * distance;
+                    weightSum += weight;
+                }
+            }
+            if (aggregation != SubjectIndex.Aggregation.MIN_DISTANCE && weightSum > 0) {
+                aggregated /= weightSum;
+            }
+            scoredMovies.add(Map.entry(candidate, aggregated));
+        }
+        scoredMovies.sort(Map.Entry.comparingByValue());
+
+        List<Movie> result = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, scoredMovies.size()); i++) {
+            result.add(scoredMovies.get(i).getKey());
+        }
+        return result;
+    }
+
+    /**
+     * Films correspondant à des URI : lus dans le catalogue s'ils y sont, sinon récupérés
+     * par le regroupeur de requêtes (une seule requête VALUES pour tous les films manquants).
+     *
+     * @return un film par URI, à la même position ; null pour une URI introuvable, en erreur
+     *         ou non reçue dans le délai, pour que les poids associés aux URI restent alignés
+     */
+    public List<Movie> resolveMovies(List<String> uris) {
+        MovieCatalog catalog = catalogService != null ? catalogService.getCatalog() : MovieCatalog.empty();
+        List<CompletableFuture<Movie>> pending = new ArrayList<>();
+        for (String uri : uris) {
+            int ordinal = catalog.ordinalOf(uri);
+            pending.add(ordinal >= 0
+                    ? CompletableFuture.completedFuture(catalog.get(ordinal))
+                    : sparqlService.getMovieLoader().load(uri));
+        }
+
+        // Même échéance pour tous les films, demandés ensemble
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchTimeoutMs);
+        List<Movie> movies = new ArrayList<>(pending.size());
+        for (CompletableFuture<Movie> future : pending) {
+            Movie movie = null;
+            try {
+                movie = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                System.err.println("Film non reçu après " + batchTimeoutMs + " ms");
+            } catch (ExecutionException e) {
+                System.err.println("Erreur lors de la récupération d'un film : " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    private List<Movie> getSimilarMoviesFromIndex(List<Movie> seeds, int limit, SubjectIndex.Aggregation aggregation,
+                                                  List<Double> weights) {
+        if (catalogService == null || !catalogService.isReady()) {
+            return null;
+        }
+
+        MovieCatalog catalog = catalogService.getCatalog();
+        SubjectIndex subjectIndex = catalog.getSubjectIndex();
+        List<int[]> references = new ArrayList<>();
+        List<Float> referenceWeights = new ArrayList<>();
+        Set<Integer> seedOrdinals = new HashSet<>();
+        for (int i = 0; i < seeds.size(); i++) {
+            Movie seed = seeds.get(i);
+            if (seed == null) continue;
+            int ordinal = catalog.ordinalOf(seed.getUri());
+            if (ordinal >= 0) seedOrdinals.add(ordinal);
+
+            int[] subjects = ordinal >= 0 ? subjectIndex.subjects(ordinal) : subjectIndex.subjectIds(seed.getSubjects());
+            if (subjects.length == 0) continue;
+            references.add(subjects);
+            referenceWeights.add(weights != null && i < weights.size() && weights.get(i) != null
+                    ? weights.get(i).floatValue() : 1f);
+        }
+        if (references.isEmpty()) {
+            return null;
+        }
+
+        float[] coefficients = new float[referenceWeights.size()];
+        for (int i = 0; i < coefficients.length; i++) coefficients[i] = referenceWeights.get(i);
+
+        MovieTextIndex.Hits hits = subjectIndex.similar(references.toArray(new int[0][]), coefficients, aggregation,
+                limit, film -> !seedOrdinals.contains(film));
+        List<Movie> result = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            result.add(catalog.get(hits.doc(i)));
+        }
+        return result;
+    }
+
+    private static String movieKey(Movie movie) {
+        return movie.getUri() != null ? movie.getUri() : String.valueOf(movie.getTitle());
+    }
+
+    /**
+     * Candidats issus de l'index inversé : films partageant au moins un subject avec le film cible,
+     * classés par similarité de Jaccard pondérée par l'IDF des subjects. Si les plongements denses
+     * sont activés, tous les films sont classés par cosinus de leurs vecteurs.
+     *
+     * @return null si le catalogue n'est pas chargé ou si aucun subject du film cible n'y est connu
+     */
+    private List<Movie> getSimilarMoviesFromIndex(Movie targetMovie, int limit, Integer yearWindow) {
+        if (catalogService == null || !catalogService.isReady()) {
+            return null;
+        }
+
+        MovieCatalog catalog = catalogService.getCatalog();
+        SubjectIndex subjectIndex = catalog.getSubjectIndex();
+        int target = catalog.ordinalOf(targetMovie.getUri());
+        int[] targetSubjects = target >= 0
+                ? subjectIndex.subjects(target)
+                : subjectIndex.subjectIds(targetMovie.getSubjects());
+        if (targetSubjects.length == 0) {
+            return null;
+        }
+
+        IntPredicate accept = null;
+        int year = parseYear(targetMovie.getReleaseDate());
+        if (yearWindow != null && year > 0) {
+            FacetIndex facetIndex = catalog.getFacetIndex();
+            int fromYear = year - yearWindow;
+            int toYear = year + yearWindow;
+            accept = film -> {
+                int filmYear = facetIndex.year(film);
+                return filmYear >= fromYear && filmYear <= toYear;
+            };
+        }
+
+        MovieTextIndex.Hits hits;
+        SubjectEmbeddings embeddings = catalog.getEmbeddings();
+        if (embeddings.isEmpty()) {
+            hits = subjectIndex.similar(targetSubjects, target, limit, accept);
+        } else {
+            // Plongements activés : parcours complet des vecteurs, cosine par produit scalaire
+            float[] query = target >= 0 ? embeddings.vector(target) : embeddings.project(subjectIndex, targetSubjects);
+            IntPredicate window = accept;
+            hits = embeddings.nearest(query, limit, film -> film != target && (window == null || window.test(film)));
+        }
+        List<Movie> result = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            result.add(catalog.get(hits.doc(i)));
+        }
+        System.out.println("Found " + result.size() + " similar films from the subject index");
+        return result;
+    }
+
+    private static int parseYear(String releaseDate) {
+        if (releaseDate == null || releaseDate.length() < 4) return 0;
+        try {
+            return Integer.parseInt(releaseDate.substring(0, 4));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
      * Calcule la distance du film candidat par rapport au film cible
      * Utilise la similarité des subjects
@@ -0,0 +1,52 @@
+package fr.insalyon.websem.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Curseur de pagination par clé (keyset) : position du dernier film d'une page.
+ *
+ * La page suivante reprend strictement après cette position, selon un ordre
+ * stable (URI du film, éventuellement précédée de l'année). Le curseur est
+ * transmis au client sous forme opaque (Base64 URL).
+ */
+public final class PageCursor {
+
+    private final Integer year;
+    private final String uri;
+
+    public PageCursor(Integer year, String uri) {
+        this.year = year;
+        this.uri = uri;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public String encode() {
+        String raw = (year == null ? "" : year.toString()) + "|" + uri;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor curseur opaque reçu du client, null ou vide pour la première page
+     * @return position décodée, ou null pour la première page
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = raw.indexOf('|');
+        if (separator < 0 || separator == raw.length() - 1) {
+            throw new IllegalArgumentException("Curseur invalide : " + cursor);
+        }
+        Integer year = separator == 0 ? null : Integer.valueOf(raw.substring(0, separator));
+        return new PageCursor(year, raw.substring(separator + 1));
+    }
+}
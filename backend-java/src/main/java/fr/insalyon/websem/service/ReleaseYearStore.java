@@ -0,0 +1,202 @@
+package fr.insalyon.websem.service;
+
+import fr.insalyon.websem.index.FacetIndex;
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.service.year.ReleaseYearStrategy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.modify.request.QuadDataAcc;
+import org.apache.jena.sparql.modify.request.UpdateDataInsert;
+import org.apache.jena.update.UpdateExecution;
+import org.apache.jena.update.UpdateRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+/**
+ * Années de sortie matérialisées : calculées une seule fois par film à partir
+ * de la colonne d'années du catalogue, puis conservées sous forme de triplets
+ * websem:releaseYear typés xsd:gYear.
+ *
+ * Les triplets sont gardés dans un modèle Jena en mémoire, sauvegardés en
+ * N-Triples hors du répertoire du cache SPARQL (qu'un vidage du cache efface), et poussés (SPARQL Update) vers un store
+ * local si un endpoint d'écriture est configuré. La publication se fait en
+ * arrière-plan avec un délai maximal, pour qu'un store lent ne retarde pas
+ * le rechargement du catalogue.
+ */
+@Service
+public class ReleaseYearStore {
+
+    private static final Property RELEASE_YEAR = ResourceFactory.createProperty(ReleaseYearStrategy.RELEASE_YEAR);
+    private static final int UPDATE_BATCH_SIZE = 1000;
+    // IRIREF de la grammaire SPARQL : Jena n'échappe pas ces caractères en écrivant une IRI
+    private static final Pattern IRI_REF = Pattern.compile("[^<>\"{}|^`\\\\\\x00-\\x20]*");
+
+    @Value("${websem.years.file:data/release-years.nt}")
+    protected String file = "data/release-years.nt";
+
+    // Endpoint SPARQL Update du store local (vide : pas de publication)
+    @Value("${websem.sparql.update-endpoint:}")
+    private String updateEndpoint = "";
+
+    // Délai maximal d'une publication vers le store local (ms)
+    @Value("${websem.years.publish-timeout-ms:60000}")
+    private long publishTimeoutMs = 60000;
+
+    private volatile Model model = ModelFactory.createDefaultModel();
+
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "release-year-publisher");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> publishing;
+
+    /**
+     * Recharge les années matérialisées lors d'une exécution précédente.
+     */
+    @PostConstruct
+    public void load() {
+        Path path = Paths.get(file);
+        if (!Files.exists(path)) return;
+
+        Model loaded = ModelFactory.createDefaultModel();
+        try (InputStream in = Files.newInputStream(path)) {
+            RDFDataMgr.read(loaded, in, Lang.NTRIPLES);
+            model = loaded;
+            System.out.println("Années de sortie chargées : " + loaded.size() + " films");
+        } catch (Exception e) {
+            System.err.println("Erreur lors du chargement des années de sortie : " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdownNow();
+    }
+
+    /**
+     * Matérialise l'année de chaque film daté du catalogue et remplace le modèle courant.
+     * La publication vers le store local est lancée en arrière-plan.
+     *
+     * @return nombre de triplets produits
+     */
+    public int materialize(MovieCatalog catalog) {
+        FacetIndex facetIndex = catalog.getFacetIndex();
+        Model materialized = ModelFactory.createDefaultModel();
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            int year = facetIndex.year(ordinal);
+            if (year <= 0) continue;
+            materialized.add(materialized.createResource(catalog.uri(ordinal)), RELEASE_YEAR,
+                    materialized.createTypedLiteral(String.format("%04d", year), XSDDatatype.XSDgYear));
+        }
+        model = materialized;
+
+        save(materialized);
+        if (updateEndpoint != null && !updateEndpoint.isBlank()) {
+            publishAsync(materialized);
+        }
+        return (int) materialized.size();
+    }
+
+    public long size() {
+        return model.size();
+    }
+
+    /**
+     * Lance la publication en arrière-plan ; une publication encore en cours est remplacée,
+     * et une publication qui dépasse le délai est interrompue.
+     */
+    private synchronized void publishAsync(Model materialized) {
+        if (publishing != null) {
+            publishing.cancel(true);
+        }
+        Future<?> task = publisher.submit(() -> publish(materialized));
+        CompletableFuture.delayedExecutor(publishTimeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (task.cancel(true)) {
+                System.err.println("Publication des années de sortie abandonnée après " + publishTimeoutMs + " ms");
+            }
+        });
+        publishing = task;
+    }
+
+    private void save(Model materialized) {
+        try {
+            Path path = Paths.get(file);
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                RDFDataMgr.write(out, materialized, Lang.NTRIPLES);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la sauvegarde des années de sortie : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remplace les années du store local : suppression des anciens triplets,
+     * puis insertion par lots pour borner la taille des requêtes.
+     */
+    private void publish(Model materialized) {
+        try {
+            UpdateExecution.service(updateEndpoint)
+                    .updateString("DELETE WHERE { ?movie <" + ReleaseYearStrategy.RELEASE_YEAR + "> ?year }")
+                    .execute();
+
+            List<Triple> batch = new ArrayList<>();
+            int skipped = 0;
+            StmtIterator it = materialized.listStatements();
+            while (it.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) return;
+                Statement statement = it.next();
+                if (!isValidIri(statement.getSubject().getURI())) {
+                    skipped++;
+                    continue;
+                }
+                batch.add(statement.asTriple());
+                if (batch.size() == UPDATE_BATCH_SIZE) {
+                    UpdateExecution.service(updateEndpoint).update(insertData(batch)).execute();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                UpdateExecution.service(updateEndpoint).update(insertData(batch)).execute();
+            }
+            if (skipped > 0) {
+                System.err.println("Années de sortie non publiées (IRI invalide) : " + skipped + " films");
+            }
+            System.out.println("Années de sortie publiées vers " + updateEndpoint);
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la publication des années de sortie : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Requête INSERT DATA d'un lot, sérialisée par Jena (littéraux échappés).
+     */
+    static UpdateRequest insertData(List<Triple> triples) {
+        QuadDataAcc data = new QuadDataAcc();
+        triples.forEach(data::addTriple);
+        return new UpdateRequest(new UpdateDataInsert(data));
+    }
+
+    /**
+     * Vrai si l'IRI peut s'écrire entre chevrons sans sortir du triplet.
+     */
+    static boolean isValidIri(String uri) {
+        return uri != null && IRI_REF.matcher(uri).matches();
+    }
+}
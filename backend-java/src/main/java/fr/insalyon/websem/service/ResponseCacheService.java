@@ -0,0 +1,166 @@
+package fr.insalyon.websem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import fr.insalyon.websem.service.cache.DependencyIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache des réponses HTTP déjà sérialisées : corps JSON UTF-8 final et ETag fort,
+ * par clé (endpoint, paramètres). Un succès ne refait ni la conversion en objets
+ * ni la sérialisation JSON ; les octets sont recopiés tels quels dans la réponse.
+ *
+ * Les réponses vides ne sont pas gardées : elles peuvent venir d'un endpoint
+ * SPARQL momentanément indisponible. Chaque réponse gardée est indexée par les
+ * ressources DBpedia (films, personnes) qu'elle contient.
+ */
+@Service
+public class ResponseCacheService {
+
+    @Autowired
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    // Absent hors de Spring : pas de vidage venant des autres réplicas
+    @Autowired(required = false)
+    private SparqlCacheService cacheService;
+
+    // Budget mémoire des corps de réponse, en Mo
+    @Value("${websem.cache.response.max-mb:32}")
+    private long maxMb = 32;
+
+    private final DependencyIndex dependencies = new DependencyIndex();
+
+    private final Cache<String, CachedResponse> responses = Caffeine.newBuilder()
+        .expireAfterWrite(24, TimeUnit.HOURS)
+        .maximumWeight(32L * 1024 * 1024)
+        .weigher((String key, CachedResponse response) -> key.length() + response.getBody().length)
+        .evictionListener((String key, CachedResponse response, RemovalCause cause) ->
+            dependencies.remove(key))
+        .recordStats()
+        .build();
+
+    @PostConstruct
+    public void init() {
+        responses.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maxMb * 1024 * 1024));
+        if (cacheService != null) {
+            // Un vidage fait sur un autre réplica rend aussi les réponses sérialisées obsolètes
+            cacheService.addRemoteClearListener(this::invalidateAll);
+        }
+    }
+
+    /**
+     * Réponse en cache pour la clé, ou calculée et sérialisée une seule fois sinon.
+     *
+     * @param key endpoint et paramètres de la requête
+     * @param producer calcule le résultat à sérialiser en cas d'absence
+     */
+    public CachedResponse get(String key, Supplier<?> producer) {
+        if (cacheService != null) {
+            cacheService.checkSharedGeneration();
+        }
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Object value = producer.get();
+        CachedResponse response;
+        try {
+            response = new CachedResponse(objectMapper.writeValueAsBytes(value));
+        } catch (Exception e) {
+            throw new IllegalStateException("Sérialisation de la réponse impossible : " + key, e);
+        }
+
+        boolean empty = value == null || (value instanceof Collection<?> c && c.isEmpty());
+        if (!empty) {
+            try {
+                dependencies.record(key, DependencyIndex.uris(objectMapper.readTree(response.getBody())));
+            } catch (Exception e) {
+                System.err.println("Erreur lors de l'indexation des dépendances: " + e.getMessage());
+            }
+            responses.put(key, response);
+        }
+        return response;
+    }
+
+    /**
+     * Invalide les seules réponses qui contiennent une ressource (film, personne).
+     *
+     * @return nombre de réponses invalidées
+     */
+    public int invalidateResource(String uri) {
+        Set<String> keys = dependencies.invalidate(uri);
+        responses.invalidateAll(keys);
+        return keys.size();
+    }
+
+    public void invalidateAll() {
+        responses.invalidateAll();
+        dependencies.clear();
+    }
+
+    public long size() {
+        return responses.estimatedSize();
+    }
+
+    /**
+     * Taux de succès, évictions et occupation du cache des réponses.
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = responses.stats();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("entries", responses.estimatedSize());
+        map.put("weightBytes", responses.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L));
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRatio", Math.round(stats.hitRate() * 1000) / 1000.0);
+        map.put("evictions", stats.evictionCount());
+        return map;
+    }
+
+    /**
+     * Corps JSON sérialisé et son ETag fort (empreinte SHA-256 du corps).
+     */
+    public static final class CachedResponse {
+        private final byte[] body;
+        private final String etag;
+
+        CachedResponse(byte[] body) {
+            this.body = body;
+            this.etag = "\"" + digest(body) + "\"";
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        private static String digest(byte[] body) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+                return HexFormat.of().formatHex(hash, 0, 16);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
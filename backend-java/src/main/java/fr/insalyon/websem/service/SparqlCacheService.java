@@ -3,35 +3,588 @@ package fr.insalyon.websem.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import fr.insalyon.websem.service.cache.CacheMetrics;
+import fr.insalyon.websem.service.cache.BloomFilter;
+import fr.insalyon.websem.service.cache.Compression;
+import fr.insalyon.websem.service.cache.CompressionStats;
+import fr.insalyon.websem.service.cache.DependencyIndex;
+import fr.insalyon.websem.service.cache.OffHeapStore;
+import fr.insalyon.websem.service.cache.RespSharedCacheTier;
+import fr.insalyon.websem.service.cache.RowCodec;
+import fr.insalyon.websem.service.cache.SharedCache;
+import fr.insalyon.websem.service.cache.SharedCacheTier;
+import fr.insalyon.websem.service.cache.WriteBehindWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.apache.jena.query.ResultSet;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 @Service
 public class SparqlCacheService {
     
     private static final String CACHE_DIR = "sparql-cache";
+
+    private final Path cacheDir;
+
+    // Fichier compagnon d'une entrée du cache disque : ressources DBpedia qu'elle contient, une par ligne
+    private static final String DEPS_SUFFIX = ".deps";
+
+    // Famille des requêtes mises en cache sans préciser de famille
+    public static final String DEFAULT_FAMILY = "default";
+
+    // Durée de vie des résultats, commune aux tiers sur le tas et au tier hors tas
+    private static final long RESULTS_TTL_HOURS = 24;
     private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Mesures par famille (succès par tier, latence de chargement, tailles, évictions) et clés chaudes
+    @Value("${websem.cache.metrics.enabled:true}")
+    private boolean metricsEnabled = true;
+
+    @Value("${websem.cache.metrics.hot-keys:20}")
+    private int hotKeyCount = 20;
+
+    private volatile CacheMetrics metrics = new CacheMetrics(20);
+
+    // Début des chargements en cours (échec de lecture → mise en cache du résultat), par clé
+    private final Cache<String, Long> pendingLoads = Caffeine.newBuilder()
+        .expireAfterWrite(10, TimeUnit.MINUTES)
+        .maximumSize(10000)
+        .build();
     
     private final Cache<String, List<Map<String, Object>>> memoryCache = Caffeine.newBuilder()
-        .expireAfterWrite(24, TimeUnit.HOURS)
+        .expireAfterWrite(RESULTS_TTL_HOURS, TimeUnit.HOURS)
         .maximumSize(1000)
+        .removalListener((String key, List<Map<String, Object>> value, RemovalCause cause) ->
+            recordRemoval("memory", cause))
         .build();
+
+    // Tier typé : résultats déjà convertis (Movie, Actor, Genre), servis tels quels sans analyse
+    private final Cache<String, List<?>> typedCache = Caffeine.newBuilder()
+        .expireAfterWrite(RESULTS_TTL_HOURS, TimeUnit.HOURS)
+        .maximumSize(1000)
+        .removalListener((String key, List<?> value, RemovalCause cause) -> recordRemoval("typed", cause))
+        .build();
+
+    // Tier hors tas optionnel : il garde l'ensemble des résultats, le tas n'en gardant qu'un petit ensemble chaud
+    @Value("${websem.cache.offheap.enabled:false}")
+    private boolean offHeapEnabled;
+
+    @Value("${websem.cache.offheap.capacity-mb:256}")
+    private long offHeapCapacityMb = 256;
+
+    @Value("${websem.cache.offheap.slab-mb:16}")
+    private int offHeapSlabMb = 16;
+
+    // Nombre d'entrées gardées sur le tas (par tier) quand le tier hors tas est actif
+    @Value("${websem.cache.offheap.hot-entries:100}")
+    private int hotEntries = 100;
+
+    private volatile OffHeapStore offHeap;
+
+    // Mode compressé par famille de requêtes : "famille:mode,..." avec mode none | lz4 | zstd
+    @Value("${websem.cache.compression.default:none}")
+    private String defaultCompression = "none";
+
+    @Value("${websem.cache.compression.families:}")
+    private String familyCompression = "";
+
+    // Budget mémoire des entrées compressées, mesuré sur leur taille compressée
+    @Value("${websem.cache.compression.memory-mb:64}")
+    private long compressedMemoryMb = 64;
+
+    private final Cache<String, byte[]> compressedCache = Caffeine.newBuilder()
+        .expireAfterWrite(RESULTS_TTL_HOURS, TimeUnit.HOURS)
+        .maximumWeight(64L * 1024 * 1024)
+        .weigher((String key, byte[] value) -> key.length() + value.length)
+        .removalListener((String key, byte[] value, RemovalCause cause) -> recordRemoval("compressed", cause))
+        .build();
+
+    private volatile Compression compressionByDefault = Compression.NONE;
+    private volatile Map<String, Compression> compressionByFamily = Map.of();
+    private final Map<String, CompressionStats> compressionStats = new ConcurrentHashMap<>();
+
+    // Cache négatif : requêtes sans résultat et clés connues comme absentes, avec leur propre durée de vie
+    @Value("${websem.cache.negative.ttl-minutes:10}")
+    private long negativeTtlMinutes = 10;
+
+    // Ressource → clés absentes (famille|URI) qui la mentionnent : invalidation sans parcourir le cache négatif
+    private final DependencyIndex negativeDependencies = new DependencyIndex();
+
+    private final Cache<String, Boolean> negativeCache = Caffeine.newBuilder()
+        .expireAfterWrite(10, TimeUnit.MINUTES)
+        .maximumSize(100000)
+        .evictionListener((String key, Boolean value, RemovalCause cause) -> negativeDependencies.remove(key))
+        .removalListener((String key, Boolean value, RemovalCause cause) -> recordRemoval("negative", cause))
+        .build();
+
+    // Filtre de Bloom des fichiers du cache disque : une clé absente évite l'accès au système de fichiers
+    @Value("${websem.cache.bloom.expected-entries:100000}")
+    private int bloomExpectedEntries = 100000;
+
+    private volatile BloomFilter diskIndex;
+
+    // Écriture différée du cache disque : taille maximale de la file, taille d'un lot, délai entre deux lots
+    @Value("${websem.cache.write-behind.capacity:10000}")
+    private int writeBehindCapacity = 10000;
+
+    @Value("${websem.cache.write-behind.batch-size:100}")
+    private int writeBehindBatchSize = 100;
+
+    @Value("${websem.cache.write-behind.interval-ms:200}")
+    private long writeBehindIntervalMs = 200;
+
+    private volatile WriteBehindWriter writer;
+
+    // Tier partagé entre réplicas (protocole Redis) : serveurs "hôte:port,...", vide = désactivé
+    @Value("${websem.cache.shared.nodes:}")
+    private String sharedNodes = "";
+
+    @Value("${websem.cache.shared.timeout-ms:50}")
+    private int sharedTimeoutMs = 50;
+
+    @Value("${websem.cache.shared.ttl-hours:24}")
+    private long sharedTtlHours = 24;
+
+    // Cache proche : entrées partagées gardées localement, et délai de prise en compte d'un vidage distant
+    @Value("${websem.cache.shared.near-entries:1000}")
+    private int sharedNearEntries = 1000;
+
+    @Value("${websem.cache.shared.near-ttl-seconds:10}")
+    private long sharedNearTtlSeconds = 10;
+
+    private volatile SharedCache shared;
+
+    // Caches dérivés (réponses HTTP...) à vider quand un autre réplica vide le cache partagé
+    private final List<Runnable> remoteClearListeners = new CopyOnWriteArrayList<>();
+
+    // Index inverse ressource (film, personne) → fichiers du cache qui la contiennent
+    private final DependencyIndex dependencies = new DependencyIndex();
     
     public SparqlCacheService() {
+        this(Paths.get(CACHE_DIR));
+    }
+
+    /**
+     * @param cacheDir répertoire du cache disque (un répertoire temporaire dans les tests)
+     */
+    public SparqlCacheService(Path cacheDir) {
+        this.cacheDir = cacheDir;
         // Créer le répertoire de cache s'il n'existe pas
         try {
-            Files.createDirectories(Paths.get(CACHE_DIR));
+            Files.createDirectories(cacheDir);
         } catch (IOException e) {
             System.err.println("Erreur lors de la création du répertoire de cache: " + e.getMessage());
         }
+        indexDisk(bloomExpectedEntries);
     }
     
+    @PostConstruct
+    public void init() {
+        if (hotKeyCount != 20) {
+            metrics = new CacheMetrics(hotKeyCount);
+        }
+        negativeCache.policy().expireAfterWrite()
+            .ifPresent(expiration -> expiration.setExpiresAfter(negativeTtlMinutes, TimeUnit.MINUTES));
+        if (bloomExpectedEntries != 100000) {
+            indexDisk(bloomExpectedEntries);
+        }
+        configureCompression(defaultCompression, familyCompression, compressedMemoryMb * 1024 * 1024);
+        if (offHeapEnabled) {
+            enableOffHeap(offHeapCapacityMb * 1024 * 1024, offHeapSlabMb * 1024 * 1024, hotEntries);
+        }
+        if (sharedNodes != null && !sharedNodes.isBlank()) {
+            enableSharedTier(new RespSharedCacheTier(sharedNodes, sharedTimeoutMs));
+        }
+    }
+
+    /**
+     * Active le tier partagé entre réplicas, consulté après le disque local.
+     */
+    public void enableSharedTier(SharedCacheTier tier) {
+        shared = new SharedCache(tier, TimeUnit.HOURS.toMillis(sharedTtlHours),
+            sharedNearEntries, TimeUnit.SECONDS.toMillis(sharedNearTtlSeconds), this::clearAfterRemoteInvalidation);
+        System.out.println("Cache partagé activé : " + tier.getClass().getSimpleName());
+    }
+
+    /**
+     * @return tier partagé, ou null s'il n'est pas activé
+     */
+    public SharedCache getShared() {
+        return shared;
+    }
+
+    /**
+     * Enregistre un cache dérivé à vider quand un autre réplica vide le cache partagé.
+     */
+    public void addRemoteClearListener(Runnable listener) {
+        remoteClearListeners.add(listener);
+    }
+
+    /**
+     * Vérifie que le cache n'a pas été vidé par un autre réplica depuis la dernière lecture
+     * de la génération partagée ; sinon les tiers locaux sont vidés. Sans effet sans tier partagé.
+     */
+    public void checkSharedGeneration() {
+        SharedCache sharedCache = shared;
+        if (sharedCache != null) {
+            sharedCache.checkGeneration();
+        }
+    }
+
+    private void clearAfterRemoteInvalidation() {
+        System.out.println("Cache vidé par un autre réplica : vidage des tiers locaux");
+        clearLocalTiers();
+        for (Runnable listener : remoteClearListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Active le tier hors tas et réduit les caches sur le tas à un ensemble chaud.
+     *
+     * @param capacityBytes mémoire directe totale du tier hors tas
+     * @param slabSize taille d'une tranche de mémoire directe (taille maximale d'une entrée)
+     * @param hotEntries nombre d'entrées gardées sur le tas, par tier
+     */
+    public void enableOffHeap(long capacityBytes, int slabSize, int hotEntries) {
+        offHeap = new OffHeapStore(capacityBytes, slabSize, TimeUnit.HOURS.toMillis(RESULTS_TTL_HOURS));
+        memoryCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(hotEntries));
+        typedCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(hotEntries));
+        System.out.println("Cache hors tas activé : " + (capacityBytes / (1024 * 1024)) + " Mo, "
+            + hotEntries + " entrées chaudes sur le tas");
+    }
+
+    /**
+     * Règle le mode compressé : les familles concernées sont gardées en mémoire et sur disque
+     * sous forme de tableaux d'octets compressés, décompressés à chaque succès.
+     *
+     * @param byDefault mode des familles non listées (none | lz4 | zstd)
+     * @param byFamily modes par famille, ex: "harvest:zstd,search:lz4"
+     * @param memoryBytes budget mémoire des entrées compressées (taille compressée)
+     */
+    public void configureCompression(String byDefault, String byFamily, long memoryBytes) {
+        Map<String, Compression> families = new HashMap<>();
+        if (byFamily != null) {
+            for (String entry : byFamily.split(",")) {
+                int colon = entry.indexOf(':');
+                if (colon > 0) {
+                    families.put(entry.substring(0, colon).trim(), Compression.parse(entry.substring(colon + 1)));
+                }
+            }
+        }
+        compressionByDefault = Compression.parse(byDefault);
+        compressionByFamily = families;
+        compressionStats.clear();
+        compressedCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(memoryBytes));
+    }
+
+    private Compression compression(String family) {
+        return compressionByFamily.getOrDefault(family, compressionByDefault);
+    }
+
+    private CompressionStats stats(String family) {
+        return compressionStats.computeIfAbsent(family, f -> new CompressionStats(compression(f)));
+    }
+
+    /**
+     * Taux de compression et coût de décompression par famille compressée.
+     */
+    public Map<String, Map<String, Object>> getCompressionStats() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        compressionStats.forEach((family, stats) -> report.put(family, stats.toMap()));
+        return report;
+    }
+
+    /**
+     * Reconstruit le filtre de Bloom et l'index des dépendances à partir des fichiers
+     * présents dans le cache disque.
+     */
+    private void indexDisk(int expectedEntries) {
+        BloomFilter index = new BloomFilter(expectedEntries, 0.01);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                index.put(fileName);
+                if (fileName.endsWith(DEPS_SUFFIX)) {
+                    Set<String> uris = new HashSet<>(Files.readAllLines(file, StandardCharsets.UTF_8));
+                    dependencies.record(fileName.substring(0, fileName.length() - DEPS_SUFFIX.length()), uris);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'indexation du cache disque: " + e.getMessage());
+        }
+        diskIndex = index;
+    }
+
+    /**
+     * Contenu d'un fichier du cache disque, y compris s'il est encore en attente d'écriture,
+     * puis du tier partagé si le disque local ne l'a pas.
+     *
+     * @return contenu, ou null s'il n'est ni sur le disque local ni dans le tier partagé
+     */
+    private byte[] readDiskFile(String family, String fileName) throws IOException {
+        if (diskIndex.mightContain(fileName)) {
+            WriteBehindWriter current = writer;
+            byte[] pending = current == null ? null : current.pending(fileName);
+            if (pending != null) {
+                hit(family, CacheMetrics.Tier.DISK);
+                return pending;
+            }
+            Path cacheFile = cacheDir.resolve(fileName);
+            if (Files.exists(cacheFile)) {
+                hit(family, CacheMetrics.Tier.DISK);
+                return Files.readAllBytes(cacheFile);
+            }
+        }
+
+        SharedCache sharedCache = shared;
+        byte[] content = sharedCache == null ? null : sharedCache.get(fileName);
+        if (content != null) {
+            hit(family, CacheMetrics.Tier.SHARED);
+            // Entrée calculée par un autre réplica : gardée aussi sur le disque local
+            diskIndex.put(fileName);
+            getWriter().write(fileName, content);
+        }
+        return content;
+    }
+
+    /**
+     * Met un fichier en attente d'écriture : la requête ne paie que la mise en file
+     * (et l'envoi au tier partagé s'il est activé).
+     */
+    private void writeDiskFile(String fileName, byte[] content) {
+        diskIndex.put(fileName);
+        getWriter().write(fileName, content);
+        SharedCache sharedCache = shared;
+        if (sharedCache != null) {
+            sharedCache.put(fileName, content);
+        }
+    }
+
+    /**
+     * Écriture différée du cache disque, créée à la première utilisation
+     * (après l'injection de la configuration).
+     */
+    public WriteBehindWriter getWriter() {
+        WriteBehindWriter current = writer;
+        if (current == null) {
+            synchronized (this) {
+                current = writer;
+                if (current == null) {
+                    current = new WriteBehindWriter(cacheDir, writeBehindCapacity,
+                        writeBehindBatchSize, writeBehindIntervalMs);
+                    writer = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Écrit sur disque toutes les entrées en attente.
+     */
+    public void flush() {
+        WriteBehindWriter current = writer;
+        if (current != null) {
+            current.flush();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        WriteBehindWriter current = writer;
+        if (current != null) {
+            current.shutdown();
+        }
+        SharedCache sharedCache = shared;
+        if (sharedCache != null) {
+            sharedCache.close();
+        }
+    }
+
+    // Appelé par les écouteurs d'éviction des caches Caffeine
+    private void recordRemoval(String tier, RemovalCause cause) {
+        if (metricsEnabled) {
+            metrics.recordRemoval(tier, cause);
+        }
+    }
+
+    private void hit(String family, CacheMetrics.Tier tier) {
+        if (metricsEnabled) {
+            metrics.recordHit(family, tier);
+        }
+    }
+
+    private void miss(String family, String key) {
+        if (metricsEnabled) {
+            metrics.recordMiss(family);
+            pendingLoads.put(key, System.nanoTime());
+        }
+    }
+
+    /**
+     * Fin d'un chargement : latence depuis l'échec de lecture de la même clé, et taille de l'entrée.
+     *
+     * @param bytes taille de l'entrée écrite, ou -1 pour une entrée vide (cache négatif)
+     */
+    private void loaded(String family, String key, int bytes) {
+        if (!metricsEnabled) return;
+        Long start = pendingLoads.asMap().remove(key);
+        if (start != null) {
+            metrics.recordLoad(family, System.nanoTime() - start);
+        }
+        if (bytes >= 0) {
+            metrics.recordEntrySize(family, bytes);
+        }
+    }
+
+    /**
+     * Mesures du cache, sans parcours du disque : tailles des tiers, mesures par famille,
+     * évictions par tier et par cause, clés chaudes.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> tiers = new LinkedHashMap<>();
+        tiers.put("memory", Map.of("entries", memoryCache.estimatedSize()));
+        tiers.put("typed", Map.of("entries", typedCache.estimatedSize()));
+        tiers.put("compressed", Map.of("entries", compressedCache.estimatedSize(),
+            "weightBytes", compressedCache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L)));
+        tiers.put("negative", Map.of("entries", negativeCache.estimatedSize()));
+        OffHeapStore store = offHeap;
+        if (store != null) {
+            tiers.put("offheap", Map.of("entries", store.size(), "allocatedBytes", store.allocatedBytes(),
+                "evictions", store.evictions()));
+        }
+        WriteBehindWriter current = writer;
+        if (current != null) {
+            tiers.put("writeBehind", Map.of("pending", current.pendingCount(), "enqueued", current.getEnqueued(),
+                "coalesced", current.getCoalesced(), "written", current.getWritten(),
+                "batches", current.getBatches(), "callerRuns", current.getCallerRuns()));
+        }
+        SharedCache sharedCache = shared;
+        if (sharedCache != null) {
+            tiers.put("shared", Map.of("nearHits", sharedCache.getNearHits(),
+                "remoteHits", sharedCache.getRemoteHits(), "misses", sharedCache.getMisses()));
+        }
+        tiers.put("dependencies", Map.of("entries", dependencies.entryCount(),
+            "resources", dependencies.resourceCount()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("metricsEnabled", metricsEnabled);
+        stats.put("tiers", tiers);
+        stats.put("families", metrics.familiesToMap());
+        stats.put("evictions", metrics.removalsToMap());
+        stats.put("hotKeys", metrics.hotKeys());
+        stats.put("compression", getCompressionStats());
+        return stats;
+    }
+
+    /**
+     * Enregistre les ressources contenues dans une entrée, avec son fichier compagnon
+     * pour les retrouver au redémarrage.
+     */
+    private void track(String fileName, Set<String> uris) {
+        dependencies.record(fileName, uris);
+        if (!uris.isEmpty()) {
+            getWriter().write(fileName + DEPS_SUFFIX, String.join("\n", uris).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Enregistre les ressources d'une entrée JSON relue (disque, tier partagé) si elle n'est pas encore suivie.
+     */
+    private void trackLoaded(String fileName, byte[] json) {
+        if (dependencies.isTracked(fileName)) return;
+        try {
+            track(fileName, DependencyIndex.uris(objectMapper.readTree(json)));
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'indexation des dépendances: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Invalide les seules entrées du cache qui contiennent une ressource (film, personne),
+     * dans tous les tiers, ainsi que sa mention éventuelle dans le cache négatif.
+     *
+     * @param uri URI DBpedia de la ressource
+     * @return nombre d'entrées invalidées
+     */
+    public int invalidateResource(String uri) {
+        Set<String> fileNames = dependencies.invalidate(uri);
+        for (String fileName : fileNames) {
+            evict(fileName);
+        }
+        negativeCache.invalidateAll(negativeDependencies.invalidate(uri));
+        return fileNames.size();
+    }
+
+    private void evict(String fileName) {
+        // Clé en mémoire : nom du fichier sans ".json" pour les tiers non compressés, nom du fichier sinon
+        String key = fileName.endsWith(".json") ? fileName.substring(0, fileName.length() - 5) : fileName;
+        memoryCache.invalidate(key);
+        typedCache.invalidate(key);
+        compressedCache.invalidate(fileName);
+        OffHeapStore store = offHeap;
+        if (store != null) {
+            store.remove(key);
+        }
+        WriteBehindWriter current = writer;
+        if (current != null) {
+            current.cancel(fileName);
+            current.cancel(fileName + DEPS_SUFFIX);
+        }
+        try {
+            Files.deleteIfExists(cacheDir.resolve(fileName));
+            Files.deleteIfExists(cacheDir.resolve(fileName + DEPS_SUFFIX));
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la suppression: " + e.getMessage());
+        }
+        SharedCache sharedCache = shared;
+        if (sharedCache != null) {
+            sharedCache.invalidate(fileName);
+        }
+    }
+
+    public DependencyIndex getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Enregistre une clé comme absente (film inconnu...) pour la durée de vie du cache négatif.
+     *
+     * @param family famille de la clé (movies...)
+     */
+    public void markAbsent(String family, String key) {
+        negativeCache.put(family + "|" + key, Boolean.TRUE);
+        negativeDependencies.record(family + "|" + key, Set.of(key));
+    }
+
+    public boolean isKnownAbsent(String family, String key) {
+        checkSharedGeneration();
+        return negativeCache.getIfPresent(family + "|" + key) != null;
+    }
+
+    public long getNegativeCacheSize() {
+        return negativeCache.estimatedSize();
+    }
+
+    /**
+     * @return tier hors tas, ou null s'il n'est pas activé
+     */
+    public OffHeapStore getOffHeap() {
+        return offHeap;
+    }
+
     /**
      * Génère un hash SHA-256 de la requête SPARQL
      */
@@ -52,40 +605,90 @@ public class SparqlCacheService {
     }
     
     /**
-     * Récupère le chemin du fichier de cache pour une requête
+     * Récupère le nom du fichier de cache pour une requête
      */
-    private Path getCacheFilePath(String queryHash) {
-        return Paths.get(CACHE_DIR, queryHash + ".json");
+    private String getCacheFileName(String queryHash) {
+        return queryHash + ".json";
     }
     
     /**
      * Récupère les résultats du cache si disponibles
      */
     public List<Map<String, Object>> getCachedResults(String sparqlQuery) {
+        return getCachedResults(DEFAULT_FAMILY, sparqlQuery);
+    }
+
+    /**
+     * Récupère les résultats du cache si disponibles, selon le mode de la famille de la requête.
+     *
+     * @param family famille de requêtes (search, harvest...)
+     */
+    public List<Map<String, Object>> getCachedResults(String family, String sparqlQuery) {
+        checkSharedGeneration();
         String queryHash = generateQueryHash(sparqlQuery);
+        if (metricsEnabled) {
+            metrics.recordAccess(family, queryHash, sparqlQuery);
+        }
+        if (negativeCache.getIfPresent(queryHash) != null) {
+            hit(family, CacheMetrics.Tier.NEGATIVE);
+            return List.of();
+        }
+
+        Compression compression = compression(family);
+        if (compression != Compression.NONE) {
+            String fileName = queryHash + ".rows" + compression.extension();
+            byte[] raw = readCompressed(family, compression, fileName);
+            if (raw == null) {
+                miss(family, queryHash);
+                return null;
+            }
+            List<Map<String, Object>> results = RowCodec.decode(raw);
+            if (!dependencies.isTracked(fileName)) {
+                track(fileName, DependencyIndex.uris(results));
+            }
+            return results;
+        }
         
         List<Map<String, Object>> cachedResults = memoryCache.getIfPresent(queryHash);
         if (cachedResults != null) {
+            hit(family, CacheMetrics.Tier.MEMORY);
             return cachedResults;
         }
+
+        OffHeapStore store = offHeap;
+        if (store != null) {
+            byte[] encoded = store.get(queryHash);
+            if (encoded != null) {
+                hit(family, CacheMetrics.Tier.OFFHEAP);
+                List<Map<String, Object>> results = RowCodec.decode(encoded);
+                memoryCache.put(queryHash, results);
+                return results;
+            }
+        }
         
-        Path cacheFile = getCacheFilePath(queryHash);
-        
-        if (Files.exists(cacheFile)) {
-            try {
-                String cachedContent = new String(Files.readAllBytes(cacheFile));
+        try {
+            byte[] content = readDiskFile(family, getCacheFileName(queryHash));
+            if (content != null) {
+                String cachedContent = new String(content);
                 @SuppressWarnings("unchecked")
                 List<Map<String, Object>> results = objectMapper.readValue(
                     cachedContent,
                     List.class
                 );
+                if (!dependencies.isTracked(getCacheFileName(queryHash))) {
+                    track(getCacheFileName(queryHash), DependencyIndex.uris(results));
+                }
                 memoryCache.put(queryHash, results);
+                if (store != null) {
+                    store.put(queryHash, RowCodec.encode(results));
+                }
                 return results;
-            } catch (IOException e) {
-                System.err.println("Erreur lors de la lecture du cache: " + e.getMessage());
             }
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du cache: " + e.getMessage());
         }
         
+        miss(family, queryHash);
         return null; // Pas de cache trouvé
     }
     
@@ -93,26 +696,258 @@ public class SparqlCacheService {
      * Stocke les résultats en cache
      */
     public void cacheResults(String sparqlQuery, List<Map<String, Object>> results) {
+        cacheResults(DEFAULT_FAMILY, sparqlQuery, results);
+    }
+
+    /**
+     * Stocke les résultats en cache, selon le mode de la famille de la requête.
+     */
+    public void cacheResults(String family, String sparqlQuery, List<Map<String, Object>> results) {
         String queryHash = generateQueryHash(sparqlQuery);
+        if (results.isEmpty()) {
+            // Résultat vide : gardé dans le cache négatif, à durée de vie courte
+            negativeCache.put(queryHash, Boolean.TRUE);
+            loaded(family, queryHash, -1);
+            return;
+        }
+
+        Compression compression = compression(family);
+        if (compression != Compression.NONE) {
+            String fileName = queryHash + ".rows" + compression.extension();
+            track(fileName, DependencyIndex.uris(results));
+            loaded(family, queryHash, writeCompressed(family, compression, fileName, RowCodec.encode(results)));
+            return;
+        }
+
         memoryCache.put(queryHash, results);
-        
-        Path cacheFile = getCacheFilePath(queryHash);
+        track(getCacheFileName(queryHash), DependencyIndex.uris(results));
+
+        OffHeapStore store = offHeap;
+        if (store != null) {
+            store.put(queryHash, RowCodec.encode(results));
+        }
         
         try {
             String jsonContent = objectMapper.writeValueAsString(results);
-            Files.write(cacheFile, jsonContent.getBytes());
+            byte[] content = jsonContent.getBytes();
+            loaded(family, queryHash, content.length);
+            writeDiskFile(getCacheFileName(queryHash), content);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture du cache: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Récupère des résultats typés du cache si disponibles.
+     * La liste renvoyée est partagée entre les appels : elle n'est pas modifiable
+     * et ses éléments ne doivent pas être modifiés.
+     *
+     * @param type type des éléments (Movie, Actor, Genre...)
+     * @return résultats, ou null si la requête n'est pas en cache
+     */
+    public <T> List<T> getCachedTyped(String sparqlQuery, Class<T> type) {
+        return getCachedTyped(DEFAULT_FAMILY, sparqlQuery, type);
+    }
+
+    /**
+     * Récupère des résultats typés du cache, selon le mode de la famille de la requête.
+     * En mode compressé, chaque succès renvoie une nouvelle liste.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getCachedTyped(String family, String sparqlQuery, Class<T> type) {
+        checkSharedGeneration();
+        String key = typedKey(generateQueryHash(sparqlQuery), type);
+        if (metricsEnabled) {
+            metrics.recordAccess(family, key, sparqlQuery);
+        }
+        if (negativeCache.getIfPresent(key) != null) {
+            hit(family, CacheMetrics.Tier.NEGATIVE);
+            return List.of();
+        }
+
+        Compression compression = compression(family);
+        if (compression != Compression.NONE) {
+            String fileName = key + ".json" + compression.extension();
+            byte[] raw = readCompressed(family, compression, fileName);
+            if (raw == null) {
+                miss(family, key);
+                return null;
+            }
+            trackLoaded(fileName, raw);
+            try {
+                return Collections.unmodifiableList(objectMapper.readValue(raw,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, type)));
+            } catch (IOException e) {
+                System.err.println("Erreur lors de la lecture du cache: " + e.getMessage());
+                return null;
+            }
+        }
+
+        List<?> cachedResults = typedCache.getIfPresent(key);
+        if (cachedResults != null) {
+            hit(family, CacheMetrics.Tier.TYPED);
+            return (List<T>) cachedResults;
+        }
+
+        OffHeapStore store = offHeap;
+        if (store != null) {
+            byte[] encoded = store.get(key);
+            if (encoded != null) {
+                hit(family, CacheMetrics.Tier.OFFHEAP);
+                try {
+                    List<T> frozen = Collections.unmodifiableList(objectMapper.readValue(encoded,
+                        objectMapper.getTypeFactory().constructCollectionType(List.class, type)));
+                    typedCache.put(key, frozen);
+                    return frozen;
+                } catch (IOException e) {
+                    System.err.println("Erreur lors de la lecture du cache hors tas: " + e.getMessage());
+                }
+            }
+        }
+
+        try {
+            byte[] content = readDiskFile(family, key + ".json");
+            if (content != null) {
+                trackLoaded(key + ".json", content);
+                // Désérialisation directe vers le type des éléments, sans passer par des Map
+                List<T> results = objectMapper.readValue(content,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, type));
+                List<T> frozen = Collections.unmodifiableList(results);
+                typedCache.put(key, frozen);
+                if (store != null) {
+                    store.put(key, content);
+                }
+                return frozen;
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du cache: " + e.getMessage());
+        }
+
+        miss(family, key);
+        return null;
+    }
+
+    /**
+     * Stocke des résultats typés en cache (mémoire et disque).
+     */
+    public <T> void cacheTyped(String sparqlQuery, Class<T> type, List<T> results) {
+        cacheTyped(DEFAULT_FAMILY, sparqlQuery, type, results);
+    }
+
+    /**
+     * Stocke des résultats typés en cache, selon le mode de la famille de la requête.
+     */
+    public <T> void cacheTyped(String family, String sparqlQuery, Class<T> type, List<T> results) {
+        String key = typedKey(generateQueryHash(sparqlQuery), type);
+        if (results.isEmpty()) {
+            negativeCache.put(key, Boolean.TRUE);
+            loaded(family, key, -1);
+            return;
+        }
+
+        Compression compression = compression(family);
+        if (compression != Compression.NONE) {
+            try {
+                String fileName = key + ".json" + compression.extension();
+                byte[] raw = objectMapper.writeValueAsBytes(results);
+                track(fileName, DependencyIndex.uris(objectMapper.readTree(raw)));
+                loaded(family, key, writeCompressed(family, compression, fileName, raw));
+            } catch (IOException e) {
+                System.err.println("Erreur lors de l'écriture du cache: " + e.getMessage());
+            }
+            return;
+        }
+        typedCache.put(key, Collections.unmodifiableList(new ArrayList<>(results)));
+
+        try {
+            byte[] content = objectMapper.writeValueAsBytes(results);
+            track(key + ".json", DependencyIndex.uris(objectMapper.readTree(content)));
+            loaded(family, key, content.length);
+            OffHeapStore store = offHeap;
+            if (store != null) {
+                store.put(key, content);
+            }
+            writeDiskFile(key + ".json", content);
         } catch (IOException e) {
             System.err.println("Erreur lors de l'écriture du cache: " + e.getMessage());
         }
     }
+
+    private static String typedKey(String queryHash, Class<?> type) {
+        return queryHash + "." + type.getSimpleName().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Lit une entrée compressée (mémoire, puis disque) et la décompresse.
+     *
+     * @param fileName nom du fichier de l'entrée, qui sert aussi de clé en mémoire
+     * @return contenu décompressé, ou null si l'entrée est absente ou illisible
+     */
+    private byte[] readCompressed(String family, Compression compression, String fileName) {
+        byte[] data = compressedCache.getIfPresent(fileName);
+        try {
+            if (data == null) {
+                data = readDiskFile(family, fileName);
+                if (data == null) return null;
+                compressedCache.put(fileName, data);
+            } else {
+                hit(family, CacheMetrics.Tier.COMPRESSED);
+            }
+
+            long start = System.nanoTime();
+            byte[] raw = compression.decompress(data);
+            stats(family).recordHit(System.nanoTime() - start);
+            return raw;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erreur lors de la lecture du cache compressé: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return taille compressée de l'entrée
+     */
+    private int writeCompressed(String family, Compression compression, String fileName, byte[] raw) {
+        byte[] data = compression.compress(raw);
+        stats(family).recordWrite(raw.length, data.length);
+        compressedCache.put(fileName, data);
+        writeDiskFile(fileName, data);
+        return data.length;
+    }
     
     /**
-     * Vide tout le cache
+     * Vide tout le cache, y compris pour les autres réplicas quand le tier partagé est actif
      */
     public void clearCache() {
+        clearLocalTiers();
+        // Vidage à l'échelle du cluster : les autres réplicas le voient après la durée de vie du cache proche
+        SharedCache sharedCache = shared;
+        if (sharedCache != null) {
+            sharedCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Vide les tiers propres à ce réplica : mémoire, typé, compressé, négatif, hors tas et disque.
+     */
+    private void clearLocalTiers() {
         memoryCache.invalidateAll();
+        typedCache.invalidateAll();
+        compressedCache.invalidateAll();
+        negativeCache.invalidateAll();
+        negativeDependencies.clear();
+        diskIndex.clear();
+        dependencies.clear();
+        WriteBehindWriter current = writer;
+        if (current != null) {
+            current.clear();
+        }
+        OffHeapStore store = offHeap;
+        if (store != null) {
+            store.clear();
+        }
         try {
-            Files.walk(Paths.get(CACHE_DIR))
+            Files.walk(cacheDir)
                 .filter(Files::isRegularFile)
                 .forEach(file -> {
                     try {
@@ -131,7 +966,7 @@ public class SparqlCacheService {
      */
     public double getCacheSizeInMB() {
         try {
-            long totalSize = Files.walk(Paths.get(CACHE_DIR))
+            long totalSize = Files.walk(cacheDir)
                 .filter(Files::isRegularFile)
                 .mapToLong(file -> {
                     try {
@@ -0,0 +1,355 @@
+package fr.insalyon.websem.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Moissonneur de grands résultats SPARQL.
+ *
+ * Les endpoints comme DBpedia plafonnent le nombre de lignes et coupent les
+ * agrégations longues. Le moissonneur découpe donc une extraction en
+ * partitions (ex: une par année) elles-mêmes parcourues par fenêtres
+ * LIMIT/OFFSET, récupère les pages en parallèle avec un parallélisme borné,
+ * dédoublonne les lignes sur une clé (URI du film) et les transmet au
+ * consommateur au fil de l'eau, dans l'ordre de planification des pages.
+ *
+ * Les extractions volumineuses (catalogue complet) ne peuvent pas utiliser
+ * d'OFFSET profond : Virtuoso refuse un OFFSET trié au-delà de son plafond de
+ * lignes. Elles sont parcourues par clé ({@link #harvestByKeyset}) : chaque
+ * partition est un intervalle d'URI, et chaque page reprend après la plus
+ * grande clé de la page précédente.
+ */
+@Service
+public class SparqlHarvester {
+
+    /**
+     * Récupère une fenêtre de résultats d'une partition.
+     * Doit renvoyer null si l'endpoint a échoué, une liste courte en fin de partition.
+     */
+    @FunctionalInterface
+    public interface PageFetcher {
+        List<Map<String, Object>> fetch(int offset, int limit);
+    }
+
+    /**
+     * Récupère une page d'un intervalle de clés : lignes dont la clé de tri est dans
+     * {@code range} et strictement supérieure à {@code after} (null pour la première page).
+     * Doit renvoyer null si l'endpoint a échoué, une liste courte en fin d'intervalle.
+     */
+    @FunctionalInterface
+    public interface KeysetFetcher {
+        List<Map<String, Object>> fetch(KeyRange range, String after, int limit);
+    }
+
+    /**
+     * Intervalle [from, to) de clés de tri ; une borne null est ouverte.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class KeyRange {
+        private final String from;
+        private final String to;
+
+        /**
+         * Découpe l'espace des clés aux bornes données (triées) : n bornes donnent n + 1 intervalles.
+         */
+        public static List<KeyRange> split(List<String> bounds) {
+            List<KeyRange> ranges = new ArrayList<>(bounds.size() + 1);
+            String from = null;
+            for (String bound : bounds) {
+                ranges.add(new KeyRange(from, bound));
+                from = bound;
+            }
+            ranges.add(new KeyRange(from, null));
+            return ranges;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class HarvestStats {
+        private final int rows;
+        private final int duplicates;
+        private final int pages;
+        private final boolean complete;
+        private final long elapsedMs;
+    }
+
+    private static final int MAX_ATTEMPTS = 2;
+
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    public SparqlHarvester(@Value("${websem.harvest.parallelism:4}") int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.parallelism, r -> {
+            Thread t = new Thread(r, "sparql-harvester-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Moissonne une seule requête par fenêtres LIMIT/OFFSET successives.
+     */
+    public HarvestStats harvest(PageFetcher fetcher, int pageSize, int maxRows,
+                                Function<Map<String, Object>, String> key,
+                                Consumer<Map<String, Object>> consumer) {
+        return harvest(List.of(fetcher), pageSize, maxRows, key, consumer);
+    }
+
+    /**
+     * Moissonne plusieurs partitions (ex: une par année), chacune par fenêtres LIMIT/OFFSET.
+     *
+     * Au plus {@code parallelism} pages sont en vol ; la partition qui a le moins
+     * de pages en vol est servie en premier, ce qui répartit la charge entre
+     * partitions et anticipe plusieurs fenêtres quand il en reste peu.
+     *
+     * @param partitions une récupération de pages par partition
+     * @param pageSize taille des fenêtres
+     * @param maxRowsPerPartition plafond de lignes par partition
+     * @param key clé de dédoublonnage (null pour ne pas dédoublonner)
+     * @param consumer reçoit chaque ligne unique, depuis le thread appelant
+     * @return statistiques ; complete=false si une page a échoué malgré la relance
+     */
+    public HarvestStats harvest(List<PageFetcher> partitions, int pageSize, int maxRowsPerPartition,
+                                Function<Map<String, Object>, String> key,
+                                Consumer<Map<String, Object>> consumer) {
+        long startTime = System.currentTimeMillis();
+
+        List<Partition> state = new ArrayList<>();
+        for (PageFetcher fetcher : partitions) {
+            state.add(new Partition(fetcher));
+        }
+
+        Deque<PageTask> inFlight = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        int rows = 0;
+        int duplicates = 0;
+        int pages = 0;
+
+        try {
+            schedule(state, inFlight, pageSize, maxRowsPerPartition);
+
+            while (!inFlight.isEmpty()) {
+                PageTask task = inFlight.poll();
+                task.partition.inFlight--;
+
+                List<Map<String, Object>> result = await(task.future,
+                        () -> task.partition.fetcher.fetch(task.offset, task.limit));
+                if (result == null) {
+                    System.err.println("Moisson interrompue : échec de la page à l'offset " + task.offset);
+                    return new HarvestStats(rows, duplicates, pages, false, System.currentTimeMillis() - startTime);
+                }
+                pages++;
+
+                for (Map<String, Object> row : result) {
+                    if (key != null && !seen.add(key.apply(row))) {
+                        duplicates++;
+                        continue;
+                    }
+                    consumer.accept(row);
+                    rows++;
+                }
+
+                if (result.size() < task.limit) {
+                    task.partition.exhausted = true;
+                }
+                schedule(state, inFlight, pageSize, maxRowsPerPartition);
+            }
+        } finally {
+            for (PageTask task : inFlight) {
+                task.future.cancel(true);
+            }
+        }
+
+        return new HarvestStats(rows, duplicates, pages, true, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Moissonne des intervalles de clés, chacun par pages successives reprenant après
+     * la plus grande clé de la page précédente (sans OFFSET).
+     *
+     * Une seule page par intervalle est en vol, puisque la suivante dépend de son
+     * résultat ; le parallélisme vient des intervalles parcourus en même temps, au
+     * plus {@code parallelism}. Les pages sont livrées dans leur ordre de planification.
+     *
+     * @param fetcher récupération d'une page d'un intervalle
+     * @param ranges intervalles de clés à parcourir
+     * @param pageSize taille des pages
+     * @param maxRows plafond de lignes pour l'ensemble des intervalles
+     * @param sortKey clé de tri d'une ligne, celle que {@code fetcher} compare à {@code after}
+     * @param key clé de dédoublonnage (null pour ne pas dédoublonner)
+     * @param consumer reçoit chaque ligne unique, depuis le thread appelant
+     * @return statistiques ; complete=false si une page a échoué malgré la relance
+     */
+    public HarvestStats harvestByKeyset(KeysetFetcher fetcher, List<KeyRange> ranges, int pageSize, int maxRows,
+                                        Function<Map<String, Object>, String> sortKey,
+                                        Function<Map<String, Object>, String> key,
+                                        Consumer<Map<String, Object>> consumer) {
+        long startTime = System.currentTimeMillis();
+
+        // Pages à lancer : la première de chaque intervalle, puis les suites en priorité
+        Deque<KeysetTask> pending = new ArrayDeque<>();
+        for (KeyRange range : ranges) {
+            pending.add(new KeysetTask(range, null));
+        }
+        Deque<KeysetTask> inFlight = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        int reserved = 0;
+        int rows = 0;
+        int duplicates = 0;
+        int pages = 0;
+
+        try {
+            while (true) {
+                while (inFlight.size() < parallelism && !pending.isEmpty() && reserved < maxRows) {
+                    KeysetTask next = pending.poll();
+                    next.limit = Math.min(pageSize, maxRows - reserved);
+                    reserved += next.limit;
+                    next.future = executor.submit(() -> fetcher.fetch(next.range, next.after, next.limit));
+                    inFlight.add(next);
+                }
+
+                KeysetTask task = inFlight.poll();
+                if (task == null) break;
+
+                List<Map<String, Object>> result = await(task.future,
+                        () -> fetcher.fetch(task.range, task.after, task.limit));
+                if (result == null) {
+                    System.err.println("Moisson interrompue : échec de la page après la clé " + task.after);
+                    return new HarvestStats(rows, duplicates, pages, false, System.currentTimeMillis() - startTime);
+                }
+                pages++;
+                // Les lignes non renvoyées libèrent leur part du plafond pour les autres intervalles
+                reserved -= Math.max(0, task.limit - result.size());
+
+                String last = task.after;
+                for (Map<String, Object> row : result) {
+                    String sort = sortKey.apply(row);
+                    if (sort != null && (last == null || sort.compareTo(last) > 0)) last = sort;
+
+                    if (key != null && !seen.add(key.apply(row))) {
+                        duplicates++;
+                        continue;
+                    }
+                    consumer.accept(row);
+                    rows++;
+                }
+
+                // Intervalle terminé, ou clé qui n'avance plus : on ne relit pas la même page
+                if (result.size() >= task.limit && last != null && !last.equals(task.after)) {
+                    pending.addFirst(new KeysetTask(task.range, last));
+                }
+            }
+        } finally {
+            for (KeysetTask task : inFlight) {
+                task.future.cancel(true);
+            }
+        }
+
+        return new HarvestStats(rows, duplicates, pages, true, System.currentTimeMillis() - startTime);
+    }
+
+    private void schedule(List<Partition> partitions, Deque<PageTask> inFlight, int pageSize, int maxRowsPerPartition) {
+        while (inFlight.size() < parallelism) {
+            Partition next = null;
+            for (Partition p : partitions) {
+                if (p.exhausted || p.nextOffset >= maxRowsPerPartition) continue;
+                if (next == null || p.inFlight < next.inFlight) next = p;
+            }
+            if (next == null) return;
+
+            int offset = next.nextOffset;
+            int limit = Math.min(pageSize, maxRowsPerPartition - offset);
+            PageFetcher fetcher = next.fetcher;
+            Future<List<Map<String, Object>>> future = executor.submit(() -> fetcher.fetch(offset, limit));
+
+            next.nextOffset += pageSize;
+            next.inFlight++;
+            inFlight.add(new PageTask(next, offset, limit, future));
+        }
+    }
+
+    /**
+     * Attend le résultat d'une page, en la relançant une fois dans le thread appelant si elle a échoué.
+     */
+    private List<Map<String, Object>> await(Future<List<Map<String, Object>>> future,
+                                            Supplier<List<Map<String, Object>>> retry) {
+        List<Map<String, Object>> result;
+        try {
+            result = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            result = null;
+        }
+
+        for (int attempt = 1; result == null && attempt < MAX_ATTEMPTS; attempt++) {
+            try {
+                result = retry.get();
+            } catch (RuntimeException e) {
+                result = null;
+            }
+        }
+        return result;
+    }
+
+    private static final class Partition {
+        final PageFetcher fetcher;
+        int nextOffset;
+        int inFlight;
+        boolean exhausted;
+
+        Partition(PageFetcher fetcher) {
+            this.fetcher = fetcher;
+        }
+    }
+
+    private static final class KeysetTask {
+        final KeyRange range;
+        final String after;
+        int limit;
+        Future<List<Map<String, Object>>> future;
+
+        KeysetTask(KeyRange range, String after) {
+            this.range = range;
+            this.after = after;
+        }
+    }
+
+    private static final class PageTask {
+        final Partition partition;
+        final int offset;
+        final int limit;
+        final Future<List<Map<String, Object>>> future;
+
+        PageTask(Partition partition, int offset, int limit, Future<List<Map<String, Object>>> future) {
+            this.partition = partition;
+            this.offset = offset;
+            this.limit = limit;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package fr.insalyon.websem.service.cache;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures du cache SPARQL par famille de requêtes : succès par tier, échecs, latence de
+ * chargement (d'un échec à la mise en cache du résultat), taille des entrées, évictions
+ * par tier et par cause, et clés les plus demandées.
+ *
+ * Tout est compté par incréments sans verrou ; les clés chaudes sont estimées par une
+ * esquisse count-min, seuls les meilleurs candidats étant gardés avec leur requête.
+ */
+public final class CacheMetrics {
+
+    /**
+     * Tier qui a servi une lecture.
+     */
+    public enum Tier {
+        NEGATIVE, MEMORY, TYPED, COMPRESSED, OFFHEAP, DISK, SHARED
+    }
+
+    private final Map<String, FamilyMetrics> families = new ConcurrentHashMap<>();
+    private final Map<String, Map<RemovalCause, LongAdder>> removals = new ConcurrentHashMap<>();
+
+    private final CountMinSketch sketch = new CountMinSketch(4096);
+    private final Map<String, HotKey> candidates = new ConcurrentHashMap<>();
+    private final int hotKeys;
+    private volatile long floor;
+    // Vieillissements de l'esquisse déjà répercutés sur les candidats
+    private volatile long seenAges;
+
+    /**
+     * @param hotKeys nombre de clés chaudes rapportées
+     */
+    public CacheMetrics(int hotKeys) {
+        this.hotKeys = Math.max(1, hotKeys);
+    }
+
+    public void recordHit(String family, Tier tier) {
+        family(family).hits.get(tier).increment();
+    }
+
+    public void recordMiss(String family) {
+        family(family).misses.increment();
+    }
+
+    public void recordLoad(String family, long nanos) {
+        family(family).loadMicros.record(nanos / 1000);
+    }
+
+    public void recordEntrySize(String family, int bytes) {
+        family(family).entryBytes.record(bytes);
+    }
+
+    public void recordRemoval(String tier, RemovalCause cause) {
+        removals.computeIfAbsent(tier, t -> new ConcurrentHashMap<>())
+            .computeIfAbsent(cause, c -> new LongAdder())
+            .increment();
+    }
+
+    /**
+     * Compte une lecture de la clé pour le classement des clés chaudes.
+     *
+     * @param query requête d'origine, gardée pour les seuls candidats (préchargement)
+     */
+    public void recordAccess(String family, String key, String query) {
+        long estimate = sketch.increment(key);
+        if (sketch.ages() != seenAges) {
+            reestimate();
+        }
+        HotKey hot = candidates.get(key);
+        if (hot != null) {
+            hot.count = estimate;
+            return;
+        }
+        if (estimate > floor || candidates.size() < 2 * hotKeys) {
+            candidates.put(key, new HotKey(family, key, query, estimate));
+            if (candidates.size() > 2 * hotKeys) {
+                prune();
+            }
+        }
+    }
+
+    // Garde 2 × N candidats : le seuil d'entrée est la plus petite fréquence restante
+    private synchronized void prune() {
+        // Les fréquences d'un candidat qui n'a plus été lu sont celles d'avant le dernier vieillissement
+        refreshCounts();
+        while (candidates.size() > 2 * hotKeys) {
+            HotKey coldest = Collections.min(candidates.values(), Comparator.comparingLong(h -> h.count));
+            candidates.remove(coldest.key);
+        }
+        updateFloor();
+    }
+
+    // L'esquisse a vieilli : fréquences des candidats et seuil d'entrée sont divisés d'autant
+    private synchronized void reestimate() {
+        long ages = sketch.ages();
+        if (ages == seenAges) return;
+        refreshCounts();
+        updateFloor();
+        seenAges = ages;
+    }
+
+    private void refreshCounts() {
+        for (HotKey hot : candidates.values()) {
+            hot.count = sketch.estimate(hot.key);
+        }
+    }
+
+    private void updateFloor() {
+        floor = candidates.values().stream().mapToLong(h -> h.count).min().orElse(0);
+    }
+
+    /**
+     * @return clés les plus demandées, par fréquence estimée décroissante
+     */
+    public List<Map<String, Object>> hotKeys() {
+        List<HotKey> hot = new ArrayList<>(candidates.values());
+        hot.sort(Comparator.comparingLong((HotKey h) -> h.count).reversed());
+        List<Map<String, Object>> report = new ArrayList<>();
+        for (HotKey key : hot.subList(0, Math.min(hotKeys, hot.size()))) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("family", key.family);
+            map.put("key", key.key);
+            map.put("estimatedCount", key.count);
+            map.put("query", key.query);
+            report.add(map);
+        }
+        return report;
+    }
+
+    public Map<String, Map<String, Object>> familiesToMap() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        families.forEach((family, metrics) -> report.put(family, metrics.toMap()));
+        return report;
+    }
+
+    public Map<String, Map<String, Long>> removalsToMap() {
+        Map<String, Map<String, Long>> report = new TreeMap<>();
+        removals.forEach((tier, causes) -> {
+            Map<String, Long> counts = new TreeMap<>();
+            causes.forEach((cause, count) -> counts.put(cause.name().toLowerCase(Locale.ROOT), count.sum()));
+            report.put(tier, counts);
+        });
+        return report;
+    }
+
+    private FamilyMetrics family(String family) {
+        return families.computeIfAbsent(family, f -> new FamilyMetrics());
+    }
+
+    private static final class FamilyMetrics {
+        private final Map<Tier, LongAdder> hits = new EnumMap<>(Tier.class);
+        private final LongAdder misses = new LongAdder();
+        private final Log2Histogram loadMicros = new Log2Histogram();
+        private final Log2Histogram entryBytes = new Log2Histogram();
+
+        FamilyMetrics() {
+            for (Tier tier : Tier.values()) {
+                hits.put(tier, new LongAdder());
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Long> byTier = new LinkedHashMap<>();
+            long totalHits = 0;
+            for (Map.Entry<Tier, LongAdder> entry : hits.entrySet()) {
+                long count = entry.getValue().sum();
+                totalHits += count;
+                if (count > 0) byTier.put(entry.getKey().name().toLowerCase(Locale.ROOT), count);
+            }
+            long missCount = misses.sum();
+            long lookups = totalHits + missCount;
+
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("hits", byTier);
+            map.put("misses", missCount);
+            map.put("hitRatio", lookups == 0 ? 0.0 : Math.round(1000.0 * totalHits / lookups) / 1000.0);
+            map.put("loadLatency", loadMicros.toMap("us"));
+            map.put("entrySize", entryBytes.toMap("B"));
+            return map;
+        }
+    }
+
+    private static final class HotKey {
+        private final String family;
+        private final String key;
+        private final String query;
+        private volatile long count;
+
+        HotKey(String family, String key, String query, long count) {
+            this.family = family;
+            this.key = key;
+            this.query = query;
+            this.count = count;
+        }
+    }
+}
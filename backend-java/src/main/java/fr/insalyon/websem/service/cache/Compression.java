@@ -0,0 +1,76 @@
+package fr.insalyon.websem.service.cache;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Compression des entrées du cache SPARQL.
+ *
+ * LZ4 privilégie la vitesse de décompression, zstd le taux de compression.
+ * Format d'une entrée compressée : [taille d'origine sur 4 octets][données compressées].
+ */
+public enum Compression {
+
+    NONE("", null, null),
+    LZ4(".lz4", Lz4Compressor::new, Lz4Decompressor::new),
+    ZSTD(".zst", ZstdCompressor::new, ZstdDecompressor::new);
+
+    private final String extension;
+    private final ThreadLocal<Compressor> compressor;
+    private final ThreadLocal<Decompressor> decompressor;
+
+    Compression(String extension, Supplier<Compressor> compressor, Supplier<Decompressor> decompressor) {
+        this.extension = extension;
+        // Les (dé)compresseurs gardent des tampons de travail : une instance par thread
+        this.compressor = compressor == null ? null : ThreadLocal.withInitial(compressor);
+        this.decompressor = decompressor == null ? null : ThreadLocal.withInitial(decompressor);
+    }
+
+    /**
+     * @param name none | lz4 | zstd (insensible à la casse)
+     * @return mode correspondant, NONE si le nom est vide ou inconnu
+     */
+    public static Compression parse(String name) {
+        if (name == null || name.isBlank()) return NONE;
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Compression de cache inconnue : " + name + " (none utilisé)");
+            return NONE;
+        }
+    }
+
+    /**
+     * Suffixe des fichiers du cache disque compressés avec ce mode.
+     */
+    public String extension() {
+        return extension;
+    }
+
+    public byte[] compress(byte[] raw) {
+        if (this == NONE) return raw;
+
+        Compressor c = compressor.get();
+        byte[] out = new byte[4 + c.maxCompressedLength(raw.length)];
+        ByteBuffer.wrap(out).putInt(raw.length);
+        int length = c.compress(raw, 0, raw.length, out, 4, out.length - 4);
+        return Arrays.copyOf(out, 4 + length);
+    }
+
+    public byte[] decompress(byte[] data) {
+        if (this == NONE) return data;
+
+        byte[] raw = new byte[ByteBuffer.wrap(data).getInt()];
+        decompressor.get().decompress(data, 4, data.length - 4, raw, 0, raw.length);
+        return raw;
+    }
+}
@@ -0,0 +1,66 @@
+package fr.insalyon.websem.service.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures de compression d'une famille de requêtes : taux de compression
+ * des entrées écrites et coût de décompression par succès.
+ */
+public final class CompressionStats {
+
+    private final Compression compression;
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    public CompressionStats(Compression compression) {
+        this.compression = compression;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void recordWrite(int raw, int compressed) {
+        writes.increment();
+        rawBytes.add(raw);
+        compressedBytes.add(compressed);
+    }
+
+    public void recordHit(long nanos) {
+        hits.increment();
+        decompressNanos.add(nanos);
+    }
+
+    /**
+     * @return taille d'origine / taille compressée des entrées écrites (1 si aucune)
+     */
+    public double ratio() {
+        long compressed = compressedBytes.sum();
+        return compressed == 0 ? 1.0 : (double) rawBytes.sum() / compressed;
+    }
+
+    /**
+     * @return durée moyenne de décompression d'un succès, en microsecondes
+     */
+    public double averageDecompressMicros() {
+        long count = hits.sum();
+        return count == 0 ? 0.0 : decompressNanos.sum() / 1000.0 / count;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("compression", compression.name().toLowerCase());
+        map.put("writes", writes.sum());
+        map.put("rawBytes", rawBytes.sum());
+        map.put("compressedBytes", compressedBytes.sum());
+        map.put("ratio", Math.round(ratio() * 100) / 100.0);
+        map.put("hits", hits.sum());
+        map.put("decompressMicrosPerHit", Math.round(averageDecompressMicros() * 10) / 10.0);
+        return map;
+    }
+}
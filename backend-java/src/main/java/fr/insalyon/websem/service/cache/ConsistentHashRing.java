@@ -0,0 +1,39 @@
+package fr.insalyon.websem.service.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Anneau de hachage cohérent : chaque clé appartient au premier nœud qui la suit sur l'anneau.
+ *
+ * Chaque nœud occupe plusieurs positions (nœuds virtuels) pour équilibrer la charge ;
+ * l'ajout ou le retrait d'un nœud ne déplace que les clés de ses positions.
+ */
+public final class ConsistentHashRing<T> {
+
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+
+    /**
+     * @param nodes nœuds de l'anneau, identifiés par leur toString()
+     * @param virtualNodes nombre de positions par nœud
+     */
+    public ConsistentHashRing(List<T> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Anneau de hachage sans nœud");
+        }
+        for (T node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(BloomFilter.hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * @return nœud propriétaire de la clé
+     */
+    public T owner(String key) {
+        Map.Entry<Long, T> entry = ring.ceilingEntry(BloomFilter.hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+}
@@ -0,0 +1,75 @@
+package fr.insalyon.websem.service.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Esquisse count-min : estimation de la fréquence d'une clé en mémoire constante.
+ *
+ * L'estimation ne sous-estime jamais ; elle surestime d'au plus 2/largeur du total
+ * avec une forte probabilité. Les compteurs sont divisés par deux tous les
+ * {@code 10 × largeur} incréments, pour que l'estimation suive la fréquence récente.
+ */
+public final class CountMinSketch {
+
+    private static final int DEPTH = 4;
+
+    private final AtomicLongArray counters;
+    private final int width;
+    private final long resetAfter;
+    private final AtomicLong additions = new AtomicLong();
+    private final AtomicLong ages = new AtomicLong();
+
+    /**
+     * @param width nombre de compteurs par ligne (arrondi à la puissance de deux inférieure, 16 au moins)
+     */
+    public CountMinSketch(int width) {
+        this.width = Integer.highestOneBit(Math.max(16, width));
+        this.counters = new AtomicLongArray(DEPTH * this.width);
+        this.resetAfter = 10L * this.width;
+    }
+
+    /**
+     * Incrémente la fréquence d'une clé.
+     *
+     * @return fréquence estimée après l'incrément
+     */
+    public long increment(String key) {
+        long hash = BloomFilter.hash(key);
+        long h2 = (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = row * width + (int) ((hash + row * h2) & (width - 1));
+            estimate = Math.min(estimate, counters.incrementAndGet(index));
+        }
+        if (additions.incrementAndGet() % resetAfter == 0) {
+            age();
+        }
+        return estimate;
+    }
+
+    public long estimate(String key) {
+        long hash = BloomFilter.hash(key);
+        long h2 = (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + (int) ((hash + row * h2) & (width - 1))));
+        }
+        return estimate;
+    }
+
+    /**
+     * @return nombre de vieillissements depuis la création : les estimations antérieures sont périmées
+     */
+    public long ages() {
+        return ages.get();
+    }
+
+    // Vieillissement : divise tous les compteurs par deux (approximatif sous écritures concurrentes)
+    private void age() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+        ages.incrementAndGet();
+    }
+}
@@ -0,0 +1,115 @@
+package fr.insalyon.websem.service.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.*;
+
+/**
+ * Index inverse des entrées de cache par ressource DBpedia (films, personnes) qu'elles contiennent.
+ *
+ * Invalider une ressource renvoie les seules entrées qui la mentionnent, au lieu de vider
+ * tout le cache. Les catégories (Category:...) ne sont pas suivies : elles sont partagées
+ * par trop de films pour servir de critère d'invalidation.
+ */
+public final class DependencyIndex {
+
+    public static final String RESOURCE_PREFIX = "http://dbpedia.org/resource/";
+    private static final String CATEGORY_PREFIX = RESOURCE_PREFIX + "Category:";
+
+    // ressource → entrées qui la contiennent, et entrée → ressources qu'elle contient
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+
+    /**
+     * Enregistre les ressources d'une entrée, en remplaçant celles déjà connues.
+     */
+    public synchronized void record(String key, Set<String> uris) {
+        remove(key);
+        dependencies.put(key, uris);
+        for (String uri : uris) {
+            dependents.computeIfAbsent(uri, u -> new HashSet<>()).add(key);
+        }
+    }
+
+    public synchronized boolean isTracked(String key) {
+        return dependencies.containsKey(key);
+    }
+
+    /**
+     * Retire une ressource de l'index.
+     *
+     * @return entrées qui la contenaient, à invalider (elles sont retirées de l'index)
+     */
+    public synchronized Set<String> invalidate(String uri) {
+        Set<String> keys = dependents.remove(uri);
+        if (keys == null) {
+            return Set.of();
+        }
+        for (String key : keys) {
+            remove(key);
+        }
+        return keys;
+    }
+
+    public synchronized void remove(String key) {
+        Set<String> uris = dependencies.remove(key);
+        if (uris == null) return;
+        for (String uri : uris) {
+            Set<String> keys = dependents.get(uri);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) dependents.remove(uri);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        dependents.clear();
+        dependencies.clear();
+    }
+
+    public synchronized int entryCount() {
+        return dependencies.size();
+    }
+
+    public synchronized int resourceCount() {
+        return dependents.size();
+    }
+
+    public static boolean isTrackedUri(String value) {
+        return value.startsWith(RESOURCE_PREFIX) && !value.startsWith(CATEGORY_PREFIX);
+    }
+
+    /**
+     * Ressources suivies présentes dans des lignes de résultats SPARQL.
+     */
+    public static Set<String> uris(List<Map<String, Object>> rows) {
+        Set<String> uris = new HashSet<>();
+        for (Map<String, Object> row : rows) {
+            for (Object value : row.values()) {
+                if (value instanceof String text && isTrackedUri(text)) {
+                    uris.add(text);
+                }
+            }
+        }
+        return uris;
+    }
+
+    /**
+     * Ressources suivies présentes dans un document JSON (valeurs textuelles, à toute profondeur).
+     */
+    public static Set<String> uris(JsonNode json) {
+        Set<String> uris = new HashSet<>();
+        Deque<JsonNode> stack = new ArrayDeque<>();
+        stack.push(json);
+        while (!stack.isEmpty()) {
+            JsonNode node = stack.pop();
+            if (node.isTextual()) {
+                if (isTrackedUri(node.textValue())) uris.add(node.textValue());
+            } else if (node.isContainerNode()) {
+                node.forEach(stack::push);
+            }
+        }
+        return uris;
+    }
+}
@@ -0,0 +1,84 @@
+package fr.insalyon.websem.service.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme à seaux de puissances de deux : le seau i compte les valeurs de [2^(i-1), 2^i[.
+ *
+ * L'enregistrement ne coûte qu'un incrément sans verrou ; les percentiles sont donnés
+ * à un facteur 2 près (borne haute du seau), ce qui suffit pour dimensionner un cache.
+ */
+public final class Log2Histogram {
+
+    private final LongAdder[] buckets = new LongAdder[64];
+    private final LongAdder sum = new LongAdder();
+
+    public Log2Histogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets[Math.min(63, 64 - Long.numberOfLeadingZeros(v))].increment();
+        sum.add(v);
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @param quantile entre 0 et 1, ex: 0.99
+     * @return borne haute du seau contenant ce quantile (0 si l'histogramme est vide)
+     */
+    public long percentile(double quantile) {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return upperBound(i);
+        }
+        return upperBound(counts.length - 1);
+    }
+
+    /**
+     * @param unit unité des valeurs dans les libellés (us, B...)
+     */
+    public Map<String, Object> toMap(String unit) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        long count = count();
+        map.put("count", count);
+        map.put("mean", count == 0 ? 0 : sum.sum() / count);
+        map.put("p50", percentile(0.50));
+        map.put("p95", percentile(0.95));
+        map.put("p99", percentile(0.99));
+        map.put("unit", unit);
+        Map<String, Long> nonEmpty = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            long n = buckets[i].sum();
+            if (n > 0) nonEmpty.put("<" + upperBound(i), n);
+        }
+        map.put("buckets", nonEmpty);
+        return map;
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket >= 63 ? Long.MAX_VALUE : 1L << bucket;
+    }
+}
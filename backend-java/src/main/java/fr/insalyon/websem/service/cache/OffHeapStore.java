@@ -0,0 +1,165 @@
+package fr.insalyon.websem.service.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stockage d'entrées binaires hors du tas Java, dans des tranches (slabs) de mémoire directe.
+ *
+ * Les entrées sont écrites à la suite dans la tranche courante ; quand elle est pleine,
+ * l'écriture passe à la tranche suivante (tourniquet). Si celle-ci est déjà occupée,
+ * toutes ses entrées sont évincées d'un bloc : l'éviction est FIFO par tranche, sans
+ * aucun objet par entrée à suivre hormis l'index clé → position.
+ *
+ * Format d'une entrée : [longueur clé][date d'écriture][clé UTF-8][longueur valeur][valeur].
+ * Une entrée plus vieille que la durée de vie n'est plus servie, comme dans les caches Caffeine.
+ * Le contenu des tranches n'est pas parcouru par le ramasse-miettes.
+ */
+public final class OffHeapStore {
+
+    // Longueur de clé (4), date d'écriture en ms (8), longueur de valeur (4)
+    private static final int HEADER = 16;
+
+    private final int slabSize;
+    private final long ttlMillis;
+    private final ByteBuffer[] slabs;
+    private final int[] slabEnds;
+    private final Map<String, Long> index = new HashMap<>();
+
+    private int current;
+    private long evictions;
+
+    /**
+     * @param capacityBytes mémoire directe totale (arrondie à un nombre entier de tranches)
+     * @param slabSize taille d'une tranche, qui borne aussi la taille d'une entrée
+     * @param ttlMillis durée de vie d'une entrée depuis son écriture
+     */
+    public OffHeapStore(long capacityBytes, int slabSize, long ttlMillis) {
+        if (slabSize <= 0) {
+            throw new IllegalArgumentException("Taille de tranche invalide : " + slabSize);
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Durée de vie invalide : " + ttlMillis);
+        }
+        this.slabSize = slabSize;
+        this.ttlMillis = ttlMillis;
+        int slabCount = (int) Math.max(2, Math.min(Integer.MAX_VALUE, capacityBytes / slabSize));
+        this.slabs = new ByteBuffer[slabCount];
+        this.slabEnds = new int[slabCount];
+    }
+
+    /**
+     * Stocke une entrée, en remplaçant la précédente de même clé.
+     *
+     * @return false si l'entrée est plus grande qu'une tranche (non stockée)
+     */
+    public synchronized boolean put(String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER + keyBytes.length + value.length;
+        if (length > slabSize) {
+            index.remove(key);
+            return false;
+        }
+
+        if (slabs[current] == null) {
+            slabs[current] = ByteBuffer.allocateDirect(slabSize);
+        }
+        if (slabEnds[current] + length > slabSize) {
+            current = (current + 1) % slabs.length;
+            recycle(current);
+        }
+
+        ByteBuffer slab = slabs[current];
+        int offset = slabEnds[current];
+        slab.putInt(offset, keyBytes.length);
+        slab.putLong(offset + 4, System.currentTimeMillis());
+        slab.put(offset + 12, keyBytes);
+        slab.putInt(offset + 12 + keyBytes.length, value.length);
+        slab.put(offset + HEADER + keyBytes.length, value);
+        slabEnds[current] = offset + length;
+
+        index.put(key, ((long) current << 32) | offset);
+        return true;
+    }
+
+    /**
+     * @return copie de la valeur sur le tas, ou null si la clé est absente ou expirée
+     */
+    public synchronized byte[] get(String key) {
+        Long location = index.get(key);
+        if (location == null) return null;
+
+        ByteBuffer slab = slabs[(int) (location >>> 32)];
+        int offset = (int) (long) location;
+        if (System.currentTimeMillis() - slab.getLong(offset + 4) >= ttlMillis) {
+            // La place n'est récupérée qu'au recyclage de la tranche
+            index.remove(key);
+            return null;
+        }
+        int valueOffset = offset + 12 + slab.getInt(offset);
+        byte[] value = new byte[slab.getInt(valueOffset)];
+        slab.get(valueOffset + 4, value);
+        return value;
+    }
+
+    public synchronized void remove(String key) {
+        index.remove(key);
+    }
+
+    public synchronized void clear() {
+        index.clear();
+        Arrays.fill(slabEnds, 0);
+        current = 0;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Mémoire directe réservée (tranches déjà allouées), en octets.
+     */
+    public synchronized long allocatedBytes() {
+        long allocated = 0;
+        for (ByteBuffer slab : slabs) {
+            if (slab != null) allocated += slabSize;
+        }
+        return allocated;
+    }
+
+    /**
+     * Nombre d'entrées évincées depuis la création.
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Vide une tranche avant sa réutilisation : ses entrées encore indexées sont évincées.
+     */
+    private void recycle(int slabIndex) {
+        ByteBuffer slab = slabs[slabIndex];
+        if (slab == null) {
+            slabs[slabIndex] = ByteBuffer.allocateDirect(slabSize);
+            return;
+        }
+
+        int offset = 0;
+        while (offset < slabEnds[slabIndex]) {
+            byte[] keyBytes = new byte[slab.getInt(offset)];
+            slab.get(offset + 12, keyBytes);
+            int valueLength = slab.getInt(offset + 12 + keyBytes.length);
+
+            // L'entrée a pu être réécrite ailleurs depuis : seule la position courante est retirée
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            if (index.remove(key, ((long) slabIndex << 32) | offset)) {
+                evictions++;
+            }
+            offset += HEADER + keyBytes.length + valueLength;
+        }
+        slabEnds[slabIndex] = 0;
+    }
+}
@@ -0,0 +1,241 @@
+package fr.insalyon.websem.service.cache;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tier partagé sur un ou plusieurs serveurs parlant le protocole Redis (RESP2) :
+ * Redis, Valkey, KeyDB, ou un serveur de substitution local pour les tests.
+ *
+ * Les clés sont réparties entre les serveurs par hachage cohérent, sans recourir au
+ * mode cluster de Redis. Chaque serveur a un petit pool de connexions : une connexion
+ * sert une commande à la fois, et des requêtes concurrentes ne s'attendent pas sur
+ * un seul socket. Un serveur en erreur est écarté quelques secondes : les requêtes
+ * retombent alors sur les tiers locaux au lieu d'attendre le délai réseau à chaque appel.
+ */
+public final class RespSharedCacheTier implements SharedCacheTier {
+
+    private static final long RETRY_DELAY_MS = 5000;
+
+    // Connexions ouvertes au plus par serveur
+    private static final int MAX_CONNECTIONS = 4;
+
+    private final ConsistentHashRing<Node> ring;
+    private final List<Node> nodes = new ArrayList<>();
+    private final int timeoutMs;
+
+    /**
+     * @param addresses serveurs "hôte:port" séparés par des virgules
+     * @param timeoutMs délai de connexion et de lecture
+     */
+    public RespSharedCacheTier(String addresses, int timeoutMs) {
+        for (String address : addresses.split(",")) {
+            String trimmed = address.trim();
+            if (trimmed.isEmpty()) continue;
+            int colon = trimmed.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Adresse de cache partagé invalide : " + trimmed);
+            }
+            nodes.add(new Node(trimmed.substring(0, colon), Integer.parseInt(trimmed.substring(colon + 1))));
+        }
+        this.ring = new ConsistentHashRing<>(nodes, 128);
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * @return serveur "hôte:port" propriétaire de la clé
+     */
+    public String ownerOf(String key) {
+        return ring.owner(key).toString();
+    }
+
+    @Override
+    public byte[] get(String key) {
+        Object reply = ring.owner(key).call(utf8("GET"), utf8(key));
+        return reply instanceof byte[] bytes ? bytes : null;
+    }
+
+    @Override
+    public void put(String key, byte[] value, long ttlMillis) {
+        ring.owner(key).call(utf8("SET"), utf8(key), value, utf8("PX"), utf8(Long.toString(ttlMillis)));
+    }
+
+    @Override
+    public long increment(String key) {
+        Object reply = ring.owner(key).call(utf8("INCR"), utf8(key));
+        return reply instanceof Long value ? value : -1;
+    }
+
+    @Override
+    public void delete(String key) {
+        ring.owner(key).call(utf8("DEL"), utf8(key));
+    }
+
+    @Override
+    public void close() {
+        for (Node node : nodes) {
+            node.disconnectIdle();
+        }
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private final class Node {
+        private final String host;
+        private final int port;
+        private final Semaphore permits = new Semaphore(MAX_CONNECTIONS);
+        private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+        private volatile long downUntil;
+
+        Node(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        /**
+         * Envoie une commande sur une connexion du pool et lit sa réponse.
+         *
+         * @return réponse (byte[], Long, String), ou null si absente ou en erreur
+         */
+        Object call(byte[]... args) {
+            if (System.currentTimeMillis() < downUntil) {
+                return null;
+            }
+            try {
+                if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    return null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            Connection connection = idle.pollFirst();
+            try {
+                if (connection == null) {
+                    connection = new Connection();
+                }
+                Object reply = connection.call(args);
+                idle.offerFirst(connection);
+                return reply;
+            } catch (IOException e) {
+                System.err.println("Cache partagé " + this + " injoignable: " + e.getMessage());
+                if (connection != null) {
+                    connection.close();
+                }
+                // Les autres connexions vers ce serveur sont probablement dans le même état
+                disconnectIdle();
+                downUntil = System.currentTimeMillis() + RETRY_DELAY_MS;
+                return null;
+            } finally {
+                permits.release();
+            }
+        }
+
+        void disconnectIdle() {
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                connection.close();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port;
+        }
+
+        /**
+         * Connexion à un serveur, utilisée par un seul appel à la fois.
+         */
+        private final class Connection {
+            private final Socket socket;
+            private final DataInputStream in;
+            private final OutputStream out;
+
+            Connection() throws IOException {
+                socket = new Socket();
+                try {
+                    socket.connect(new InetSocketAddress(host, port), timeoutMs);
+                    socket.setSoTimeout(timeoutMs);
+                    socket.setTcpNoDelay(true);
+                    in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    out = new BufferedOutputStream(socket.getOutputStream());
+                } catch (IOException e) {
+                    close();
+                    throw e;
+                }
+            }
+
+            Object call(byte[][] args) throws IOException {
+                writeCommand(args);
+                return readReply();
+            }
+
+            private void writeCommand(byte[][] args) throws IOException {
+                out.write(utf8("*" + args.length + "\r\n"));
+                for (byte[] arg : args) {
+                    out.write(utf8("$" + arg.length + "\r\n"));
+                    out.write(arg);
+                    out.write('\r');
+                    out.write('\n');
+                }
+                out.flush();
+            }
+
+            private Object readReply() throws IOException {
+                int type = in.read();
+                String line = readLine();
+                try {
+                    switch (type) {
+                        case '+':
+                            return line;
+                        case '-':
+                            System.err.println("Erreur du cache partagé " + Node.this + ": " + line);
+                            return null;
+                        case ':':
+                            return Long.parseLong(line);
+                        case '$': {
+                            int length = Integer.parseInt(line);
+                            if (length < 0) return null;
+                            byte[] value = new byte[length];
+                            in.readFully(value);
+                            readLine();
+                            return value;
+                        }
+                        default:
+                            throw new IOException("Réponse RESP inattendue : " + (char) type);
+                    }
+                } catch (NumberFormatException e) {
+                    // Flux désynchronisé : la connexion n'est plus utilisable
+                    throw new IOException("Réponse RESP illisible : " + line, e);
+                }
+            }
+
+            private String readLine() throws IOException {
+                StringBuilder line = new StringBuilder();
+                int c;
+                while ((c = in.read()) != '\r') {
+                    if (c < 0) throw new EOFException("Connexion fermée");
+                    line.append((char) c);
+                }
+                in.read();
+                return line.toString();
+            }
+
+            void close() {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package fr.insalyon.websem.service.cache;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Codage binaire compact des lignes de résultats SPARQL (format du cache).
+ *
+ * Les noms de variables ne sont écrits qu'une fois, en tête ; chaque ligne ne
+ * contient ensuite que ses couples (numéro de variable, valeur UTF-8).
+ * Les valeurs sont relues comme chaînes, comme après une relecture JSON.
+ */
+public final class RowCodec {
+
+    private RowCodec() {
+    }
+
+    public static byte[] encode(List<Map<String, Object>> rows) {
+        Map<String, Integer> columns = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            for (String name : row.keySet()) {
+                columns.putIfAbsent(name, columns.size());
+            }
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * (rows.size() + 1));
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(columns.size());
+            for (String name : columns.keySet()) {
+                out.writeUTF(name);
+            }
+
+            out.writeInt(rows.size());
+            for (Map<String, Object> row : rows) {
+                int present = 0;
+                for (Object value : row.values()) {
+                    if (value != null) present++;
+                }
+                out.writeShort(present);
+                for (Map.Entry<String, Object> field : row.entrySet()) {
+                    if (field.getValue() == null) continue;
+                    byte[] value = String.valueOf(field.getValue()).getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(columns.get(field.getKey()));
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static List<Map<String, Object>> decode(byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            String[] columns = new String[in.readUnsignedShort()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = in.readUTF();
+            }
+
+            int rowCount = in.readInt();
+            List<Map<String, Object>> rows = new ArrayList<>(rowCount);
+            for (int r = 0; r < rowCount; r++) {
+                int fieldCount = in.readUnsignedShort();
+                Map<String, Object> row = new HashMap<>();
+                for (int f = 0; f < fieldCount; f++) {
+                    String name = columns[in.readUnsignedShort()];
+                    byte[] value = new byte[in.readInt()];
+                    in.readFully(value);
+                    row.put(name, new String(value, StandardCharsets.UTF_8));
+                }
+                rows.add(row);
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
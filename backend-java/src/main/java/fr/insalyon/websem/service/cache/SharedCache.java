@@ -0,0 +1,167 @@
+package fr.insalyon.websem.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accès au tier partagé avec un cache proche (near cache) local et une invalidation
+ * à l'échelle du cluster.
+ *
+ * Les clés partagées sont préfixées par une génération stockée dans le tier partagé.
+ * Vider le cache incrémente la génération : les entrées existantes deviennent
+ * inaccessibles pour tous les réplicas, sans parcourir les serveurs. Chaque réplica
+ * relit la génération au plus tard après la durée de vie du cache proche ; quand elle a
+ * changé depuis sa dernière lecture, il prévient son écouteur, qui vide les tiers locaux.
+ * C'est aussi le délai maximal pendant lequel un autre réplica peut encore servir une
+ * entrée vidée.
+ */
+public final class SharedCache {
+
+    private static final String GENERATION_KEY = "websem:generation";
+
+    private final SharedCacheTier tier;
+    private final long ttlMillis;
+    private final long generationRefreshNanos;
+    private final Cache<String, byte[]> near;
+    private final Runnable onRemoteInvalidation;
+
+    private volatile long generation;
+    private volatile long generationReadAt;
+
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param tier tier partagé
+     * @param ttlMillis durée de vie des entrées dans le tier partagé
+     * @param nearEntries nombre d'entrées du cache proche
+     * @param nearTtlMillis durée de vie du cache proche et délai de relecture de la génération
+     */
+    public SharedCache(SharedCacheTier tier, long ttlMillis, int nearEntries, long nearTtlMillis) {
+        this(tier, ttlMillis, nearEntries, nearTtlMillis, null);
+    }
+
+    /**
+     * @param onRemoteInvalidation appelé quand un autre réplica a vidé le cache, ou null
+     */
+    public SharedCache(SharedCacheTier tier, long ttlMillis, int nearEntries, long nearTtlMillis,
+                       Runnable onRemoteInvalidation) {
+        this.tier = tier;
+        this.onRemoteInvalidation = onRemoteInvalidation;
+        this.ttlMillis = ttlMillis;
+        this.generationRefreshNanos = TimeUnit.MILLISECONDS.toNanos(nearTtlMillis);
+        this.near = Caffeine.newBuilder()
+            .expireAfterWrite(nearTtlMillis, TimeUnit.MILLISECONDS)
+            .maximumSize(nearEntries)
+            .build();
+        this.generation = readGeneration();
+        this.generationReadAt = System.nanoTime();
+    }
+
+    public byte[] get(String key) {
+        String sharedKey = sharedKey(key);
+        byte[] value = near.getIfPresent(sharedKey);
+        if (value != null) {
+            nearHits.increment();
+            return value;
+        }
+        value = tier.get(sharedKey);
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        near.put(sharedKey, value);
+        return value;
+    }
+
+    public void put(String key, byte[] value) {
+        String sharedKey = sharedKey(key);
+        near.put(sharedKey, value);
+        tier.put(sharedKey, value, ttlMillis);
+    }
+
+    /**
+     * Retire une entrée du tier partagé. Les caches proches des autres réplicas
+     * peuvent la servir jusqu'à leur expiration.
+     */
+    public void invalidate(String key) {
+        String sharedKey = sharedKey(key);
+        near.invalidate(sharedKey);
+        tier.delete(sharedKey);
+    }
+
+    /**
+     * Invalide toutes les entrées partagées, pour tous les réplicas.
+     */
+    public void invalidateAll() {
+        long next = tier.increment(GENERATION_KEY);
+        if (next >= 0) {
+            // Vidage local déjà fait par l'appelant : l'écouteur n'est pas prévenu
+            synchronized (this) {
+                generation = next;
+                generationReadAt = System.nanoTime();
+            }
+        }
+        near.invalidateAll();
+    }
+
+    /**
+     * Relit la génération si le délai de relecture est écoulé. Appelé aussi quand la
+     * requête est servie par un tier local, pour que celui-ci voie les vidages des autres réplicas.
+     */
+    public void checkGeneration() {
+        if (System.nanoTime() - generationReadAt < generationRefreshNanos) return;
+
+        boolean changed;
+        synchronized (this) {
+            if (System.nanoTime() - generationReadAt < generationRefreshNanos) return;
+            long current = readGeneration();
+            changed = current != generation;
+            generation = current;
+            generationReadAt = System.nanoTime();
+        }
+        if (changed) {
+            near.invalidateAll();
+            if (onRemoteInvalidation != null) {
+                onRemoteInvalidation.run();
+            }
+        }
+    }
+
+    public void close() {
+        tier.close();
+    }
+
+    public long getNearHits() {
+        return nearHits.sum();
+    }
+
+    public long getRemoteHits() {
+        return remoteHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private String sharedKey(String key) {
+        checkGeneration();
+        return "websem:" + generation + ":" + key;
+    }
+
+    private long readGeneration() {
+        byte[] value = tier.get(GENERATION_KEY);
+        if (value == null) return generation;
+        try {
+            return Long.parseLong(new String(value, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return generation;
+        }
+    }
+}
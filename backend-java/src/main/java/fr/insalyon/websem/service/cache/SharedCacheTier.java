@@ -0,0 +1,31 @@
+package fr.insalyon.websem.service.cache;
+
+/**
+ * Tier de cache partagé entre les réplicas du backend.
+ *
+ * Le tier partagé n'est qu'une optimisation : une implémentation injoignable renvoie
+ * null (get) ou -1 (increment) et ignore les écritures, sans lever d'exception.
+ */
+public interface SharedCacheTier {
+
+    /**
+     * @return valeur de la clé, ou null si elle est absente ou le tier injoignable
+     */
+    byte[] get(String key);
+
+    /**
+     * Stocke une valeur pour une durée donnée.
+     */
+    void put(String key, byte[] value, long ttlMillis);
+
+    /**
+     * Incrémente un compteur partagé (créé à 0 s'il n'existe pas).
+     *
+     * @return nouvelle valeur, ou -1 si le tier est injoignable
+     */
+    long increment(String key);
+
+    void delete(String key);
+
+    void close();
+}
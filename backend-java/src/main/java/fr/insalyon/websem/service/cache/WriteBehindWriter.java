@@ -0,0 +1,189 @@
+package fr.insalyon.websem.service.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Écriture différée des fichiers du cache disque, hors du thread de la requête.
+ *
+ * Les écritures sont mises en attente par nom de fichier : une nouvelle écriture
+ * du même fichier remplace la précédente (une seule écriture disque). Un thread
+ * de fond les écrit par lots, chaque fichier via un fichier temporaire renommé
+ * atomiquement. Quand la file est pleine, l'appelant écrit lui-même un lot
+ * (contre-pression), ce qui borne la mémoire occupée par la file.
+ */
+public final class WriteBehindWriter {
+
+    private final Path directory;
+    private final int capacity;
+    private final int batchSize;
+    private final Map<String, byte[]> pending = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService flusher;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+
+    /**
+     * @param directory répertoire du cache disque
+     * @param capacity nombre maximal de fichiers en attente
+     * @param batchSize nombre de fichiers écrits par lot
+     * @param flushIntervalMs délai entre deux passages du thread d'écriture
+     */
+    public WriteBehindWriter(Path directory, int capacity, int batchSize, long flushIntervalMs) {
+        this.directory = directory;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cache-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, flushIntervalMs);
+        flusher.scheduleWithFixedDelay(this::flushScheduled, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Met un fichier en attente d'écriture ; l'appel ne touche pas le disque
+     * sauf si la file est pleine.
+     */
+    public void write(String fileName, byte[] content) {
+        enqueued.increment();
+        if (pending.put(fileName, content) != null) {
+            coalesced.increment();
+            return;
+        }
+        if (pending.size() > capacity) {
+            callerRuns.increment();
+            writeBatch();
+        }
+    }
+
+    /**
+     * @return contenu en attente d'écriture pour ce fichier, ou null
+     */
+    public byte[] pending(String fileName) {
+        return pending.get(fileName);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Écrit tous les fichiers en attente, jusqu'à ce que la file soit vide (appel bloquant).
+     */
+    public void flush() {
+        drain();
+    }
+
+    /**
+     * Abandonne l'écriture en attente d'un fichier (après l'attente du lot en cours).
+     */
+    public void cancel(String fileName) {
+        synchronized (writeLock) {
+            pending.remove(fileName);
+        }
+    }
+
+    /**
+     * Abandonne les écritures en attente (après l'attente du lot en cours).
+     */
+    public void clear() {
+        synchronized (writeLock) {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Arrête le thread d'écriture, puis écrit les fichiers en attente jusqu'à vider la file.
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    public long getEnqueued() {
+        return enqueued.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getCallerRuns() {
+        return callerRuns.sum();
+    }
+
+    // Une exception non rattrapée annulerait silencieusement les passages suivants du thread d'écriture
+    private void flushScheduled() {
+        try {
+            flushPending();
+        } catch (RuntimeException e) {
+            System.err.println("Erreur lors de l'écriture différée du cache: " + e.getMessage());
+        }
+    }
+
+    private void drain() {
+        while (writeBatch() > 0) {
+        }
+    }
+
+    private void flushPending() {
+        // Borné par la taille de la file au départ : des écritures continues n'empêchent pas de rendre la main
+        int rounds = pending.size() / batchSize + 1;
+        for (int i = 0; i < rounds && writeBatch() > 0; i++) {
+        }
+    }
+
+    private int writeBatch() {
+        synchronized (writeLock) {
+            int count = 0;
+            for (Map.Entry<String, byte[]> entry : pending.entrySet()) {
+                if (count == batchSize) break;
+                writeAtomically(entry.getKey(), entry.getValue());
+                // Retiré seulement s'il n'a pas été remplacé pendant l'écriture
+                pending.remove(entry.getKey(), entry.getValue());
+                count++;
+            }
+            if (count > 0) {
+                batches.increment();
+                written.add(count);
+            }
+            return count;
+        }
+    }
+
+    private void writeAtomically(String fileName, byte[] content) {
+        try {
+            Path target = directory.resolve(fileName);
+            Path tmp = directory.resolve(fileName + ".tmp");
+            Files.write(tmp, content);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            // Fichier abandonné : le garder en attente le ferait échouer à chaque passage
+            System.err.println("Erreur lors de l'écriture du cache: " + e.getMessage());
+        }
+    }
+}
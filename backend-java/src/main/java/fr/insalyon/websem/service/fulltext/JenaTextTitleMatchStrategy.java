@@ -0,0 +1,37 @@
+package fr.insalyon.websem.service.fulltext;
+
+import java.util.List;
+
+/**
+ * Recherche via un index jena-text (Lucene) sur rdfs:label,
+ * pour un store Jena local exposé par Fuseki.
+ *
+ * Le dataset doit déclarer un index texte dont le champ indexe rdfs:label.
+ * La requête Lucene exige tous les mots, le dernier en préfixe.
+ */
+public class JenaTextTitleMatchStrategy implements TitleMatchStrategy {
+
+    private final RegexTitleMatchStrategy fallback = new RegexTitleMatchStrategy();
+
+    @Override
+    public String prefixes() {
+        return "PREFIX text: <http://jena.apache.org/text#>\n";
+    }
+
+    @Override
+    public String titlePattern(String keyword) {
+        List<String> words = Tokens.words(keyword);
+        if (words.isEmpty()) {
+            return fallback.titlePattern(keyword);
+        }
+
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < words.size(); i++) {
+            if (i > 0) query.append(' ');
+            query.append('+').append(words.get(i));
+            if (i == words.size() - 1) query.append('*');
+        }
+
+        return String.format("?movie text:query (rdfs:label \"%s\") .", query);
+    }
+}
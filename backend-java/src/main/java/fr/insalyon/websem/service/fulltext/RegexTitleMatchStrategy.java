@@ -0,0 +1,27 @@
+package fr.insalyon.websem.service.fulltext;
+
+/**
+ * Stratégie historique : REGEX insensible à la casse sur le label.
+ * Fonctionne sur tout endpoint mais impose un parcours des labels.
+ */
+public class RegexTitleMatchStrategy implements TitleMatchStrategy {
+
+    @Override
+    public String prefixes() {
+        return "";
+    }
+
+    @Override
+    public String titlePattern(String keyword) {
+        return String.format("FILTER(REGEX(?titleLabel, \"%s\", \"i\"))", escape(keyword));
+    }
+
+    /**
+     * Protège une chaîne contre les caractères spéciaux pour SPARQL.
+     */
+    static String escape(String input) {
+        return input.replace("\\", "\\\\")
+                    .replace("\"", "\\\"")
+                    .replace("'", "\\'");
+    }
+}
@@ -0,0 +1,55 @@
+package fr.insalyon.websem.service.fulltext;
+
+/**
+ * Stratégie de correspondance sur les titres de films.
+ *
+ * Chaque implémentation produit un fragment SPARQL qui restreint ?movie
+ * aux films dont le label anglais (?titleLabel) correspond au mot-clé.
+ * Le contrat de résultat est identique pour toutes les stratégies :
+ * ?movie et ?titleLabel sont liés, ?titleLabel est un label "en" du film.
+ */
+public interface TitleMatchStrategy {
+
+    String MODE_AUTO = "auto";
+    String MODE_REGEX = "regex";
+    String MODE_VIRTUOSO = "virtuoso";
+    String MODE_JENA_TEXT = "jena-text";
+
+    /**
+     * Déclarations PREFIX supplémentaires nécessaires au fragment (souvent vide).
+     */
+    String prefixes();
+
+    /**
+     * Fragment SPARQL de correspondance du titre.
+     *
+     * @param keyword mot-clé saisi par l'utilisateur (non échappé)
+     * @return motif de graphe et/ou FILTER à insérer dans le WHERE
+     */
+    String titlePattern(String keyword);
+
+    /**
+     * Choisit la stratégie adaptée au backend SPARQL.
+     * En mode "auto", l'index texte de Virtuoso est utilisé pour DBpedia,
+     * et REGEX reste la stratégie par défaut pour les autres endpoints.
+     *
+     * @param mode auto | regex | virtuoso | jena-text
+     * @param endpoint URL de l'endpoint SPARQL interrogé
+     */
+    static TitleMatchStrategy forBackend(String mode, String endpoint) {
+        String m = mode == null ? MODE_AUTO : mode.trim().toLowerCase();
+        switch (m) {
+            case MODE_REGEX:
+                return new RegexTitleMatchStrategy();
+            case MODE_VIRTUOSO:
+                return new VirtuosoTitleMatchStrategy();
+            case MODE_JENA_TEXT:
+                return new JenaTextTitleMatchStrategy();
+            default:
+                if (endpoint != null && endpoint.contains("dbpedia.org")) {
+                    return new VirtuosoTitleMatchStrategy();
+                }
+                return new RegexTitleMatchStrategy();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package fr.insalyon.websem.service.fulltext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Découpage d'un mot-clé en mots alphanumériques pour les index plein texte.
+ * Les caractères spéciaux sont supprimés, ce qui évite tout échappement.
+ */
+final class Tokens {
+
+    private Tokens() {
+    }
+
+    static List<String> words(String keyword) {
+        List<String> words = new ArrayList<>();
+        if (keyword == null) return words;
+
+        for (String part : keyword.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!part.isEmpty()) {
+                words.add(part);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,44 @@
+package fr.insalyon.websem.service.fulltext;
+
+import java.util.List;
+
+/**
+ * Recherche via l'index plein texte de Virtuoso (DBpedia) avec bif:contains.
+ *
+ * Chaque mot du mot-clé devient un terme obligatoire ; le dernier mot est
+ * recherché en préfixe (Virtuoso exige au moins 4 caractères avant le joker).
+ * Si aucun mot exploitable n'est trouvé, on retombe sur la stratégie REGEX.
+ */
+public class VirtuosoTitleMatchStrategy implements TitleMatchStrategy {
+
+    private static final int MIN_PREFIX_LENGTH = 4;
+
+    private final RegexTitleMatchStrategy fallback = new RegexTitleMatchStrategy();
+
+    @Override
+    public String prefixes() {
+        return "";
+    }
+
+    @Override
+    public String titlePattern(String keyword) {
+        List<String> words = Tokens.words(keyword);
+        if (words.isEmpty()) {
+            return fallback.titlePattern(keyword);
+        }
+
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            if (i > 0) expression.append(" AND ");
+            boolean last = i == words.size() - 1;
+            expression.append("\\\"").append(word);
+            if (last && word.length() >= MIN_PREFIX_LENGTH) {
+                expression.append('*');
+            }
+            expression.append("\\\"");
+        }
+
+        return String.format("?titleLabel bif:contains \"%s\" .", expression);
+    }
+}
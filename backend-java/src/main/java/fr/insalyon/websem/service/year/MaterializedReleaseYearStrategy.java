@@ -0,0 +1,37 @@
+package fr.insalyon.websem.service.year;
+
+/**
+ * Stratégie sur l'année matérialisée par {@link fr.insalyon.websem.service.ReleaseYearStore} :
+ * un triplet websem:releaseYear typé xsd:gYear par film. Les bornes deviennent des
+ * comparaisons de littéraux typés et l'égalité un simple motif de triplet.
+ */
+public class MaterializedReleaseYearStrategy implements ReleaseYearStrategy {
+
+    private static final String GYEAR = "<http://www.w3.org/2001/XMLSchema#gYear>";
+
+    @Override
+    public String prefixes() {
+        return "PREFIX websem: <" + WEBSEM_NS + ">\n";
+    }
+
+    @Override
+    public String bindYear(String yearVar) {
+        return String.format("""
+                ?movie websem:releaseYear ?%1$s_g .
+                BIND(<http://www.w3.org/2001/XMLSchema#integer>(STR(?%1$s_g)) AS ?%1$s)""", yearVar);
+    }
+
+    @Override
+    public String yearRange(String yearVar, int fromYear, int toYear) {
+        return String.format("""
+                ?movie websem:releaseYear ?%1$s_g .
+                FILTER(?%1$s_g >= "%2$04d"^^%4$s && ?%1$s_g < "%3$04d"^^%4$s)
+                BIND(<http://www.w3.org/2001/XMLSchema#integer>(STR(?%1$s_g)) AS ?%1$s)""",
+                yearVar, fromYear, toYear, GYEAR);
+    }
+
+    @Override
+    public String yearEquals(int year) {
+        return String.format("?movie websem:releaseYear \"%04d\"^^%s .", year, GYEAR);
+    }
+}
@@ -0,0 +1,33 @@
+package fr.insalyon.websem.service.year;
+
+/**
+ * Stratégie historique : l'année est extraite des quatre premiers caractères
+ * de dbo:description. Fonctionne sur DBpedia mais évalue une REGEX par description.
+ */
+public class RegexReleaseYearStrategy implements ReleaseYearStrategy {
+
+    @Override
+    public String prefixes() {
+        return "";
+    }
+
+    @Override
+    public String bindYear(String yearVar) {
+        return String.format("""
+                ?movie dbo:description ?%1$s_desc .
+                FILTER(REGEX(?%1$s_desc, "^[0-9]{4}"))
+                BIND(xsd:integer(REPLACE(STR(?%1$s_desc), "^([0-9]{4}).*", "$1")) AS ?%1$s)""", yearVar);
+    }
+
+    @Override
+    public String yearRange(String yearVar, int fromYear, int toYear) {
+        return bindYear(yearVar) + String.format("%nFILTER(?%s >= %d && ?%s < %d)", yearVar, fromYear, yearVar, toYear);
+    }
+
+    @Override
+    public String yearEquals(int year) {
+        return String.format("""
+                ?movie dbo:description ?year_desc .
+                FILTER(REGEX(?year_desc, "^%04d"))""", year);
+    }
+}
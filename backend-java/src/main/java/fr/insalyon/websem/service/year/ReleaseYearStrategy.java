@@ -0,0 +1,62 @@
+package fr.insalyon.websem.service.year;
+
+/**
+ * Stratégie d'accès à l'année de sortie d'un film dans les requêtes SPARQL.
+ *
+ * Chaque implémentation produit des fragments qui portent sur ?movie.
+ * Le contrat de résultat est identique pour toutes les stratégies :
+ * la variable d'année demandée est liée à un xsd:integer.
+ */
+public interface ReleaseYearStrategy {
+
+    String MODE_REGEX = "regex";
+    String MODE_MATERIALIZED = "materialized";
+
+    /** Espace de noms des triplets produits par l'application. */
+    String WEBSEM_NS = "http://websem.insa-lyon.fr/ontology#";
+
+    /** Prédicat portant l'année de sortie matérialisée (littéral xsd:gYear). */
+    String RELEASE_YEAR = WEBSEM_NS + "releaseYear";
+
+    /**
+     * Déclarations PREFIX supplémentaires nécessaires aux fragments (souvent vide).
+     */
+    String prefixes();
+
+    /**
+     * Lie l'année de sortie de ?movie ; le film est exclu si elle est inconnue
+     * (à placer dans un OPTIONAL pour conserver ces films).
+     *
+     * @param yearVar nom de la variable à lier, sans le '?'
+     */
+    String bindYear(String yearVar);
+
+    /**
+     * Restreint ?movie aux films sortis entre deux années et lie leur année.
+     *
+     * @param yearVar nom de la variable à lier, sans le '?'
+     * @param fromYear première année incluse
+     * @param toYear dernière année exclue
+     */
+    String yearRange(String yearVar, int fromYear, int toYear);
+
+    /**
+     * Restreint ?movie aux films sortis une année donnée.
+     */
+    String yearEquals(int year);
+
+    /**
+     * Choisit la stratégie selon la configuration.
+     * L'extraction par REGEX sur dbo:description reste la valeur par défaut,
+     * les triplets matérialisés n'existant que dans un store alimenté par l'application.
+     *
+     * @param mode regex | materialized
+     */
+    static ReleaseYearStrategy forMode(String mode) {
+        String m = mode == null ? MODE_REGEX : mode.trim().toLowerCase();
+        if (MODE_MATERIALIZED.equals(m)) {
+            return new MaterializedReleaseYearStrategy();
+        }
+        return new RegexReleaseYearStrategy();
+    }
+}
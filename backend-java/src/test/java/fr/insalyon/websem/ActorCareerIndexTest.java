@@ -0,0 +1,93 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.index.ActorCareerIndex;
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.model.Actor;
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.MovieCatalogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActorCareerIndexTest {
+
+    private static final String DBR = "http://dbpedia.org/resource/";
+
+    private MovieCatalog catalog;
+
+    private static Movie movie(String name) {
+        Movie movie = new Movie();
+        movie.setUri(DBR + name);
+        movie.setTitle(name.replace('_', ' '));
+        return movie;
+    }
+
+    @BeforeEach
+    void setUp() {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        builder.add(movie("Catch_Me_If_You_Can"));
+        builder.add(movie("Inception"));
+        builder.add(movie("The_Dark_Knight"));
+        builder.add(movie("Titanic"));
+
+        builder.setGross(DBR + "Catch_Me_If_You_Can", 352.1e6);
+        builder.setGross(DBR + "Inception", 836.8e6);
+        builder.setGross(DBR + "The_Dark_Knight", 1006e6);
+        builder.setGross(DBR + "Titanic", 2257e6);
+        builder.setGross(DBR + "Unknown_Film", 9999e6);
+
+        builder.addStarring(DBR + "Catch_Me_If_You_Can", DBR + "Leonardo_DiCaprio", "Leonardo DiCaprio");
+        builder.addStarring(DBR + "Catch_Me_If_You_Can", DBR + "Tom_Hanks", "Tom Hanks");
+        builder.addStarring(DBR + "Inception", DBR + "Leonardo_DiCaprio", "Leonardo DiCaprio");
+        builder.addStarring(DBR + "Inception", DBR + "Leonardo_DiCaprio", "Leonardo DiCaprio");
+        builder.addStarring(DBR + "Inception", DBR + "Michael_Caine", "Michael Caine");
+        builder.addStarring(DBR + "Inception", DBR + "Ellen_Page", "Ellen Page");
+        builder.addStarring(DBR + "The_Dark_Knight", DBR + "Michael_Caine", "Michael Caine");
+        builder.addStarring(DBR + "Titanic", DBR + "Leonardo_DiCaprio", "Leonardo DiCaprio");
+        builder.addStarring(DBR + "Unknown_Film", DBR + "Nobody", "Nobody");
+        catalog = builder.build();
+    }
+
+    @Test
+    void testCarriereEtMeilleurFilm() {
+        ActorCareerIndex careers = catalog.getActorIndex();
+        int leo = careers.actorOrdinal(DBR + "Leonardo_DiCaprio");
+
+        assertEquals(4, careers.actorCount(), "Les films hors catalogue sont ignorés");
+        assertEquals(3, careers.careerSize(leo), "Les doublons de distribution sont ignorés");
+        assertEquals(catalog.ordinalOf(DBR + "Titanic"), careers.topFilm(leo));
+        assertEquals(2257e6, careers.topGross(leo));
+        assertEquals(-1, careers.actorOrdinal(DBR + "Nobody"));
+    }
+
+    @Test
+    void testTopActeursDepuisLIndex() {
+        MovieCatalogService service = new MovieCatalogService();
+        service.install(catalog);
+
+        List<Actor> actors = service.getTopActorsByMovie(DBR + "Inception");
+
+        assertEquals(3, actors.size());
+        assertEquals("Leonardo DiCaprio", actors.get(0).getActorName());
+        assertEquals("Titanic", actors.get(0).getTopMovieTitle());
+        assertEquals("Michael Caine", actors.get(1).getActorName());
+        assertEquals(DBR + "The_Dark_Knight", actors.get(1).getTopMovieUri());
+        assertEquals("Ellen Page", actors.get(2).getActorName());
+        assertEquals(836.8e6, actors.get(2).getMaxGross());
+    }
+
+    @Test
+    void testFilmSansRecettes() {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        builder.add(movie("Indie_Film"));
+        builder.addStarring(DBR + "Indie_Film", DBR + "Someone", "Someone");
+        ActorCareerIndex careers = builder.build().getActorIndex();
+
+        int someone = careers.actorOrdinal(DBR + "Someone");
+        assertEquals(-1, careers.topFilm(someone));
+        assertTrue(Double.isNaN(careers.topGross(someone)));
+    }
+}
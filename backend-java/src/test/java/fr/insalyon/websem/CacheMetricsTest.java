@@ -0,0 +1,100 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.SparqlCacheService;
+import fr.insalyon.websem.service.cache.CacheMetrics;
+import fr.insalyon.websem.service.cache.CountMinSketch;
+import fr.insalyon.websem.service.cache.Log2Histogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheMetricsTest {
+
+    @Test
+    void testEsquisseEtHistogramme() {
+        CountMinSketch sketch = new CountMinSketch(1024);
+        for (int i = 0; i < 500; i++) {
+            sketch.increment("chaude");
+            sketch.increment("froide-" + i);
+        }
+        assertTrue(sketch.estimate("chaude") >= 500, "Jamais sous-estimée");
+        assertTrue(sketch.estimate("froide-7") < 20);
+
+        Log2Histogram histogram = new Log2Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.count());
+        assertEquals(64, histogram.percentile(0.5));
+        assertEquals(128, histogram.percentile(0.99));
+    }
+
+    @Test
+    void testClesChaudesApresVieillissement() {
+        CacheMetrics metrics = new CacheMetrics(2);
+        for (int i = 0; i < 1000; i++) {
+            metrics.recordAccess("search", "ancienne", "q-ancienne");
+        }
+        // Assez de lectures pour que l'esquisse vieillisse plusieurs fois
+        for (int i = 0; i < 200_000; i++) {
+            metrics.recordAccess("search", "unique-" + i, null);
+        }
+        for (int i = 0; i < 100; i++) {
+            metrics.recordAccess("search", "recente", "q-recente");
+        }
+
+        List<Map<String, Object>> hot = metrics.hotKeys();
+        assertEquals("recente", hot.get(0).get("key"), "L'ancienne fréquence a été réestimée après vieillissement");
+        for (Map<String, Object> key : hot) {
+            assertTrue((Long) key.get("estimatedCount") < 1000);
+        }
+    }
+
+    @Test
+    void testMesuresDesactivees() throws InterruptedException {
+        SparqlCacheService cacheService = new SparqlCacheService();
+        ReflectionTestUtils.setField(cacheService, "metricsEnabled", false);
+        String query = "SELECT ?movie WHERE { ?movie a dbo:Film } LIMIT 3 # metrics off";
+        cacheService.cacheResults(query, List.of(Map.of("title", "Test Film")));
+        cacheService.clearCache();
+
+        // Les écouteurs d'éviction de Caffeine sont appelés en tâche de fond
+        Thread.sleep(200);
+        assertTrue(((Map<?, ?>) cacheService.getStats().get("evictions")).isEmpty(), "Aucune éviction comptée");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMesuresParFamilleEtClesChaudes() {
+        SparqlCacheService cacheService = new SparqlCacheService();
+        String hot = "SELECT ?movie WHERE { ?movie a dbo:Film } LIMIT 1 # metrics hot";
+        String cold = "SELECT ?movie WHERE { ?movie a dbo:Film } LIMIT 2 # metrics cold";
+
+        assertNull(cacheService.getCachedTyped("search", hot, Movie.class));
+        Movie movie = new Movie();
+        movie.setUri("http://dbpedia.org/resource/Alien_(film)");
+        cacheService.cacheTyped("search", hot, Movie.class, List.of(movie));
+        for (int i = 0; i < 10; i++) {
+            cacheService.getCachedTyped("search", hot, Movie.class);
+        }
+        cacheService.getCachedTyped("search", cold, Movie.class);
+
+        Map<String, Object> stats = cacheService.getStats();
+        Map<String, Object> search = ((Map<String, Map<String, Object>>) stats.get("families")).get("search");
+        assertEquals(10L, ((Map<String, Long>) search.get("hits")).get("typed"));
+        assertEquals(2L, search.get("misses"));
+        assertEquals(1L, ((Map<String, Object>) search.get("loadLatency")).get("count"));
+        assertEquals(1L, ((Map<String, Object>) search.get("entrySize")).get("count"));
+
+        List<Map<String, Object>> hotKeys = (List<Map<String, Object>>) stats.get("hotKeys");
+        assertEquals(hot, hotKeys.get(0).get("query"));
+        assertTrue((Long) hotKeys.get(0).get("estimatedCount") >= 11);
+
+        cacheService.clearCache();
+    }
+}
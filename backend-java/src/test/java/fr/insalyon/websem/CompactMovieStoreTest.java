@@ -0,0 +1,60 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.index.CompactMovieStore;
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.model.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactMovieStoreTest {
+
+    private static Movie movie(String title, String year, String country, List<String> subjects) {
+        Movie movie = new Movie();
+        movie.setUri("http://dbpedia.org/resource/" + title);
+        movie.setTitle(title);
+        movie.setReleaseDate(year);
+        movie.setCountry(country);
+        movie.setLanguage("French");
+        movie.setRuntime("99 min");
+        movie.setBudget(String.format("$%,d", 6_000_000L));
+        movie.setSubjects(subjects);
+        return movie;
+    }
+
+    @Test
+    void testReconstructionIdentique() {
+        Movie amelie = movie("Amelie", "2001", "France", List.of("French films", "Films set in Paris"));
+        amelie.setGross("unknown");
+        Movie irregular = movie("Untitled", "c. 1920", null, null);
+        irregular.setRuntime("5940.0");
+
+        CompactMovieStore.Builder builder = CompactMovieStore.builder();
+        builder.add(amelie);
+        builder.add(irregular);
+        CompactMovieStore store = builder.build();
+
+        assertEquals(amelie, store.movie(0), "Valeurs numériques recodées à l'identique");
+        assertEquals(irregular, store.movie(1), "Valeurs hors format conservées telles quelles");
+        assertNotSame(store.movie(0), store.movie(0));
+        assertEquals("Untitled", store.title(1));
+    }
+
+    @Test
+    void testValeursRepeteesPartagees() {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        builder.add(movie("Amelie", "2001", "France", List.of("French films", "Films set in Paris")));
+        builder.add(movie("Delicatessen", "1991", "France", List.of("French films")));
+        builder.add(movie("La_Haine", "1995", "France", List.of("French films", "Films set in Paris")));
+        MovieCatalog catalog = builder.build();
+
+        // "France", "French", "French films", "Films set in Paris"
+        assertEquals(4, catalog.getMovies().dictionarySize());
+        assertSame(catalog.get(0).getCountry(), catalog.get(2).getCountry());
+        assertSame(catalog.get(0).getSubjects().get(0), catalog.get(1).getSubjects().get(0));
+        assertEquals("1991", catalog.get(1).getReleaseDate());
+        assertEquals("http://dbpedia.org/resource/La_Haine", catalog.uri(2));
+    }
+}
@@ -0,0 +1,84 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.SparqlCacheService;
+import fr.insalyon.websem.service.cache.Compression;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionTest {
+
+    private SparqlCacheService cacheService;
+
+    @BeforeEach
+    void setUp() {
+        cacheService = new SparqlCacheService();
+        cacheService.configureCompression("none", "harvest:zstd, search:lz4", 1 << 20);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheService.clearCache();
+    }
+
+    private static List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("movie", "http://dbpedia.org/resource/Film_" + i);
+            row.put("countries", "http://dbpedia.org/resource/France");
+            row.put("languages", "http://dbpedia.org/resource/French_language");
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    void testAllerRetour() {
+        byte[] raw = "http://dbpedia.org/resource/".repeat(100).getBytes(StandardCharsets.UTF_8);
+        for (Compression compression : Compression.values()) {
+            byte[] compressed = compression.compress(raw);
+            assertArrayEquals(raw, compression.decompress(compressed), compression.name());
+            if (compression != Compression.NONE) {
+                assertTrue(compressed.length < raw.length / 10, compression.name());
+            }
+        }
+        assertEquals(Compression.NONE, Compression.parse("snappy"));
+        assertEquals(Compression.ZSTD, Compression.parse(" Zstd "));
+    }
+
+    @Test
+    void testFamilleCompressee() {
+        String query = "SELECT * WHERE { ?movie ?p ?o } # harvest";
+        cacheService.cacheResults("harvest", query, rows(200));
+
+        assertEquals(rows(200), cacheService.getCachedResults("harvest", query));
+        assertNull(cacheService.getCachedResults(query), "Entrée compressée propre à sa famille");
+
+        Map<String, Object> stats = cacheService.getCompressionStats().get("harvest");
+        assertEquals("zstd", stats.get("compression"));
+        assertEquals(1L, stats.get("hits"));
+        assertTrue((Double) stats.get("ratio") > 5.0, "Ratio : " + stats.get("ratio"));
+    }
+
+    @Test
+    void testTypesCompressesRelusDuDisque() {
+        String query = "SELECT ?movie WHERE { ?movie a <Film> } # search";
+        Movie movie = new Movie();
+        movie.setUri("http://dbpedia.org/resource/Delicatessen");
+        movie.setTitle("Delicatessen");
+        cacheService.cacheTyped("search", query, Movie.class, List.of(movie));
+
+        cacheService.flush();
+        SparqlCacheService restarted = new SparqlCacheService();
+        restarted.configureCompression("none", "search:lz4", 1 << 20);
+        assertEquals(List.of(movie), restarted.getCachedTyped("search", query, Movie.class));
+        assertNull(restarted.getCachedTyped("advanced", query, Movie.class));
+    }
+}
@@ -0,0 +1,73 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.ResponseCacheService;
+import fr.insalyon.websem.service.SparqlCacheService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyIndexTest {
+
+    private static final String ALIEN = "http://dbpedia.org/resource/Alien_(film)";
+    private static final String SCOTT = "http://dbpedia.org/resource/Ridley_Scott";
+    private static final String HEAT = "http://dbpedia.org/resource/Heat_(1995_film)";
+
+    private static Movie movie(String uri, String title, String directorUri) {
+        Movie movie = new Movie();
+        movie.setUri(uri);
+        movie.setTitle(title);
+        movie.setDirectorUri(directorUri);
+        return movie;
+    }
+
+    @Test
+    void testInvalidationCibleeDuCacheSparql() {
+        SparqlCacheService cacheService = new SparqlCacheService();
+        String alienQuery = "SELECT ?movie WHERE { ?movie dbo:director ?d } # deps alien";
+        String heatQuery = "SELECT ?movie WHERE { ?movie dbo:budget ?b } # deps heat";
+        String rowsQuery = "SELECT ?movie ?title WHERE { ?movie rdfs:label ?title } # deps rows";
+
+        cacheService.cacheTyped(alienQuery, Movie.class, List.of(movie(ALIEN, "Alien", SCOTT)));
+        cacheService.cacheTyped(heatQuery, Movie.class, List.of(movie(HEAT, "Heat", null)));
+        cacheService.cacheResults(rowsQuery, List.of(Map.of("movie", ALIEN, "title", "Alien")));
+
+        // Le réalisateur invalide la seule requête qui le contient
+        assertEquals(1, cacheService.invalidateResource(SCOTT));
+        assertNull(cacheService.getCachedTyped(alienQuery, Movie.class));
+        assertNotNull(cacheService.getCachedTyped(heatQuery, Movie.class));
+        assertNotNull(cacheService.getCachedResults(rowsQuery));
+
+        // Un nouveau service retrouve les dépendances depuis le disque
+        cacheService.flush();
+        SparqlCacheService restarted = new SparqlCacheService();
+        assertEquals(1, restarted.invalidateResource(ALIEN));
+        assertNull(restarted.getCachedResults(rowsQuery));
+        assertNotNull(restarted.getCachedTyped(heatQuery, Movie.class));
+        assertEquals(0, restarted.invalidateResource(ALIEN), "Déjà invalidé");
+
+        restarted.clearCache();
+        assertEquals(0, restarted.getDependencies().entryCount());
+    }
+
+    @Test
+    void testInvalidationCibleeDesReponses() {
+        ResponseCacheService responseCache = new ResponseCacheService();
+        responseCache.get("search|alien", () -> List.of(movie(ALIEN, "Alien", SCOTT)));
+        responseCache.get("search|heat", () -> List.of(movie(HEAT, "Heat", null)));
+        assertEquals(2, responseCache.size());
+
+        assertEquals(1, responseCache.invalidateResource(ALIEN));
+        assertEquals(0, responseCache.invalidateResource("http://dbpedia.org/resource/Unknown"));
+
+        boolean[] recomputed = {false};
+        responseCache.get("search|heat", () -> {
+            recomputed[0] = true;
+            return List.of();
+        });
+        assertFalse(recomputed[0], "La réponse sans le film invalidé reste en cache");
+    }
+}
@@ -0,0 +1,83 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.index.DirectorFilmographyIndex;
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.MovieCatalogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectorFilmographyIndexTest {
+
+    private static final String NOLAN = "http://dbpedia.org/resource/Christopher_Nolan";
+
+    private MovieCatalogService catalogService;
+
+    private static Movie movie(String title, String year, String directorUri) {
+        Movie movie = new Movie();
+        movie.setUri("http://dbpedia.org/resource/" + title);
+        movie.setTitle(title);
+        movie.setReleaseDate(year);
+        movie.setDirectorUri(directorUri);
+        return movie;
+    }
+
+    @BeforeEach
+    void setUp() {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        builder.add(movie("Dunkirk", "2017", NOLAN));
+        builder.add(movie("Following", "1998", NOLAN));
+        builder.add(movie("Inception", "2010", NOLAN));
+        builder.add(movie("Insomnia", "2002", NOLAN));
+        builder.add(movie("Interstellar", "2014", NOLAN));
+        builder.add(movie("Memento", "2000", NOLAN));
+        builder.add(movie("Oppenheimer", "2023", NOLAN));
+        builder.add(movie("Tenet", "2020", NOLAN));
+        builder.add(movie("The_Prestige", "2006", NOLAN + "|http://dbpedia.org/resource/Someone_Else"));
+        builder.add(movie("Untitled", null, NOLAN));
+
+        catalogService = new MovieCatalogService();
+        catalogService.install(builder.build());
+    }
+
+    private List<String> titles(int limit, Integer fromYear, Integer toYear) {
+        return catalogService.getRecentMoviesByDirector(NOLAN, limit, fromYear, toYear)
+                .stream().map(Movie::getTitle).toList();
+    }
+
+    @Test
+    void testTriParAnneeEtLimiteLibre() {
+        assertEquals(List.of("Oppenheimer", "Tenet", "Dunkirk", "Interstellar", "Inception", "The_Prestige",
+                "Insomnia", "Memento", "Following"), titles(100, null, null),
+                "Au-delà de 5 films, et sans les films sans année");
+        assertEquals(List.of("Oppenheimer", "Tenet"), titles(2, null, null));
+    }
+
+    @Test
+    void testFenetreDAnnees() {
+        assertEquals(List.of("Interstellar", "Inception", "The_Prestige", "Insomnia"), titles(10, 2002, 2014));
+        assertEquals(List.of("Memento", "Following"), titles(10, null, 2001));
+        assertTrue(titles(10, 2030, null).isEmpty());
+    }
+
+    @Test
+    void testCoRealisateur() {
+        DirectorFilmographyIndex index = catalogService.getCatalog().getDirectorIndex();
+        int other = index.directorOrdinal("http://dbpedia.org/resource/Someone_Else");
+
+        assertEquals(1, index.filmCount(other));
+        assertEquals(2006, index.year(other, 0));
+        assertEquals(-1, index.directorOrdinal("http://dbpedia.org/resource/Unknown"));
+    }
+
+    @Test
+    void testLimiteNegative() {
+        assertTrue(titles(-1, null, null).isEmpty());
+        // Réalisateur hors index : la limite est bornée avant de choisir le repli SPARQL (absent ici)
+        assertTrue(catalogService.getRecentMoviesByDirector("http://dbpedia.org/resource/Unknown", -1, null, null).isEmpty());
+    }
+}
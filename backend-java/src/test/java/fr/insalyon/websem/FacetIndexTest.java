@@ -0,0 +1,110 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.index.FacetIndex;
+import fr.insalyon.websem.index.FacetIndex.Facet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+
+    private FacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        FacetIndex.Builder builder = FacetIndex.builder();
+        // 0 : Inception, 1 : Amélie, 2 : Interstellar, 3 : Léon, 4 : film sans année
+        builder.add(0, Facet.DIRECTOR, "Christopher Nolan");
+        builder.add(0, Facet.COUNTRY, "United States|United Kingdom");
+        builder.add(0, Facet.LANGUAGE, "English");
+        builder.setYear(0, 2010);
+
+        builder.add(1, Facet.DIRECTOR, "Jean-Pierre Jeunet");
+        builder.add(1, Facet.COUNTRY, "France");
+        builder.add(1, Facet.LANGUAGE, "French");
+        builder.setYear(1, 2001);
+
+        builder.add(2, Facet.DIRECTOR, "Christopher Nolan");
+        builder.add(2, Facet.COUNTRY, "United States");
+        builder.add(2, Facet.LANGUAGE, "English");
+        builder.setYear(2, 2014);
+
+        builder.add(3, Facet.DIRECTOR, "Luc Besson");
+        builder.add(3, Facet.COUNTRY, "France");
+        builder.add(3, Facet.LANGUAGE, "English|French");
+        builder.setYear(3, 1994);
+
+        builder.add(4, Facet.COUNTRY, "France");
+        index = builder.build(5);
+    }
+
+    @Test
+    void testIntersectionDesFacettes() {
+        Map<Facet, String> criteria = new EnumMap<>(Facet.class);
+        criteria.put(Facet.COUNTRY, "france");
+        criteria.put(Facet.LANGUAGE, "English");
+
+        assertEquals(RoaringBitmap.bitmapOf(3), index.filter(criteria, null, null));
+    }
+
+    @Test
+    void testSousChaineInsensibleALaCasse() {
+        assertEquals(RoaringBitmap.bitmapOf(0, 2), index.match(Facet.DIRECTOR, "nolan"));
+        assertEquals(RoaringBitmap.bitmapOf(0, 2), index.match(Facet.COUNTRY, "United"));
+        assertTrue(index.match(Facet.PRODUCER, "nobody").isEmpty());
+    }
+
+    @Test
+    void testIntervalleAnnees() {
+        assertEquals(RoaringBitmap.bitmapOf(0, 1, 2), index.yearRange(2000, null));
+        assertEquals(RoaringBitmap.bitmapOf(1, 3), index.yearRange(null, 2001));
+        assertEquals(RoaringBitmap.bitmapOf(0), index.yearRange(2010, 2010));
+
+        Map<Facet, String> criteria = new EnumMap<>(Facet.class);
+        criteria.put(Facet.DIRECTOR, "Nolan");
+        assertEquals(RoaringBitmap.bitmapOf(2), index.filter(criteria, 2011, 2020));
+    }
+
+    @Test
+    void testComptagesDeFacettes() {
+        RoaringBitmap france = index.match(Facet.COUNTRY, "France");
+
+        Map<String, Integer> languages = index.counts(Facet.LANGUAGE, france, 10);
+        assertEquals(List.of("French", "English"), List.copyOf(languages.keySet()));
+        assertEquals(2, languages.get("French"));
+        assertEquals(1, languages.get("English"));
+
+        // Résultat plus grand que le dictionnaire : chemin par intersection de bitmaps
+        RoaringBitmap all = index.filter(new EnumMap<>(Facet.class), null, null);
+        Map<String, Integer> directors = index.counts(Facet.DIRECTOR, all, 1);
+        assertEquals(Map.of("Christopher Nolan", 2), directors);
+
+        Map<String, Integer> decades = index.decadeCounts(all);
+        assertEquals(List.of("1990s", "2000s", "2010s"), List.copyOf(decades.keySet()));
+        assertEquals(2, decades.get("2010s"));
+    }
+
+    @Test
+    void testLibellesContenantDesVirgules() {
+        FacetIndex.Builder builder = FacetIndex.builder();
+        builder.add(0, Facet.COUNTRY, "Washington, D.C.|United States");
+        FacetIndex withCommas = builder.build(1);
+
+        assertEquals(Map.of("Washington, D.C.", 1, "United States", 1),
+                withCommas.counts(Facet.COUNTRY, RoaringBitmap.bitmapOf(0), 10));
+        assertEquals(List.of("Washington, D.C.", "United States"), FacetIndex.split("Washington, D.C.|United States|"));
+        assertEquals("Washington, D.C., United States", FacetIndex.display("Washington, D.C.|United States"));
+    }
+
+    @Test
+    void testSansCritereRetourneToutLeCatalogue() {
+        assertEquals(5, index.filter(new EnumMap<>(Facet.class), null, null).getCardinality());
+        assertEquals(0, index.year(4));
+    }
+}
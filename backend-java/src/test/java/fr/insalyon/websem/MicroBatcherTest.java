@@ -0,0 +1,100 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.service.MicroBatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicroBatcherTest {
+
+    private final List<Set<String>> calls = Collections.synchronizedList(new ArrayList<>());
+    private MicroBatcher<String, String> batcher;
+
+    private MicroBatcher<String, String> create(double windowMs, int maxBatchSize) {
+        batcher = new MicroBatcher<>("test-batch", keys -> {
+            calls.add(new HashSet<>(keys));
+            Map<String, String> values = new HashMap<>();
+            for (String key : keys) {
+                if (!key.startsWith("absent")) values.put(key, key.toUpperCase());
+            }
+            return values;
+        }, windowMs, maxBatchSize);
+        return batcher;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) batcher.shutdown();
+    }
+
+    @Test
+    void testAppelsConcurrentsRegroupes() throws Exception {
+        create(50, 100);
+        ExecutorService callers = Executors.newFixedThreadPool(20);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            String key = "film" + i;
+            results.add(callers.submit(() -> {
+                start.await();
+                return batcher.load(key).get(5, TimeUnit.SECONDS);
+            }));
+        }
+        start.countDown();
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("FILM" + i, results.get(i).get());
+        }
+        callers.shutdown();
+
+        assertEquals(1, calls.size(), "Les 20 recherches doivent partir dans un seul lot");
+        assertEquals(20, calls.get(0).size());
+        MicroBatcher.BatchStats stats = batcher.getStats();
+        assertEquals(1, stats.getBatches());
+        assertEquals(20, stats.getMaxBatchSize());
+        assertTrue(stats.getMaxWaitMs() > 0);
+    }
+
+    @Test
+    void testCleDupliqueeChargeeUneFois() throws Exception {
+        create(20, 100);
+        CompletableFuture<String> a = batcher.load("film");
+        CompletableFuture<String> b = batcher.load("film");
+        CompletableFuture<String> missing = batcher.load("absent");
+
+        assertEquals("FILM", a.get(5, TimeUnit.SECONDS));
+        assertEquals("FILM", b.get(5, TimeUnit.SECONDS));
+        assertNull(missing.get(5, TimeUnit.SECONDS), "Une clé introuvable se résout à null");
+        assertEquals(Set.of("film", "absent"), calls.get(0));
+    }
+
+    @Test
+    void testLotPleinEnvoyeSansAttendre() throws Exception {
+        create(10_000, 3);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(batcher.load("film" + i));
+        }
+
+        for (CompletableFuture<String> future : futures) {
+            assertNotNull(future.get(2, TimeUnit.SECONDS), "Un lot plein ne doit pas attendre la fin de la fenêtre");
+        }
+        assertEquals(2, calls.size());
+    }
+
+    @Test
+    void testEchecPropageAuxAppelants() {
+        batcher = new MicroBatcher<>("test-batch", keys -> {
+            throw new IllegalStateException("endpoint indisponible");
+        }, 1, 10);
+
+        CompletableFuture<String> future = batcher.load("film");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+}
@@ -0,0 +1,132 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.dto.GraphNode;
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.index.MovieGraph;
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.MovieCatalogService;
+import fr.insalyon.websem.service.MovieGraphService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieGraphTest {
+
+    private static final String DBR = "http://dbpedia.org/resource/";
+
+    private MovieGraphService graphService;
+
+    private static Movie movie(String name, String director) {
+        Movie movie = new Movie();
+        movie.setUri(DBR + name);
+        movie.setTitle(name.replace('_', ' '));
+        movie.setDirectorUri(DBR + director);
+        movie.setDirector(director.replace('_', ' '));
+        return movie;
+    }
+
+    @BeforeEach
+    void setUp() {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        builder.add(movie("Apollo_13", "Ron_Howard"));
+        builder.add(movie("Footloose", "Herbert_Ross"));
+        builder.add(movie("Mystic_River", "Clint_Eastwood"));
+        builder.add(movie("Unforgiven", "Clint_Eastwood"));
+
+        builder.addStarring(DBR + "Apollo_13", DBR + "Tom_Hanks", "Tom Hanks");
+        builder.addStarring(DBR + "Apollo_13", DBR + "Kevin_Bacon", "Kevin Bacon");
+        builder.addStarring(DBR + "Apollo_13", DBR + "Bill_Paxton", "Bill Paxton");
+        builder.addStarring(DBR + "Footloose", DBR + "Kevin_Bacon", "Kevin Bacon");
+        builder.addStarring(DBR + "Mystic_River", DBR + "Kevin_Bacon", "Kevin Bacon");
+        builder.addStarring(DBR + "Mystic_River", DBR + "Sean_Penn", "Sean Penn");
+        builder.addStarring(DBR + "Unforgiven", DBR + "Clint_Eastwood", "Clint Eastwood");
+        builder.addStarring(DBR + "Unforgiven", DBR + "Gene_Hackman", "Gene Hackman");
+
+        MovieCatalogService catalog = new MovieCatalogService();
+        catalog.install(builder.build());
+        graphService = new MovieGraphService() {
+            {
+                catalogService = catalog;
+            }
+        };
+    }
+
+    @Test
+    void testDegresDeSeparation() {
+        List<GraphNode> path = graphService.shortestPath(DBR + "Tom_Hanks", DBR + "Gene_Hackman", 12);
+
+        List<String> uris = path.stream().map(GraphNode::getUri).toList();
+        assertEquals(List.of(DBR + "Tom_Hanks", DBR + "Apollo_13", DBR + "Kevin_Bacon", DBR + "Mystic_River",
+                DBR + "Clint_Eastwood", DBR + "Unforgiven", DBR + "Gene_Hackman"), uris);
+        assertEquals("actor-director", path.get(4).getType());
+        assertEquals("film", path.get(1).getType());
+    }
+
+    @Test
+    void testCheminTropLongOuInconnu() {
+        assertTrue(graphService.shortestPath(DBR + "Tom_Hanks", DBR + "Gene_Hackman", 4).isEmpty());
+        assertNull(graphService.shortestPath(DBR + "Tom_Hanks", DBR + "Nobody", 12));
+    }
+
+    @Test
+    void testVoisinage() {
+        List<GraphNode> nodes = graphService.neighbourhood(DBR + "Kevin_Bacon", 1, 100);
+
+        assertEquals(DBR + "Kevin_Bacon", nodes.get(0).getUri());
+        assertEquals(Set.of(DBR + "Apollo_13", DBR + "Footloose", DBR + "Mystic_River"),
+                new HashSet<>(nodes.stream().skip(1).map(GraphNode::getUri).toList()));
+        assertTrue(nodes.stream().skip(1).allMatch(n -> n.getDepth() == 1 && (DBR + "Kevin_Bacon").equals(n.getVia())));
+
+        assertEquals(4, graphService.neighbourhood(DBR + "Kevin_Bacon", 3, 4).size(), "La limite de nœuds est respectée");
+    }
+
+    @Test
+    void testPartenairesFrequents() {
+        List<GraphNode> coStars = graphService.topCoStars(DBR + "Kevin_Bacon", 10);
+
+        assertEquals(Set.of(DBR + "Tom_Hanks", DBR + "Bill_Paxton", DBR + "Sean_Penn"),
+                new HashSet<>(coStars.stream().map(GraphNode::getUri).toList()),
+                "Les réalisateurs ne sont pas comptés comme partenaires de jeu");
+        assertTrue(coStars.stream().allMatch(n -> n.getWeight() == 1));
+    }
+
+    @Test
+    void testBidirectionnelIdentiqueAuParcoursSimple() {
+        Random random = new Random(7);
+        int films = 300;
+        int people = 200;
+        MovieGraph.Builder builder = MovieGraph.builder();
+        for (int f = 0; f < films; f++) {
+            for (int k = 0; k < 3; k++) {
+                builder.addEdge(f, "p" + random.nextInt(people), "p", MovieGraph.ROLE_ACTOR);
+            }
+        }
+        MovieGraph graph = builder.build(films);
+
+        for (int q = 0; q < 50; q++) {
+            int from = random.nextInt(graph.nodeCount());
+            int to = random.nextInt(graph.nodeCount());
+            int[] path = graph.shortestPath(from, to, 100);
+            int expected = bfsDistance(graph, from, to);
+
+            if (expected < 0) {
+                assertNull(path);
+                continue;
+            }
+            assertEquals(expected, path.length - 1, "Distance de " + from + " à " + to);
+            assertEquals(from, path[0]);
+            assertEquals(to, path[path.length - 1]);
+        }
+    }
+
+    private static int bfsDistance(MovieGraph graph, int from, int to) {
+        MovieGraph.Traversal all = graph.neighbourhood(from, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        for (int i = 0; i < all.size(); i++) {
+            if (all.node(i) == to) return all.depth(i);
+        }
+        return -1;
+    }
+}
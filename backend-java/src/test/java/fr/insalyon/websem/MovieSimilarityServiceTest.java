@@ -4,6 +4,9 @@ import fr.insalyon.websem.model.Movie;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import fr.insalyon.websem.index.SubjectIndex;
+
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -11,6 +14,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class MovieSimilarityServiceTest {
 
     private MovieSimilarityService similarityService;
+    private final List<Integer> decadeQueries = new ArrayList<>();
 
     @BeforeEach
     void setup() {
@@ -21,6 +25,7 @@ class MovieSimilarityServiceTest {
         similarityService.sparqlService = new MovieExplorationSPARQLService() {
             @Override
             public List<Movie> getMoviesByDecade(int start, int end) {
+                decadeQueries.add(start);
                 // On simule 3 films candidats
                 Movie film1 = new Movie();
                 film1.setTitle("Sci-Fi Action 2024");
@@ -66,4 +71,24 @@ class MovieSimilarityServiceTest {
         // Enfin "Romantic Drama 2023"
         assertEquals("Romantic Drama 2023", results.get(2).getTitle());
     }
+
+    @Test
+    void testPlusieursFilmsUneRequeteParDecennie() {
+        Movie avatar = new Movie();
+        avatar.setTitle("Avatar");
+        avatar.setReleaseDate("2025");
+        avatar.setSubjects(List.of("Science fiction films", "Action films"));
+
+        Movie romance = new Movie();
+        romance.setTitle("Romance");
+        romance.setReleaseDate("2022");
+        romance.setSubjects(List.of("Romantic films"));
+
+        List<Movie> results = similarityService.getSimilarMovies(List.of(avatar, romance), 3,
+                SubjectIndex.Aggregation.MIN_DISTANCE, null);
+
+        assertEquals(List.of(2020), decadeQueries, "Une seule requête pour les deux films de la même décennie");
+        assertEquals(3, results.size());
+        assertEquals("Sci-Fi Action 2024", results.get(0).getTitle());
+    }
 }
@@ -0,0 +1,122 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.index.MovieTextIndex;
+import fr.insalyon.websem.model.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieTextIndexTest {
+
+    private static Movie movie(String uri, String title, String description, String... subjects) {
+        Movie m = new Movie();
+        m.setUri(uri);
+        m.setTitle(title);
+        m.setDescription(description);
+        m.setSubjects(List.of(subjects));
+        return m;
+    }
+
+    @Test
+    void testRechercheParIntrigue() {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        builder.add(movie("u:1", "Space Heist", "A crew plans a heist aboard a space station.", "Heist films", "Space adventure films"));
+        builder.add(movie("u:2", "Bank Job", "Robbers plan a bank heist in London.", "Heist films"));
+        builder.add(movie("u:3", "Lonely Planet", "An astronaut is stranded in space.", "Space adventure films"));
+        builder.add(movie("u:4", "Romance in Paris", "Two strangers fall in love.", "Romantic films"));
+        MovieCatalog catalog = builder.build();
+
+        MovieTextIndex.Hits hits = catalog.getTextIndex().search("heist in space", 10);
+
+        assertEquals(3, hits.size());
+        assertEquals("Space Heist", catalog.get(hits.doc(0)).getTitle());
+        assertTrue(hits.score(0) >= hits.score(1));
+    }
+
+    @Test
+    void testDoublonIgnore() {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        assertEquals(0, builder.add(movie("u:1", "A", null)));
+        assertEquals(-1, builder.add(movie("u:1", "A bis", null)));
+        assertEquals(1, builder.build().size());
+    }
+
+    @Test
+    void testWandIdentiqueAuCalculExhaustif() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[300];
+        for (int i = 0; i < vocabulary.length; i++) vocabulary[i] = "word" + Integer.toString(i, 36) + "x";
+
+        int docCount = 3000;
+        List<String> docs = new ArrayList<>();
+        MovieTextIndex.Builder builder = MovieTextIndex.builder();
+        for (int d = 0; d < docCount; d++) {
+            StringBuilder text = new StringBuilder();
+            int length = 5 + random.nextInt(60);
+            for (int i = 0; i < length; i++) {
+                // distribution biaisée : quelques mots fréquents, beaucoup de mots rares
+                int w = (int) (vocabulary.length * Math.pow(random.nextDouble(), 3));
+                text.append(vocabulary[w]).append(' ');
+            }
+            docs.add(text.toString());
+            builder.add(d, text.toString());
+        }
+        MovieTextIndex index = builder.build();
+
+        for (int q = 0; q < 20; q++) {
+            String query = vocabulary[random.nextInt(20)] + " " + vocabulary[random.nextInt(300)] + " " + vocabulary[random.nextInt(100)];
+            MovieTextIndex.Hits wand = index.search(query, 10);
+            float[] expected = bruteForce(docs, query, 10);
+
+            assertEquals(expected.length, wand.size(), "Nombre de résultats pour " + query);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], wand.score(i), 1e-3, "Score au rang " + i + " pour " + query);
+            }
+        }
+    }
+
+    /**
+     * Scores BM25 du top-K calculés sans index ni élagage.
+     */
+    private static float[] bruteForce(List<String> docs, String query, int k) {
+        Set<String> terms = new LinkedHashSet<>(MovieTextIndex.tokenize(query));
+        List<List<String>> tokenized = new ArrayList<>();
+        double total = 0;
+        for (String d : docs) {
+            List<String> t = MovieTextIndex.tokenize(d);
+            tokenized.add(t);
+            total += t.size();
+        }
+        double avg = total / docs.size();
+
+        Map<String, Integer> dfs = new HashMap<>();
+        for (String term : terms) {
+            int df = 0;
+            for (List<String> tokens : tokenized) if (tokens.contains(term)) df++;
+            dfs.put(term, df);
+        }
+
+        List<Float> scores = new ArrayList<>();
+        for (List<String> tokens : tokenized) {
+            float score = 0;
+            boolean matched = false;
+            for (String term : terms) {
+                int df = dfs.get(term);
+                int tf = Collections.frequency(tokens, term);
+                if (tf == 0) continue;
+                matched = true;
+                float idf = (float) Math.log(1.0 + (docs.size() - df + 0.5) / (df + 0.5));
+                float norm = 1.2f * (1 - 0.75f + 0.75f * tokens.size() / (float) avg);
+                score += idf * tf * 2.2f / (tf + norm);
+            }
+            if (matched) scores.add(score);
+        }
+        scores.sort(Collections.reverseOrder());
+        float[] top = new float[Math.min(k, scores.size())];
+        for (int i = 0; i < top.length; i++) top[i] = scores.get(i);
+        return top;
+    }
+}
@@ -0,0 +1,53 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.SparqlCacheService;
+import fr.insalyon.websem.service.cache.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NegativeCacheTest {
+
+    @Test
+    void testFiltreDeBloom() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("present-" + i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("present-" + i), "Aucun faux négatif");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("absent-" + i)) falsePositives++;
+        }
+        assertTrue(falsePositives < 300, "Faux positifs : " + falsePositives);
+
+        filter.clear();
+        assertFalse(filter.mightContain("present-0"));
+    }
+
+    @Test
+    void testResultatsVides() {
+        SparqlCacheService cacheService = new SparqlCacheService();
+        String query = "SELECT ?movie WHERE { ?movie rdfs:label \"xqzwv\" } # negative";
+        assertNull(cacheService.getCachedTyped(query, Movie.class));
+
+        cacheService.cacheTyped(query, Movie.class, List.of());
+        assertEquals(List.of(), cacheService.getCachedTyped(query, Movie.class));
+        cacheService.flush();
+        assertNull(new SparqlCacheService().getCachedTyped(query, Movie.class), "Jamais écrit sur disque");
+
+        cacheService.markAbsent("movies", "http://dbpedia.org/resource/Nope");
+        assertTrue(cacheService.isKnownAbsent("movies", "http://dbpedia.org/resource/Nope"));
+        assertFalse(cacheService.isKnownAbsent("search", "http://dbpedia.org/resource/Nope"));
+
+        cacheService.clearCache();
+        assertNull(cacheService.getCachedTyped(query, Movie.class));
+        assertFalse(cacheService.isKnownAbsent("movies", "http://dbpedia.org/resource/Nope"));
+    }
+}
@@ -0,0 +1,178 @@
+package fr.insalyon.websem;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import fr.insalyon.websem.service.cache.OffHeapStore;
+import fr.insalyon.websem.service.cache.RowCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comparaison du tier sur le tas et du tier hors tas : mémoire du tas, pauses GC et débit de lecture.
+ *
+ * Hors de la suite normale ; lancement :
+ * mvn test -Dtest=OffHeapBenchmark -Dwebsem.bench=true [-Dwebsem.bench.entries=10000,100000,1000000]
+ *
+ * Chaque entrée est une ligne de 8 champs. La charge compte 2 millions d'opérations :
+ * 80 % des lectures portent sur 1 000 clés chaudes et 10 % des opérations sont des écritures.
+ */
+@EnabledIfSystemProperty(named = "websem.bench", matches = "true")
+class OffHeapBenchmark {
+
+    private static final int OPERATIONS = 2_000_000;
+    private static final int HOT_KEYS = 1000;
+
+    private static List<Map<String, Object>> row(int i) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("movie", "http://dbpedia.org/resource/Film_" + i);
+        row.put("title", "Film " + i);
+        row.put("description", "Film de " + (1900 + i % 120));
+        row.put("thumbnail", "http://commons.wikimedia.org/wiki/Special:FilePath/Film_" + i + ".jpg");
+        row.put("year", String.valueOf(1900 + i % 120));
+        row.put("directors", "Director " + (i % 5000));
+        row.put("countries", "United States");
+        row.put("languages", "English");
+        return List.of(row);
+    }
+
+    /**
+     * Tier mesuré : lignes décodées sur le tas, ou encodées hors tas.
+     */
+    private interface Tier {
+        void put(String key, List<Map<String, Object>> rows);
+
+        List<Map<String, Object>> get(String key);
+    }
+
+    private static Tier heap(int entries) {
+        // Marge : l'éviction par taille de Caffeine est approximative
+        Cache<String, List<Map<String, Object>>> cache = Caffeine.newBuilder().maximumSize(2L * entries).build();
+        return new Tier() {
+            public void put(String key, List<Map<String, Object>> rows) {
+                cache.put(key, rows);
+            }
+
+            public List<Map<String, Object>> get(String key) {
+                return cache.getIfPresent(key);
+            }
+        };
+    }
+
+    private static Tier offHeap(int entries) {
+        // Même répartition que SparqlCacheService : petit ensemble chaud sur le tas, le reste hors tas
+        Cache<String, List<Map<String, Object>>> hot = Caffeine.newBuilder().maximumSize(100).build();
+        // Les réécritures s'ajoutent dans les tranches : capacité pour le remplissage et toutes les écritures
+        long capacity = Math.max(64L << 20, (entries + OPERATIONS / 10) * 512L);
+        OffHeapStore store = new OffHeapStore(capacity, 16 << 20, 3_600_000);
+        return new Tier() {
+            public void put(String key, List<Map<String, Object>> rows) {
+                hot.put(key, rows);
+                store.put(key, RowCodec.encode(rows));
+            }
+
+            public List<Map<String, Object>> get(String key) {
+                List<Map<String, Object>> rows = hot.getIfPresent(key);
+                if (rows != null) return rows;
+                byte[] data = store.get(key);
+                if (data == null) return null;
+                rows = RowCodec.decode(data);
+                hot.put(key, rows);
+                return rows;
+            }
+        };
+    }
+
+    // Pause la plus longue (durée d'un GC rapportée par la JVM) depuis la dernière remise à zéro
+    private static final AtomicLong maxPauseMs = new AtomicLong();
+
+    private static void listenToPauses() {
+        NotificationListener listener = (notification, handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+            GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            // Les cycles concurrents (« G1 Concurrent GC ») ne suspendent pas l'application
+            if (info.getGcName().contains("Concurrent")) return;
+            maxPauseMs.accumulateAndGet(info.getGcInfo().getDuration(), Math::max);
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+        }
+    }
+
+    private static long gcTimeMs() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long heapUsedMb() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+    }
+
+    private static String measure(String mode, int entries, Tier tier) throws InterruptedException {
+        for (int i = 0; i < entries; i++) {
+            tier.put("q" + i, row(i));
+        }
+
+        long start = System.nanoTime();
+        System.gc();
+        long fullGcMs = (System.nanoTime() - start) / 1_000_000;
+        long heapMb = heapUsedMb();
+
+        Random random = new Random(42);
+        maxPauseMs.set(0);
+        long gcBefore = gcTimeMs();
+        long reads = 0;
+        long misses = 0;
+        start = System.nanoTime();
+        for (int op = 0; op < OPERATIONS; op++) {
+            int i = random.nextInt(10) < 8 ? random.nextInt(Math.min(HOT_KEYS, entries)) : random.nextInt(entries);
+            if (random.nextInt(10) == 0) {
+                tier.put("q" + i, row(i));
+            } else {
+                if (tier.get("q" + i) == null) misses++;
+                reads++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long gcMs = gcTimeMs() - gcBefore;
+        assertEquals(0, misses, mode + " : toutes les clés tiennent dans le tier");
+        // Les notifications de GC sont livrées par un autre thread
+        Thread.sleep(200);
+
+        return String.format("%8d  %-9s %6d MB  %6d ms  %6d ms  %6d ms  %6dk",
+            entries, mode, heapMb, fullGcMs, gcMs, maxPauseMs.get(), Math.round(reads / seconds / 1000));
+    }
+
+    @Test
+    void testComparaisonTasEtHorsTas() throws InterruptedException {
+        listenToPauses();
+        String sizes = System.getProperty("websem.bench.entries", "10000,100000");
+        System.out.println("Java " + System.getProperty("java.version") + ", "
+            + Runtime.getRuntime().availableProcessors() + " coeur(s), -Xmx "
+            + (Runtime.getRuntime().maxMemory() >> 20) + " Mo, "
+            + ManagementFactory.getGarbageCollectorMXBeans().get(0).getName());
+        System.out.println(" entries  mode      heap used   full GC   GC time  max pause  reads/s");
+        for (String size : sizes.split(",")) {
+            int entries = Integer.parseInt(size.trim());
+            // Un tier à la fois : le précédent est libéré avant la mesure suivante
+            System.out.println(measure("heap", entries, heap(entries)));
+            System.gc();
+            System.out.println(measure("off-heap", entries, offHeap(entries)));
+            System.gc();
+        }
+    }
+}
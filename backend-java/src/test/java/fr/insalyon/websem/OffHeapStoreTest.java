@@ -0,0 +1,87 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.service.SparqlCacheService;
+import fr.insalyon.websem.service.cache.OffHeapStore;
+import fr.insalyon.websem.service.cache.RowCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapStoreTest {
+
+    private static byte[] bytes(int length, int fill) {
+        byte[] value = new byte[length];
+        Arrays.fill(value, (byte) fill);
+        return value;
+    }
+
+    @Test
+    void testEvictionParTranche() {
+        // 3 tranches de 100 octets ; chaque entrée occupe 16 + 1 + 32 = 49 octets, soit 2 par tranche
+        OffHeapStore store = new OffHeapStore(300, 100, 60_000);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(store.put(String.valueOf(i), bytes(32, i)));
+        }
+        assertEquals(6, store.size());
+        assertArrayEquals(bytes(32, 3), store.get("3"));
+
+        // La 7e entrée réutilise la première tranche : ses deux entrées sont évincées
+        store.put("6", bytes(32, 6));
+        assertNull(store.get("0"));
+        assertNull(store.get("1"));
+        assertArrayEquals(bytes(32, 2), store.get("2"));
+        assertEquals(2, store.evictions());
+        assertEquals(300, store.allocatedBytes());
+    }
+
+    @Test
+    void testReecritureEtEntreeTropGrande() {
+        OffHeapStore store = new OffHeapStore(300, 100, 60_000);
+        store.put("a", bytes(10, 1));
+        store.put("a", bytes(20, 2));
+        assertArrayEquals(bytes(20, 2), store.get("a"));
+        assertEquals(1, store.size());
+
+        assertFalse(store.put("a", bytes(200, 3)), "Plus grande qu'une tranche");
+        assertNull(store.get("a"));
+    }
+
+    @Test
+    void testEntreeExpiree() throws InterruptedException {
+        OffHeapStore store = new OffHeapStore(300, 100, 50);
+        store.put("a", bytes(10, 1));
+        assertArrayEquals(bytes(10, 1), store.get("a"));
+
+        Thread.sleep(100);
+        assertNull(store.get("a"), "Plus servie après sa durée de vie");
+        assertEquals(0, store.size());
+
+        store.put("a", bytes(10, 2));
+        assertArrayEquals(bytes(10, 2), store.get("a"), "Une réécriture repart de zéro");
+    }
+
+    @Test
+    void testCodageDesLignes() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.add(new HashMap<>(Map.of("movie", "http://dbpedia.org/resource/Amélie", "year", "2001")));
+        rows.add(new HashMap<>(Map.of("movie", "http://dbpedia.org/resource/Delicatessen")));
+        assertEquals(rows, RowCodec.decode(RowCodec.encode(rows)));
+        assertTrue(RowCodec.decode(RowCodec.encode(List.of())).isEmpty());
+    }
+
+    @Test
+    void testCacheAvecTierHorsTas() {
+        SparqlCacheService cacheService = new SparqlCacheService();
+        cacheService.enableOffHeap(1 << 20, 1 << 16, 1);
+
+        List<Map<String, Object>> rows = List.of(Map.of("title", "Test Film"));
+        cacheService.cacheResults("SELECT * WHERE { ?s ?p ?o } # offheap", rows);
+        assertEquals(1, cacheService.getOffHeap().size());
+        assertEquals(rows, cacheService.getCachedResults("SELECT * WHERE { ?s ?p ?o } # offheap"));
+
+        cacheService.clearCache();
+        assertEquals(0, cacheService.getOffHeap().size());
+    }
+}
@@ -0,0 +1,118 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.ReleaseYearStore;
+import fr.insalyon.websem.service.year.ReleaseYearStrategy;
+import org.apache.jena.query.*;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReleaseYearStoreTest {
+
+    private static final String DBR = "http://dbpedia.org/resource/";
+    private static final String DBO = "http://dbpedia.org/ontology/";
+
+    @TempDir
+    Path tempDir;
+
+    private MovieCatalog catalog;
+    private ReleaseYearStore store;
+
+    private static Movie movie(String name, String year) {
+        Movie movie = new Movie();
+        movie.setUri(DBR + name);
+        movie.setTitle(name);
+        movie.setReleaseDate(year);
+        return movie;
+    }
+
+    @BeforeEach
+    void setUp() {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        builder.add(movie("Alien", "1979"));
+        builder.add(movie("Heat", "1995"));
+        builder.add(movie("Se7en", "1995"));
+        builder.add(movie("The_Matrix", "1999"));
+        builder.add(movie("Undated", null));
+        catalog = builder.build();
+
+        String path = tempDir.resolve("release-years.nt").toString();
+        store = new ReleaseYearStore() {
+            {
+                file = path;
+            }
+        };
+    }
+
+    @Test
+    void testMaterialisationEtRechargement() {
+        assertEquals(4, store.materialize(catalog), "Les films sans année ne sont pas matérialisés");
+
+        String path = tempDir.resolve("release-years.nt").toString();
+        Model saved = RDFDataMgr.loadModel(path);
+        Property releaseYear = saved.createProperty(ReleaseYearStrategy.RELEASE_YEAR);
+        assertEquals("1995", saved.getResource(DBR + "Heat").getProperty(releaseYear).getString());
+        assertNull(saved.getResource(DBR + "Undated").getProperty(releaseYear));
+
+        ReleaseYearStore reloaded = new ReleaseYearStore() {
+            {
+                file = path;
+            }
+        };
+        reloaded.load();
+        assertEquals(4, reloaded.size());
+    }
+
+    @Test
+    void testStrategiesEquivalentes() {
+        store.materialize(catalog);
+
+        // Store local : descriptions DBpedia et années matérialisées côte à côte
+        Model model = RDFDataMgr.loadModel(tempDir.resolve("release-years.nt").toString());
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            Movie movie = catalog.get(ordinal);
+            String year = movie.getReleaseDate() == null ? "" : movie.getReleaseDate() + " ";
+            model.add(model.createResource(movie.getUri()), model.createProperty(DBO, "description"),
+                    year + "American film", "en");
+        }
+
+        for (String mode : List.of(ReleaseYearStrategy.MODE_REGEX, ReleaseYearStrategy.MODE_MATERIALIZED)) {
+            ReleaseYearStrategy strategy = ReleaseYearStrategy.forMode(mode);
+
+            assertEquals(Map.of(DBR + "Heat", 1995, DBR + "Se7en", 1995, DBR + "The_Matrix", 1999),
+                    years(model, strategy, strategy.yearRange("y", 1990, 2000)), mode);
+            assertEquals(Set.of(DBR + "Heat", DBR + "Se7en"),
+                    years(model, strategy, strategy.yearEquals(1995)).keySet(), mode);
+            assertEquals(4, years(model, strategy, strategy.bindYear("y")).size(), mode);
+        }
+    }
+
+    private static Map<String, Integer> years(Model model, ReleaseYearStrategy strategy, String pattern) {
+        String query = strategy.prefixes() + """
+                PREFIX dbo: <http://dbpedia.org/ontology/>
+                PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>
+                SELECT ?movie ?y WHERE {
+                """ + pattern + "\n}";
+
+        Map<String, Integer> years = new HashMap<>();
+        try (QueryExecution qexec = QueryExecutionFactory.create(query, model)) {
+            ResultSet results = qexec.execSelect();
+            while (results.hasNext()) {
+                QuerySolution solution = results.nextSolution();
+                years.put(solution.getResource("movie").getURI(),
+                        solution.contains("y") ? solution.getLiteral("y").getInt() : 0);
+            }
+        }
+        return years;
+    }
+}
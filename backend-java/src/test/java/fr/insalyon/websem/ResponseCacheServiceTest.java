@@ -0,0 +1,57 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.ResponseCacheService;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheServiceTest {
+
+    private static List<Movie> movies() {
+        Movie movie = new Movie();
+        movie.setUri("http://dbpedia.org/resource/Inception");
+        movie.setTitle("Inception");
+        return List.of(movie);
+    }
+
+    @Test
+    void testSerialisationUnique() {
+        ResponseCacheService responseCache = new ResponseCacheService();
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseCacheService.CachedResponse first = responseCache.get("search|Inception", () -> {
+            calls.incrementAndGet();
+            return movies();
+        });
+        ResponseCacheService.CachedResponse second = responseCache.get("search|Inception", () -> {
+            calls.incrementAndGet();
+            return movies();
+        });
+
+        assertEquals(1, calls.get());
+        assertSame(first.getBody(), second.getBody(), "Les octets en cache sont renvoyés tels quels");
+        assertTrue(new String(first.getBody(), StandardCharsets.UTF_8).contains("\"title\":\"Inception\""));
+        assertTrue(first.getEtag().matches("\"[0-9a-f]{32}\""), "ETag fort : " + first.getEtag());
+    }
+
+    @Test
+    void testReponsesVidesNonGardees() {
+        ResponseCacheService responseCache = new ResponseCacheService();
+        AtomicInteger calls = new AtomicInteger();
+
+        responseCache.get("top-budget|1999", () -> { calls.incrementAndGet(); return List.of(); });
+        ResponseCacheService.CachedResponse retry = responseCache.get("top-budget|1999", () -> {
+            calls.incrementAndGet();
+            return movies();
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals(1, responseCache.size());
+        assertNotEquals(responseCache.get("autre", List::of).getEtag(), retry.getEtag());
+    }
+}
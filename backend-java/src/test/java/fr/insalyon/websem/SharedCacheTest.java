@@ -0,0 +1,255 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.service.cache.RespSharedCacheTier;
+import fr.insalyon.websem.service.cache.SharedCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedCacheTest {
+
+    private StandIn first;
+    private StandIn second;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        first = new StandIn();
+        second = new StandIn();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        first.close();
+        second.close();
+    }
+
+    private String nodes() {
+        return "localhost:" + first.port() + ",localhost:" + second.port();
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testPartageEntreReplicasEtVidage() {
+        // Deux réplicas, chacun avec son client ; cache proche désactivé pour le second
+        SharedCache replicaA = new SharedCache(new RespSharedCacheTier(nodes(), 1000), 60_000, 100, 60_000);
+        SharedCache replicaB = new SharedCache(new RespSharedCacheTier(nodes(), 1000), 60_000, 100, 0);
+
+        for (int i = 0; i < 50; i++) {
+            replicaA.put("q" + i + ".json", utf8("[" + i + "]"));
+        }
+        assertArrayEquals(utf8("[7]"), replicaB.get("q7.json"));
+        assertEquals(1, replicaB.getRemoteHits());
+        assertTrue(first.size() > 0 && second.size() > 0, "Les clés sont réparties entre les deux serveurs");
+
+        // Le réplica A sert depuis son cache proche
+        assertArrayEquals(utf8("[3]"), replicaA.get("q3.json"));
+        assertEquals(1, replicaA.getNearHits());
+
+        // Un vidage depuis B est vu par B immédiatement, par A après la durée de vie de son cache proche
+        replicaB.invalidateAll();
+        assertNull(replicaB.get("q7.json"));
+        SharedCache restarted = new SharedCache(new RespSharedCacheTier(nodes(), 1000), 60_000, 100, 60_000);
+        assertNull(restarted.get("q3.json"));
+
+        replicaA.close();
+        replicaB.close();
+        restarted.close();
+    }
+
+    @Test
+    void testVidageVuParLesAutresReplicas() {
+        AtomicInteger clearedA = new AtomicInteger();
+        AtomicInteger clearedB = new AtomicInteger();
+        SharedCache replicaA = new SharedCache(new RespSharedCacheTier(nodes(), 1000), 60_000, 100, 0,
+            clearedA::incrementAndGet);
+        SharedCache replicaB = new SharedCache(new RespSharedCacheTier(nodes(), 1000), 60_000, 100, 0,
+            clearedB::incrementAndGet);
+
+        replicaA.checkGeneration();
+        assertEquals(0, clearedA.get(), "Génération inchangée");
+
+        replicaB.invalidateAll();
+        replicaA.checkGeneration();
+        replicaA.checkGeneration();
+        replicaB.checkGeneration();
+        assertEquals(1, clearedA.get(), "Le réplica A vide ses tiers locaux une seule fois");
+        assertEquals(0, clearedB.get(), "Le réplica qui a vidé le cache l'a déjà fait lui-même");
+
+        replicaA.close();
+        replicaB.close();
+    }
+
+    @Test
+    void testAppelsConcurrentsEtReponseIllisible() throws Exception {
+        RespSharedCacheTier tier = new RespSharedCacheTier(nodes(), 1000);
+        for (int i = 0; i < 20; i++) {
+            tier.put("k" + i, utf8("v" + i), 60_000);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(pool.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    int k = i % 20;
+                    if (!new String(tier.get("k" + k), StandardCharsets.UTF_8).equals("v" + k)) return false;
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get(), "Chaque réponse correspond à sa commande");
+        }
+        pool.shutdown();
+
+        // Longueur non numérique : traitée comme une erreur de connexion, sans exception
+        assertNull(tier.get(StandIn.MALFORMED));
+        tier.close();
+    }
+
+    @Test
+    void testProprietaireStableEtServeurInjoignable() throws IOException {
+        RespSharedCacheTier tier = new RespSharedCacheTier(nodes(), 200);
+        String owner = tier.ownerOf("abc.json");
+        assertEquals(owner, new RespSharedCacheTier(nodes(), 200).ownerOf("abc.json"));
+
+        first.close();
+        second.close();
+        // Serveurs arrêtés : le tier répond "absent" sans lever d'exception
+        assertNull(tier.get("abc.json"));
+        assertEquals(-1, tier.increment("compteur"));
+        tier.put("abc.json", utf8("[]"), 1000);
+        tier.close();
+    }
+
+    /**
+     * Serveur de substitution parlant le protocole Redis (GET, SET, INCR, DEL), en mémoire.
+     */
+    private static final class StandIn implements Closeable {
+        // Clé dont la lecture renvoie une réponse RESP illisible
+        static final String MALFORMED = "malformed";
+
+        private final ServerSocket server = new ServerSocket(0);
+        private final Map<String, byte[]> values = new ConcurrentHashMap<>();
+        private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+        StandIn() throws IOException {
+            Thread acceptor = new Thread(() -> {
+                while (!server.isClosed()) {
+                    try {
+                        Socket client = server.accept();
+                        clients.add(client);
+                        // Connexion acceptée pendant l'arrêt : un serveur arrêté ne répond plus
+                        if (server.isClosed()) {
+                            client.close();
+                            return;
+                        }
+                        Thread handler = new Thread(() -> serve(client));
+                        handler.setDaemon(true);
+                        handler.start();
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        private void serve(Socket client) {
+            try (client;
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+                 OutputStream out = new BufferedOutputStream(client.getOutputStream())) {
+                while (true) {
+                    if (in.read() != '*') return;
+                    byte[][] args = new byte[Integer.parseInt(readLine(in))][];
+                    for (int i = 0; i < args.length; i++) {
+                        in.read();
+                        args[i] = new byte[Integer.parseInt(readLine(in))];
+                        in.readFully(args[i]);
+                        readLine(in);
+                    }
+                    String command = new String(args[0], StandardCharsets.UTF_8);
+                    String key = new String(args[1], StandardCharsets.UTF_8);
+                    switch (command) {
+                        case "GET" -> {
+                            byte[] value = values.get(key);
+                            if (key.equals(MALFORMED)) {
+                                out.write("$abc\r\n".getBytes(StandardCharsets.UTF_8));
+                            } else if (value == null) {
+                                out.write("$-1\r\n".getBytes(StandardCharsets.UTF_8));
+                            } else {
+                                out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+                                out.write(value);
+                                out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+                            }
+                        }
+                        case "SET" -> {
+                            values.put(key, args[2]);
+                            out.write("+OK\r\n".getBytes(StandardCharsets.UTF_8));
+                        }
+                        case "INCR" -> {
+                            byte[] next = values.merge(key, "1".getBytes(StandardCharsets.UTF_8), (old, one) ->
+                                Long.toString(Long.parseLong(new String(old, StandardCharsets.UTF_8)) + 1)
+                                    .getBytes(StandardCharsets.UTF_8));
+                            out.write((":" + new String(next, StandardCharsets.UTF_8) + "\r\n").getBytes(StandardCharsets.UTF_8));
+                        }
+                        case "DEL" -> {
+                            out.write((":" + (values.remove(key) == null ? 0 : 1) + "\r\n").getBytes(StandardCharsets.UTF_8));
+                        }
+                        default -> out.write("-ERR unknown command\r\n".getBytes(StandardCharsets.UTF_8));
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // Client déconnecté
+            }
+        }
+
+        private static String readLine(DataInputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\r') {
+                if (c < 0) throw new EOFException();
+                line.append((char) c);
+            }
+            in.read();
+            return line.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package fr.insalyon.websem;
 
+import fr.insalyon.websem.model.Actor;
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.ResponseCacheService;
 import fr.insalyon.websem.service.SparqlCacheService;
+import fr.insalyon.websem.service.cache.SharedCacheTier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -51,4 +57,91 @@ class SparqlCacheServiceTest {
         cacheService.clearCache();
         assertNull(cacheService.getCachedResults(query));
     }
+
+    @Test
+    void testCacheTypeSansConversion() {
+        String query = "SELECT ?movie WHERE { ?movie a <Film> } # typed";
+        Movie movie = new Movie();
+        movie.setUri("http://dbpedia.org/resource/Inception");
+        movie.setTitle("Inception");
+        movie.setSubjects(List.of("Heist films"));
+        cacheService.cacheTyped(query, Movie.class, List.of(movie));
+
+        List<Movie> hit = cacheService.getCachedTyped(query, Movie.class);
+        assertSame(hit, cacheService.getCachedTyped(query, Movie.class), "Succès mémoire : même liste, aucune copie");
+        assertThrows(UnsupportedOperationException.class, () -> hit.add(new Movie()));
+        assertNull(cacheService.getCachedTyped(query, Actor.class), "Une clé par type d'élément");
+
+        // Un nouveau service relit le disque et désérialise directement en Movie
+        cacheService.flush();
+        List<Movie> fromDisk = new SparqlCacheService().getCachedTyped(query, Movie.class);
+        assertNotNull(fromDisk);
+        assertEquals(movie, fromDisk.get(0));
+
+        cacheService.clearCache();
+        assertNull(cacheService.getCachedTyped(query, Movie.class));
+    }
+
+    /**
+     * Tier partagé en mémoire, commun aux réplicas d'un test.
+     */
+    private static final class InMemoryTier implements SharedCacheTier {
+        private final Map<String, byte[]> values = new ConcurrentHashMap<>();
+
+        @Override
+        public byte[] get(String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public void put(String key, byte[] value, long ttlMillis) {
+            values.put(key, value);
+        }
+
+        @Override
+        public long increment(String key) {
+            byte[] next = values.merge(key, "1".getBytes(), (old, one) ->
+                Long.toString(Long.parseLong(new String(old)) + 1).getBytes());
+            return Long.parseLong(new String(next));
+        }
+
+        @Override
+        public void delete(String key) {
+            values.remove(key);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static SparqlCacheService replica(SharedCacheTier tier) {
+        SparqlCacheService replica = new SparqlCacheService();
+        ReflectionTestUtils.setField(replica, "sharedNearTtlSeconds", 0L);
+        replica.enableSharedTier(tier);
+        return replica;
+    }
+
+    @Test
+    void testVidageDUnAutreReplica() {
+        InMemoryTier tier = new InMemoryTier();
+        SparqlCacheService replicaA = replica(tier);
+        SparqlCacheService replicaB = replica(tier);
+        ResponseCacheService responsesA = new ResponseCacheService();
+        ReflectionTestUtils.setField(responsesA, "cacheService", replicaA);
+        responsesA.init();
+
+        String query = "SELECT * WHERE { ?s ?p ?o } # replicas";
+        replicaA.cacheResults(query, List.of(Map.of("title", "Test Film")));
+        responsesA.get("movies", () -> List.of("Test Film"));
+        assertNotNull(replicaA.getCachedResults(query));
+        assertEquals(1, responsesA.size());
+
+        // Le vidage fait sur B atteint aussi le tier mémoire et les réponses sérialisées de A
+        replicaB.clearCache();
+        assertNull(replicaA.getCachedResults(query));
+        assertEquals(0, responsesA.size());
+        replicaA.shutdown();
+        replicaB.shutdown();
+    }
 }
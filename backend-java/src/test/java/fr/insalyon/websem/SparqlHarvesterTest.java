@@ -0,0 +1,218 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.service.SparqlHarvester;
+import fr.insalyon.websem.service.SparqlHarvester.HarvestStats;
+import fr.insalyon.websem.service.SparqlHarvester.KeyRange;
+import fr.insalyon.websem.service.SparqlHarvester.KeysetFetcher;
+import fr.insalyon.websem.service.SparqlHarvester.PageFetcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparqlHarvesterTest {
+
+    private SparqlHarvester harvester;
+
+    @BeforeEach
+    void setUp() {
+        harvester = new SparqlHarvester(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        harvester.shutdown();
+    }
+
+    /**
+     * Simule une requête paginée sur une liste d'URI.
+     */
+    private static PageFetcher pagesOf(List<String> uris) {
+        return (offset, limit) -> {
+            List<Map<String, Object>> page = new ArrayList<>();
+            for (int i = offset; i < Math.min(uris.size(), offset + limit); i++) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("movie", uris.get(i));
+                page.add(row);
+            }
+            return page;
+        };
+    }
+
+    /**
+     * Simule une requête par clé (FILTER sur l'intervalle et le curseur, ORDER BY, LIMIT)
+     * sur une liste d'URI, sans OFFSET.
+     */
+    private static KeysetFetcher keysetOf(List<String> uris, List<String> afters) {
+        List<String> sorted = new ArrayList<>(new TreeSet<>(uris));
+        return (range, after, limit) -> {
+            synchronized (afters) {
+                afters.add(after);
+            }
+            List<Map<String, Object>> page = new ArrayList<>();
+            for (String uri : sorted) {
+                if (range.getFrom() != null && uri.compareTo(range.getFrom()) < 0) continue;
+                if (range.getTo() != null && uri.compareTo(range.getTo()) >= 0) continue;
+                if (after != null && uri.compareTo(after) <= 0) continue;
+                if (page.size() == limit) break;
+                page.add(new HashMap<>(Map.of("movie", uri)));
+            }
+            return page;
+        };
+    }
+
+    private static List<String> uris(String prefix, int count) {
+        List<String> uris = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            uris.add(String.format("%s%03d", prefix, i));
+        }
+        return uris;
+    }
+
+    @Test
+    void testLivraisonDansLOrdreDesPages() {
+        List<String> expected = uris("film", 95);
+        List<String> received = new ArrayList<>();
+
+        HarvestStats stats = harvester.harvest(pagesOf(expected), 10, 1000,
+                row -> (String) row.get("movie"), row -> received.add((String) row.get("movie")));
+
+        assertTrue(stats.isComplete());
+        assertEquals(expected, received, "Les lignes doivent arriver dans l'ordre des offsets");
+        assertEquals(95, stats.getRows());
+    }
+
+    @Test
+    void testDedoublonnageEntrePartitions() {
+        List<String> received = new ArrayList<>();
+        List<PageFetcher> partitions = List.of(
+                pagesOf(List.of("a", "b", "c")),
+                pagesOf(List.of("c", "d")),
+                pagesOf(List.of("a", "e")));
+
+        HarvestStats stats = harvester.harvest(partitions, 2, 100,
+                row -> (String) row.get("movie"), row -> received.add((String) row.get("movie")));
+
+        assertTrue(stats.isComplete());
+        assertEquals(Set.of("a", "b", "c", "d", "e"), new HashSet<>(received));
+        assertEquals(5, received.size());
+        assertEquals(2, stats.getDuplicates());
+    }
+
+    @Test
+    void testPlafondParPartition() {
+        List<String> received = new ArrayList<>();
+
+        HarvestStats stats = harvester.harvest(pagesOf(uris("film", 100)), 10, 25,
+                null, row -> received.add((String) row.get("movie")));
+
+        assertTrue(stats.isComplete());
+        assertEquals(25, received.size());
+    }
+
+    @Test
+    void testParallelismeBorne() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        PageFetcher slow = pagesOf(uris("film", 200));
+
+        PageFetcher fetcher = (offset, limit) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+                return slow.fetch(offset, limit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+
+        HarvestStats stats = harvester.harvest(List.of(fetcher, fetcher), 10, 1000, null, row -> { });
+
+        assertTrue(stats.isComplete());
+        assertTrue(maxRunning.get() <= harvester.getParallelism(),
+                "Pas plus de " + harvester.getParallelism() + " pages en vol (" + maxRunning.get() + ")");
+    }
+
+    @Test
+    void testPageEnEchecApresRelance() {
+        PageFetcher pages = pagesOf(uris("film", 50));
+        PageFetcher failing = (offset, limit) -> offset == 20 ? null : pages.fetch(offset, limit);
+
+        HarvestStats stats = harvester.harvest(failing, 10, 1000, null, row -> { });
+
+        assertFalse(stats.isComplete(), "Une page en échec doit rendre la moisson incomplète");
+        assertEquals(20, stats.getRows());
+    }
+
+    @Test
+    void testRelanceUnique() {
+        AtomicInteger calls = new AtomicInteger();
+        PageFetcher pages = pagesOf(uris("film", 30));
+        PageFetcher flaky = (offset, limit) -> {
+            if (offset == 10 && calls.getAndIncrement() == 0) {
+                throw new IllegalStateException("timeout");
+            }
+            return pages.fetch(offset, limit);
+        };
+
+        HarvestStats stats = harvester.harvest(flaky, 10, 1000, null, row -> { });
+
+        assertTrue(stats.isComplete(), "Un échec transitoire doit être rattrapé par la relance");
+        assertEquals(30, stats.getRows());
+    }
+
+    @Test
+    void testMoissonParCleSurDesIntervalles() {
+        List<String> expected = new ArrayList<>(uris("a", 23));
+        expected.addAll(uris("m", 40));
+        expected.addAll(uris("x", 7));
+        List<String> afters = new ArrayList<>();
+        List<String> received = new ArrayList<>();
+
+        HarvestStats stats = harvester.harvestByKeyset(keysetOf(expected, afters),
+                KeyRange.split(List.of("m", "x")), 10, 1000,
+                row -> (String) row.get("movie"), row -> (String) row.get("movie"),
+                row -> received.add((String) row.get("movie")));
+
+        assertTrue(stats.isComplete());
+        assertEquals(70, stats.getRows());
+        assertEquals(new HashSet<>(expected), new HashSet<>(received));
+        assertEquals(70, received.size(), "Chaque ligne est livrée une seule fois");
+        // Chaque page reprend après la dernière clé de la page précédente de son intervalle
+        assertTrue(afters.contains("a009") && afters.contains("a019") && afters.contains("m039"));
+        assertEquals(3, Collections.frequency(afters, null), "Une première page par intervalle");
+    }
+
+    @Test
+    void testMoissonParClePlafonneeEtCleBloquee() {
+        List<String> received = new ArrayList<>();
+        HarvestStats capped = harvester.harvestByKeyset(keysetOf(uris("film", 100), new ArrayList<>()),
+                KeyRange.split(List.of("film050")), 10, 25,
+                row -> (String) row.get("movie"), null, row -> received.add((String) row.get("movie")));
+
+        assertTrue(capped.isComplete());
+        assertEquals(25, received.size());
+
+        // Une clé de tri qui n'avance pas termine l'intervalle au lieu de relire la même page
+        AtomicInteger calls = new AtomicInteger();
+        KeysetFetcher stuck = (range, after, limit) -> {
+            calls.incrementAndGet();
+            List<Map<String, Object>> page = new ArrayList<>();
+            for (int i = 0; i < limit; i++) page.add(new HashMap<>(Map.of("movie", "same")));
+            return page;
+        };
+        HarvestStats stalled = harvester.harvestByKeyset(stuck, KeyRange.split(List.of()), 10, 1000,
+                row -> (String) row.get("movie"), row -> (String) row.get("movie"), row -> { });
+
+        assertTrue(stalled.isComplete());
+        assertEquals(2, calls.get());
+        assertEquals(1, stalled.getRows());
+    }
+}
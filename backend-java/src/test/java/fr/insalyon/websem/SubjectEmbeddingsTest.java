@@ -0,0 +1,108 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.index.MovieTextIndex;
+import fr.insalyon.websem.index.SubjectEmbeddings;
+import fr.insalyon.websem.index.SubjectIndex;
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.MovieCatalogService;
+import fr.insalyon.websem.service.MovieSimilarityService;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubjectEmbeddingsTest {
+
+    private static final String DBR = "http://dbpedia.org/resource/";
+
+    private static Movie movie(String name, List<String> subjects) {
+        Movie movie = new Movie();
+        movie.setUri(DBR + name);
+        movie.setTitle(name);
+        movie.setReleaseDate("2000");
+        movie.setSubjects(subjects);
+        return movie;
+    }
+
+    private static MovieCatalog randomCatalog(int films, int subjects, int dimensions) {
+        Random random = new Random(11);
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        builder.setEmbeddingDimensions(dimensions);
+        for (int f = 0; f < films; f++) {
+            List<String> labels = new ArrayList<>();
+            for (int k = 0; k < 6; k++) labels.add("Subject " + random.nextInt(subjects));
+            builder.add(movie(String.format("Film_%05d", f), labels));
+        }
+        return builder.build();
+    }
+
+    @Test
+    void testParcoursIdentiqueAuCalculNaif() {
+        // 37 dimensions : la fin de boucle hors déroulage est aussi exercée
+        MovieCatalog catalog = randomCatalog(500, 200, 37);
+        SubjectEmbeddings embeddings = catalog.getEmbeddings();
+        assertEquals(500L * 37 * 4, embeddings.memoryBytes());
+
+        float[] query = embeddings.vector(0);
+        MovieTextIndex.Hits hits = embeddings.nearest(query, 10, film -> film != 0);
+
+        List<float[]> expected = new ArrayList<>();
+        for (int film = 1; film < catalog.size(); film++) {
+            float[] vector = embeddings.vector(film);
+            double dot = 0;
+            for (int d = 0; d < vector.length; d++) dot += query[d] * vector[d];
+            expected.add(new float[]{film, (float) dot});
+        }
+        expected.sort((a, b) -> Float.compare(b[1], a[1]));
+
+        assertEquals(10, hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            assertEquals(expected.get(i)[1], hits.score(i), 1e-4, "Rang " + i);
+        }
+    }
+
+    @Test
+    void testCosinusDesEnsemblesDeSubjects() {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        builder.setEmbeddingDimensions(256);
+        builder.add(movie("A", List.of("Space", "Horror", "Aliens")));
+        builder.add(movie("B", List.of("Space", "Horror", "Aliens")));
+        builder.add(movie("C", List.of("Musical", "Dance", "Romance")));
+        MovieCatalog catalog = builder.build();
+        SubjectEmbeddings embeddings = catalog.getEmbeddings();
+
+        MovieTextIndex.Hits hits = embeddings.nearest(embeddings.vector(0), 2, film -> film != 0);
+        assertEquals(1, hits.doc(0));
+        assertEquals(1f, hits.score(0), 1e-4);
+
+        // Film hors catalogue projeté dans le même espace
+        SubjectIndex subjectIndex = catalog.getSubjectIndex();
+        float[] projected = embeddings.project(subjectIndex, subjectIndex.subjectIds(List.of("Aliens", "Horror", "Space")));
+        assertArrayEquals(embeddings.vector(0), projected, 1e-5f);
+        assertTrue(SubjectEmbeddings.empty().isEmpty());
+    }
+
+    @Test
+    void testSimilariteParPlongements() {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        builder.setEmbeddingDimensions(128);
+        builder.add(movie("Alien", List.of("American films", "Science fiction horror films", "Films set in space")));
+        builder.add(movie("Aliens", List.of("American films", "Science fiction horror films", "Films set in space")));
+        builder.add(movie("Grease", List.of("American films", "Musical films")));
+        builder.add(movie("Amelie", List.of("French films", "Romantic comedy films")));
+        MovieCatalog catalog = builder.build();
+
+        MovieCatalogService loaded = new MovieCatalogService();
+        loaded.install(catalog);
+        MovieSimilarityService similarityService = new MovieSimilarityService() {
+            {
+                catalogService = loaded;
+            }
+        };
+
+        List<Movie> similar = similarityService.getSimilarMovies(catalog.get(0), 1);
+        assertEquals(List.of("Aliens"), similar.stream().map(Movie::getTitle).toList());
+    }
+}
@@ -0,0 +1,126 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.index.SubjectIndex;
+import fr.insalyon.websem.index.SubjectIndex.Aggregation;
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.MovieCatalogService;
+import fr.insalyon.websem.service.MovieSimilarityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubjectIndexTest {
+
+    private static final String DBR = "http://dbpedia.org/resource/";
+
+    private MovieCatalog catalog;
+    private MovieSimilarityService similarityService;
+
+    private static Movie movie(String name, String year, String... subjects) {
+        Movie movie = new Movie();
+        movie.setUri(DBR + name);
+        movie.setTitle(name);
+        movie.setReleaseDate(year);
+        movie.setSubjects(List.of(subjects));
+        return movie;
+    }
+
+    @BeforeEach
+    void setUp() {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        builder.add(movie("Alien", "1979", "American films", "Science fiction horror films", "Films set in space"));
+        builder.add(movie("Aliens", "1986", "American films", "Science fiction horror films", "Films set in space"));
+        builder.add(movie("Gravity", "2013", "American films", "Films set in space"));
+        builder.add(movie("Grease", "1978", "American films", "Musical films"));
+        builder.add(movie("Heat", "1995", "American films", "Heist films"));
+        builder.add(movie("Amelie", "2001", "French films", "Romantic comedy films"));
+        builder.add(movie("Delicatessen", "1991", "French films", "Comedy films"));
+        catalog = builder.build();
+
+        MovieCatalogService loaded = new MovieCatalogService();
+        loaded.install(catalog);
+        similarityService = new MovieSimilarityService() {
+            {
+                catalogService = loaded;
+            }
+        };
+    }
+
+    private List<String> similarTitles(Movie target, int limit, Integer yearWindow) {
+        return similarityService.getSimilarMovies(target, limit, yearWindow).stream().map(Movie::getTitle).toList();
+    }
+
+    @Test
+    void testIdfEtListes() {
+        SubjectIndex index = catalog.getSubjectIndex();
+        int american = index.subjectId("american films");
+        int space = index.subjectId(" Films set in space ");
+
+        assertEquals(5, index.documentFrequency(american));
+        assertEquals(3, index.documentFrequency(space));
+        assertTrue(index.idf(space) > index.idf(american), "Un subject rare pèse plus lourd");
+        assertEquals(-1, index.subjectId("Western films"));
+    }
+
+    @Test
+    void testCandidatsToutesDecennies() {
+        Movie alien = catalog.get(catalog.ordinalOf(DBR + "Alien"));
+
+        // Aliens (1986) et Gravity (2013) sortent de la décennie d'Alien mais partagent des subjects rares
+        assertEquals(List.of("Aliens", "Gravity", "Grease", "Heat"), similarTitles(alien, 10, null));
+        assertFalse(similarTitles(alien, 10, null).contains("Amelie"), "Aucun subject commun");
+    }
+
+    @Test
+    void testFenetreDAnnees() {
+        Movie alien = catalog.get(catalog.ordinalOf(DBR + "Alien"));
+        assertEquals(List.of("Aliens", "Grease"), similarTitles(alien, 10, 10));
+    }
+
+    @Test
+    void testFilmHorsCatalogue() {
+        Movie target = movie("Solaris", "1972", "Films set in space", "Soviet films");
+        assertEquals(List.of("Gravity", "Alien", "Aliens"), similarTitles(target, 10, null));
+    }
+
+    private List<String> similarToMany(Aggregation aggregation, List<Double> weights, String... names) {
+        List<Movie> seeds = Arrays.stream(names).map(name -> catalog.get(catalog.ordinalOf(DBR + name))).toList();
+        return similarityService.getSimilarMovies(seeds, 10, aggregation, weights).stream().map(Movie::getTitle).toList();
+    }
+
+    @Test
+    void testPlusieursFilmsEnUnePasse() {
+        List<String> closest = similarToMany(Aggregation.MIN_DISTANCE, null, "Alien", "Amelie");
+        assertEquals("Aliens", closest.get(0));
+        assertTrue(closest.contains("Delicatessen"), "Union des candidats des deux films");
+        assertFalse(closest.contains("Alien") || closest.contains("Amelie"), "Les films de référence sont exclus");
+
+        List<String> mean = similarToMany(Aggregation.MEAN, null, "Alien", "Amelie");
+        assertEquals("Aliens", mean.get(0));
+        assertEquals(closest.size(), mean.size());
+    }
+
+    @Test
+    void testAgregationPonderee() {
+        assertEquals(List.of("Delicatessen"), similarToMany(Aggregation.WEIGHTED, List.of(0.0, 1.0), "Alien", "Amelie"),
+                "Un film de poids nul ne contribue pas");
+        assertEquals(Aggregation.WEIGHTED, Aggregation.parse(" Weighted "));
+        assertEquals(Aggregation.MIN_DISTANCE, Aggregation.parse(null));
+    }
+
+    @Test
+    void testFilmIntrouvableGardeLesPoids() {
+        Movie amelie = catalog.get(catalog.ordinalOf(DBR + "Amelie"));
+        List<Movie> seeds = Arrays.asList(null, amelie);
+        List<String> titles = similarityService.getSimilarMovies(seeds, 10, Aggregation.WEIGHTED, List.of(0.0, 1.0))
+                .stream().map(Movie::getTitle).toList();
+        // Le poids 1.0 reste attaché à Amelie malgré le film non résolu qui le précède
+        assertEquals(List.of("Delicatessen"), titles);
+        assertTrue(similarityService.getSimilarMovies(Arrays.asList(null, null), 10, Aggregation.MEAN, null).isEmpty());
+    }
+}
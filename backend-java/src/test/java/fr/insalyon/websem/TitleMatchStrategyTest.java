@@ -0,0 +1,48 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.service.fulltext.JenaTextTitleMatchStrategy;
+import fr.insalyon.websem.service.fulltext.RegexTitleMatchStrategy;
+import fr.insalyon.websem.service.fulltext.TitleMatchStrategy;
+import fr.insalyon.websem.service.fulltext.VirtuosoTitleMatchStrategy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TitleMatchStrategyTest {
+
+    @Test
+    void testAutoChoisitVirtuosoPourDBpedia() {
+        assertInstanceOf(VirtuosoTitleMatchStrategy.class,
+                TitleMatchStrategy.forBackend("auto", "https://dbpedia.org/sparql"));
+        assertInstanceOf(RegexTitleMatchStrategy.class,
+                TitleMatchStrategy.forBackend("auto", "http://localhost:3030/films/sparql"));
+        assertInstanceOf(JenaTextTitleMatchStrategy.class,
+                TitleMatchStrategy.forBackend("jena-text", "http://localhost:3030/films/sparql"));
+    }
+
+    @Test
+    void testRegex() {
+        String pattern = new RegexTitleMatchStrategy().titlePattern("Ocean's \"Eleven\"");
+        assertEquals("FILTER(REGEX(?titleLabel, \"Ocean\\'s \\\"Eleven\\\"\", \"i\"))", pattern);
+    }
+
+    @Test
+    void testVirtuosoBifContains() {
+        String pattern = new VirtuosoTitleMatchStrategy().titlePattern("The Matrix Reload");
+        assertEquals("?titleLabel bif:contains \"\\\"the\\\" AND \\\"matrix\\\" AND \\\"reload*\\\"\" .", pattern);
+
+        // Mot trop court pour un joker
+        assertEquals("?titleLabel bif:contains \"\\\"up\\\"\" .",
+                new VirtuosoTitleMatchStrategy().titlePattern("Up"));
+
+        // Aucun mot exploitable : retour à REGEX
+        assertTrue(new VirtuosoTitleMatchStrategy().titlePattern("?!").startsWith("FILTER(REGEX"));
+    }
+
+    @Test
+    void testJenaText() {
+        TitleMatchStrategy strategy = new JenaTextTitleMatchStrategy();
+        assertTrue(strategy.prefixes().contains("http://jena.apache.org/text#"));
+        assertEquals("?movie text:query (rdfs:label \"+star +war*\") .", strategy.titlePattern("Star: War"));
+    }
+}
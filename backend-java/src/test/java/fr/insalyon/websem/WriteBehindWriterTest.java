@@ -0,0 +1,73 @@
+package fr.insalyon.websem;
+
+import fr.insalyon.websem.service.cache.WriteBehindWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testEcrituresRegroupees() throws Exception {
+        // Délai long : seul flush() écrit
+        WriteBehindWriter writer = new WriteBehindWriter(dir, 100, 10, 60_000);
+        writer.write("a.json", utf8("[1]"));
+        writer.write("a.json", utf8("[2]"));
+        writer.write("b.json", utf8("[3]"));
+
+        assertFalse(Files.exists(dir.resolve("a.json")), "Rien n'est écrit dans le thread appelant");
+        assertArrayEquals(utf8("[2]"), writer.pending("a.json"));
+        assertEquals(1, writer.getCoalesced());
+
+        writer.flush();
+        assertEquals("[2]", Files.readString(dir.resolve("a.json")));
+        assertEquals("[3]", Files.readString(dir.resolve("b.json")));
+        assertEquals(2, writer.getWritten(), "Une seule écriture disque pour a.json");
+        assertEquals(0, writer.pendingCount());
+        assertFalse(Files.exists(dir.resolve("a.json.tmp")));
+        writer.shutdown();
+    }
+
+    @Test
+    void testContrePressionEtArret() throws Exception {
+        WriteBehindWriter writer = new WriteBehindWriter(dir, 5, 2, 60_000);
+        for (int i = 0; i < 10; i++) {
+            writer.write(i + ".json", utf8("[" + i + "]"));
+        }
+        assertTrue(writer.getCallerRuns() > 0, "File pleine : l'appelant écrit un lot");
+        assertTrue(writer.pendingCount() <= 6);
+
+        writer.shutdown();
+        for (int i = 0; i < 10; i++) {
+            assertEquals("[" + i + "]", Files.readString(dir.resolve(i + ".json")), "Tout est écrit à l'arrêt");
+        }
+    }
+
+    @Test
+    void testFichierInvalideNArretePasLEcriture() throws Exception {
+        WriteBehindWriter writer = new WriteBehindWriter(dir, 100, 1, 10);
+        // Nom refusé par le système de fichiers : InvalidPathException, non vérifiée
+        writer.write("bad\u0000.json", utf8("[0]"));
+        Thread.sleep(100);
+        writer.write("good.json", utf8("[1]"));
+
+        for (int i = 0; i < 100 && !Files.exists(dir.resolve("good.json")); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("[1]", Files.readString(dir.resolve("good.json")), "Le thread d'écriture tourne toujours");
+        assertNull(writer.pending("bad\u0000.json"));
+        writer.shutdown();
+    }
+}
@@ -0,0 +1,74 @@
+package fr.insalyon.websem.service;
+
+import fr.insalyon.websem.index.MovieCatalog;
+import fr.insalyon.websem.model.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangedFilmsTest {
+
+    private static final String DBR = "http://dbpedia.org/resource/";
+
+    @TempDir
+    Path cacheDir;
+
+    private SparqlCacheService cacheService;
+    private MovieCatalogService catalogService;
+
+    @BeforeEach
+    void setUp() {
+        cacheService = new SparqlCacheService(cacheDir);
+        catalogService = new MovieCatalogService();
+        ReflectionTestUtils.setField(catalogService, "cacheService", cacheService);
+        ReflectionTestUtils.setField(catalogService, "responseCache", new ResponseCacheService());
+    }
+
+    private static Movie movie(String name, String year) {
+        Movie movie = new Movie();
+        movie.setUri(DBR + name);
+        movie.setTitle(name);
+        movie.setReleaseDate(year);
+        movie.setSubjects(List.of("American films"));
+        return movie;
+    }
+
+    private static MovieCatalog catalog(Movie... movies) {
+        MovieCatalog.Builder builder = MovieCatalog.builder();
+        for (Movie movie : movies) builder.add(movie);
+        return builder.build();
+    }
+
+    @Test
+    void testFilmsAjoutesModifiesEtRetires() {
+        // Film inconnu au chargement précédent, mis en cache comme absent
+        cacheService.markAbsent("movies", DBR + "Gravity");
+
+        MovieCatalog previous = catalog(movie("Alien", "1979"), movie("Heat", "1995"), movie("Grease", "1978"));
+        MovieCatalog current = catalog(movie("Alien", "1979"), movie("Heat", "1996"), movie("Gravity", "2013"));
+
+        // Heat modifié, Grease retiré, Gravity ajouté
+        assertEquals(3, catalogService.invalidateChangedFilms(previous, current));
+        assertFalse(cacheService.isKnownAbsent("movies", DBR + "Gravity"), "Un film ajouté n'est plus servi comme absent");
+        assertEquals(0, catalogService.invalidateChangedFilms(current, current));
+    }
+
+    @Test
+    void testPremierChargement() {
+        cacheService.markAbsent("movies", DBR + "Alien");
+        String query = "SELECT ?movie WHERE { ?movie a dbo:Film } # premier chargement";
+        Movie alien = movie("Alien", "1979");
+        cacheService.cacheTyped("movies", query, Movie.class, List.of(alien));
+
+        // Rien n'est invalidé au démarrage, même pour les films présents dans le cache
+        assertEquals(0, catalogService.invalidateChangedFilms(MovieCatalog.empty(), catalog(alien, movie("Heat", "1995"))));
+        assertEquals(List.of(alien), cacheService.getCachedTyped("movies", query, Movie.class));
+        assertTrue(cacheService.isKnownAbsent("movies", DBR + "Alien"));
+    }
+}
@@ -0,0 +1,110 @@
+package fr.insalyon.websem.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import fr.insalyon.websem.model.Genre;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenreDistributionCacheTest {
+
+    private static final String DISTRIBUTION = """
+        {"head": {"vars": ["genre", "cleanGenre", "count"]},
+         "results": {"bindings": [{
+           "genre": {"type": "uri", "value": "http://dbpedia.org/resource/Drama_film"},
+           "cleanGenre": {"type": "literal", "value": "Drama"},
+           "count": {"type": "typed-literal", "datatype": "http://www.w3.org/2001/XMLSchema#integer", "value": "3"}}]}}
+        """;
+
+    private static final String GENRES = """
+        {"head": {"vars": ["genre", "genreLabel", "firstWord"]},
+         "results": {"bindings": [{
+           "genre": {"type": "uri", "value": "http://dbpedia.org/resource/Drama_film"},
+           "genreLabel": {"type": "literal", "xml:lang": "en", "value": "Drama film"},
+           "firstWord": {"type": "literal", "value": "Drama"}}]}}
+        """;
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer endpoint;
+    private final AtomicInteger distributionQueries = new AtomicInteger();
+    private volatile boolean genresFail;
+
+    private MovieExplorationSPARQLService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Endpoint SPARQL factice : la distribution répond toujours, la liste des genres peut échouer
+        endpoint = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        endpoint.createContext("/sparql", this::answer);
+        endpoint.start();
+
+        service = new MovieExplorationSPARQLService();
+        ReflectionTestUtils.setField(service, "cacheService", new SparqlCacheService(cacheDir));
+        ReflectionTestUtils.setField(service, "harvester", new SparqlHarvester(1));
+        ReflectionTestUtils.setField(service, "sparqlEndpoint",
+            "http://localhost:" + endpoint.getAddress().getPort() + "/sparql");
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.stop(0);
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        String request = exchange.getRequestURI().getRawQuery() + "&"
+            + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String query = URLDecoder.decode(request, StandardCharsets.UTF_8);
+
+        String body;
+        if (query.contains("?cleanGenre")) {
+            distributionQueries.incrementAndGet();
+            body = DISTRIBUTION;
+        } else if (genresFail) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        } else {
+            body = GENRES;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/sparql-results+json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Test
+    void testDistributionCompleteMiseEnCache() {
+        List<Genre> genres = service.getAllNormalizedGenresByYear("1999");
+        assertEquals(1, genres.size());
+        assertEquals(3, genres.get(0).getCount());
+
+        service.getAllNormalizedGenresByYear("1999");
+        assertEquals(1, distributionQueries.get(), "La seconde demande est servie par le cache");
+    }
+
+    @Test
+    void testListeDeGenresPartielleNonMiseEnCache() {
+        genresFail = true;
+        service.getAllNormalizedGenresByYear("1999");
+        service.getAllNormalizedGenresByYear("1999");
+        assertEquals(2, distributionQueries.get(), "Une distribution calculée sur une liste partielle n'est pas gardée");
+    }
+}
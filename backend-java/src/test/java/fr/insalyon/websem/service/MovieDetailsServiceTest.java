@@ -0,0 +1,130 @@
+package fr.insalyon.websem.service;
+
+import fr.insalyon.websem.dto.MovieDetailsResponse;
+import fr.insalyon.websem.model.Actor;
+import fr.insalyon.websem.model.Movie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieDetailsServiceTest {
+
+    private MovieDetailsService detailsService;
+    private volatile long similarDelayMs;
+    private volatile String requestedDirector;
+    private final CountDownLatch slowPartInterrupted = new CountDownLatch(1);
+
+    private static Movie movie(String title) {
+        Movie movie = new Movie();
+        movie.setUri("http://dbpedia.org/resource/" + title);
+        movie.setTitle(title);
+        return movie;
+    }
+
+    @BeforeEach
+    void setup() {
+        detailsService = new MovieDetailsService();
+        detailsService.partTimeoutMs = 500;
+
+        // Chaque partie simule une requête SPARQL de 200 ms
+        detailsService.sparqlService = new MovieExplorationSPARQLService() {
+            @Override
+            public Movie getMovieByUri(String uri) {
+                if (!uri.endsWith("Inception")) return null;
+                Movie inception = movie("Inception");
+                inception.setDirectorUri("http://dbpedia.org/resource/Christopher_Nolan, http://dbpedia.org/resource/Other");
+                return inception;
+            }
+
+            @Override
+            public List<Actor> getTopActorsByMovie(String movieUri) {
+                sleep(200);
+                Actor actor = new Actor();
+                actor.setActorName("Leonardo DiCaprio");
+                return List.of(actor);
+            }
+
+            @Override
+            public List<Movie> getRecentMoviesByDirector(String directorUri, int limit, Integer fromYear, Integer toYear) {
+                requestedDirector = directorUri;
+                sleep(200);
+                return List.of(movie("Oppenheimer"), movie("Tenet"), movie("Dunkirk")).subList(0, Math.min(3, limit));
+            }
+        };
+
+        // Catalogue vide : acteurs et filmographie repassent par le service SPARQL simulé
+        detailsService.catalogService = new MovieCatalogService();
+        detailsService.catalogService.sparqlService = detailsService.sparqlService;
+
+        detailsService.similarityService = new MovieSimilarityService() {
+            @Override
+            public List<Movie> getSimilarMovies(Movie targetMovie, int limit) {
+                sleep(similarDelayMs);
+                return List.of(movie("Interstellar"));
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        detailsService.shutdown();
+    }
+
+    private void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            slowPartInterrupted.countDown();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void testPartiesEnParallele() {
+        similarDelayMs = 200;
+        long start = System.currentTimeMillis();
+        MovieDetailsResponse details = detailsService.getDetails("http://dbpedia.org/resource/Inception", 2, 10);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals("Inception", details.getMovie().getTitle());
+        assertEquals(1, details.getTopActors().size());
+        assertEquals(2, details.getDirectorMovies().size(), "La filmographie doit être limitée");
+        assertEquals(1, details.getSimilarMovies().size());
+        assertTrue(details.getMissingParts().isEmpty());
+        assertEquals("http://dbpedia.org/resource/Christopher_Nolan", requestedDirector);
+        assertTrue(elapsed < 500, "Les trois parties de 200 ms doivent tourner en parallèle (" + elapsed + " ms)");
+    }
+
+    @Test
+    void testResultatPartielSurDepassement() {
+        similarDelayMs = 3000;
+        long start = System.currentTimeMillis();
+        MovieDetailsResponse details = detailsService.getDetails("http://dbpedia.org/resource/Inception", 10, 10);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(List.of(MovieDetailsService.PART_SIMILAR), details.getMissingParts());
+        assertTrue(details.getSimilarMovies().isEmpty());
+        assertEquals(3, details.getDirectorMovies().size());
+        assertTrue(elapsed < 1500, "La partie lente doit être abandonnée au bout du budget (" + elapsed + " ms)");
+    }
+
+    @Test
+    void testThreadLibereApresDepassement() throws InterruptedException {
+        similarDelayMs = 3000;
+        detailsService.getDetails("http://dbpedia.org/resource/Inception", 10, 10);
+
+        assertTrue(slowPartInterrupted.await(1, TimeUnit.SECONDS),
+                "Le thread de la partie abandonnée doit être interrompu, pas laissé à son calcul");
+    }
+
+    @Test
+    void testFilmIntrouvable() {
+        assertNull(detailsService.getDetails("http://dbpedia.org/resource/Unknown", 10, 10));
+    }
+}
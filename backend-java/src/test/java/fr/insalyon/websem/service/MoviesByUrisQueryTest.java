@@ -0,0 +1,84 @@
+package fr.insalyon.websem.service;
+
+import fr.insalyon.websem.model.Movie;
+import fr.insalyon.websem.service.year.ReleaseYearStrategy;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.sparql.syntax.ElementSubQuery;
+import org.apache.jena.sparql.syntax.ElementVisitorBase;
+import org.apache.jena.sparql.syntax.ElementWalker;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoviesByUrisQueryTest {
+
+    private static final List<String> URIS = List.of(
+            "http://dbpedia.org/resource/Inception",
+            "http://dbpedia.org/resource/Amélie");
+
+    private static String buildQuery(String yearMode) {
+        MovieExplorationSPARQLService service = new MovieExplorationSPARQLService();
+        ReflectionTestUtils.setField(service, "yearMode", yearMode);
+        return service.buildMoviesByUrisQuery(URIS);
+    }
+
+    @Test
+    void testRequeteGroupeeAnalysable() {
+        // Un préfixe manquant (dct:, xsd:...) ferait échouer l'analyse, donc toute recherche par URI
+        for (String mode : List.of(ReleaseYearStrategy.MODE_REGEX, ReleaseYearStrategy.MODE_MATERIALIZED)) {
+            String sparql = buildQuery(mode);
+            Query query = QueryFactory.create(sparql);
+            assertTrue(query.isSelectType(), mode);
+        }
+    }
+
+    @Test
+    void testSeulsLesFilmsSontRetenus() {
+        String sparql = buildQuery(ReleaseYearStrategy.MODE_REGEX);
+        assertTrue(sparql.contains("?movie a dbo:Film"), "Une URI qui n'est pas un film ne doit pas être hydratée");
+        assertTrue(sparql.contains("<http://dbpedia.org/resource/Amélie>"));
+    }
+
+    @Test
+    void testCacheParFilm() {
+        SparqlCacheService cacheService = new SparqlCacheService();
+        MovieExplorationSPARQLService service = new MovieExplorationSPARQLService();
+        ReflectionTestUtils.setField(service, "cacheService", cacheService);
+        // Endpoint injoignable : tout film renvoyé vient du cache
+        ReflectionTestUtils.setField(service, "sparqlEndpoint", "http://localhost:1/sparql");
+
+        Movie inception = new Movie();
+        inception.setUri(URIS.get(0));
+        inception.setTitle("Inception");
+        cacheService.cacheTyped("movies", MovieExplorationSPARQLService.movieCacheKey(URIS.get(0)), Movie.class,
+                List.of(inception));
+        cacheService.markAbsent("movies", URIS.get(1));
+
+        // Quel que soit le lot dans lequel l'URI arrive, le film est servi sans requête
+        assertEquals(List.of(inception), service.getMoviesByUris(URIS));
+        assertEquals(List.of(inception), service.getMoviesByUris(List.of(URIS.get(0))));
+        cacheService.invalidateResource(URIS.get(0));
+        cacheService.invalidateResource(URIS.get(1));
+    }
+
+    @Test
+    void testSubjectsProjetes() {
+        Query query = QueryFactory.create(buildQuery(ReleaseYearStrategy.MODE_REGEX));
+        assertTrue(query.getResultVars().contains("subjects"), "Sans subjects, la similarité de repli est nulle");
+
+        // ?subjectList doit être lié par la sous-requête d'agrégation des sujets
+        List<String> bound = new ArrayList<>();
+        ElementWalker.walk(query.getQueryPattern(), new ElementVisitorBase() {
+            @Override
+            public void visit(ElementSubQuery subQuery) {
+                bound.addAll(subQuery.getQuery().getResultVars());
+            }
+        });
+        assertTrue(bound.contains("subjectList"));
+    }
+}
@@ -0,0 +1,34 @@
+package fr.insalyon.websem.service;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalizedGenresQueryTest {
+
+    private final MovieExplorationSPARQLService service = new MovieExplorationSPARQLService();
+
+    @Test
+    void testPageParCleSansOffset() {
+        SparqlHarvester.KeyRange range = service.resourcePartitions().get(3);
+        String sparql = service.buildNormalizedGenresQuery(range, "http://dbpedia.org/resource/Drama_film", 1000);
+
+        Query query = QueryFactory.create(sparql);
+        assertTrue(query.isSelectType());
+        assertFalse(sparql.contains("OFFSET"), "Les pages de genres reprennent après la dernière clé");
+        assertTrue(sparql.contains("STR(?genre) >= \"" + range.getFrom() + "\""));
+        assertTrue(sparql.contains("STR(?genre) < \"" + range.getTo() + "\""));
+        assertTrue(sparql.contains("STR(?genre) > \"http://dbpedia.org/resource/Drama_film\""));
+    }
+
+    @Test
+    void testPremierePageSansCurseur() {
+        String sparql = service.buildNormalizedGenresQuery(service.resourcePartitions().get(0), null, 1000);
+
+        QueryFactory.create(sparql);
+        assertFalse(sparql.contains("STR(?genre) >= "), "Le premier intervalle n'a pas de borne basse");
+        assertFalse(sparql.contains("STR(?genre) > "));
+    }
+}
@@ -0,0 +1,58 @@
+package fr.insalyon.websem.service;
+
+import org.apache.jena.query.QueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testAllerRetour() {
+        PageCursor withYear = PageCursor.decode(new PageCursor(2010, "http://dbpedia.org/resource/Inception").encode());
+        assertEquals(2010, withYear.getYear());
+        assertEquals("http://dbpedia.org/resource/Inception", withYear.getUri());
+
+        // Sans année, et URI contenant le séparateur du curseur
+        PageCursor withoutYear = PageCursor.decode(new PageCursor(null, "http://dbpedia.org/resource/A|B_(film)").encode());
+        assertNull(withoutYear.getYear());
+        assertEquals("http://dbpedia.org/resource/A|B_(film)", withoutYear.getUri());
+
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(" "));
+    }
+
+    @Test
+    void testCurseurInvalide() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("pas du base64 !"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(encodeRaw("sans-separateur")));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(encodeRaw("2010|")));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(encodeRaw("abcd|http://dbpedia.org/resource/X")));
+    }
+
+    @Test
+    void testRequeteParCle() {
+        // Stratégie REGEX : le préfixe bif: de Virtuoso n'est pas connu de l'analyseur ARQ
+        MovieExplorationSPARQLService service = new MovieExplorationSPARQLService();
+        ReflectionTestUtils.setField(service, "fullTextMode", "regex");
+
+        String first = service.buildSearchMovieQuery("Inception", null, 20);
+        assertFalse(first.contains("STR(?movie) >"));
+        assertFalse(first.contains("OFFSET"));
+        QueryFactory.create(first);
+
+        String next = service.buildSearchMovieQuery("Inception",
+                new PageCursor(null, "http://dbpedia.org/resource/Say_\"Hi\""), 20);
+        assertTrue(next.contains("FILTER(STR(?movie) > \"http://dbpedia.org/resource/Say_\\\"Hi\\\"\")"), next);
+        assertTrue(next.contains("ORDER BY"));
+        QueryFactory.create(next);
+    }
+}
@@ -0,0 +1,46 @@
+package fr.insalyon.websem.service;
+
+import fr.insalyon.websem.service.year.ReleaseYearStrategy;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.modify.request.UpdateDataInsert;
+import org.apache.jena.update.UpdateFactory;
+import org.apache.jena.update.UpdateRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReleaseYearUpdateTest {
+
+    private static final Node RELEASE_YEAR = NodeFactory.createURI(ReleaseYearStrategy.RELEASE_YEAR);
+
+    private static Triple year(String uri, String year) {
+        return Triple.create(NodeFactory.createURI(uri), RELEASE_YEAR,
+                NodeFactory.createLiteral(year, XSDDatatype.XSDgYear));
+    }
+
+    @Test
+    void testInsertionAnalysable() {
+        UpdateRequest request = ReleaseYearStore.insertData(List.of(
+                year("http://dbpedia.org/resource/Amélie", "2001"),
+                year("http://dbpedia.org/resource/Se7en", "1995")));
+
+        // La requête envoyée se relit à l'identique : une seule insertion de deux triplets
+        UpdateRequest parsed = UpdateFactory.create(request.toString());
+        assertEquals(1, parsed.getOperations().size());
+        assertEquals(2, ((UpdateDataInsert) parsed.getOperations().get(0)).getQuads().size());
+    }
+
+    @Test
+    void testIriInvalideEcartee() {
+        assertTrue(ReleaseYearStore.isValidIri("http://dbpedia.org/resource/Amélie_(film)"));
+        // Une IRI qui fermerait le triplet pour enchaîner une autre opération n'est pas publiée
+        assertFalse(ReleaseYearStore.isValidIri("http://x/a> <http://p> \"1\" } ; DROP ALL ; INSERT DATA { <http://x/b"));
+        assertFalse(ReleaseYearStore.isValidIri("http://x/with space"));
+        assertFalse(ReleaseYearStore.isValidIri(null));
+    }
+}